@@ -0,0 +1,222 @@
+package com.javax0.logiqua;
+
+import java.time.Duration;
+
+/**
+ * The run-time budget of an evaluation.
+ * <p>
+ * The budget limits the number of the steps, the evaluated operation nodes and the loop iterations, and the wall-clock
+ * time of an evaluation. Each step decrements a counter, and the clock is read only once every
+ * {@value #CLOCK_PERIOD} steps, so the check is cheap. When the budget is exceeded, the step throws a
+ * {@link BudgetExceededException}, which aborts the evaluation.
+ * <p>
+ * The budget may also limit the memory of the lists the commands create, see {@link #memory(long, long)}. The commands
+ * creating lists charge the elements before adding them, see {@link #allocate(long)}, and the size of a list is
+ * estimated as {@value #ELEMENT_BYTES} bytes for each element. The estimate does not include the elements themselves,
+ * most of them are already in the data or in another list.
+ * <p>
+ * The budget also counts the steps and the elements used by the evaluation, and a budget created by
+ * {@link #unlimited()} can be used to measure an evaluation without limiting it.
+ * <p>
+ * A budget belongs to one evaluation. The executor of the evaluation returns it from {@link Executor#budget()}, and the
+ * executors created for the loops return the same instance. The budget is not thread safe. The parts of a loop
+ * evaluated in parallel each get their own budget calling {@link #part()}, which takes the steps from this budget
+ * {@value #CLOCK_PERIOD} at a time, charges the elements to this budget, and has the same deadline. The steps a part
+ * took but did not use are given back when it is {@link #release() released}, so the counts are exact after the
+ * parallel loop. The counts of a part itself are not meaningful.
+ */
+public final class Budget {
+    /**
+     * The number of the steps between two reads of the clock.
+     */
+    public static final int CLOCK_PERIOD = 1024;
+
+    /**
+     * The estimated number of the bytes a list uses for an element: the reference in the backing array and the spare
+     * capacity of the array.
+     */
+    public static final int ELEMENT_BYTES = 16;
+
+    private final long limit;
+    private final Duration time;
+    private final long deadline;
+    private final Budget parent;
+    private long remaining;
+    private int clock = CLOCK_PERIOD;
+    private long elementLimit = Long.MAX_VALUE;
+    private long byteLimit = Long.MAX_VALUE;
+    private long elements;
+
+    private Budget(long steps, Duration time) {
+        this.limit = steps;
+        this.time = time;
+        this.deadline = time == null ? 0 : System.nanoTime() + time.toNanos();
+        this.remaining = steps;
+        this.parent = null;
+    }
+
+    private Budget(Budget parent) {
+        this.limit = parent.limit;
+        this.time = parent.time;
+        this.deadline = parent.deadline;
+        this.remaining = 0;
+        this.parent = parent;
+    }
+
+    /**
+     * Create a budget starting now.
+     *
+     * @param steps the maximum number of the steps
+     * @param time  the maximum time of the evaluation from now
+     * @return the new budget
+     * @throws IllegalArgumentException if the steps or the time is not positive
+     */
+    public static Budget of(long steps, Duration time) {
+        if (steps < 1 || time.isNegative() || time.isZero()) {
+            throw new IllegalArgumentException("The steps and the time of the budget must be positive, got " + steps + " and " + time);
+        }
+        return new Budget(steps, time);
+    }
+
+    /**
+     * Create a budget that does not limit the evaluation, only counts the steps and the elements it uses.
+     *
+     * @return the new budget
+     */
+    public static Budget unlimited() {
+        return new Budget(Long.MAX_VALUE, null);
+    }
+
+    /**
+     * Limit the memory of the lists created by the evaluation.
+     *
+     * @param elements the maximum number of the elements of the lists
+     * @param bytes    the maximum estimated number of the bytes of the lists
+     * @return this budget to allow chaining
+     * @throws IllegalArgumentException if the elements or the bytes is not positive
+     */
+    public Budget memory(long elements, long bytes) {
+        if (elements < 1 || bytes < 1) {
+            throw new IllegalArgumentException("The elements and the bytes of the memory budget must be positive, got " + elements + " and " + bytes);
+        }
+        this.elementLimit = elements;
+        this.byteLimit = bytes;
+        return this;
+    }
+
+    /**
+     * Create the budget of a part of the evaluation running in another thread, for example a part of a parallel loop.
+     * <p>
+     * The part takes its steps from this budget when it needs them, and charges the elements to this budget. This
+     * budget must not be used by its own thread until the part is released, only by its parts.
+     *
+     * @return the budget of the part
+     */
+    public Budget part() {
+        return new Budget(this);
+    }
+
+    /**
+     * Give the steps the part took but did not use back to the budget the part was created from. The part must not be
+     * used after it is released. Releasing a budget that is not a part does nothing.
+     */
+    public void release() {
+        if (parent != null && remaining > 0) {
+            parent.giveBack(remaining);
+            remaining = 0;
+        }
+    }
+
+    private synchronized void giveBack(long steps) {
+        remaining += steps;
+    }
+
+    /**
+     * Take steps for a part.
+     *
+     * @return the number of the steps taken, less than asked, maybe zero, when there are not enough steps left
+     */
+    private synchronized long take(long steps) {
+        if (remaining <= 0 && parent != null) {
+            remaining = parent.take(Math.max(steps, CLOCK_PERIOD));
+        }
+        final var taken = Math.min(steps, Math.max(remaining, 0));
+        remaining -= taken;
+        return taken;
+    }
+
+    private synchronized void charge(long elements) {
+        allocate(elements);
+    }
+
+    /**
+     * Count a step.
+     *
+     * @throws BudgetExceededException if there are no more steps, or the deadline has passed
+     */
+    public void step() {
+        if (--remaining < 0) {
+            if (parent != null) {
+                // this step is the first of the steps taken
+                remaining = parent.take(CLOCK_PERIOD) - 1;
+            }
+            if (remaining < 0) {
+                throw new BudgetExceededException("The evaluation exceeded the budget of " + limit + " steps");
+            }
+        }
+        if (--clock <= 0) {
+            clock = CLOCK_PERIOD;
+            if (time != null && System.nanoTime() - deadline > 0) {
+                throw new BudgetExceededException("The evaluation exceeded the time budget of " + time);
+            }
+        }
+    }
+
+    /**
+     * Charge the elements a command is going to add to a list it creates.
+     *
+     * @param elements the number of the elements
+     * @throws BudgetExceededException if the elements or the estimated bytes of the lists exceed the memory budget
+     */
+    public void allocate(long elements) {
+        if (parent != null) {
+            parent.charge(elements);
+            return;
+        }
+        this.elements += elements;
+        if (this.elements > elementLimit) {
+            throw new BudgetExceededException("The evaluation exceeded the memory budget of " + elementLimit + " elements");
+        }
+        if (this.elements > byteLimit / ELEMENT_BYTES) {
+            throw new BudgetExceededException("The evaluation exceeded the memory budget of " + byteLimit + " bytes");
+        }
+    }
+
+    /**
+     * @return the number of the steps left, for a part the number of the steps it took and did not use yet
+     */
+    public long remaining() {
+        return Math.max(remaining, 0);
+    }
+
+    /**
+     * @return the number of the steps used so far
+     */
+    public long steps() {
+        return limit - remaining;
+    }
+
+    /**
+     * @return the number of the elements charged so far
+     */
+    public long elements() {
+        return elements;
+    }
+
+    /**
+     * @return the estimated number of the bytes of the lists created so far
+     */
+    public long bytes() {
+        return elements * ELEMENT_BYTES;
+    }
+}
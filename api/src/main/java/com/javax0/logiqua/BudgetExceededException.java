@@ -0,0 +1,10 @@
+package com.javax0.logiqua;
+
+/**
+ * Thrown when an evaluation exceeds its {@link Budget}: the number of steps, the deadline or the memory.
+ */
+public class BudgetExceededException extends RuntimeException {
+    public BudgetExceededException(String message) {
+        super(message);
+    }
+}
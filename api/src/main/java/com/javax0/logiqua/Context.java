@@ -123,6 +123,19 @@ public interface Context {
      */
     Value get(String key);
 
+    /**
+     * Get the value from the context associated with the parsed key.
+     * <p>
+     * The result must be the same as calling {@link #get(String)} with the key of the path. The default
+     * implementation does exactly that. Implementations can walk the parts of the path without parsing the key again.
+     *
+     * @param path the parsed key to look up
+     * @return the value associated with the key embedded in a Value, or null if not found.
+     */
+    default Value get(Path path) {
+        return get(path.key());
+    }
+
     /**
      * Returns a proxy that can be used to access the target object as a collection-like structure.
      * The returned proxy can be {@link MappedProxyFactory} or {@link IndexedProxyFactory}.
@@ -180,4 +193,36 @@ public interface Context {
      */
     Context sprout(Map<String, Object> data);
 
+    /**
+     * A frame is a local context holding the loop variables of a macro, like {@code current} and {@code accumulator}.
+     * <p>
+     * The variables of a frame are stored in slots, and they are identified by the index of the name in the array
+     * passed to {@link #frame(String...)}. The macro sets the values of the slots before evaluating its arguments.
+     * All the other values are looked up the same way as in a context created by {@link #sprout(Map)}.
+     */
+    interface Frame extends Context {
+        /**
+         * Set the value of a variable of the frame.
+         *
+         * @param slot  the index of the variable in the array of the names the frame was created with
+         * @param value the new value of the variable
+         */
+        void set(int slot, Object value);
+    }
+
+    /**
+     * Create a new frame for the given loop variables.
+     * <p>
+     * A frame works like a context created by {@link #sprout(Map)} that contains only the listed variables, but the
+     * values of the variables are set by their index. The default implementation sprouts a new context with a map.
+     * Implementations may store the variables in an array, so that the scripts compiled for the frame can read them
+     * without looking up the names.
+     *
+     * @param variables the names of the loop variables
+     * @return the new frame
+     */
+    default Frame frame(String... variables) {
+        return new MapFrame(this, variables);
+    }
+
 }
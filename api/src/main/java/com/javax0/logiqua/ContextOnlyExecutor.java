@@ -0,0 +1,51 @@
+package com.javax0.logiqua;
+
+import java.util.Optional;
+
+/**
+ * The executor the default implementation of {@link Script#evaluate(Context)} evaluates the script with. It only
+ * gives the context, it does not know any operation, the script has to hold its operations itself.
+ */
+final class ContextOnlyExecutor implements Executor {
+    private final Context context;
+    private int limit = 10_000_000;
+
+    ContextOnlyExecutor(Context context) {
+        this.context = context;
+    }
+
+    @Override
+    public void limit(int size) {
+        this.limit = size;
+    }
+
+    @Override
+    public int limit() {
+        return limit;
+    }
+
+    @Override
+    public Context getContext() {
+        return context;
+    }
+
+    @Override
+    public Optional<Operation> getOperation(String symbol) {
+        return Optional.empty();
+    }
+
+    @Override
+    public void updateOperation(Operation operation) {
+        throw new UnsupportedOperationException("The executor of the context has no operations to update");
+    }
+
+    @Override
+    public void registerOperation(Operation operation) {
+        throw new UnsupportedOperationException("The executor of the context has no operations to register");
+    }
+
+    @Override
+    public void registerOrUpdateOperation(Operation operation) {
+        throw new UnsupportedOperationException("The executor of the context has no operations to register");
+    }
+}
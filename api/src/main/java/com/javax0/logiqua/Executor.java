@@ -28,6 +28,42 @@ public interface Executor {
      */
     Context getContext();
 
+    /**
+     * The budget of the evaluation running with this executor. The executors created for the loops of the evaluation
+     * have to return the budget of the executor they were created from.
+     *
+     * @return the budget, or {@code null} if the evaluation is not limited
+     */
+    default Budget budget() {
+        return null;
+    }
+
+    /**
+     * Count a step of the evaluation, an evaluated operation node or a loop iteration, against the budget, if there is
+     * one.
+     *
+     * @throws BudgetExceededException if the budget is exceeded
+     */
+    default void step() {
+        final var budget = budget();
+        if (budget != null) {
+            budget.step();
+        }
+    }
+
+    /**
+     * Charge the elements a command is going to add to a list it creates against the budget, if there is one.
+     *
+     * @param elements the number of the elements
+     * @throws BudgetExceededException if the memory budget is exceeded
+     */
+    default void allocate(long elements) {
+        final var budget = budget();
+        if (budget != null) {
+            budget.allocate(elements);
+        }
+    }
+
     /**
      * Returns the {@link Operation} associated with the specified symbol.
      * <p>
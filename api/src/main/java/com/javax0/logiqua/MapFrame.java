@@ -0,0 +1,55 @@
+package com.javax0.logiqua;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The default implementation of the {@link Context.Frame}, which stores the variables in a map and delegates
+ * everything to a context sprouted from the parent with that map.
+ */
+final class MapFrame implements Context.Frame {
+    private final String[] variables;
+    private final Map<String, Object> map = new HashMap<>();
+    private final Context context;
+
+    MapFrame(Context parent, String[] variables) {
+        this.variables = variables;
+        this.context = parent.sprout(map);
+    }
+
+    @Override
+    public void set(int slot, Object value) {
+        map.put(variables[slot], value);
+    }
+
+    @Override
+    public Value get(String key) {
+        return context.get(key);
+    }
+
+    @Override
+    public Value get(Path path) {
+        return context.get(path);
+    }
+
+    @Override
+    public Proxy accessor(Object target) {
+        return context.accessor(target);
+    }
+
+    @Override
+    public <From, To> Optional<Caster<From, To>> caster(Class<From> from, Class<To> to) {
+        return context.caster(from, to);
+    }
+
+    @Override
+    public Context sprout(Map<String, Object> data) {
+        return context.sprout(data);
+    }
+
+    @Override
+    public Frame frame(String... variables) {
+        return context.frame(variables);
+    }
+}
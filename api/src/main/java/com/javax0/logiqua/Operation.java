@@ -17,6 +17,155 @@ public sealed interface Operation extends Named permits Operation.Function, Oper
         int[] NOT = new int[]{-1, -1};
     }
 
+    /**
+     * Annotate a function whose result depends only on its arguments.
+     * <p>
+     * A pure function does not read the data of the context, and it has no side effect, like printing or modifying its
+     * arguments. It may use the casters of the context to convert the arguments. When all the arguments of a call are
+     * constants, the engine calls the function when the script is built, and replaces the call with the result.
+     * If the call throws an exception, the call is kept, and the exception is thrown when the script is evaluated.
+     * <p>
+     * The annotation is not inherited, an operation extending a pure one has to be annotated again to be folded.
+     */
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface Pure {
+    }
+
+    /**
+     * Annotate a function whose result does not depend on the grouping of its arguments, so that {@code f(f(a, b), c)}
+     * is the same as {@code f(a, f(b, c))}.
+     * <p>
+     * A {@code reduce} whose loop body is the call of such a function on the current value and the accumulator may be
+     * evaluated in parallel, reducing the parts of the list separately and combining the partial results in the order
+     * of the list. A function may be associative only for some types of the arguments, for example {@code +}
+     * concatenates when the accumulator is a string: the parallel result is used only when the initial value and all
+     * the partial results are of the same, not floating point type, otherwise the list is reduced sequentially.
+     * <p>
+     * The annotation is not inherited.
+     */
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface Associative {
+    }
+
+    /**
+     * Annotate a function that can guard a rule, and that a rule set can index.
+     * <p>
+     * When the function is called with two arguments, the first being a string, and the second a string for
+     * {@link Kind#EQUAL}, or a list of strings for {@link Kind#MEMBER}, the function returns {@code true} if the first
+     * argument is equal to the second one, or to one of its elements, and {@code false} otherwise. {@link Kind#EQUAL}
+     * functions have to behave the same way when the arguments are swapped. The function may do anything when the
+     * arguments are not strings. A rule set evaluates only the rules whose guard may be true for the data, see
+     * {@code com.javax0.logiqua.scripts.RuleSet}.
+     * <p>
+     * The annotation is not inherited.
+     */
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface Guard {
+        Kind value();
+
+        enum Kind {
+            EQUAL, MEMBER
+        }
+    }
+
+    /**
+     * Annotate a function that returns a new list of its arguments, like the one building the JSON arrays. A call of
+     * it with constant arguments is a constant list for the analysis of the scripts, although it is evaluated every
+     * time.
+     * <p>
+     * The annotation is not inherited.
+     */
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface ListOf {
+    }
+
+    /**
+     * Annotate a macro that evaluates some of its arguments in a {@link Context.Frame} defining loop variables.
+     * <p>
+     * The engine uses this annotation when the script is built. The variables referenced in the listed arguments are
+     * resolved to the index of their slot in the frame, so that reading them at run time does not need a name lookup.
+     * The macro has to create the frame calling {@link Context#frame(String...)} with the same names in the same
+     * order, and it has to set all the slots before evaluating the arguments.
+     */
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface Scope {
+        /**
+         * @return the names of the loop variables in the order of their slots
+         */
+        String[] variables();
+
+        /**
+         * @return the indexes of the arguments evaluated in the frame
+         */
+        int[] arguments();
+    }
+
+    /**
+     * Annotate a function that returns the value of the variable named by its first argument, when the variable is
+     * defined in the context.
+     * <p>
+     * Inside the arguments of a {@link Scope} macro, the engine may replace the call of such a function with a direct
+     * read of the slot of the frame. When the variable is not found that way, the function is called as usual.
+     */
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface Variable {
+    }
+
+    /**
+     * Annotate a built-in operation whose semantics the engine knows.
+     * <p>
+     * The script compiler of the engine generates inline code for the calls of the arithmetic, comparison and logical
+     * operations, instead of calling them through the interface, and the engine may evaluate a chain of the loop
+     * macros in a single pass. The annotation is not inherited, an operation extending an annotated one is called as
+     * any other operation.
+     */
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface Intrinsic {
+        Kind value();
+
+        /**
+         * The kinds of the operations. Each kind names one operation of the {@code commands} module, and the
+         * compiled code has to give the same result as that operation.
+         */
+        enum Kind {
+            ADD, SUBTRACT, MULTIPLY, DIVIDE, REMAINDER,
+            LESS, LESS_OR_EQUAL, GREATER, GREATER_OR_EQUAL,
+            EQUAL, NOT_EQUAL,
+            IF, AND, OR,
+            MAP, FILTER, REDUCE, SOME, ALL, NONE
+        }
+    }
+
+    /**
+     * Annotate a logical operation, so that the optimizer of the engine can simplify its calls.
+     * <p>
+     * The optimizer relies on the following semantics, and an annotated operation has to follow them:
+     * <ul>
+     *     <li>{@link Kind#AND} and {@link Kind#OR} are macros evaluating their arguments from left to right, and
+     *     stopping at the first argument that is false ({@code and}) or true ({@code or}).</li>
+     *     <li>{@link Kind#IF} is a macro evaluating the conditions at the even positions from left to right, and
+     *     returning the value of the argument following the first true condition. When no condition is true, it
+     *     returns the value of the last argument if the number of the arguments is odd, and {@code null} otherwise.</li>
+     *     <li>{@link Kind#NOT} is a function returning the {@link Boolean} negation of its argument, and
+     *     {@link Kind#NOT_NOT} is a function returning its argument converted to {@link Boolean}.</li>
+     * </ul>
+     * The annotation is not inherited.
+     */
+    @Retention(RetentionPolicy.RUNTIME)
+    @interface Logical {
+        Kind value();
+
+        /**
+         * @return {@code true} if an {@link Kind#AND} or {@link Kind#OR} operation returns the value of the argument
+         * that decided the result, like in JsonLogic, and {@code false} if it returns a {@link Boolean}
+         */
+        boolean returnsArgument() default false;
+
+        enum Kind {
+            AND, OR, IF, NOT, NOT_NOT
+        }
+    }
+
     /**
      * An operation may optionally implement this method to specify the limits of the arguments.
      * The returned array must have two elements, the first one is the minimum number of arguments,
@@ -70,6 +219,37 @@ public sealed interface Operation extends Named permits Operation.Function, Oper
      */
     non-sealed interface Function extends Operation {
         Object evaluate(Executor executor, Object... args);
+
+        /**
+         * Provide a specialized implementation of the function called with two arguments of the given classes.
+         * <p>
+         * The engine calls this method when a function call node with two arguments is evaluated the first time. If
+         * the returned implementation is not {@code null}, the node uses it as long as the arguments have exactly the
+         * same classes, and it calls {@link #evaluate(Executor, Object...)} when other classes show up.
+         * <p>
+         * The specialized implementation must return the same result as {@link #evaluate(Executor, Object...)} for
+         * any non-null arguments of the given classes. It may assume that converting a value to its own class is the
+         * identity.
+         * <p>
+         * The default implementation returns {@code null}, the function is not specialized.
+         *
+         * @param left  the class of the first argument
+         * @param right the class of the second argument
+         * @return the specialized implementation, or {@code null} if there is none for the classes
+         */
+        default Binary specialize(Class<?> left, Class<?> right) {
+            return null;
+        }
+    }
+
+    /**
+     * The implementation of a function specialized for two arguments of known classes.
+     *
+     * @see Function#specialize(Class, Class)
+     */
+    @FunctionalInterface
+    interface Binary {
+        Object evaluate(Executor executor, Object left, Object right);
     }
 
     /**
@@ -0,0 +1,171 @@
+package com.javax0.logiqua;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A key parsed into the steps of the lookup.
+ * <p>
+ * A key can be structured, like {@code key.subkey} or {@code key[index]}. The parts of a structured key are the keys
+ * of the steps, without the separators and without the whitespace around the separators. The parts that are numbers
+ * are also parsed, so that a lookup in a list or an array does not need to parse the index again.
+ * <p>
+ * The scripts having a constant key create the path when the script is built. The keys calculated at run time are
+ * parsed using {@link #of(String)}, which keeps the recently used paths in a bounded cache.
+ */
+public final class Path {
+    /**
+     * The index value of a part that is not a valid index.
+     */
+    public static final int NOT_INDEX = -1;
+
+    private static final int CACHE_SIZE = 1024;
+    private static final Map<String, Path> CACHE = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Path> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private final String key;
+    private final boolean structured;
+    private final String[] parts;
+    private final int[] indexes;
+
+    private Path(String key, boolean structured, String[] parts) {
+        this.key = key;
+        this.structured = structured;
+        this.parts = parts;
+        this.indexes = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            indexes[i] = index(parts[i]);
+        }
+    }
+
+    /**
+     * Get the parsed path of the key from the cache, or parse it.
+     * <p>
+     * The cache is bounded. When it is full, the path used the least recently is dropped, so the keys used all the
+     * time stay in the cache. The cache is locked only to look up and to store the path, the key is parsed outside
+     * the lock, and if two threads parse the same key at the same time, the first path stored is returned to both.
+     *
+     * @param key the key to parse
+     * @return the parsed path
+     */
+    public static Path of(String key) {
+        synchronized (CACHE) {
+            final var cached = CACHE.get(key);
+            if (cached != null) {
+                return cached;
+            }
+        }
+        final var path = parse(key);
+        synchronized (CACHE) {
+            final var cached = CACHE.putIfAbsent(key, path);
+            return cached == null ? path : cached;
+        }
+    }
+
+    /**
+     * Parse the key without using the cache.
+     *
+     * @param key the key to parse
+     * @return the parsed path
+     */
+    public static Path parse(String key) {
+        if (!isStructured(key)) {
+            return new Path(key, false, new String[]{key});
+        }
+        final var parts = key.trim().split("\\s*[\\[.]\\s*", -1);
+        for (int i = 0; i < parts.length; i++) {
+            if (parts[i].endsWith("]")) {
+                parts[i] = parts[i].substring(0, parts[i].length() - 1);
+            }
+        }
+        return new Path(key, true, parts);
+    }
+
+    /**
+     * @param key the key to check
+     * @return {@code true} if the key contains a {@code .} or a {@code [} separator
+     */
+    public static boolean isStructured(String key) {
+        return key.indexOf('.') != -1 || key.indexOf('[') != -1;
+    }
+
+    /**
+     * Parse a part of a key as an index.
+     *
+     * @param part the part of the key
+     * @return the index, or {@link #NOT_INDEX} if the part is empty, is not a number, or it is too large
+     */
+    public static int index(String part) {
+        if (part.isEmpty()) {
+            return NOT_INDEX;
+        }
+        long value = 0;
+        for (int i = 0; i < part.length(); i++) {
+            final var c = part.charAt(i);
+            if (Character.isDigit(c)) {
+                value = value * 10 + Character.getNumericValue(c);
+                if (value > Integer.MAX_VALUE) {
+                    return NOT_INDEX;
+                }
+            } else {
+                return NOT_INDEX;
+            }
+        }
+        return (int) value;
+    }
+
+    /**
+     * @return the path without the first part. The returned path is structured, even if it has only one part.
+     */
+    public Path tail() {
+        final var tail = Arrays.copyOfRange(parts, 1, parts.length);
+        return new Path(String.join(".", tail), true, tail);
+    }
+
+    /**
+     * @return the original key
+     */
+    public String key() {
+        return key;
+    }
+
+    /**
+     * @return {@code true} if the key was structured. A key that is not structured has a single part, the key itself.
+     */
+    public boolean isStructured() {
+        return structured;
+    }
+
+    /**
+     * @return the number of the parts
+     */
+    public int size() {
+        return parts.length;
+    }
+
+    /**
+     * @param i the index of the part
+     * @return the part
+     */
+    public String part(int i) {
+        return parts[i];
+    }
+
+    /**
+     * @param i the index of the part
+     * @return the part parsed as an index, or {@link #NOT_INDEX}
+     */
+    public int index(int i) {
+        return indexes[i];
+    }
+
+    @Override
+    public String toString() {
+        return key;
+    }
+}
@@ -1,5 +1,7 @@
 package com.javax0.logiqua;
 
+import java.util.Map;
+
 /**
  * A Script object represents the AST of the calculation.
  * <p>
@@ -29,6 +31,36 @@ public interface Script {
      */
     Object evaluateUsing(Executor executor);
 
+    /**
+     * Evaluate the script against the given context instead of the one the script was compiled with.
+     * <p>
+     * A compiled script does not depend on the data. It can be evaluated any number of times against different
+     * contexts without compiling it again or creating a new engine.
+     * <p>
+     * The default implementation evaluates the script with an executor that gives only the context, and does not
+     * know any operation. The scripts built by an engine override it, and look up the operations in the engine.
+     *
+     * @param context the context holding the data for this evaluation
+     * @return the result of the evaluation
+     */
+    default Object evaluate(Context context) {
+        return evaluateUsing(new ContextOnlyExecutor(context));
+    }
+
+    /**
+     * Evaluate the script against the given data.
+     * <p>
+     * The data is wrapped into a context that shares the casters and the proxies of the context the script was
+     * compiled with, but it does not see the data of that context.
+     * <p>
+     * Only the script knows the context it was compiled with, therefore each implementation creates the context
+     * itself, for example the scripts built by an engine ask the engine.
+     *
+     * @param data the data for this evaluation
+     * @return the result of the evaluation
+     */
+    Object evaluate(Map<String, Object> data);
+
 
     /**
      * Converts this script into its JSON string representation.
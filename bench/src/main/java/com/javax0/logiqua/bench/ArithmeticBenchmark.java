@@ -0,0 +1,70 @@
+package com.javax0.logiqua.bench;
+
+import com.javax0.logiqua.commands.Multiply;
+import com.javax0.logiqua.commands.Operator;
+import com.javax0.logiqua.commands.Plus;
+import com.javax0.logiqua.engine.Engine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the arithmetic operators over {@code long} and {@code double} arguments.
+ * <p>
+ * The {@link #primitive()} benchmark uses the operator as it is registered in the engine, calculating in primitives.
+ * The {@link #boxed()} benchmark calculates with the same operator calling {@link Operator#evaluateBoxed}, boxing the
+ * result after every step. Run it with {@code -prof gc} to see the allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArithmeticBenchmark {
+
+    @Param({"+", "*"})
+    public String operator;
+
+    @Param({"2", "5", "50"})
+    public int size;
+
+    @Param({"long", "double"})
+    public String type;
+
+    private Engine engine;
+    private Operator calculator;
+    private Object[] args;
+
+    @Setup
+    public void setup() {
+        engine = Engine.withData(Map.of()).freeze();
+        final var isPlus = operator.equals("+");
+        calculator = isPlus ? new Plus() : new Multiply();
+        args = new Object[size];
+        for (int i = 0; i < size; i++) {
+            args[i] = type.equals("long") ? (Object) (long) (i + 1) : (Object) (i + 1.5);
+        }
+    }
+
+    @Benchmark
+    public Object primitive() {
+        return calculator.evaluate(engine, args);
+    }
+
+    @Benchmark
+    public Object boxed() {
+        return calculator.evaluateBoxed(engine, args);
+    }
+}
@@ -0,0 +1,75 @@
+package com.javax0.logiqua.bench;
+
+import com.javax0.logiqua.Script;
+import com.javax0.logiqua.engine.BatchEvaluator;
+import com.javax0.logiqua.engine.Engine;
+import com.javax0.logiqua.json.JsonLogiqua;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the evaluation of a rule over ten thousand records calling {@code evaluate} for each record and using a
+ * {@link BatchEvaluator}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BatchBenchmark {
+
+    private static final String RULE = """
+            {"and" : [
+                {">" : [{"var" : "amount"}, 100]},
+                {"==" : [{"var" : "country"}, "HU"]}
+            ]}
+            """;
+
+    @Param({"true", "false"})
+    public boolean batch;
+
+    private Script rule;
+    private BatchEvaluator evaluator;
+    private List<Map<String, Object>> records;
+    private Object[] results;
+
+    @Setup
+    public void setup() {
+        final var engine = Engine.withData(Map.of());
+        rule = new JsonLogiqua().with(engine).compile(RULE);
+        engine.freeze();
+        evaluator = BatchEvaluator.of(engine, rule);
+        records = new ArrayList<>();
+        for (long i = 0; i < 10_000; i++) {
+            records.add(Map.of("id", i, "amount", i % 200, "country", i % 3 == 0 ? "HU" : "DE"));
+        }
+        results = new Object[records.size()];
+    }
+
+    @Benchmark
+    public Object[] rule() {
+        if (batch) {
+            evaluator.evaluate(records, results);
+        } else {
+            for (int i = 0; i < records.size(); i++) {
+                results[i] = rule.evaluate(records.get(i));
+            }
+        }
+        return results;
+    }
+}
@@ -0,0 +1,56 @@
+package com.javax0.logiqua.bench;
+
+import com.javax0.logiqua.engine.MapContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the lookup of the casters and the proxies of a context.
+ * <p>
+ * The classes were already seen, so the lookups are served by the per class resolution cache. Run it with
+ * {@code -prof gc} to see that the lookups do not allocate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CasterLookupBenchmark {
+
+    private MapContext context;
+    private final Object data = new Object();
+
+    @Setup
+    public void setup() {
+        context = new MapContext(Map.of());
+        context.registerCaster(CharSequence.class, Long.class, s -> Long.parseLong(s.toString()));
+        context.freeze();
+    }
+
+    @Benchmark
+    public Object registeredCaster() {
+        return context.caster(StringBuilder.class, Long.class);
+    }
+
+    @Benchmark
+    public Object missingCaster() {
+        return context.caster(Long.class, Integer.class);
+    }
+
+    @Benchmark
+    public Object missingProxy() {
+        return context.accessor(data);
+    }
+}
@@ -0,0 +1,86 @@
+package com.javax0.logiqua.bench;
+
+import com.javax0.logiqua.Executor;
+import com.javax0.logiqua.Script;
+import com.javax0.logiqua.engine.Engine;
+import com.javax0.logiqua.json.JsonLogiqua;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the interpreter with the scripts compiled into generated classes.
+ * <p>
+ * The scripts are evaluated with an executor created once, so the benchmarks measure the evaluation without creating
+ * the context. {@link #arithmetic()} evaluates a rule calculating and comparing numbers, {@link #logic()} a rule of
+ * nested {@code if}, {@code and} and {@code or}, and {@link #calls()} a rule calling operations that are not compiled
+ * inline.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompilerBenchmark {
+
+    private static final String ARITHMETIC = """
+            {"<" : [{"+" : [{"*" : [{"var" : "a"}, 3, {"var" : "b"}]}, {"-" : [{"var" : "c"}, 7]}]},
+                    {"/" : [{"var" : "d"}, 2.5]}]}
+            """;
+    private static final String LOGIC = """
+            {"if" : [
+                {"and" : [{">" : [{"var" : "a"}, 1]}, {"<" : [{"var" : "b"}, 100]}, {"==" : [{"var" : "s"}, "x"]}]},
+                {"or" : [{"==" : [{"var" : "c"}, 0]}, {">=" : [{"var" : "c"}, {"var" : "a"}]}]},
+                {"!=" : [{"var" : "s"}, "y"]}
+            ]}
+            """;
+    private static final String CALLS = """
+            {"cat" : [{"substr" : [{"var" : "s"}, 0, 1]}, {"max" : [{"var" : "a"}, {"var" : "b"}]}, {"!" : [{"var" : "t"}]}]}
+            """;
+
+    @Param({"true", "false"})
+    public boolean compiling;
+
+    private Script arithmetic;
+    private Script logic;
+    private Script calls;
+    private Executor executor;
+
+    @Setup
+    public void setup() {
+        final var engine = Engine.withData(Map.of()).compiling(compiling);
+        final var logiqua = new JsonLogiqua().with(engine);
+        arithmetic = logiqua.compile(ARITHMETIC);
+        logic = logiqua.compile(LOGIC);
+        calls = logiqua.compile(CALLS);
+        engine.freeze();
+        executor = engine.executor(engine.contextFor(Map.of("a", 3L, "b", 12L, "c", 5L, "d", 100.0, "s", "x", "t", false)));
+    }
+
+    @Benchmark
+    public Object arithmetic() {
+        return arithmetic.evaluateUsing(executor);
+    }
+
+    @Benchmark
+    public Object logic() {
+        return logic.evaluateUsing(executor);
+    }
+
+    @Benchmark
+    public Object calls() {
+        return calls.evaluateUsing(executor);
+    }
+}
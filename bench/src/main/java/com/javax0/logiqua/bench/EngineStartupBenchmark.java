@@ -0,0 +1,83 @@
+package com.javax0.logiqua.bench;
+
+import com.javax0.logiqua.Operation;
+import com.javax0.logiqua.engine.Engine;
+import com.javax0.logiqua.engine.Registry;
+import com.javax0.logiqua.jsonlogic.CompiledRule;
+import com.javax0.logiqua.jsonlogic.JsonLogic;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the cost of creating an engine, and the throughput of the {@link JsonLogic#apply(String, Object)} call,
+ * which creates a new engine for every invocation.
+ * <p>
+ * The {@link #serviceLoaderScan()} benchmark is the baseline: it does what every engine creation did before the
+ * operations were loaded into a shared catalog, scanning the service loader and registering each operation.
+ * The {@link #compiledRuleApply()} and {@link #jsonLogicCachedApply()} benchmarks apply the same rule without
+ * compiling it again.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineStartupBenchmark {
+
+    private static final String RULE = """
+            {"and" : [
+                {">" : [{"var" : "age"}, 18]},
+                {"in" : [{"var" : "country"}, ["HU", "DE", "CH"]]},
+                {"<=" : [{"reduce" : [{"var" : "orders"}, {"+" : [{"var" : "current"}, {"var" : "accumulator"}]}, 0]}, 1000]}
+            ]}
+            """;
+
+    private final JsonLogic jsonLogic = new JsonLogic();
+    private final JsonLogic cachingJsonLogic = new JsonLogic(16);
+    private final CompiledRule compiledRule = jsonLogic.compile(RULE);
+    private final Map<String, Object> data = Map.of(
+            "age", 42L,
+            "country", "HU",
+            "orders", List.of(100L, 200L, 300L));
+
+    @Benchmark
+    public Registry serviceLoaderScan() {
+        final var registry = new Registry();
+        ServiceLoader.load(Operation.Function.class).forEach(registry::register);
+        ServiceLoader.load(Operation.Macro.class).forEach(registry::register);
+        return registry;
+    }
+
+    @Benchmark
+    public Engine engineCreation() {
+        return Engine.withData(Map.of());
+    }
+
+    @Benchmark
+    public Object jsonLogicApply() {
+        return jsonLogic.apply(RULE, data);
+    }
+
+    @Benchmark
+    public Object jsonLogicCachedApply() {
+        return cachingJsonLogic.apply(RULE, data);
+    }
+
+    @Benchmark
+    public Object compiledRuleApply() {
+        return compiledRule.apply(data);
+    }
+}
@@ -0,0 +1,77 @@
+package com.javax0.logiqua.bench;
+
+import com.javax0.logiqua.Script;
+import com.javax0.logiqua.engine.Engine;
+import com.javax0.logiqua.engine.EvaluationService;
+import com.javax0.logiqua.json.JsonLogiqua;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the throughput of the evaluation service evaluating batches of a thousand jobs with different concurrency
+ * limits. The numbers scale only up to the number of the cores of the machine.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluationServiceBenchmark {
+
+    private static final String RULE = """
+            {"reduce" : [
+                {"filter" : [{"var" : "orders"}, {">" : [{"var" : "amount"}, {"var" : "limit"}]}]},
+                {"+" : [{"var" : "accumulator"}, {"var" : "current.amount"}]},
+                0
+            ]}
+            """;
+
+    @Param({"1", "2", "4", "8", "16"})
+    public int concurrency;
+
+    private EvaluationService service;
+    private List<EvaluationService.Job> jobs;
+
+    @Setup
+    public void setup() {
+        final var engine = Engine.withData(Map.of());
+        final Script rule = new JsonLogiqua().with(engine).compile(RULE);
+        engine.freeze();
+        service = EvaluationService.of(engine, concurrency, Duration.ofSeconds(10));
+        final var orders = new ArrayList<Map<String, Object>>();
+        for (long i = 0; i < 200; i++) {
+            orders.add(Map.of("id", i, "amount", i % 50));
+        }
+        jobs = new ArrayList<>();
+        for (long i = 0; i < 1000; i++) {
+            jobs.add(service.job(rule, Map.of("orders", orders, "limit", i % 50)));
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        service.close();
+    }
+
+    @Benchmark
+    public Object batch() {
+        return service.evaluate(jobs);
+    }
+}
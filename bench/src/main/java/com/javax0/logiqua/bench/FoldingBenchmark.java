@@ -0,0 +1,59 @@
+package com.javax0.logiqua.bench;
+
+import com.javax0.logiqua.Executor;
+import com.javax0.logiqua.Script;
+import com.javax0.logiqua.engine.Engine;
+import com.javax0.logiqua.json.JsonLogiqua;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the evaluation of a rule with and without folding the calls of pure functions having constant arguments.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FoldingBenchmark {
+
+    private static final String RULE = """
+            {"and" : [
+                {"<" : [{"var" : "t"}, {"*" : [60, 60, 24]}]},
+                {"==" : [{"var" : "s"}, {"cat" : ["a", "b"]}]},
+                {"in" : [{"substr" : ["xyz", 1, 1]}, ["x", "y", "z"]]}
+            ]}
+            """;
+
+    @Param({"true", "false"})
+    public boolean folding;
+
+    private Script rule;
+    private Executor executor;
+
+    @Setup
+    public void setup() {
+        final var engine = Engine.withData(Map.of()).folding(folding);
+        rule = new JsonLogiqua().with(engine).compile(RULE);
+        engine.freeze();
+        executor = engine.executor(engine.contextFor(Map.of("t", 3600L, "s", "ab")));
+    }
+
+    @Benchmark
+    public Object rule() {
+        return rule.evaluateUsing(executor);
+    }
+}
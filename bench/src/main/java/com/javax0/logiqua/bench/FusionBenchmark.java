@@ -0,0 +1,68 @@
+package com.javax0.logiqua.bench;
+
+import com.javax0.logiqua.Executor;
+import com.javax0.logiqua.Script;
+import com.javax0.logiqua.engine.Engine;
+import com.javax0.logiqua.json.JsonLogiqua;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the evaluation of a {@code reduce} over a {@code filter} over a {@code map} with and without fusing the
+ * chain into a single pass.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FusionBenchmark {
+
+    private static final String RULE = """
+            {"reduce" : [
+                {"filter" : [
+                    {"map" : [{"var" : "orders"}, {"*" : [{"var" : "amount"}, 2]}]},
+                    {">" : [{"var" : ""}, 100]}
+                ]},
+                {"+" : [{"var" : "current"}, {"var" : "accumulator"}]},
+                0
+            ]}
+            """;
+
+    @Param({"true", "false"})
+    public boolean fusing;
+
+    private Script rule;
+    private Executor executor;
+
+    @Setup
+    public void setup() {
+        final var engine = Engine.withData(Map.of()).fusing(fusing);
+        rule = new JsonLogiqua().with(engine).compile(RULE);
+        engine.freeze();
+        final var orders = new ArrayList<Map<String, Object>>();
+        for (long i = 0; i < 100_000; i++) {
+            orders.add(Map.of("id", i, "amount", i % 200));
+        }
+        executor = engine.executor(engine.contextFor(Map.of("orders", orders)));
+    }
+
+    @Benchmark
+    public Object rule() {
+        return rule.evaluateUsing(executor);
+    }
+}
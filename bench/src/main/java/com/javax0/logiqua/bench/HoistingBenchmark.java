@@ -0,0 +1,65 @@
+package com.javax0.logiqua.bench;
+
+import com.javax0.logiqua.Executor;
+import com.javax0.logiqua.Script;
+import com.javax0.logiqua.engine.Engine;
+import com.javax0.logiqua.json.JsonLogiqua;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the evaluation of a filter with a condition having a part that does not depend on the loop with and without
+ * hoisting that part.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HoistingBenchmark {
+
+    private static final String RULE = """
+            {"filter" : [{"var" : "orders"},
+                {">" : [{"var" : "amount"}, {"*" : [{"var" : "customer.profile.threshold"}, 1.1]}]}
+            ]}
+            """;
+
+    @Param({"true", "false"})
+    public boolean hoisting;
+
+    private Script rule;
+    private Executor executor;
+
+    @Setup
+    public void setup() {
+        final var engine = Engine.withData(Map.of()).hoisting(hoisting);
+        rule = new JsonLogiqua().with(engine).compile(RULE);
+        engine.freeze();
+        final var orders = new ArrayList<Map<String, Object>>();
+        for (long i = 0; i < 10_000; i++) {
+            orders.add(Map.of("id", i, "amount", i % 200));
+        }
+        executor = engine.executor(engine.contextFor(Map.of(
+                "customer", Map.of("profile", Map.of("threshold", 100L)),
+                "orders", orders)));
+    }
+
+    @Benchmark
+    public Object rule() {
+        return rule.evaluateUsing(executor);
+    }
+}
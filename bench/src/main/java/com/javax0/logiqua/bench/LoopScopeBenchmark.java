@@ -0,0 +1,79 @@
+package com.javax0.logiqua.bench;
+
+import com.javax0.logiqua.Script;
+import com.javax0.logiqua.engine.Engine;
+import com.javax0.logiqua.engine.MapContext;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Measure the cost of creating the loop scopes.
+ * <p>
+ * The {@link #nestedLoops()} benchmark runs a {@code map} inside a {@code filter} over 100k items, creating a new
+ * loop scope for every item. Run it with the {@code -prof gc} option to see the allocation per operation. The
+ * {@link #sprout()} and {@link #newMapContext()} benchmarks compare the creation of a loop scope with the creation of
+ * a context that registers all the default casters, which is what every loop scope did before it shared the casters
+ * of its parent.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoopScopeBenchmark {
+
+    private static final int ITEMS = 100_000;
+
+    private final MapContext context = new MapContext(Map.of());
+    private final Map<String, Object> loopData = Map.of("current", 1L);
+    private Script script;
+    private Map<String, Object> data;
+
+    @Setup
+    public void setup() {
+        final var engine = Engine.withData(Map.of());
+        // items having a tag 1, found as 2 in the incremented tags
+        script = engine.getOp("filter").args(
+                engine.getOp("var").args("items"),
+                engine.getOp("in").args(2L,
+                        engine.getOp("map").args(
+                                engine.getOp("var").args("current.tags"),
+                                engine.getOp("+").args(engine.getOp("var").args("current"), 1L))));
+        engine.freeze();
+        final var items = LongStream.range(0, ITEMS)
+                .mapToObj(i -> Map.<String, Object>of("tags", List.of(i % 3, i % 5)))
+                .toList();
+        data = Map.of("items", items);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Object nestedLoops() {
+        return script.evaluate(data);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object sprout() {
+        return context.sprout(loopData);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object newMapContext() {
+        return new MapContext(loopData);
+    }
+}
@@ -0,0 +1,62 @@
+package com.javax0.logiqua.bench;
+
+import com.javax0.logiqua.Executor;
+import com.javax0.logiqua.Script;
+import com.javax0.logiqua.engine.Engine;
+import com.javax0.logiqua.json.JsonLogiqua;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the evaluation of a generated rule, full of constant conditions and nested logical operations, with and
+ * without optimizing it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OptimizerBenchmark {
+
+    private static final String RULE = """
+            {"and" : [
+                true,
+                {"and" : [{">" : [{"var" : "age"}, 18]}, true]},
+                {"or" : [false, {"and" : [true, {"==" : [{"var" : "country"}, "HU"]}]}, {"==" : [{"var" : "country"}, "DE"]}]},
+                {"if" : [true, {"!" : {"!" : {"<" : [{"var" : "age"}, 99]}}}, {"var" : "debug"}]}
+            ]}
+            """;
+
+    @Param({"true", "false"})
+    public boolean optimizing;
+
+    private Script rule;
+    private Executor executor;
+
+    @Setup
+    public void setup() {
+        final var engine = Engine.withData(Map.of());
+        final var script = new JsonLogiqua().with(engine).compile(RULE);
+        rule = optimizing ? engine.optimize(script).script() : script;
+        engine.freeze();
+        executor = engine.executor(engine.contextFor(Map.of("age", 42L, "country", "DE")));
+    }
+
+    @Benchmark
+    public Object rule() {
+        return rule.evaluateUsing(executor);
+    }
+}
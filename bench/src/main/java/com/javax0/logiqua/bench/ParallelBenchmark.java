@@ -0,0 +1,76 @@
+package com.javax0.logiqua.bench;
+
+import com.javax0.logiqua.Executor;
+import com.javax0.logiqua.Script;
+import com.javax0.logiqua.engine.Engine;
+import com.javax0.logiqua.json.JsonLogiqua;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure how the evaluation of a {@code map} and a {@code reduce} over a large list scales with the parallelism of the
+ * engine. The parallelism one is the sequential evaluation. The numbers are meaningful only up to the number of the
+ * cores of the machine.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParallelBenchmark {
+
+    private static final String MAP = """
+            {"map" : [{"var" : "orders"}, {"*" : [{"+" : [{"var" : "amount"}, {"var" : "tax"}]}, {"var" : "rate"}]}]}
+            """;
+
+    private static final String REDUCE = """
+            {"reduce" : [{"var" : "amounts"}, {"+" : [{"var" : "accumulator"}, {"var" : "current"}]}, 0]}
+            """;
+
+    @Param({"1", "4", "16", "64"})
+    public int parallelism;
+
+    private Script map;
+    private Script reduce;
+    private Executor executor;
+
+    @Setup
+    public void setup() {
+        final var engine = Engine.withData(Map.of()).parallel(10_000, parallelism);
+        final var json = new JsonLogiqua().with(engine);
+        map = json.compile(MAP);
+        reduce = json.compile(REDUCE);
+        engine.freeze();
+        final var orders = new ArrayList<Map<String, Object>>();
+        final var amounts = new ArrayList<Long>();
+        for (long i = 0; i < 1_000_000; i++) {
+            orders.add(Map.of("id", i, "amount", i % 200, "tax", i % 7));
+            amounts.add(i % 1000);
+        }
+        executor = engine.executor(engine.contextFor(Map.of("orders", orders, "amounts", amounts, "rate", 1.5)));
+    }
+
+    @Benchmark
+    public Object map() {
+        return map.evaluateUsing(executor);
+    }
+
+    @Benchmark
+    public Object reduce() {
+        return reduce.evaluateUsing(executor);
+    }
+}
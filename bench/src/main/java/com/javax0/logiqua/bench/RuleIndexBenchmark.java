@@ -0,0 +1,78 @@
+package com.javax0.logiqua.bench;
+
+import com.javax0.logiqua.Executor;
+import com.javax0.logiqua.Script;
+import com.javax0.logiqua.engine.Engine;
+import com.javax0.logiqua.json.JsonLogiqua;
+import com.javax0.logiqua.scripts.RuleSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the evaluation of ten thousand rules guarded by the type of the event or the country one by one and as an
+ * indexed rule set.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RuleIndexBenchmark {
+
+    private static final String TYPE_RULE = """
+            {"and" : [{"==" : [{"var" : "event.type"}, "T%d"]}, {">" : [{"var" : "event.amount"}, %d]}]}
+            """;
+    private static final String COUNTRY_RULE = """
+            {"and" : [{"in" : [{"var" : "event.country"}, ["C%d", "C%d"]]}, {"<" : [{"var" : "event.amount"}, %d]}]}
+            """;
+
+    @Param({"true", "false"})
+    public boolean indexed;
+
+    private List<Script> rules;
+    private RuleSet set;
+    private Executor executor;
+
+    @Setup
+    public void setup() {
+        final var engine = Engine.withData(Map.of());
+        final var json = new JsonLogiqua().with(engine);
+        rules = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            rules.add(json.compile(i % 2 == 0
+                    ? TYPE_RULE.formatted(i % 500, i)
+                    : COUNTRY_RULE.formatted(i % 50, i % 50 + 1, i)));
+        }
+        set = engine.ruleSet(rules);
+        engine.freeze();
+        executor = engine.executor(engine.contextFor(Map.of(
+                "event", Map.of("type", "T42", "country", "C7", "amount", 2500L))));
+    }
+
+    @Benchmark
+    public Object rules() {
+        if (indexed) {
+            return set.evaluateUsing(executor);
+        }
+        final var results = new ArrayList<>(rules.size());
+        for (final var rule : rules) {
+            results.add(rule.evaluateUsing(executor));
+        }
+        return results;
+    }
+}
@@ -0,0 +1,78 @@
+package com.javax0.logiqua.bench;
+
+import com.javax0.logiqua.Executor;
+import com.javax0.logiqua.Script;
+import com.javax0.logiqua.engine.Engine;
+import com.javax0.logiqua.json.JsonLogiqua;
+import com.javax0.logiqua.scripts.RuleSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the evaluation of two hundred rules testing the same variables one by one and as a rule set.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RuleSetBenchmark {
+
+    private static final String RULE = """
+            {"and" : [
+                {">" : [{"var" : "customer.score"}, %d]},
+                {"==" : [{"var" : "customer.country"}, "%s"]},
+                {"<" : [{"var" : "order.amount"}, %d]}
+            ]}
+            """;
+    private static final String[] COUNTRIES = {"HU", "DE", "CH", "AT"};
+
+    @Param({"true", "false"})
+    public boolean ruleSet;
+
+    private List<Script> rules;
+    private RuleSet set;
+    private Executor executor;
+
+    @Setup
+    public void setup() {
+        final var engine = Engine.withData(Map.of());
+        final var json = new JsonLogiqua().with(engine);
+        rules = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            rules.add(json.compile(RULE.formatted(100 * (i % 8), COUNTRIES[i % COUNTRIES.length], 1000 * (i % 5 + 1))));
+        }
+        set = engine.ruleSet(rules);
+        engine.freeze();
+        executor = engine.executor(engine.contextFor(Map.of(
+                "customer", Map.of("score", 650L, "country", "DE"),
+                "order", Map.of("amount", 2500L))));
+    }
+
+    @Benchmark
+    public Object rules() {
+        if (ruleSet) {
+            return set.evaluateUsing(executor);
+        }
+        final var results = new ArrayList<>(rules.size());
+        for (final var rule : rules) {
+            results.add(rule.evaluateUsing(executor));
+        }
+        return results;
+    }
+}
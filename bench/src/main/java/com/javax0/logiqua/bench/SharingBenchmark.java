@@ -0,0 +1,62 @@
+package com.javax0.logiqua.bench;
+
+import com.javax0.logiqua.Executor;
+import com.javax0.logiqua.Script;
+import com.javax0.logiqua.engine.Engine;
+import com.javax0.logiqua.json.JsonLogiqua;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare the evaluation of a rule referencing the same variable many times with and without sharing the repeated
+ * subexpressions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SharingBenchmark {
+
+    private static final String RULE = """
+            {"if" : [{">" : [{"var" : "customer.profile.score"}, 900]}, "platinum",
+            {"if" : [{">" : [{"var" : "customer.profile.score"}, 700]}, "gold",
+            {"if" : [{">" : [{"var" : "customer.profile.score"}, 500]}, "silver",
+            {"if" : [{">" : [{"var" : "customer.profile.score"}, 300]}, "bronze",
+            {"if" : [{"<" : [{"var" : "customer.profile.score"}, 0]}, "invalid", "none"]}
+            ]}]}]}]}
+            """;
+
+    @Param({"true", "false"})
+    public boolean sharing;
+
+    private Script rule;
+    private Executor executor;
+
+    @Setup
+    public void setup() {
+        final var engine = Engine.withData(Map.of());
+        final var script = new JsonLogiqua().with(engine).compile(RULE);
+        rule = sharing ? engine.share(script) : script;
+        engine.freeze();
+        executor = engine.executor(engine.contextFor(Map.of("customer", Map.of("profile", Map.of("score", 100L)))));
+    }
+
+    @Benchmark
+    public Object rule() {
+        return rule.evaluateUsing(executor);
+    }
+}
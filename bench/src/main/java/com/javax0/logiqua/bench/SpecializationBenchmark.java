@@ -0,0 +1,108 @@
+package com.javax0.logiqua.bench;
+
+import com.javax0.lex.LexicalAnalyzer;
+import com.javax0.lex.StringInput;
+import com.javax0.lex.TokenIterator;
+import com.javax0.lex.tokens.NewLine;
+import com.javax0.lex.tokens.Space;
+import com.javax0.logiqua.json.JsonReader;
+import com.javax0.logiqua.jsonlogic.CompiledRule;
+import com.javax0.logiqua.jsonlogic.JsonLogic;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compare the evaluation with and without the specialization of the function calls.
+ * <p>
+ * The {@link #testSuite(Blackhole)} benchmark applies all the rules of the JsonLogic compatibility test suite,
+ * compiled once, to their data. The file is read from the path given in the {@code suite} parameter, which is
+ * relative to the project root, where the benchmarks are started. The {@link #comparisons()} benchmark applies a
+ * single rule comparing and adding numbers and strings.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpecializationBenchmark {
+
+    private static final String RULE = """
+            {"and" : [
+                {"<" : [{"var" : "a"}, {"var" : "b"}]},
+                {"==" : [{"var" : "s"}, "x"]},
+                {">" : [{"+" : [{"var" : "d"}, 1.5]}, 2.0]},
+                {"<=" : [{"*" : [{"var" : "a"}, 3]}, {"var" : "b"}]}
+            ]}
+            """;
+
+    @Param({"true", "false"})
+    public boolean specializing;
+
+    @Param({"jsonlogic/src/test/resources/test.json"})
+    public String suite;
+
+    private final List<CompiledRule> rules = new ArrayList<>();
+    private final List<Object> data = new ArrayList<>();
+    private CompiledRule rule;
+    private final Map<String, Object> ruleData = Map.of("a", 3L, "b", 12L, "s", "x", "d", 1.0);
+
+    @Setup
+    public void setup() throws IOException {
+        final var jsonLogic = new JsonLogic().specializing(specializing);
+        final var lexer = new LexicalAnalyzer();
+        lexer.skip(NewLine.class);
+        lexer.skip(Space.class);
+        final var json = Files.readString(Path.of(suite), StandardCharsets.UTF_8);
+        final var tests = (List<?>) JsonReader.of(TokenIterator.over(lexer.analyse(StringInput.of(json)))).read();
+        for (final var test : tests) {
+            if (test instanceof List<?> list) {
+                rules.add(jsonLogic.compile(toJson(list.getFirst())));
+                data.add(list.get(1));
+            }
+        }
+        rule = jsonLogic.compile(RULE);
+    }
+
+    @Benchmark
+    public void testSuite(Blackhole blackhole) {
+        for (int i = 0; i < rules.size(); i++) {
+            blackhole.consume(rules.get(i).apply(data.get(i)));
+        }
+    }
+
+    @Benchmark
+    public Object comparisons() {
+        return rule.apply(ruleData);
+    }
+
+    private static String toJson(Object obj) {
+        return switch (obj) {
+            case null -> "null";
+            case String s -> "\"" + s + "\"";
+            case Map<?, ?> map -> "{" + map.entrySet().stream().map(e -> toJson(e.getKey()) + " : " + toJson(e.getValue())).collect(Collectors.joining(",")) + "}";
+            case List<?> list -> "[" + list.stream().map(SpecializationBenchmark::toJson).collect(Collectors.joining(",")) + "]";
+            default -> obj.toString();
+        };
+    }
+}
@@ -0,0 +1,55 @@
+package com.javax0.logiqua.bench;
+
+import com.javax0.logiqua.Script;
+import com.javax0.logiqua.engine.Engine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the lookup of a structured variable key.
+ * <p>
+ * The {@link #constantKey()} benchmark uses a key parsed when the script is built. The {@link #calculatedKey()}
+ * benchmark calculates the same key at run time, so the {@code var} function is called, and the key is parsed
+ * through the parsed path cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VariableLookupBenchmark {
+
+    private Script constant;
+    private Script calculated;
+
+    @Setup
+    public void setup() {
+        final var engine = Engine.withData(Map.of("order", Map.of("items", List.of(Map.of("price", 10L), Map.of("price", 20L)))));
+        constant = engine.getOp("var").args("order.items[1].price");
+        calculated = engine.getOp("var").args(engine.getOp("cat").args("order.items[1].price"));
+        engine.freeze();
+    }
+
+    @Benchmark
+    public Object constantKey() {
+        return constant.evaluate();
+    }
+
+    @Benchmark
+    public Object calculatedKey() {
+        return calculated.evaluate();
+    }
+}
@@ -0,0 +1,85 @@
+package com.javax0.logiqua.bench;
+
+import com.javax0.logiqua.Script;
+import com.javax0.logiqua.engine.BatchEvaluator;
+import com.javax0.logiqua.engine.ColumnarContext;
+import com.javax0.logiqua.engine.Engine;
+import com.javax0.logiqua.json.JsonLogiqua;
+import com.javax0.logiqua.scripts.VectorEvaluator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare selecting the rows of a million records a condition is true for using a {@link BatchEvaluator} over the
+ * records and using a {@link VectorEvaluator} over the same data in columns.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VectorBenchmark {
+    private static final int ROWS = 1_000_000;
+
+    private static final String RULE = """
+            {"and" : [
+                {">" : [{"var" : "amount"}, 100]},
+                {"==" : [{"var" : "status"}, "OK"]}
+            ]}
+            """;
+
+    @Param({"true", "false"})
+    public boolean vectorized;
+
+    private BatchEvaluator batch;
+    private VectorEvaluator vector;
+    private List<Map<String, Object>> records;
+    private ColumnarContext columns;
+    private Object[] results;
+    private long[] selection;
+
+    @Setup
+    public void setup() {
+        final var engine = Engine.withData(Map.of());
+        final var rule = new JsonLogiqua().with(engine).compile(RULE);
+        engine.freeze();
+        batch = BatchEvaluator.of(engine, rule);
+        vector = VectorEvaluator.of(engine, rule);
+        final var amounts = new long[ROWS];
+        final var statuses = new String[ROWS];
+        records = new ArrayList<>(ROWS);
+        for (int i = 0; i < ROWS; i++) {
+            amounts[i] = i % 200;
+            statuses[i] = i % 3 == 0 ? "OK" : "FAILED";
+            records.add(Map.of("amount", amounts[i], "status", statuses[i]));
+        }
+        columns = ColumnarContext.of(engine, ROWS).column("amount", amounts).column("status", statuses);
+        results = new Object[ROWS];
+        selection = new long[(ROWS + 63) / 64];
+    }
+
+    @Benchmark
+    public Object rule() {
+        if (vectorized) {
+            vector.select(columns, selection);
+            return selection;
+        }
+        batch.evaluate(records, results);
+        return results;
+    }
+}
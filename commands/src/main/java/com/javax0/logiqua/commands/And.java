@@ -8,13 +8,15 @@ import com.javax0.logiqua.commands.utils.Castor;
 
 @Named.Symbol("and")
 @Operation.Arity(min = 2)
+@Operation.Intrinsic(Operation.Intrinsic.Kind.AND)
+@Operation.Logical(Operation.Logical.Kind.AND)
 public class And implements Operation.Macro {
 
     @Override
     public Object evaluate(Executor executor, Script... args) {
         final var cast = new Castor(executor);
         for (final var arg : args) {
-            final var evaluated = arg.evaluate();
+            final var evaluated = arg.evaluateUsing(executor);
             final var term = cast.toBoolean(evaluated)
                     .orElseThrow(() -> new IllegalArgumentException("The arguments of the 'and' command must be a boolean expression."));
             if (!term) {
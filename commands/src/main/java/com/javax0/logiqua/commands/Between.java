@@ -40,6 +40,19 @@ import java.util.function.BiPredicate;
 abstract class Between implements Operation.Function {
     abstract BiPredicate<Comparable<?>, Comparable<?>> comparator();
 
+    /**
+     * Two arguments of the same class are compared directly, because the conversion of a value to its own class is the
+     * identity.
+     */
+    @Override
+    public Operation.Binary specialize(Class<?> left, Class<?> right) {
+        if (left != right || !Comparable.class.isAssignableFrom(left)) {
+            return null;
+        }
+        final var comparator = comparator();
+        return (executor, l, r) -> comparator.test((Comparable<?>) l, (Comparable<?>) r);
+    }
+
     @Override
     public Object evaluate(Executor executor, Object... args) {
         final var base = Context.classOf(args[0]);
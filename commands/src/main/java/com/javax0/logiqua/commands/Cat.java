@@ -6,6 +6,8 @@ import com.javax0.logiqua.commands.utils.Castor;
 
 @Operation.Symbol("cat")
 @Operation.Arity(min = 1)
+@Operation.Pure
+@Operation.Associative
 public class Cat implements Operation.Function {
     @Override
     public Object evaluate(Executor executor, Object... args) {
@@ -9,7 +9,9 @@ import java.math.RoundingMode;
 
 @Named.Symbol("/")
 @Operation.Arity(min = 2)
-public class Divide extends Operator {
+@Operation.Pure
+@Operation.Intrinsic(Operation.Intrinsic.Kind.DIVIDE)
+public class Divide extends Operator implements PrimitiveOperator {
     @Override
     protected Object unary(Object accumulator) {
         throw new IllegalArgumentException("Cannot divide a single number " + accumulator.getClass().getName());
@@ -70,4 +72,19 @@ public class Divide extends Operator {
                     throw new IllegalArgumentException("Cannot divide " + accumulator.getClass().getName() + " to " + arg.getClass().getName());
         };
     }
+
+    @Override
+    public long binaryLong(long accumulator, long arg) {
+        return accumulator / arg;
+    }
+
+    @Override
+    public double binaryDouble(double accumulator, double arg) {
+        return accumulator / arg;
+    }
+
+    @Override
+    public boolean isLongDefined(long accumulator, long arg) {
+        return arg != 0;
+    }
 }
@@ -7,8 +7,19 @@ import com.javax0.logiqua.Operation;
 import java.util.Objects;
 
 @Operation.Arity(min = 2)
+@Operation.Pure
 @Operation.Symbol("==")
+@Operation.Intrinsic(Operation.Intrinsic.Kind.EQUAL)
+@Operation.Guard(Operation.Guard.Kind.EQUAL)
 public class Equals implements Operation.Function {
+    @Override
+    public Operation.Binary specialize(Class<?> left, Class<?> right) {
+        if (left != right) {
+            return null;
+        }
+        return (executor, l, r) -> com.javax0.logiqua.commands.utils.Equals.equals(l, r);
+    }
+
     @Override
     public Object evaluate(Executor executor, Object... args) {
         final var base = args[0];
@@ -8,18 +8,20 @@ import com.javax0.logiqua.commands.utils.Castor;
 
 @Named.Symbol("if")
 @Operation.Arity(min = 2, max = 3)
+@Operation.Intrinsic(Operation.Intrinsic.Kind.IF)
+@Operation.Logical(Operation.Logical.Kind.IF)
 public class If implements Operation.Macro {
 
     @Override
     public Object evaluate(Executor executor, Script... args) {
         final var cast = new Castor(executor);
-        final var arg0 = args[0].evaluate();
+        final var arg0 = args[0].evaluateUsing(executor);
 
         if (cast.toBoolean(arg0)
                 .orElseThrow(() -> new IllegalArgumentException("The first argument of the 'if' command must be a boolean expression."))) {
-            return args[1].evaluate();
+            return args[1].evaluateUsing(executor);
         } else if (args.length > 2) {
-            return args[2].evaluate();
+            return args[2].evaluateUsing(executor);
         } else {
             return null;
         }
@@ -10,6 +10,8 @@ import java.util.Objects;
 
 @Named.Symbol("in")
 @Operation.Arity(min = 2, max = 2)
+@Operation.Pure
+@Operation.Guard(Operation.Guard.Kind.MEMBER)
 public class In implements Operation.Function {
 
     @Override
@@ -7,9 +7,11 @@ import java.util.ArrayList;
 import java.util.Arrays;
 
 @Operation.Symbol("it")
+@Operation.ListOf
 public class It implements Operation.Function {
     @Override
     public Object evaluate(Executor executor, Object... args) {
+        executor.allocate(args.length);
         final var it = new ArrayList<>(args.length);
         it.addAll(Arrays.asList(args));
         return it;
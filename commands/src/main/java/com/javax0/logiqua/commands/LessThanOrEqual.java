@@ -6,7 +6,9 @@ import com.javax0.logiqua.Operation;
 import java.util.function.BiPredicate;
 
 @Operation.Arity(min = 2)
+@Operation.Pure
 @Named.Symbol("<=")
+@Operation.Intrinsic(Operation.Intrinsic.Kind.LESS_OR_EQUAL)
 public class LessThanOrEqual extends Between {
     @Override
     BiPredicate<Comparable<?>, Comparable<?>> comparator() {
@@ -4,28 +4,30 @@ import com.javax0.logiqua.*;
 import com.javax0.logiqua.commands.utils.LocalExecutor;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Objects;
 
 @Named.Symbol("map")
 @Operation.Arity(min = 2, max = 2)
+@Operation.Scope(variables = {"current", ""}, arguments = 1)
+@Operation.Intrinsic(Operation.Intrinsic.Kind.MAP)
 public class Map implements Operation.Macro {
     @Override
     public Object evaluate(Executor executor, Script... args) {
-        final var list = Objects.requireNonNullElse(args[0].evaluate(),List.of());
+        final var list = Objects.requireNonNullElse(args[0].evaluateUsing(executor),List.of());
         final var accessor = executor.getContext().accessor(list);
         if (!(accessor instanceof Context.IndexedProxy inList)) {
             throw new IllegalArgumentException("The first argument of the map command must be a list.");
         }
         final var script = args[1];
+        executor.allocate(inList.size());
         final var outList = new ArrayList<>();
-        final var map = new HashMap<String, Object>();
-        final var loopExecutor = LocalExecutor.of(map, executor);
+        final var loopExecutor = LocalExecutor.frame(executor, "current", "");
         for (int i = 0; i < inList.size(); i++) {
+            loopExecutor.step();
             final var item = inList.get(i);
-            map.put("current", item.get());
-            map.put("", item.get());
+            loopExecutor.set(0, item.get());
+            loopExecutor.set(1, item.get());
             outList.add(script.evaluateUsing(loopExecutor));
         }
         return outList;
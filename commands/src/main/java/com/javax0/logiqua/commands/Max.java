@@ -6,6 +6,8 @@ import com.javax0.logiqua.Operation;
 import java.util.function.BiFunction;
 
 @Operation.Arity(min = 1)
+@Operation.Pure
+@Operation.Associative
 @Named.Symbol("max")
 public class Max extends SelectOne {
     @Override
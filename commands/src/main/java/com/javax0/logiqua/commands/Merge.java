@@ -16,8 +16,10 @@ public class Merge implements Operation.Function {
         for( final var arg : args ){
             final var accessor = executor.getContext().accessor(arg);
             if( !(accessor instanceof Context.IndexedProxy array) ){
+                executor.allocate(1);
                 outList.add(arg);
             }else{
+                executor.allocate(array.size());
                 for( int i = 0 ; i < array.size(); i++){
                     outList.add(array.get(i).get());
                 }
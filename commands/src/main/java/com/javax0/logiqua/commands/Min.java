@@ -6,6 +6,8 @@ import com.javax0.logiqua.Operation;
 import java.util.function.BiFunction;
 
 @Operation.Arity(min = 1)
+@Operation.Pure
+@Operation.Associative
 @Named.Symbol("min")
 public class Min extends SelectOne {
     @Override
@@ -8,7 +8,9 @@ import java.math.BigInteger;
 
 @Named.Symbol("-")
 @Operation.Arity(min = 1)
-public class Minus extends Operator {
+@Operation.Pure
+@Operation.Intrinsic(Operation.Intrinsic.Kind.SUBTRACT)
+public class Minus extends Operator implements PrimitiveOperator {
     @Override
     protected Object unary(Object accumulator) {
         return switch (accumulator){
@@ -41,4 +43,14 @@ public class Minus extends Operator {
                     throw new IllegalArgumentException("Cannot subtract " + accumulator.getClass().getName() + " to " + arg.getClass().getName());
         };
     }
+
+    @Override
+    public long binaryLong(long accumulator, long arg) {
+        return accumulator - arg;
+    }
+
+    @Override
+    public double binaryDouble(double accumulator, double arg) {
+        return accumulator - arg;
+    }
 }
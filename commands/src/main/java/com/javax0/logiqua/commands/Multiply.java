@@ -8,7 +8,10 @@ import java.math.BigInteger;
 
 @Named.Symbol("*")
 @Operation.Arity(min = 2)
-public class Multiply extends Operator {
+@Operation.Pure
+@Operation.Associative
+@Operation.Intrinsic(Operation.Intrinsic.Kind.MULTIPLY)
+public class Multiply extends Operator implements PrimitiveOperator {
     @Override
     protected Object unary(Object accumulator) {
         throw new IllegalArgumentException("Cannot multiply a single number " + accumulator.getClass().getName());
@@ -29,4 +32,14 @@ public class Multiply extends Operator {
                     throw new IllegalArgumentException("Cannot multiply " + accumulator.getClass().getName() + " to " + arg.getClass().getName());
         };
     }
+
+    @Override
+    public long binaryLong(long accumulator, long arg) {
+        return accumulator * arg;
+    }
+
+    @Override
+    public double binaryDouble(double accumulator, double arg) {
+        return accumulator * arg;
+    }
 }
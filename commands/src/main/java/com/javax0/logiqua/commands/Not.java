@@ -5,7 +5,9 @@ import com.javax0.logiqua.Operation;
 import com.javax0.logiqua.commands.utils.Castor;
 
 @Operation.Arity(min = 1, max = 1)
+@Operation.Pure
 @Operation.Symbol("!")
+@Operation.Logical(Operation.Logical.Kind.NOT)
 public class Not implements Operation.Function {
     @Override
     public Object evaluate(Executor executor, Object... args) {
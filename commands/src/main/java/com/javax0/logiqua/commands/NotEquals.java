@@ -8,8 +8,18 @@ import com.javax0.logiqua.commands.utils.Equals;
 import java.util.Objects;
 
 @Operation.Arity(min = 2)
+@Operation.Pure
 @Operation.Symbol("!=")
+@Operation.Intrinsic(Operation.Intrinsic.Kind.NOT_EQUAL)
 public class NotEquals implements Operation.Function {
+    @Override
+    public Operation.Binary specialize(Class<?> left, Class<?> right) {
+        if (left != right) {
+            return null;
+        }
+        return (executor, l, r) -> !Equals.equals(l, r);
+    }
+
     @Override
     public Object evaluate(Executor executor, Object... args) {
         final var base = args[0];
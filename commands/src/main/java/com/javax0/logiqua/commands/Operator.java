@@ -6,6 +6,12 @@ import com.javax0.logiqua.Operation;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 
+/**
+ * An arithmetic operator calculating its arguments from left to right, promoting the numeric types.
+ * <p>
+ * An operator also implementing {@link PrimitiveOperator} calculates the {@link Long} and {@link Double} arguments
+ * in primitives.
+ */
 public abstract class Operator implements Operation.Function {
     abstract protected Object unary(Object accumulator);
 
@@ -175,22 +181,118 @@ public abstract class Operator implements Operation.Function {
         return targetType.convert(value);
     }
 
+    /**
+     * Specialize the calculation of two {@link Long} or {@link Double} arguments for a {@link PrimitiveOperator}.
+     */
+    @Override
+    public Operation.Binary specialize(Class<?> left, Class<?> right) {
+        if (!(this instanceof PrimitiveOperator primitive)) {
+            return null;
+        }
+        if (left == Long.class && right == Long.class) {
+            return (executor, l, r) -> {
+                final long accumulator = (Long) l;
+                final long arg = (Long) r;
+                if (primitive.isLongDefined(accumulator, arg)) {
+                    return primitive.binaryLong(accumulator, arg);
+                }
+                return evaluate(executor, l, r);
+            };
+        }
+        if ((left == Long.class || left == Double.class) && (right == Long.class || right == Double.class)) {
+            return (executor, l, r) -> primitive.binaryDouble(((Number) l).doubleValue(), ((Number) r).doubleValue());
+        }
+        return null;
+    }
+
     @Override
     public Object evaluate(Executor executor, Object... args) {
-        var accumulator = args[0];
+        final var accumulator = first(executor, args);
+        if (args.length > 1 && this instanceof PrimitiveOperator primitive && (accumulator instanceof Long || accumulator instanceof Double)) {
+            return evaluatePrimitive(primitive, accumulator, args);
+        }
+        return evaluateBoxed(accumulator, args);
+    }
+
+    /**
+     * Calculate the operation with the boxed values, also for a {@link PrimitiveOperator}. The primitive calculation
+     * has to give the same results.
+     *
+     * @param executor the executor of the evaluation
+     * @param args     the arguments of the operation
+     * @return the result of the operation
+     */
+    public Object evaluateBoxed(Executor executor, Object... args) {
+        return evaluateBoxed(first(executor, args), args);
+    }
+
+    private Object evaluateBoxed(Object accumulator, Object[] args) {
+        if (args.length == 1) {
+            return unary(accumulator);
+        }
+        return evaluate(accumulator, NumericType.of(accumulator), 1, args);
+    }
+
+    /**
+     * @return the first argument, converted to a number if it is a string and there is a caster for it
+     */
+    private static Object first(Executor executor, Object[] args) {
+        final var accumulator = args[0];
         if (accumulator instanceof String string) {
             final var castResult = executor.getContext().caster(String.class, Number.class)
                     .map(c -> c.cast(string));
             if (castResult.isPresent()) {
-                accumulator = castResult.get();
+                return castResult.get();
             }
         }
-        if (args.length == 1) {
-            return unary(accumulator);
-        }
+        return accumulator;
+    }
 
-        var accumulatorType = NumericType.of(accumulator);
+    /**
+     * Calculate the result in primitives as long as the arguments are {@link Long} or {@link Double} values.
+     * The promotion is the same as in {@link #evaluate(Object, NumericType, int, Object[])}: the calculation is done
+     * in {@code long} until the first {@link Double} argument, and in {@code double} after it.
+     * When an argument is of any other type, or the {@code long} operation is not defined for the values, the
+     * calculation continues from that argument with the boxed values.
+     */
+    private Object evaluatePrimitive(PrimitiveOperator primitive, Object first, Object[] args) {
+        boolean isLong = first instanceof Long;
+        long longAccumulator = isLong ? (Long) first : 0L;
+        double doubleAccumulator = isLong ? 0.0 : (Double) first;
         for (int i = 1; i < args.length; i++) {
+            final var arg = args[i];
+            if (arg instanceof Long value) {
+                if (!isLong) {
+                    doubleAccumulator = primitive.binaryDouble(doubleAccumulator, value);
+                } else if (primitive.isLongDefined(longAccumulator, value)) {
+                    longAccumulator = primitive.binaryLong(longAccumulator, value);
+                } else {
+                    return evaluate(longAccumulator, NumericType.LONG, i, args);
+                }
+            } else if (arg instanceof Double value) {
+                if (isLong) {
+                    doubleAccumulator = longAccumulator;
+                    isLong = false;
+                }
+                doubleAccumulator = primitive.binaryDouble(doubleAccumulator, value);
+            } else {
+                return isLong
+                        ? evaluate(longAccumulator, NumericType.LONG, i, args)
+                        : evaluate(doubleAccumulator, NumericType.DOUBLE, i, args);
+            }
+        }
+        // not a conditional expression, which would promote the long result to double
+        if (isLong) {
+            return longAccumulator;
+        }
+        return doubleAccumulator;
+    }
+
+    /**
+     * Calculate the result with the boxed values, starting with the argument at the index {@code from}.
+     */
+    private Object evaluate(Object accumulator, NumericType accumulatorType, int from, Object[] args) {
+        for (int i = from; i < args.length; i++) {
             final var arg = args[i];
             final Object convertedArg;
             final var argType = NumericType.of(arg);
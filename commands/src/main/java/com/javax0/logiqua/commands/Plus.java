@@ -8,7 +8,10 @@ import java.math.BigInteger;
 
 @Named.Symbol("+")
 @Operation.Arity(min = 1)
-public class Plus extends Operator {
+@Operation.Pure
+@Operation.Associative
+@Operation.Intrinsic(Operation.Intrinsic.Kind.ADD)
+public class Plus extends Operator implements PrimitiveOperator {
     @Override
     protected Object unary(Object accumulator) {
         if (accumulator instanceof String s) {
@@ -41,4 +44,14 @@ public class Plus extends Operator {
                     throw new IllegalArgumentException("Cannot add " + accumulator.getClass().getName() + " to " + arg.getClass().getName());
         };
     }
+
+    @Override
+    public long binaryLong(long accumulator, long arg) {
+        return accumulator + arg;
+    }
+
+    @Override
+    public double binaryDouble(double accumulator, double arg) {
+        return accumulator + arg;
+    }
 }
@@ -0,0 +1,42 @@
+package com.javax0.logiqua.commands;
+
+/**
+ * An {@link Operator} that can calculate its operation in primitives.
+ * <p>
+ * The arguments that are {@link Long} or {@link Double} are calculated in primitives, and only the final result is
+ * boxed. The results must be the same as the ones {@link Operator#evaluateBoxed(com.javax0.logiqua.Executor, Object...)}
+ * calculates for the boxed values.
+ */
+public interface PrimitiveOperator {
+
+    /**
+     * Calculate the operation for two {@code long} values.
+     * It is called only when {@link #isLongDefined(long, long)} is {@code true} for the values.
+     *
+     * @param accumulator the accumulated value
+     * @param arg         the next argument
+     * @return the result of the operation
+     */
+    long binaryLong(long accumulator, long arg);
+
+    /**
+     * Calculate the operation for two {@code double} values.
+     *
+     * @param accumulator the accumulated value
+     * @param arg         the next argument
+     * @return the result of the operation
+     */
+    double binaryDouble(double accumulator, double arg);
+
+    /**
+     * Tell if the result of the operation on two {@code long} values is a {@code long}.
+     * When it is not, for example when dividing by zero, the calculation continues with the boxed values.
+     *
+     * @param accumulator the accumulated value
+     * @param arg         the next argument
+     * @return {@code true} if {@link #binaryLong(long, long)} can calculate the result
+     */
+    default boolean isLongDefined(long accumulator, long arg) {
+        return true;
+    }
+}
@@ -8,7 +8,9 @@ import java.math.BigInteger;
 
 @Named.Symbol("%")
 @Operation.Arity(min = 2)
-public class Remainder extends Operator {
+@Operation.Pure
+@Operation.Intrinsic(Operation.Intrinsic.Kind.REMAINDER)
+public class Remainder extends Operator implements PrimitiveOperator {
     @Override
     protected Object unary(Object accumulator) {
         throw new IllegalArgumentException("Cannot calculate the remainder of a single number " + accumulator.getClass().getName());
@@ -61,4 +63,19 @@ public class Remainder extends Operator {
             throw new IllegalArgumentException("Internal error calculating " + accumulator.getClass().getName() + " % " + arg.getClass().getName(), cce);
         }
     }
+
+    @Override
+    public long binaryLong(long accumulator, long arg) {
+        return accumulator % arg;
+    }
+
+    @Override
+    public double binaryDouble(double accumulator, double arg) {
+        return accumulator % arg;
+    }
+
+    @Override
+    public boolean isLongDefined(long accumulator, long arg) {
+        return arg != 0;
+    }
 }
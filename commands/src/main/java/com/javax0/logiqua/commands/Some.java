@@ -4,25 +4,25 @@ import com.javax0.logiqua.*;
 import com.javax0.logiqua.commands.utils.Castor;
 import com.javax0.logiqua.commands.utils.LocalExecutor;
 
-import java.util.HashMap;
-
 @Named.Symbol("some")
 @Operation.Arity(min = 2, max = 2)
+@Operation.Scope(variables = {"current", ""}, arguments = 1)
+@Operation.Intrinsic(Operation.Intrinsic.Kind.SOME)
 public class Some implements Operation.Macro {
     @Override
     public Object evaluate(Executor executor, Script... args) {
-        final var accessor = executor.getContext().accessor(args[0].evaluate());
+        final var accessor = executor.getContext().accessor(args[0].evaluateUsing(executor));
         if (!(accessor instanceof Context.IndexedProxy inList)) {
             throw new IllegalArgumentException("The first argument of the 'some' command must be a list.");
         }
         final var script = args[1];
-        final var map = new HashMap<String, Object>();
-        final var loopExecutor = LocalExecutor.of(map, executor);
+        final var loopExecutor = LocalExecutor.frame(executor, "current", "");
         final var cast = new Castor(loopExecutor);
         for (int i = 0; i < inList.size(); i++) {
+            loopExecutor.step();
             final var item = inList.get(i);
-            map.put("current", item.get());
-            map.put("", item.get());
+            loopExecutor.set(0, item.get());
+            loopExecutor.set(1, item.get());
             final var filtered = script.evaluateUsing(loopExecutor);
             if (cast.toBoolean(filtered)
                     .orElseThrow(() -> new IllegalArgumentException("The all script must return a boolean value."))) {
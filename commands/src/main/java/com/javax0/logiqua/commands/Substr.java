@@ -7,6 +7,7 @@ import com.javax0.logiqua.commands.utils.Castor;
 
 @Named.Symbol("substr")
 @Operation.Arity(min = 2, max = 3)
+@Operation.Pure
 public class Substr implements Operation.Function {
     @Override
     public Object evaluate(Executor executor, Object... args) {
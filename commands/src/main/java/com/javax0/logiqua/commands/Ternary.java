@@ -7,6 +7,7 @@ import com.javax0.logiqua.Script;
 
 @Named.Symbol("?:")
 @Operation.Arity(min = 2, max = 3)
+@Operation.Logical(Operation.Logical.Kind.IF)
 public class Ternary implements Operation.Macro {
 
     private final If delegate = new If();
@@ -7,6 +7,7 @@ import com.javax0.logiqua.commands.utils.Castor;
 
 @Named.Symbol("var")
 @Operation.Arity(min = 1, max = 2)
+@Operation.Variable
 public class Var implements Operation.Function {
 
     @Override
@@ -1,5 +1,6 @@
 package com.javax0.logiqua.commands.utils;
 
+import com.javax0.logiqua.Context;
 import com.javax0.logiqua.Executor;
 
 import java.util.Map;
@@ -11,4 +12,31 @@ public class LocalExecutor {
         return new SimpleProxyExecutor(executor, loopContext);
     }
 
+    /**
+     * Create an executor that evaluates the scripts in a new loop frame.
+     *
+     * @param executor  the executor of the enclosing context, the frame is created from its context
+     * @param variables the names of the loop variables, in the order of their slots
+     * @return the executor using the new frame as context
+     */
+    public static Frame frame(Executor executor, String... variables) {
+        return new Frame(executor, executor.getContext().frame(variables));
+    }
+
+    /**
+     * An executor running in a loop frame. The loop sets the variables through the executor before each iteration.
+     */
+    public static class Frame extends SimpleProxyExecutor {
+        private final Context.Frame frame;
+
+        private Frame(Executor executor, Context.Frame frame) {
+            super(executor, frame);
+            this.frame = frame;
+        }
+
+        public void set(int slot, Object value) {
+            frame.set(slot, value);
+        }
+    }
+
 }
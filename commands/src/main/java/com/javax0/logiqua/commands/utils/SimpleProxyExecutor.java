@@ -1,5 +1,6 @@
 package com.javax0.logiqua.commands.utils;
 
+import com.javax0.logiqua.Budget;
 import com.javax0.logiqua.Context;
 import com.javax0.logiqua.Executor;
 import com.javax0.logiqua.Operation;
@@ -33,6 +34,11 @@ public class SimpleProxyExecutor implements Executor {
         return context;
     }
 
+    @Override
+    public Budget budget() {
+        return executor.budget();
+    }
+
     @Override
     public Optional<Operation> getOperation(String symbol) {
         return executor.getOperation(symbol);
@@ -0,0 +1,91 @@
+package com.javax0.logiqua.engine;
+
+import com.javax0.logiqua.Context;
+import com.javax0.logiqua.Executor;
+import com.javax0.logiqua.Script;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evaluate a script over the records of a batch.
+ * <p>
+ * Evaluating a script calling {@link Script#evaluate(Map)} for each record creates a new context and a new executor
+ * for each record. The evaluator creates them only once, and swaps the record in the context before each evaluation,
+ * so the cost per record is a few field writes. The results are written into an array supplied by the caller.
+ * <p>
+ * The records are evaluated the same way as the record passed to {@link Script#evaluate(Map)}. An exception thrown by
+ * the script aborts the batch, the results of the records before it are already in the array. If the engine has a
+ * budget, each record is evaluated with a new budget.
+ * <p>
+ * An evaluator holds the context of the record being evaluated, it must not be used by more threads at the same time.
+ * Create an evaluator for each thread, creating one is cheap.
+ */
+public final class BatchEvaluator {
+    private final Engine engine;
+    private final Script script;
+    private final RecordContext context;
+    private final Executor executor;
+
+    private BatchEvaluator(Engine engine, Script script) {
+        this.engine = engine;
+        this.script = script;
+        this.context = new RecordContext(engine.getContext());
+        this.executor = engine.executor(context, null);
+    }
+
+    /**
+     * Create an evaluator for the script built by the engine.
+     *
+     * @param engine the engine that built the script
+     * @param script the script
+     * @return the new evaluator
+     */
+    public static BatchEvaluator of(Engine engine, Script script) {
+        return new BatchEvaluator(engine, script);
+    }
+
+    /**
+     * Evaluate the script for each record of the list.
+     *
+     * @param records the records
+     * @param results the array the result of the record at the same index is written to
+     * @throws IllegalArgumentException if the array is shorter than the list
+     */
+    public void evaluate(List<? extends Map<String, Object>> records, Object[] results) {
+        final var size = records.size();
+        checkSize(size, results);
+        for (int i = 0; i < size; i++) {
+            results[i] = evaluate(records.get(i));
+        }
+    }
+
+    /**
+     * Evaluate the script for each record of the indexed proxy, for example a list or an array accessed through the
+     * context of the engine.
+     *
+     * @param records the records
+     * @param results the array the result of the record at the same index is written to
+     * @throws IllegalArgumentException if the array is shorter than the records
+     */
+    public void evaluate(Context.IndexedProxy records, Object[] results) {
+        final var size = records.size();
+        checkSize(size, results);
+        for (int i = 0; i < size; i++) {
+            final var record = records.get(i);
+            results[i] = evaluate(record == null ? null : record.get());
+        }
+    }
+
+    private Object evaluate(Object record) {
+        context.record(record);
+        final var budget = engine.newBudget();
+        return script.evaluateUsing(budget == null ? executor : engine.executor(context, budget));
+    }
+
+    private static void checkSize(int size, Object[] results) {
+        if (results.length < size) {
+            throw new IllegalArgumentException("The results array has " + results.length + " elements for " + size + " records");
+        }
+    }
+}
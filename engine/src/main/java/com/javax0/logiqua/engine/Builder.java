@@ -4,7 +4,11 @@ import com.javax0.logiqua.Operation;
 import com.javax0.logiqua.Script;
 import com.javax0.logiqua.scripts.MacroNode;
 import com.javax0.logiqua.scripts.ConstantValueNode;
+import com.javax0.logiqua.scripts.FoldedValueNode;
 import com.javax0.logiqua.scripts.FunctionNode;
+import com.javax0.logiqua.scripts.ParallelNode;
+import com.javax0.logiqua.scripts.PipelineNode;
+import com.javax0.logiqua.scripts.VariablePathNode;
 
 import java.util.Arrays;
 
@@ -21,15 +25,13 @@ public interface Builder {
         public Script subscripts(Script... scripts) {
             final var node = new FunctionNode(engine, operation, scripts);
             operation.checkArguments(scripts);
-            return node;
+            final var folded = engine.isFolding() ? FoldedValueNode.of(node) : node;
+            return folded == node ? VariablePathNode.of(node) : folded;
         }
 
         @Override
         public Script args(Object... argsObj) {
-            final var args = toScript(argsObj);
-            final var node = new FunctionNode(engine, operation, args);
-            operation.checkArguments(args);
-            return node;
+            return subscripts(toScript(argsObj));
         }
     }
 
@@ -45,7 +47,10 @@ public interface Builder {
         public Script subscripts(Script... scripts) {
             final var node = new MacroNode(engine, operation, scripts);
             operation.checkArguments(scripts);
-            return node;
+            final var script = engine.isFusing() ? PipelineNode.of(engine, node) : node;
+            return script == node && engine.pool() != null
+                    ? ParallelNode.of(engine, node, engine.pool(), engine.parallelism(), engine.parallelThreshold())
+                    : script;
         }
 
         @Override
@@ -2,18 +2,54 @@ package com.javax0.logiqua.engine;
 
 import com.javax0.logiqua.Context;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  * The CasterRegistry is a utility class designed to manage and retrieve caster instances
  * for converting objects between two different types. This registry enables the dynamic
  * registration of custom casters and provides a mechanism to retrieve them based on the
  * source and target types.
+ * <p>
+ * The casters for a target type are stored in a {@link ProxyRegistry}, which caches the caster found for each
+ * source class.
  */
 public class CasterRegistry {
 
-    private final Map<Class<?>, ProxyRegistry<Context.Caster<?, ?>>> casters = new HashMap<>();
+    private volatile Map<Class<?>, ProxyRegistry<Context.Caster<?, ?>>> casters = new HashMap<>();
+    private volatile boolean frozen = false;
+
+    /**
+     * Freeze the registry. After this call no new caster can be registered, and the registry can be read from any
+     * number of threads without synchronization.
+     */
+    public void freeze() {
+        casters.values().forEach(ProxyRegistry::freeze);
+        // Map.copyOf() would throw on a null key lookup, the caster of a null value has no class
+        casters = Collections.unmodifiableMap(new HashMap<>(casters));
+        frozen = true;
+    }
+
+    /**
+     * @return {@code true} if the registry was frozen calling {@link #freeze()}
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Create a registry with the same casters. The copy is not frozen, and the casters registered later in one of the
+     * registries are not visible in the other.
+     *
+     * @return the copy of the registry
+     */
+    public synchronized CasterRegistry copy() {
+        final var copy = new CasterRegistry();
+        casters.forEach((to, registry) -> copy.casters.put(to, registry.copy()));
+        return copy;
+    }
 
     /**
      * Registers a caster for converting objects from one type to another.
@@ -26,8 +62,12 @@ public class CasterRegistry {
      *               between the source and target types
      * @throws IllegalArgumentException if a caster for the `from` class is already
      *                                  registered in the internal registry for the specified `to` class
+     * @throws IllegalStateException    if the registry is frozen
      */
-    public void register(Class<?> from, Class<?> to, Context.Caster<?, ?> caster) {
+    public synchronized void register(Class<?> from, Class<?> to, Context.Caster<?, ?> caster) {
+        if (frozen) {
+            throw new IllegalStateException("The caster registry is frozen, no caster can be registered from '" + from + "' to '" + to + "'");
+        }
         casters.computeIfAbsent(to, k -> new ProxyRegistry<>()).register(from, caster);
     }
 
@@ -42,13 +82,27 @@ public class CasterRegistry {
      * @return the caster instance capable of converting objects between the source and target types,
      * or null if no such caster is registered
      */
-    @SuppressWarnings("unchecked")
     public <From, To> Context.Caster<From, To> get(Class<From> from, Class<To> to) {
+        return this.<From, To>find(from, to).orElse(null);
+    }
+
+    /**
+     * Same as {@link #get(Class, Class)}, but the result is an optional, which is cached and not allocated again on
+     * every call.
+     *
+     * @param from   the source class
+     * @param to     the target class
+     * @param <From> the generic parameter specifying the source type
+     * @param <To>   the generic parameter specifying the target type
+     * @return the optional caster converting between the source and target types
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public <From, To> Optional<Context.Caster<From, To>> find(Class<From> from, Class<To> to) {
         final var registry = casters.get(to);
         if (registry == null) {
-            return null;
+            return Optional.empty();
         }
-        return (Context.Caster<From, To>) registry.getProxy(from);
+        return (Optional) registry.findProxy(from);
     }
 
 }
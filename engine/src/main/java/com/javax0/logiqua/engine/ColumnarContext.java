@@ -0,0 +1,183 @@
+package com.javax0.logiqua.engine;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A context holding the records of a batch in columns.
+ * <p>
+ * Each field of the records is a column, an array of {@code long}, {@code double} or {@link String} values with an
+ * element for each row. The {@link com.javax0.logiqua.scripts.VectorEvaluator} reads the columns directly. The context
+ * can also be used to evaluate a script for a single row, selected calling {@link #row(int)}: the row then looks like
+ * a record having a field for each column, the cells boxed to {@link Long}, {@link Double} and {@link String} values.
+ * The record of the row is a view of the columns, it changes when another row is selected.
+ * <p>
+ * The arrays are not copied, the caller must not modify them while a script is evaluated over the context. The
+ * context holds the selected row, therefore it must not be used by more threads at the same time.
+ */
+public final class ColumnarContext extends HierarchicalMapContext {
+    private final Row row;
+
+    private ColumnarContext(Row row, Engine engine) {
+        super(row, null, engine.getContext());
+        this.row = row;
+    }
+
+    /**
+     * Create a context for the given number of rows. The casters and the proxies are the ones of the context of the
+     * engine.
+     *
+     * @param engine the engine the scripts are evaluated by
+     * @param rows   the number of the rows
+     * @return the new context without columns
+     * @throws IllegalArgumentException if the number of the rows is negative
+     */
+    public static ColumnarContext of(Engine engine, int rows) {
+        if (rows < 0) {
+            throw new IllegalArgumentException("The number of the rows cannot be negative, got " + rows);
+        }
+        return new ColumnarContext(new Row(rows), engine);
+    }
+
+    /**
+     * Add a column of {@code long} values, which are {@link Long} values for the scripts.
+     *
+     * @param name   the name of the column, the name of the variable in the scripts
+     * @param values the values of the rows
+     * @return this context to allow chaining
+     * @throws IllegalArgumentException if the column already exists, or the number of the values is not the number of
+     *                                  the rows
+     */
+    public ColumnarContext column(String name, long[] values) {
+        return add(name, values, values.length);
+    }
+
+    /**
+     * Add a column of {@code double} values, which are {@link Double} values for the scripts.
+     *
+     * @param name   the name of the column, the name of the variable in the scripts
+     * @param values the values of the rows
+     * @return this context to allow chaining
+     * @throws IllegalArgumentException if the column already exists, or the number of the values is not the number of
+     *                                  the rows
+     */
+    public ColumnarContext column(String name, double[] values) {
+        return add(name, values, values.length);
+    }
+
+    /**
+     * Add a column of strings. The cells may be {@code null}.
+     *
+     * @param name   the name of the column, the name of the variable in the scripts
+     * @param values the values of the rows
+     * @return this context to allow chaining
+     * @throws IllegalArgumentException if the column already exists, or the number of the values is not the number of
+     *                                  the rows
+     */
+    public ColumnarContext column(String name, String[] values) {
+        return add(name, values, values.length);
+    }
+
+    private ColumnarContext add(String name, Object values, int length) {
+        if (length != row.rows) {
+            throw new IllegalArgumentException("The column '" + name + "' has " + length + " values for " + row.rows + " rows");
+        }
+        if (row.columns.putIfAbsent(name, values) != null) {
+            throw new IllegalArgumentException("The column '" + name + "' already exists");
+        }
+        return this;
+    }
+
+    /**
+     * @return the number of the rows
+     */
+    public int rows() {
+        return row.rows;
+    }
+
+    /**
+     * @param name the name of the column
+     * @return the array of the column, a {@code long[]}, {@code double[]} or {@code String[]}, or {@code null} if
+     * there is no such column
+     */
+    public Object column(String name) {
+        return row.columns.get(name);
+    }
+
+    /**
+     * Select the row the variables are looked up in.
+     *
+     * @param index the index of the row
+     */
+    public void row(int index) {
+        row.index = index;
+    }
+
+    /**
+     * The read-only map view of the selected row.
+     */
+    private static final class Row extends AbstractMap<String, Object> {
+        private final int rows;
+        private final Map<String, Object> columns = new LinkedHashMap<>();
+        private int index;
+
+        private Row(int rows) {
+            this.rows = rows;
+        }
+
+        private Object cell(Object column) {
+            return switch (column) {
+                case long[] longs -> longs[index];
+                case double[] doubles -> doubles[index];
+                case String[] strings -> strings[index];
+                default -> null;
+            };
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return columns.containsKey(key);
+        }
+
+        @Override
+        public Object get(Object key) {
+            return cell(columns.get(key));
+        }
+
+        @Override
+        public int size() {
+            return columns.size();
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    final var iterator = columns.entrySet().iterator();
+                    return new Iterator<>() {
+                        @Override
+                        public boolean hasNext() {
+                            return iterator.hasNext();
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            final var column = iterator.next();
+                            return new SimpleImmutableEntry<>(column.getKey(), cell(column.getValue()));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return columns.size();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.javax0.logiqua.engine;
+
+import com.javax0.logiqua.Budget;
+import com.javax0.logiqua.Context;
+import com.javax0.logiqua.Executor;
+import com.javax0.logiqua.Operation;
+
+import java.util.Optional;
+
+/**
+ * An executor that evaluates the scripts built by an {@link Engine} against a context that is not the one the
+ * engine was created with.
+ * <p>
+ * Creating an instance is cheap: it only stores the references and the limit. The operations are looked up in the
+ * engine, the data in the context given to the constructor. The limit starts as the limit of the engine, and setting
+ * it changes only the limit of this executor, the engine is shared by the other evaluations.
+ */
+public class ContextExecutor implements Executor {
+    private final Engine engine;
+    private final Context context;
+    private final Budget budget;
+    private int limit;
+
+    ContextExecutor(Engine engine, Context context, Budget budget) {
+        this.engine = engine;
+        this.context = context;
+        this.budget = budget;
+        this.limit = engine.limit();
+    }
+
+    @Override
+    public void limit(int size) {
+        this.limit = size;
+    }
+
+    @Override
+    public int limit() {
+        return limit;
+    }
+
+    @Override
+    public Context getContext() {
+        return context;
+    }
+
+    @Override
+    public Budget budget() {
+        return budget;
+    }
+
+    @Override
+    public Optional<Operation> getOperation(String symbol) {
+        return engine.getOperation(symbol);
+    }
+
+    @Override
+    public void updateOperation(Operation operation) {
+        engine.updateOperation(operation);
+    }
+
+    @Override
+    public void registerOperation(Operation operation) {
+        engine.registerOperation(operation);
+    }
+
+    @Override
+    public void registerOrUpdateOperation(Operation operation) {
+        engine.registerOrUpdateOperation(operation);
+    }
+}
@@ -1,26 +1,61 @@
 package com.javax0.logiqua.engine;
 
+import com.javax0.logiqua.Budget;
 import com.javax0.logiqua.Context;
 import com.javax0.logiqua.Executor;
 import com.javax0.logiqua.Operation;
+import com.javax0.logiqua.Script;
 import com.javax0.logiqua.scripts.ConstantValueNode;
+import com.javax0.logiqua.scripts.FlatScript;
+import com.javax0.logiqua.scripts.RuleSet;
+import com.javax0.logiqua.scripts.ScriptCompiler;
+import com.javax0.logiqua.scripts.ScriptOptimizer;
+import com.javax0.logiqua.scripts.SharedScript;
 
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * The Engine class represents a script execution framework that can load, manage, and execute
  * operations (commands and functions). It acts as both an {@link Executor} and a {@link Builder}.
  * <p>
- * The Engine loads operations from the service loader mechanism and provides APIs to access and
- * update operations. Additionally, the Engine allows the creation of nodes for operations and
+ * The Engine gets the operations loaded by the service loader mechanism from the {@link OperationCatalog}. The catalog
+ * is built only once in the process and the engines share it until they modify their operations. The Engine provides
+ * APIs to access and update operations. Additionally, the Engine allows the creation of nodes for operations and
  * supports working with constant values in scripts.
+ * <p>
+ * An engine can be frozen calling {@link #freeze()} after it was set up. A frozen engine does not allow registering
+ * or updating operations, casters or proxies, and the scripts built by it can be evaluated concurrently from any
+ * number of threads, without locking.
  */
 public class Engine implements Executor, Builder {
+    /**
+     * The pools evaluating the parallel loops, one for each parallelism, shared by all the engines. The idle threads
+     * of a pool terminate by themselves, so the pools are never shut down, and the scripts built with a pool can use
+     * it as long as they live.
+     */
+    private static final Map<Integer, ForkJoinPool> POOLS = new ConcurrentHashMap<>();
+
     private final Context context;
-    private final Registry registry = new Registry();
+    private final Registry registry = new Registry(OperationCatalog.operations());
     int limit = 10_000_000;
+    private boolean specializing = true;
+    private boolean compiling = false;
+    private boolean folding = true;
+    private boolean hoisting = true;
+    private boolean fusing = false;
+    private int parallelism = 1;
+    private int parallelThreshold = 10_000;
+    private ForkJoinPool pool = null;
+    private long budgetSteps = 0;
+    private Duration budgetTime = null;
+    private long memoryElements = 0;
+    private long memoryBytes = 0;
+    private volatile boolean frozen = false;
 
     public static Engine withData(Map<String, Object> map) {
         return withData(new MapContext(map));
@@ -32,19 +67,93 @@ public class Engine implements Executor, Builder {
 
     private Engine(Context context) {
         this.context = context;
-        loadCommandsAndFunctions();
     }
 
     /**
-     * Load all the functions and commands from the service loader.
+     * Create an executor that evaluates the scripts built by this engine against the given context.
+     * <p>
+     * Use this method to evaluate the same compiled script against many different data without creating a new
+     * engine for each. If the engine has a budget (see {@link #budget(long, Duration)} and
+     * {@link #memory(long, long)}), the executor gets a new budget starting now, so it should be used for one
+     * evaluation.
+     *
+     * @param context the context the returned executor works with
+     * @return the new executor
+     */
+    public Executor executor(Context context) {
+        return new ContextExecutor(this, context, newBudget());
+    }
+
+    /**
+     * The executor {@link com.javax0.logiqua.Script#evaluate()} evaluates the scripts built by this engine with.
+     * <p>
+     * It is the engine itself, or if the engine has a budget, a new executor working with the context of the engine,
+     * with a new budget starting now, so that the budget also limits the evaluations that are not given an executor.
+     *
+     * @return the engine or the new executor
+     */
+    public Executor evaluator() {
+        return budgetSteps == 0 && memoryElements == 0 ? this : executor(context);
+    }
+
+    /**
+     * Create an executor that evaluates the scripts built by this engine against the given context, counting the
+     * steps against the given budget.
+     *
+     * @param context the context the returned executor works with
+     * @param budget  the budget of the evaluation, or {@code null} to evaluate without limits
+     * @return the new executor
+     */
+    public Executor executor(Context context, Budget budget) {
+        return new ContextExecutor(this, context, budget);
+    }
+
+    /**
+     * Create a new context for the given data.
+     * <p>
+     * The new context does not see the data of the context of the engine, but it uses the casters and proxies of it.
+     *
+     * @param data the data the new context holds
+     * @return the new context
+     */
+    public Context contextFor(Map<String, Object> data) {
+        return new HierarchicalMapContext(data, null, context);
+    }
+
+    /**
+     * Freeze the engine.
+     * <p>
+     * After this call the operations, the limit, and if the context of the engine is a {@link MapContext} then the
+     * casters and proxies of the context, are sealed. Any attempt to modify them throws an
+     * {@link IllegalStateException}.
+     * <p>
+     * The scripts built by a frozen engine can be evaluated from many threads at the same time, using
+     * {@link com.javax0.logiqua.Script#evaluate(Context)} or {@link com.javax0.logiqua.Script#evaluate(Map)}.
+     * Each evaluation gets its own executor and context, and the shared structures are only read.
+     *
+     * @return this engine to allow chaining
      */
-    private void loadCommandsAndFunctions() {
-        ServiceLoader.load(Operation.Function.class).forEach(registry::register);
-        ServiceLoader.load(Operation.Macro.class).forEach(registry::register);
+    public Engine freeze() {
+        registry.freeze();
+        if (context instanceof MapContext mapContext) {
+            mapContext.freeze();
+        }
+        frozen = true;
+        return this;
+    }
+
+    /**
+     * @return {@code true} if the engine was frozen calling {@link #freeze()}
+     */
+    public boolean isFrozen() {
+        return frozen;
     }
 
     @Override
     public void limit(int size) {
+        if (frozen) {
+            throw new IllegalStateException("The engine is frozen, the limit cannot be changed");
+        }
         this.limit = size;
     }
 
@@ -53,6 +162,327 @@ public class Engine implements Executor, Builder {
         return limit;
     }
 
+    /**
+     * Switch the specialization of the function calls on or off.
+     * <p>
+     * When it is on, which is the default, a function call with two arguments uses a faster implementation specialized
+     * for the classes of the arguments it sees first, if the function provides one. The result is the same in both
+     * modes. The mode is checked when the scripts are evaluated, so it also affects the scripts already built.
+     *
+     * @param specializing {@code true} to switch the specialization on
+     * @return this engine to allow chaining
+     * @throws IllegalStateException if the engine is frozen
+     */
+    public Engine specializing(boolean specializing) {
+        if (frozen) {
+            throw new IllegalStateException("The engine is frozen, the specialization cannot be changed");
+        }
+        this.specializing = specializing;
+        return this;
+    }
+
+    /**
+     * @return {@code true} if the function calls are specialized, see {@link #specializing(boolean)}
+     */
+    public boolean isSpecializing() {
+        return specializing;
+    }
+
+    /**
+     * Switch the constant folding on or off.
+     * <p>
+     * When it is on, which is the default, the calls of the {@link Operation.Pure} functions having only constant
+     * arguments are calculated when the script is built, and the script holds the result as a constant. The JSON
+     * representation of the script still contains the original call. The mode is checked when the scripts are built.
+     *
+     * @param folding {@code true} to switch the folding on
+     * @return this engine to allow chaining
+     * @throws IllegalStateException if the engine is frozen
+     */
+    public Engine folding(boolean folding) {
+        if (frozen) {
+            throw new IllegalStateException("The engine is frozen, the folding cannot be changed");
+        }
+        this.folding = folding;
+        return this;
+    }
+
+    /**
+     * @return {@code true} if the calls of pure functions with constant arguments are folded, see
+     * {@link #folding(boolean)}
+     */
+    public boolean isFolding() {
+        return folding;
+    }
+
+    /**
+     * Switch the hoisting of the loop invariant subexpressions on or off.
+     * <p>
+     * When it is on, which is the default, the subexpressions in the loops of the {@link Operation.Scope} macros that
+     * do not depend on the loop variables are calculated only once in each execution of the loop, as long as the loop
+     * values do not have the variables they read, see {@link com.javax0.logiqua.scripts.InvariantNode}. The mode is
+     * checked when the scripts are built.
+     *
+     * @param hoisting {@code true} to switch the hoisting on
+     * @return this engine to allow chaining
+     * @throws IllegalStateException if the engine is frozen
+     */
+    public Engine hoisting(boolean hoisting) {
+        if (frozen) {
+            throw new IllegalStateException("The engine is frozen, the hoisting cannot be changed");
+        }
+        this.hoisting = hoisting;
+        return this;
+    }
+
+    /**
+     * @return {@code true} if the loop invariant subexpressions are hoisted, see {@link #hoisting(boolean)}
+     */
+    public boolean isHoisting() {
+        return hoisting;
+    }
+
+    /**
+     * Switch the fusion of the chained loop macros on or off.
+     * <p>
+     * When it is on, a {@code map} or {@code filter} call that is the list argument of another loop macro is evaluated
+     * together with it in a single pass, without creating the intermediate list, see
+     * {@link com.javax0.logiqua.scripts.PipelineNode}. The results are the same, but the loop bodies are evaluated in a
+     * different order, and {@code some}, {@code all} and {@code none} stop the whole chain early. The default is off.
+     * The mode is checked when the scripts are built.
+     *
+     * @param fusing {@code true} to switch the fusion on
+     * @return this engine to allow chaining
+     * @throws IllegalStateException if the engine is frozen
+     */
+    public Engine fusing(boolean fusing) {
+        if (frozen) {
+            throw new IllegalStateException("The engine is frozen, the fusion cannot be changed");
+        }
+        this.fusing = fusing;
+        return this;
+    }
+
+    /**
+     * @return {@code true} if the chained loop macros are fused, see {@link #fusing(boolean)}
+     */
+    public boolean isFusing() {
+        return fusing;
+    }
+
+    /**
+     * Switch the parallel evaluation of the loop macros on or off.
+     * <p>
+     * When the parallelism is more than one, the {@code map}, {@code filter}, {@code some}, {@code all} and
+     * {@code none} calls whose loop body calls only {@link Operation.Pure} functions, and the {@code reduce} calls
+     * whose loop body is an {@link Operation.Associative} function of the current value and the accumulator, split the
+     * lists having at least {@code threshold} elements into parts, and evaluate the parts in a fork-join pool, see
+     * {@link com.javax0.logiqua.scripts.ParallelNode}. The engines with the same parallelism share the pool. The order
+     * of the elements is kept, and the results are the same as the sequential ones. The default parallelism is one,
+     * the loops are sequential. The mode is checked when the scripts are built.
+     *
+     * @param threshold   the minimum size of the lists evaluated in parallel
+     * @param parallelism the number of the threads evaluating a loop, one switches the parallel evaluation off
+     * @return this engine to allow chaining
+     * @throws IllegalStateException    if the engine is frozen
+     * @throws IllegalArgumentException if the threshold or the parallelism is less than one
+     */
+    public Engine parallel(int threshold, int parallelism) {
+        if (frozen) {
+            throw new IllegalStateException("The engine is frozen, the parallel evaluation cannot be changed");
+        }
+        if (threshold < 1 || parallelism < 1) {
+            throw new IllegalArgumentException("The threshold and the parallelism must be positive, got " + threshold + " and " + parallelism);
+        }
+        this.parallelThreshold = threshold;
+        if (parallelism != this.parallelism) {
+            this.parallelism = parallelism;
+            this.pool = parallelism > 1 ? POOLS.computeIfAbsent(parallelism, ForkJoinPool::new) : null;
+        }
+        return this;
+    }
+
+    /**
+     * @return the number of the threads evaluating a loop, see {@link #parallel(int, int)}
+     */
+    public int parallelism() {
+        return parallelism;
+    }
+
+    /**
+     * @return the minimum size of the lists evaluated in parallel, see {@link #parallel(int, int)}
+     */
+    public int parallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * @return the pool evaluating the parallel loops, or {@code null} if the loops are sequential
+     */
+    ForkJoinPool pool() {
+        return pool;
+    }
+
+    /**
+     * Limit the evaluations of the scripts.
+     * <p>
+     * Each executor created by {@link #executor(Context)}, and so each evaluation of a script in a context, gets a new
+     * {@link Budget} of the given number of steps and time. An evaluation exceeding it is aborted with a
+     * {@link com.javax0.logiqua.BudgetExceededException}. The steps are the evaluated operation nodes and the loop
+     * iterations. By default the evaluations are not limited.
+     *
+     * @param steps the maximum number of the steps of an evaluation
+     * @param time  the maximum time of an evaluation
+     * @return this engine to allow chaining
+     * @throws IllegalStateException    if the engine is frozen
+     * @throws IllegalArgumentException if the steps or the time is not positive
+     */
+    public Engine budget(long steps, Duration time) {
+        if (frozen) {
+            throw new IllegalStateException("The engine is frozen, the budget cannot be changed");
+        }
+        if (steps < 1 || time.isNegative() || time.isZero()) {
+            throw new IllegalArgumentException("The steps and the time of the budget must be positive, got " + steps + " and " + time);
+        }
+        this.budgetSteps = steps;
+        this.budgetTime = time;
+        return this;
+    }
+
+    /**
+     * Create the budget of an evaluation starting now.
+     *
+     * @return the new budget, or {@code null} if the engine does not limit the evaluations
+     */
+    Budget newBudget() {
+        if (budgetSteps == 0 && memoryElements == 0) {
+            return null;
+        }
+        return withMemory(budgetSteps == 0 ? Budget.unlimited() : Budget.of(budgetSteps, budgetTime));
+    }
+
+    /**
+     * Create the budget of an evaluation limited by the budget of the engine, if there is one, and the given time.
+     *
+     * @param time the maximum time of the evaluation
+     * @return the new budget
+     */
+    Budget budget(Duration time) {
+        return withMemory(budgetSteps == 0
+                ? Budget.of(Long.MAX_VALUE, time)
+                : Budget.of(budgetSteps, budgetTime.compareTo(time) < 0 ? budgetTime : time));
+    }
+
+    private Budget withMemory(Budget budget) {
+        return memoryElements == 0 ? budget : budget.memory(memoryElements, memoryBytes);
+    }
+
+    /**
+     * Limit the memory of the lists created by the evaluations of the scripts.
+     * <p>
+     * The commands creating lists, like {@code map}, {@code filter} or {@code merge}, charge the elements they add to
+     * the {@link Budget} of the evaluation, and an evaluation exceeding the limits is aborted with a
+     * {@link com.javax0.logiqua.BudgetExceededException} before the list is built. The bytes are estimated from the
+     * number of the elements. By default the memory is not limited.
+     *
+     * @param elements the maximum number of the elements of the lists created by an evaluation
+     * @param bytes    the maximum estimated number of the bytes of the lists created by an evaluation
+     * @return this engine to allow chaining
+     * @throws IllegalStateException    if the engine is frozen
+     * @throws IllegalArgumentException if the elements or the bytes is not positive
+     */
+    public Engine memory(long elements, long bytes) {
+        if (frozen) {
+            throw new IllegalStateException("The engine is frozen, the memory budget cannot be changed");
+        }
+        if (elements < 1 || bytes < 1) {
+            throw new IllegalArgumentException("The elements and the bytes of the memory budget must be positive, got " + elements + " and " + bytes);
+        }
+        this.memoryElements = elements;
+        this.memoryBytes = bytes;
+        return this;
+    }
+
+    /**
+     * Switch the compilation of the scripts on or off.
+     * <p>
+     * When it is on, the front-ends compile the scripts they build calling {@link #compile(Script)}. The default is
+     * off.
+     *
+     * @param compiling {@code true} to switch the compilation on
+     * @return this engine to allow chaining
+     * @throws IllegalStateException if the engine is frozen
+     */
+    public Engine compiling(boolean compiling) {
+        if (frozen) {
+            throw new IllegalStateException("The engine is frozen, the compilation cannot be changed");
+        }
+        this.compiling = compiling;
+        return this;
+    }
+
+    /**
+     * @return {@code true} if the scripts are compiled, see {@link #compiling(boolean)}
+     */
+    public boolean isCompiling() {
+        return compiling;
+    }
+
+    /**
+     * Compile a script built by this engine into a generated class. The compiled script gives the same results as
+     * the original one, see {@link ScriptCompiler}.
+     *
+     * @param script the script to compile
+     * @return the compiled script, or the script itself when it cannot be compiled
+     */
+    public Script compile(Script script) {
+        return ScriptCompiler.compile(this, script);
+    }
+
+    /**
+     * Encode a script built by this engine into a compact program, see {@link FlatScript}. The encoded script uses
+     * less memory than the tree of nodes, and gives the same results and the same JSON representation.
+     *
+     * @param script the script to encode
+     * @return the encoded script
+     */
+    public Script flatten(Script script) {
+        return FlatScript.of(this, script);
+    }
+
+    /**
+     * Share the repeated subexpressions of a script built by this engine, see {@link SharedScript}. Each repeated
+     * variable reference and pure function call is evaluated at most once when the returned script is evaluated.
+     *
+     * @param script the script
+     * @return the script sharing the subexpressions, or the script itself if there is nothing to share
+     */
+    public Script share(Script script) {
+        return SharedScript.of(this, script);
+    }
+
+    /**
+     * Merge the rules built by this engine into a rule set, see {@link RuleSet}. The subexpressions appearing in
+     * several rules are evaluated at most once when the rule set is evaluated.
+     *
+     * @param rules the rules
+     * @return the rule set evaluating all the rules in a single pass
+     */
+    public RuleSet ruleSet(List<Script> rules) {
+        return RuleSet.of(this, rules);
+    }
+
+    /**
+     * Simplify the logical operations of a script built by this engine, see {@link ScriptOptimizer}. The optimized
+     * script gives the same results as the original one, but its JSON representation is the simplified tree.
+     *
+     * @param script the script to optimize
+     * @return the optimized script and the number of the nodes removed
+     */
+    public ScriptOptimizer.Report optimize(Script script) {
+        return ScriptOptimizer.optimize(this, script);
+    }
+
     @Override
     public Context getContext() {
         return context;
@@ -0,0 +1,160 @@
+package com.javax0.logiqua.engine;
+
+import com.javax0.logiqua.Context;
+import com.javax0.logiqua.Script;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluate batches of scripts concurrently on virtual threads.
+ * <p>
+ * Each job of a batch is a script and the context it is evaluated in. The jobs are started in the order of the batch,
+ * at most {@code concurrency} of them running at the same time: a job gets its thread only when there is a free place
+ * for it, and the outcomes are returned in the order of the batch. A job throwing an exception, or not finishing within the timeout, gets an outcome holding the error, and the
+ * other jobs are not affected. The timeout of a job starts when the job starts running.
+ * <p>
+ * The evaluation of a job has a {@link com.javax0.logiqua.Budget} with the deadline of the timeout, limited further by
+ * the budget of the engine, if it has one. A job that timed out is aborted the next time the budget is checked, but
+ * an operation running long, for example waiting for a resource, cannot be interrupted, and the job keeps its place
+ * among the running jobs until it returns.
+ * <p>
+ * The scripts are evaluated concurrently, therefore the engine has to be frozen. The service can be used from several
+ * threads, the concurrency limit is shared by all the batches. It has to be closed to release the threads.
+ */
+public final class EvaluationService implements AutoCloseable {
+    private final Engine engine;
+    private final Semaphore running;
+    private final long timeout;
+    private final ExecutorService threads = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("logiqua-", 0).factory());
+
+    /**
+     * A script to evaluate in a context.
+     *
+     * @param script  the script
+     * @param context the context
+     */
+    public record Job(Script script, Context context) {
+    }
+
+    /**
+     * The outcome of a job.
+     *
+     * @param value the result of the script, or {@code null} if the job failed
+     * @param error the exception thrown by the script, a {@link java.util.concurrent.TimeoutException} if the job
+     *              timed out, or {@code null} if the job succeeded
+     */
+    public record Outcome(Object value, Throwable error) {
+        /**
+         * @return {@code true} if the script returned a value
+         */
+        public boolean isSuccess() {
+            return error == null;
+        }
+    }
+
+    private EvaluationService(Engine engine, int concurrency, long timeout) {
+        this.engine = engine;
+        this.running = new Semaphore(concurrency, true);
+        this.timeout = timeout;
+    }
+
+    /**
+     * Create a service evaluating the scripts of the engine.
+     *
+     * @param engine      the engine, which has to be frozen
+     * @param concurrency the maximum number of the jobs running at the same time
+     * @param timeout     the maximum time a job may run
+     * @return the new service
+     * @throws IllegalStateException    if the engine is not frozen
+     * @throws IllegalArgumentException if the concurrency or the timeout is not positive
+     */
+    public static EvaluationService of(Engine engine, int concurrency, Duration timeout) {
+        if (!engine.isFrozen()) {
+            throw new IllegalStateException("The engine has to be frozen to evaluate the scripts concurrently");
+        }
+        if (concurrency < 1 || timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("The concurrency and the timeout must be positive, got " + concurrency + " and " + timeout);
+        }
+        return new EvaluationService(engine, concurrency, timeout.toNanos());
+    }
+
+    /**
+     * Create a job evaluating the script on the data, in a new context created by the engine of the service.
+     *
+     * @param script the script
+     * @param data   the data
+     * @return the job
+     */
+    public Job job(Script script, Map<String, Object> data) {
+        return new Job(script, engine.contextFor(data));
+    }
+
+    /**
+     * Evaluate the jobs, and wait for all of them to finish or time out.
+     * <p>
+     * The calling thread waits for a free place among the running jobs before starting each job, so there are never
+     * more than {@code concurrency} threads evaluating the jobs. If the calling thread is interrupted while waiting,
+     * the jobs not started yet get an outcome holding the {@link InterruptedException}, and the interrupted status of
+     * the thread is kept.
+     *
+     * @param jobs the jobs
+     * @return the outcomes of the jobs in the order of the jobs
+     */
+    public List<Outcome> evaluate(List<Job> jobs) {
+        final var futures = new ArrayList<CompletableFuture<Object>>(jobs.size());
+        for (final var job : jobs) {
+            final var future = new CompletableFuture<>();
+            futures.add(future);
+            try {
+                running.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                future.completeExceptionally(e);
+                continue;
+            }
+            try {
+                threads.execute(() -> run(job, future));
+            } catch (RuntimeException e) {
+                running.release();
+                throw e;
+            }
+        }
+        final var outcomes = new ArrayList<Outcome>(futures.size());
+        for (final var future : futures) {
+            try {
+                outcomes.add(new Outcome(future.join(), null));
+            } catch (CompletionException e) {
+                outcomes.add(new Outcome(null, e.getCause()));
+            }
+        }
+        return outcomes;
+    }
+
+    private void run(Job job, CompletableFuture<Object> future) {
+        try {
+            future.orTimeout(timeout, TimeUnit.NANOSECONDS);
+            future.complete(job.script().evaluateUsing(engine.executor(job.context(), engine.budget(Duration.ofNanos(timeout)))));
+        } catch (Throwable t) {
+            future.completeExceptionally(t);
+        } finally {
+            running.release();
+        }
+    }
+
+    /**
+     * Stop the threads. The jobs already started are finished, but no new batch can be evaluated.
+     */
+    @Override
+    public void close() {
+        threads.shutdown();
+    }
+}
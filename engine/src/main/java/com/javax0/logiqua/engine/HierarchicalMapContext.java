@@ -1,6 +1,7 @@
 package com.javax0.logiqua.engine;
 
 import com.javax0.logiqua.Context;
+import com.javax0.logiqua.Path;
 
 import java.util.Map;
 import java.util.Optional;
@@ -27,13 +28,18 @@ public class HierarchicalMapContext extends MapContext {
      * <p>
      * Note that the {@code mapParent} can be null.
      * In all other cases, the two parents are the same.
+     * <p>
+     * When the {@code parent} is a {@link MapContext}, the new context shares its casters and proxies. Creating a
+     * context this way costs only a few field writes, which matters because the loop commands sprout a new context
+     * for every loop, including the inner loops in nested loops. Registering a caster or a proxy in the new context
+     * copies the registries first, it never changes the parent.
      *
      * @param map       the map to delegate the value requests to if the value is not found locally
      * @param mapParent the parent to delegate the value requests to if the value is not found locally
      * @param parent    the parent to delegate all other requests to
      */
     public HierarchicalMapContext(Map<String, Object> map, Context mapParent, Context parent) {
-        super(map);
+        super(map, parent instanceof MapContext registries ? registries : null);
         this.mapParent = mapParent;
         this.parent = parent;
     }
@@ -76,6 +82,47 @@ public class HierarchicalMapContext extends MapContext {
         return null;
     }
 
+    /**
+     * Get the value of the parsed key, looking it up in the same order as {@link #get(String)}.
+     *
+     * @param path the parsed key to look up
+     * @return the value associated with the key embedded in a Value, or {@code null} if not found.
+     */
+    @Override
+    public Value get(Path path) {
+        final var value = getLocal(path);
+        if (value != null) {
+            return value;
+        }
+
+        if (mapParent != null) {
+            return get(path, mapParent);
+        }
+
+        return null;
+    }
+
+    /**
+     * Get the value of the parsed key from the local map, or from the value of the key "" in the local map, without
+     * delegating to the parent. These are the first two steps of {@link #get(Path)}.
+     *
+     * @param path the parsed key to look up
+     * @return the value associated with the key embedded in a Value, or {@code null} if not found locally.
+     */
+    public Value getLocal(Path path) {
+        final var value = super.get(path);
+        if (value != null) {
+            return value;
+        }
+
+        final var loopValue = super.get("");
+        if (loopValue != null) {
+            return get(path, loopValue.get());
+        }
+
+        return null;
+    }
+
     /**
      * delegate to {@code parent} if not null
      *
@@ -0,0 +1,165 @@
+package com.javax0.logiqua.engine;
+
+import com.javax0.logiqua.Context;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A loop frame storing the loop variables in an array.
+ * <p>
+ * The frame behaves the same way as a {@link HierarchicalMapContext} holding the loop variables in its map. The
+ * map, however, is only a read-only view of the array, and the scripts bound to the frame at compile time read the
+ * slots directly calling {@link #slot(int)}.
+ */
+public final class LoopFrame extends HierarchicalMapContext implements Context.Frame {
+    private final String[] variables;
+    private final Object[] slots;
+    private Object[] invariantKeys;
+    private Context.Value[] invariantValues;
+
+    LoopFrame(String[] variables, Context parent) {
+        this(variables, new Object[variables.length], parent);
+    }
+
+    private LoopFrame(String[] variables, Object[] slots, Context parent) {
+        super(new Slots(variables, slots), parent);
+        this.variables = variables;
+        this.slots = slots;
+    }
+
+    @Override
+    public void set(int slot, Object value) {
+        slots[slot] = value;
+    }
+
+    /**
+     * Check that the variable is stored in the given slot of this frame.
+     *
+     * @param slot     the index of the slot
+     * @param variable the name of the variable
+     * @return {@code true} if the variable has the slot in this frame
+     */
+    public boolean holds(int slot, String variable) {
+        return slot < variables.length && variables[slot].equals(variable);
+    }
+
+    /**
+     * @param slot the index of the slot
+     * @return the value of the variable in the slot
+     */
+    public Object slot(int slot) {
+        return slots[slot];
+    }
+
+    /**
+     * @return the context the variables not found in this frame are looked up in
+     */
+    public Context enclosing() {
+        return mapParent;
+    }
+
+    /**
+     * Get the value of a loop invariant subexpression stored in this frame.
+     *
+     * @param index the index of the subexpression among the invariants of the loop
+     * @param key   the subexpression, the value is returned only if it was stored for the same object
+     * @return the stored value, or {@code null} if there is no value stored for the subexpression
+     */
+    public Context.Value invariant(int index, Object key) {
+        return invariantKeys != null && index < invariantKeys.length && invariantKeys[index] == key ? invariantValues[index] : null;
+    }
+
+    /**
+     * Store the value of a loop invariant subexpression in this frame. The value is kept as long as the frame, which
+     * is used for one execution of the loop.
+     *
+     * @param index the index of the subexpression among the invariants of the loop
+     * @param key   the subexpression
+     * @param value the value of the subexpression
+     */
+    public void invariant(int index, Object key, Context.Value value) {
+        if (invariantKeys == null || index >= invariantKeys.length) {
+            final var length = Math.max(index + 1, invariantKeys == null ? 2 : invariantKeys.length * 2);
+            invariantKeys = invariantKeys == null ? new Object[length] : Arrays.copyOf(invariantKeys, length);
+            invariantValues = invariantValues == null ? new Context.Value[length] : Arrays.copyOf(invariantValues, length);
+        }
+        invariantKeys[index] = key;
+        invariantValues[index] = value;
+    }
+
+    /**
+     * The read-only map view of the slots, so that the name based lookup works the same way as for a hierarchical
+     * context.
+     */
+    private static final class Slots extends AbstractMap<String, Object> {
+        private final String[] variables;
+        private final Object[] slots;
+
+        private Slots(String[] variables, Object[] slots) {
+            this.variables = variables;
+            this.slots = slots;
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < variables.length; i++) {
+                if (variables[i].equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return indexOf(key) != -1;
+        }
+
+        @Override
+        public Object get(Object key) {
+            final var index = indexOf(key);
+            return index == -1 ? null : slots[index];
+        }
+
+        @Override
+        public int size() {
+            return variables.length;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new Iterator<>() {
+                        private int index = 0;
+
+                        @Override
+                        public boolean hasNext() {
+                            return index < variables.length;
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            final var entry = new SimpleImmutableEntry<>(variables[index], slots[index]);
+                            index++;
+                            return entry;
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return variables.length;
+                }
+            };
+        }
+    }
+}
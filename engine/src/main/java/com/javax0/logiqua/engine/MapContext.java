@@ -1,6 +1,7 @@
 package com.javax0.logiqua.engine;
 
 import com.javax0.logiqua.Context;
+import com.javax0.logiqua.Path;
 
 import java.lang.reflect.Array;
 import java.math.BigDecimal;
@@ -47,15 +48,28 @@ import java.util.stream.StreamSupport;
  */
 public class MapContext implements Context {
 
-    private final ProxyRegistry<MappedProxyFactory> mappedProxyRegistry = new ProxyRegistry<>();
-    private final ProxyRegistry<IndexedProxyFactory> indexedProxyRegistry = new ProxyRegistry<>();
-    private final CasterRegistry casters = new CasterRegistry();
+    /**
+     * The casters used when no caster is registered, shared, so that {@link #caster(Class, Class)} allocates nothing.
+     */
+    private static final Optional<Caster<Object, Object>> IDENTITY = Optional.of(from -> from);
+    private static final Optional<Caster<Object, Object>> TO_STRING = Optional.of(Objects::toString);
 
-    protected final Map<String, Object> map;
+    private ProxyRegistry<MappedProxyFactory> mappedProxyRegistry;
+    private ProxyRegistry<IndexedProxyFactory> indexedProxyRegistry;
+    private CasterRegistry casters;
+    /**
+     * {@code true} while the registries are the ones of another context. They are copied before the first change.
+     */
+    private boolean shared;
+
+    /**
+     * The values of the context. Not final, because a {@link RecordContext} swaps it for each record of a batch.
+     */
+    protected Map<String, Object> map;
     public final Convenience convenience = new Convenience();
 
     public MapContext(Map<String, Object> map) {
-        this.map = map;
+        this(map, new ProxyRegistry<>(), new ProxyRegistry<>(), new CasterRegistry());
         registerCaster(Integer.class, Long.class, Integer::longValue);
         registerCaster(int.class, Long.class, Integer::longValue);
         registerCaster(Short.class, Long.class, Short::longValue);
@@ -121,11 +135,103 @@ public class MapContext implements Context {
 
     }
 
+    private MapContext(Map<String, Object> map,
+                       ProxyRegistry<MappedProxyFactory> mappedProxyRegistry,
+                       ProxyRegistry<IndexedProxyFactory> indexedProxyRegistry,
+                       CasterRegistry casters) {
+        this.map = map;
+        this.mappedProxyRegistry = mappedProxyRegistry;
+        this.indexedProxyRegistry = indexedProxyRegistry;
+        this.casters = casters;
+    }
+
+    /**
+     * Create a context that shares the casters and the proxies with another context.
+     * <p>
+     * This constructor does not register the default casters. It is used by the subclasses that are created often,
+     * like the loop contexts sprouted from a parent context, where running the whole registration for every new
+     * context would be a waste. The registries are copied when a caster or a proxy is registered in the new context,
+     * or it is frozen, so the other context is never changed through the new one.
+     *
+     * @param map        the map holding the values of the new context
+     * @param registries the context to share the registries with, or {@code null} to start with empty registries
+     */
+    protected MapContext(Map<String, Object> map, MapContext registries) {
+        this(map,
+                registries == null ? new ProxyRegistry<>() : registries.mappedProxyRegistry,
+                registries == null ? new ProxyRegistry<>() : registries.indexedProxyRegistry,
+                registries == null ? new CasterRegistry() : registries.casters);
+        this.shared = registries != null;
+    }
+
+    /**
+     * Copy the registries if they are shared, before changing them.
+     */
+    private void own() {
+        if (shared) {
+            mappedProxyRegistry = mappedProxyRegistry.copy();
+            indexedProxyRegistry = indexedProxyRegistry.copy();
+            casters = casters.copy();
+            shared = false;
+        }
+    }
+
+    /**
+     * Create a new context for the given map that shares the casters and the proxies with this context.
+     * <p>
+     * Creating the context this way is cheap, the registries are not copied, and the default casters are not
+     * registered again. A caster or a proxy registered later in this context is visible in the new one, but the new
+     * context copies the registries before registering anything in them, so it does not change this context.
+     *
+     * @param map the map holding the values of the new context
+     * @return the new context
+     */
+    public MapContext withMap(Map<String, Object> map) {
+        return new MapContext(map, this);
+    }
+
     public <From, To> void registerCaster(Class<From> from, Class<To> to, Context.Caster<From, To> caster) {
+        own();
         casters.register(from, to, caster);
     }
 
+    /**
+     * Check if there is a caster registered that converts from the given type to the other.
+     * <p>
+     * Contrary to {@link #caster(Class, Class)}, this method does not consider the identity and the default
+     * conversions, only the registered casters.
+     *
+     * @param from the source type
+     * @param to   the target type
+     * @return {@code true} if there is a caster registered for the conversion
+     */
+    public boolean hasCaster(Class<?> from, Class<?> to) {
+        return casters.find(from, to).isPresent();
+    }
+
+    /**
+     * Freeze the casters and the proxies of this context.
+     * <p>
+     * After this call, no new caster or proxy can be registered, and the context can be shared between threads.
+     * The data in the underlying map is not copied; it is the responsibility of the caller not to modify it while
+     * the context is used concurrently.
+     */
+    public void freeze() {
+        own();
+        casters.freeze();
+        mappedProxyRegistry.freeze();
+        indexedProxyRegistry.freeze();
+    }
+
+    /**
+     * @return {@code true} if the context was frozen calling {@link #freeze()}
+     */
+    public boolean isFrozen() {
+        return !shared && casters.isFrozen();
+    }
+
     public void registerProxy(Class<?> forInterface, ProxyFactory proxy) {
+        own();
         switch (proxy) {
             case MappedProxyFactory m -> mappedProxyRegistry.register(forInterface, m);
             case IndexedProxyFactory l -> indexedProxyRegistry.register(forInterface, l);
@@ -160,12 +266,51 @@ public class MapContext implements Context {
         return get(key, from, 0);
     }
 
+    /**
+     * Get the value of the parsed key. The result is the same as the result of {@link #get(String)} with the key of
+     * the path, but the parts of the key are not parsed again.
+     *
+     * @param path the parsed key to look up
+     * @return the value associated with the key embedded in a Value, or null if not found.
+     */
+    @Override
+    public Context.Value get(Path path) {
+        if (path.key().isEmpty() && !map.containsKey("")) {
+            return Context.Value.of(map);
+        }
+        return get(path, map);
+    }
+
+    /**
+     * Retrieves a {@code Context.Value} instance corresponding to the parsed key from the specified object.
+     * This is the same as {@link #get(String, Object)}, but the key is already split into parts, and the numeric parts
+     * are already parsed, therefore the lookup is only a walk over the objects.
+     *
+     * @param path the parsed key
+     * @param from the source object from which the value will be retrieved
+     * @return a {@code Context.Value} instance representing the retrieved value if found, or {@code null}
+     * @throws IllegalArgumentException  if the source object type is unsupported for key access.
+     * @throws NumberFormatException     if the key is expected to represent an index but is not a valid number.
+     * @throws IndexOutOfBoundsException if the key references an index out of bounds in a list or array.
+     */
+    public Context.Value get(Path path, Object from) {
+        return get(path, from, 0);
+    }
+
     private static final int MAX_DEBT = 100;
 
+    /**
+     * The index value passed to {@link #step(String, int, Object, int)} when the key was not parsed as an index yet.
+     * It is parsed only when the value is indexed.
+     */
+    private static final int NOT_PARSED = -2;
+
     /**
      * Retrieves a {@code Context.Value} instance corresponding to the given key from the specified source object.
      * This method supports nested key resolution, indexed elements within collections, and mappings through various
      * object structures such as maps, lists, arrays, and custom proxies.
+     * <p>
+     * Structured keys are parsed using {@link Path#of(String)}, which caches the parsed keys.
      *
      * @param key  the key or index used to retrieve the value; can include nested keys separated by dots (e.g., "key.subkey")
      *             or indexes (e.g., "list[0]"). Whitespace around separators is trimmed.
@@ -179,63 +324,81 @@ public class MapContext implements Context {
      * @throws IndexOutOfBoundsException if the key references an out-of-bounds index in a list or array.
      */
     private Context.Value get(String key, Object from, int debt) {
+        if (Path.isStructured(key)) {
+            return get(Path.of(key), from, debt);
+        }
+        return step(key, NOT_PARSED, from, debt);
+    }
+
+    private Context.Value get(Path path, Object from, int debt) {
+        if (!path.isStructured()) {
+            return step(path.key(), path.index(0), from, debt);
+        }
         if (debt > MAX_DEBT) {
             throw new IllegalArgumentException("Maximum debt reached while indexing 'var' element");
         }
-        final var dix = key.indexOf(".");
-        final var pix = key.indexOf("[");
-        if (dix != -1 || pix != -1) {
-            final var parts = key.trim().split("\\s*[\\[.]\\s*", -1);
-            Object iterator = from;
-            for (final var part : parts) {
-                String k = part.endsWith("]") ? part.substring(0, part.length() - 1) : part;
-                final var iteratorV = get(k, iterator, debt + 1);
-                if (iteratorV == null) {
-                    return null;
+        Object iterator = from;
+        for (int i = 0; i < path.size(); i++) {
+            final var iteratorV = step(path.part(i), path.index(i), iterator, debt + 1);
+            if (iteratorV == null) {
+                return null;
+            }
+            iterator = iteratorV.get();
+        }
+        return Context.Value.of(iterator);
+    }
+
+    /**
+     * Get the value for a key that is not structured from the object.
+     *
+     * @param key   the key, which does not contain separators
+     * @param index the key parsed as an index, {@link Path#NOT_INDEX} if it is not an index, or {@link #NOT_PARSED}
+     * @param from  the source object
+     * @param debt  the current recursive depth
+     * @return the value, or {@code null} if there is no value for the key
+     */
+    private Context.Value step(String key, int index, Object from, int debt) {
+        if (debt > MAX_DEBT) {
+            throw new IllegalArgumentException("Maximum debt reached while indexing 'var' element");
+        }
+        return switch (from) {
+            case null -> {
+                if (key.isEmpty()) {
+                    // if key is empty, we return the object, even if it is null
+                    yield Context.Value.of(null);
+                } else {
+                    // we will not find any non-empty key indexed whatnot in a null object
+                    yield null;
                 }
-                iterator = iteratorV.get();
             }
-            return Context.Value.of(iterator);
-        } else {
-            return switch (from) {
-                case null -> {
-                    if (key.isEmpty()) {
-                        // if key is empty, we return the object, even if it is null
-                        yield Context.Value.of(null);
-                    } else {
-                        // we will not find any non-empty key indexed whatnot in a null object
-                        yield null;
-                    }
+            case Context context -> context.get(key);
+            case Map<?, ?> m -> m.containsKey(key) ? Context.Value.of(m.get(key)) : null;
+            case List<?> list -> {
+                final var i = index == NOT_PARSED ? Path.index(key) : index;
+                if (i < 0) {
+                    throw new NumberFormatException("Index must be a number");
                 }
-                case Context context -> Context.Value.of(context.get(key));
-                case Map<?, ?> m -> m.containsKey(key) ? Context.Value.of(m.get(key)) : null;
-                case List<?> list -> {
-                    int index = parse(key);
-                    if (index < 0) {
-                        throw new NumberFormatException("Index must be a number");
-                    }
-                    if (index >= list.size()) {
-                        throw new IndexOutOfBoundsException("Index " + index + " is out of bounds > " + list.size());
-                    }
-                    yield Context.Value.of(list.get(index));
+                if (i >= list.size()) {
+                    throw new IndexOutOfBoundsException("Index " + i + " is out of bounds > " + list.size());
                 }
-                case Collection<?> collection -> get(key, List.of(collection), debt + 1);
-                case Iterable<?> iterable -> get(key, List.of(iterable), debt + 1);
-                case Object[] data -> get(key, Arrays.asList(data), debt + 1);
-                default -> {
-                    final var mapLike = mappedProxyRegistry.getProxy(from.getClass());
-                    if (mapLike != null) {
-                        yield mapLike.get(from).get(key);
-                    } else {
-                        final var indexed = indexedProxyRegistry.getProxy(from.getClass());
-                        if (indexed != null) {
-                            yield indexed.get(from).get(parse(key));
-                        }
-                        throw new IllegalArgumentException("Cannot get the value from the Java Object '" + from.getClass().getName() + "' with key '" + key + "'");
+                yield Context.Value.of(list.get(i));
+            }
+            case Collection<?> collection -> step(key, index, List.of(collection), debt + 1);
+            case Iterable<?> iterable -> step(key, index, List.of(iterable), debt + 1);
+            case Object[] data -> step(key, index, Arrays.asList(data), debt + 1);
+            default -> {
+                final var mapLike = mappedProxyRegistry.getProxy(from.getClass());
+                if (mapLike != null) {
+                    yield mapLike.get(from).get(key);
+                } else {
+                    final var indexed = indexedProxyRegistry.getProxy(from.getClass());
+                    if (indexed != null) {
+                        yield indexed.get(from).get(index == NOT_PARSED ? Path.index(key) : index);
                     }
+                    throw new IllegalArgumentException("Cannot get the value from the Java Object '" + from.getClass().getName() + "' with key '" + key + "'");
                 }
-            };
-        }
+            }
+        };
     }
 
 
@@ -252,16 +415,16 @@ public class MapContext implements Context {
      * @return a {@code Caster} instance capable of converting objects of type {@code From} to type {@code To},
      * or {@code null} if no appropriate caster is found and the target type is not {@code String}
      */
-    @SuppressWarnings("unchecked")
+    @SuppressWarnings({"unchecked", "rawtypes"})
     public <From, To> Optional<Caster<From, To>> caster(Class<From> fromClass, Class<To> toClass) {
         if (toClass == fromClass || (fromClass.isPrimitive() && toClass == getWrapperClass(fromClass))) {
-            return Optional.of(from -> (To) from);
+            return (Optional) IDENTITY;
         }
-        final var caster = casters.get(fromClass, toClass);
-        if (caster == null && toClass == String.class) {
-            return Optional.of(from -> (To) Objects.toString(from));
+        final var caster = casters.find(fromClass, toClass);
+        if (caster.isEmpty() && toClass == String.class) {
+            return (Optional) TO_STRING;
         }
-        return Optional.ofNullable(caster);
+        return caster;
     }
 
     /**
@@ -326,7 +489,7 @@ public class MapContext implements Context {
         }
         return switch (target) {
 
-            case Context context -> (MappedProxy) (k) -> Context.Value.of(context.get(k));
+            case Context context -> (MappedProxy) context::get;
             case Map<?, ?> m -> (MappedProxy) (k) -> m.containsKey(k) ? Context.Value.of(m.get(k)) : null;
             case List<?> list -> new IndexedProxy() {
                 @Override
@@ -418,26 +581,13 @@ public class MapContext implements Context {
     }
 
 
-    private static int parse(String key) {
-        if (key.isEmpty()) {
-            return -1;
-        }
-        long value = 0;
-        for (char c : key.toCharArray()) {
-            if (Character.isDigit(c)) {
-                value = value * 10 + Character.getNumericValue(c);
-                if (value > Integer.MAX_VALUE) {
-                    return -1; // Indicate invalid index
-                }
-            } else {
-                return -1;
-            }
-        }
-        return (int) value;
-    }
-
     public Context sprout(Map<String, Object> data) {
         return new HierarchicalMapContext(data, this);
     }
 
+    @Override
+    public Frame frame(String... variables) {
+        return new LoopFrame(variables, this);
+    }
+
 }
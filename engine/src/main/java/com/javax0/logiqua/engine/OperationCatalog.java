@@ -0,0 +1,58 @@
+package com.javax0.logiqua.engine;
+
+import com.javax0.logiqua.Operation;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+/**
+ * The process-wide catalog of the operations available through the service loader mechanism.
+ * <p>
+ * The catalog is built once, lazily, the first time an {@link Engine} is created. It is immutable, and the engines
+ * share it copy-on-write: a {@link Registry} reads the catalog directly until the first operation is registered or
+ * updated, and only then copies it.
+ * <p>
+ * The catalog maps the symbols to the operations. The symbols are calculated only once, when the catalog is built,
+ * hence the reflective default implementation of {@link Operation#symbol()} is not invoked for every engine.
+ */
+final class OperationCatalog {
+
+    private OperationCatalog() {
+    }
+
+    /**
+     * The holder class is initialized only when the catalog is first used. The JVM guarantees that the class
+     * initialization happens once and that it is thread-safe.
+     */
+    private static final class Holder {
+        private static final Map<String, Operation> OPERATIONS = load();
+    }
+
+    /**
+     * @return the immutable map of the operations keyed by their symbol
+     */
+    static Map<String, Operation> operations() {
+        return Holder.OPERATIONS;
+    }
+
+    /**
+     * Load all the functions and commands from the service loader.
+     *
+     * @return the immutable map of the loaded operations keyed by their symbol
+     * @throws IllegalArgumentException if two operations have the same symbol
+     */
+    private static Map<String, Operation> load() {
+        final var operations = new HashMap<String, Operation>();
+        ServiceLoader.load(Operation.Function.class).forEach(op -> add(operations, op));
+        ServiceLoader.load(Operation.Macro.class).forEach(op -> add(operations, op));
+        return Map.copyOf(operations);
+    }
+
+    private static void add(Map<String, Operation> operations, Operation operation) {
+        final var symbol = operation.symbol();
+        if (operations.putIfAbsent(symbol, operation) != null) {
+            throw new IllegalArgumentException("The operation " + symbol + " is already registered");
+        }
+    }
+}
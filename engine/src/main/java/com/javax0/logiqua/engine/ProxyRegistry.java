@@ -1,6 +1,8 @@
 package com.javax0.logiqua.engine;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * A generic registry that manages proxies for specific interfaces or classes.
@@ -17,6 +19,11 @@ import java.util.ArrayList;
  * <p>
  * This gives the ability to the embedding application to add new types to the engine without having to modify the
  * engine code.
+ * <p>
+ * The proxy found for a class is cached in a {@link ClassValue}, keyed on the concrete class. A lookup for a class
+ * seen already costs a single {@link ClassValue#get(Class)} call and allocates nothing. Registering a new proxy
+ * drops the cache, because the new proxy may change the result of the former lookups, and the first lookup after the
+ * registration creates a new, empty one. A context registering many proxies before it is used creates only one.
  *
  * @param <T> the type of proxy managed by the registry
  */
@@ -31,7 +38,62 @@ public class ProxyRegistry<T> {
         }
     }
 
-    final ArrayList<Proxy> proxies = new ArrayList<>();
+    /**
+     * Resolves the proxy for a class scanning the proxies registered when the resolver was created.
+     * The result is {@link Optional#empty()} when there is no matching proxy, because a {@link ClassValue} cannot
+     * store {@code null}.
+     */
+    private class Resolver extends ClassValue<Optional<T>> {
+        private final List<Proxy> proxies;
+
+        private Resolver(List<Proxy> proxies) {
+            this.proxies = proxies;
+        }
+
+        @Override
+        protected Optional<T> computeValue(Class<?> forClass) {
+            for (final var p : proxies) {
+                if (p.forInterface.isAssignableFrom(forClass)) {
+                    return Optional.of(p.proxy);
+                }
+            }
+            return Optional.empty();
+        }
+    }
+
+    private volatile List<Proxy> proxies = List.of();
+    /**
+     * The cache of the lookups, {@code null} until the first lookup after a registration.
+     */
+    private volatile Resolver resolver = null;
+    private volatile boolean frozen = false;
+
+    /**
+     * Freeze the registry. After this call no new proxy can be registered, and the registry can be read from any
+     * number of threads without synchronization.
+     */
+    public void freeze() {
+        frozen = true;
+    }
+
+    /**
+     * @return {@code true} if the registry was frozen calling {@link #freeze()}
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    /**
+     * Create a registry with the same proxies. The copy is not frozen, and the proxies registered later in one of the
+     * registries are not visible in the other.
+     *
+     * @return the copy of the registry
+     */
+    public ProxyRegistry<T> copy() {
+        final var copy = new ProxyRegistry<T>();
+        copy.proxies = proxies;
+        return copy;
+    }
 
     /**
      * Retrieves a proxy instance associated with the specified class.
@@ -42,11 +104,26 @@ public class ProxyRegistry<T> {
      * @return the proxy instance registered for the specified class, or null if no matching proxy is found
      */
     public T getProxy(Class<?> forClass) {
-        return proxies.stream()
-                .filter(p -> p.forInterface.isAssignableFrom(forClass))
-                .findFirst()
-                .map(p -> p.proxy)
-                .orElse(null);
+        return findProxy(forClass).orElse(null);
+    }
+
+    /**
+     * Same as {@link #getProxy(Class)}, but the result is an optional, which is cached and not allocated again on
+     * every call.
+     *
+     * @param forClass the class or interface for which the proxy is requested
+     * @return the optional proxy registered for the specified class
+     */
+    public Optional<T> findProxy(Class<?> forClass) {
+        final var current = resolver;
+        return (current == null ? resolver() : current).get(forClass);
+    }
+
+    private synchronized Resolver resolver() {
+        if (resolver == null) {
+            resolver = new Resolver(proxies);
+        }
+        return resolver;
     }
 
     /**
@@ -65,12 +142,20 @@ public class ProxyRegistry<T> {
      * @param forInterface the interface or class to register the proxy for
      * @param proxy        the proxy instance to be associated with the specified interface or class
      * @throws IllegalArgumentException if a proxy is already registered for the specified interface or class
+     * @throws IllegalStateException    if the registry is frozen
      */
-    public void register(Class<?> forInterface, T proxy) {
-        final var existingForInterface = getProxy(forInterface);
-        if (existingForInterface != null) {
-            throw new IllegalArgumentException("The class '" + forInterface + "' is already registered as '" + existingForInterface + "'");
+    public synchronized void register(Class<?> forInterface, T proxy) {
+        if (frozen) {
+            throw new IllegalStateException("The registry is frozen, no proxy can be registered for the class '" + forInterface + "'");
+        }
+        for (final var p : proxies) {
+            if (p.forInterface.isAssignableFrom(forInterface)) {
+                throw new IllegalArgumentException("The class '" + forInterface + "' is already registered as '" + p.proxy + "'");
+            }
         }
-        proxies.add(new Proxy(forInterface, proxy));
+        final var extended = new ArrayList<>(proxies);
+        extended.add(new Proxy(forInterface, proxy));
+        proxies = List.copyOf(extended);
+        resolver = null;
     }
 }
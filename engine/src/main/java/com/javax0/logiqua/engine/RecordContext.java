@@ -0,0 +1,34 @@
+package com.javax0.logiqua.engine;
+
+import com.javax0.logiqua.Context;
+
+import java.util.Map;
+
+/**
+ * A context for evaluating a script over the records of a batch one after the other.
+ * <p>
+ * The context behaves the same way as the context {@link Engine#contextFor(Map)} creates for the record, but it is
+ * created only once for the whole batch, and the record is swapped calling {@link #record(Object)}. A record that is
+ * not a {@link Map} is the value of the key {@code ""}, and its fields are looked up the same way as the fields of a
+ * loop value.
+ */
+final class RecordContext extends HierarchicalMapContext {
+
+    RecordContext(Context parent) {
+        super(Map.of(), null, parent);
+    }
+
+    /**
+     * Make the record the values of the context.
+     *
+     * @param record the record
+     */
+    @SuppressWarnings("unchecked")
+    void record(Object record) {
+        map = switch (record) {
+            case null -> Map.of();
+            case Map<?, ?> values -> (Map<String, Object>) values;
+            default -> Map.of("", record);
+        };
+    }
+}
@@ -7,9 +7,68 @@ import java.util.Map;
 
 /**
  * Hold a registry of all the operations.
+ * <p>
+ * A registry can be created on top of an immutable map of operations, typically the {@link OperationCatalog}.
+ * In that case the map is shared and copied only when the registry is first modified.
  */
 public class Registry {
-    final private Map<String, Operation> operations = new HashMap<>();
+    private volatile Map<String, Operation> operations;
+    private boolean shared;
+    private volatile boolean frozen = false;
+
+    /**
+     * Create an empty registry.
+     */
+    public Registry() {
+        this.operations = new HashMap<>();
+        this.shared = false;
+    }
+
+    /**
+     * Create a registry that starts with the given operations. The map is not copied until the registry is modified,
+     * therefore it must not be modified by the caller.
+     *
+     * @param operations the immutable map of the initial operations keyed by their symbol
+     */
+    Registry(Map<String, Operation> operations) {
+        this.operations = operations;
+        this.shared = true;
+    }
+
+    /**
+     * @return the map of the operations that can be modified, copying the shared map on the first call
+     */
+    private Map<String, Operation> writable() {
+        if (shared) {
+            operations = new HashMap<>(operations);
+            shared = false;
+        }
+        return operations;
+    }
+
+    /**
+     * Freeze the registry. After this call the registry is immutable, and it can be read from any number of threads
+     * without synchronization. Any later attempt to register or update an operation throws an
+     * {@link IllegalStateException}.
+     */
+    public void freeze() {
+        operations = Map.copyOf(operations);
+        shared = true;
+        frozen = true;
+    }
+
+    /**
+     * @return {@code true} if the registry was frozen calling {@link #freeze()}
+     */
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    private void assertNotFrozen(Operation operation) {
+        if (frozen) {
+            throw new IllegalStateException("The registry is frozen, the operation " + operation.symbol() + " cannot be registered or updated");
+        }
+    }
 
     /**
      * Registers a new operation in the registry.
@@ -19,12 +78,15 @@ public class Registry {
      *                  as defined by its {@code symbol()} method.
      *                  This symbol is used as the identifier in the registry.
      * @throws IllegalArgumentException if an operation with the same symbol is already registered.
+     * @throws IllegalStateException    if the registry is frozen.
      */
     public void register(Operation operation) {
-        if (operations.containsKey(operation.symbol())) {
-            throw new IllegalArgumentException("The operation " + operation.symbol() + " is already registered");
+        assertNotFrozen(operation);
+        final var symbol = operation.symbol();
+        if (operations.containsKey(symbol)) {
+            throw new IllegalArgumentException("The operation " + symbol + " is already registered");
         }
-        operations.put(operation.symbol(), operation);
+        writable().put(symbol, operation);
     }
 
     /**
@@ -38,12 +100,15 @@ public class Registry {
      * @param operation the operation to update. The operation must have a unique symbol as defined by its {@code symbol()} method,
      *                  and this symbol must already exist in the registry for the update to be successful.
      * @throws IllegalArgumentException if the operation's symbol is not found in the registry.
+     * @throws IllegalStateException    if the registry is frozen.
      */
     public void update(Operation operation) {
-        if (!operations.containsKey(operation.symbol())) {
-            throw new IllegalArgumentException("The operation " + operation.symbol() + " is not registered, cannot be updated");
+        assertNotFrozen(operation);
+        final var symbol = operation.symbol();
+        if (!operations.containsKey(symbol)) {
+            throw new IllegalArgumentException("The operation " + symbol + " is not registered, cannot be updated");
         }
-        operations.put(operation.symbol(), operation);
+        writable().put(symbol, operation);
     }
 
     /**
@@ -54,9 +119,11 @@ public class Registry {
      * @param operation the operation to register or update.
      *                  The operation must have a unique symbol as defined by its {@code symbol()} method,
      *                  which is used as the identifier in the registry.
+     * @throws IllegalStateException if the registry is frozen.
      */
     public void registerOrUpdate(Operation operation) {
-        operations.put(operation.symbol(), operation);
+        assertNotFrozen(operation);
+        writable().put(operation.symbol(), operation);
     }
 
     /**
@@ -68,9 +135,10 @@ public class Registry {
      * @throws IllegalArgumentException if the symbol is not registered in the registry.
      */
     public Operation get(String symbol) {
-        if (!operations.containsKey(symbol)) {
+        final var operation = operations.get(symbol);
+        if (operation == null) {
             throw new IllegalArgumentException("The operation '" + symbol + "' is not registered");
         }
-        return operations.get(symbol);
+        return operation;
     }
 }
@@ -1,10 +1,12 @@
 package com.javax0.logiqua.scripts;
 
+import com.javax0.logiqua.Context;
 import com.javax0.logiqua.Operation;
 import com.javax0.logiqua.Script;
 import com.javax0.logiqua.engine.Engine;
 
 import java.util.Arrays;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 sealed abstract class AbstractOperation implements Script permits FunctionNode, MacroNode {
@@ -18,6 +20,15 @@ sealed abstract class AbstractOperation implements Script permits FunctionNode,
         this.args = args;
     }
 
+    @Override
+    public Object evaluate(Context context) {
+        return evaluateUsing(engine.executor(context));
+    }
+
+    @Override
+    public Object evaluate(Map<String, Object> data) {
+        return evaluate(engine.contextFor(data));
+    }
 
     @Override
     public String jsonify() {
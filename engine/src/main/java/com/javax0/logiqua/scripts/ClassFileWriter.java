@@ -0,0 +1,476 @@
+package com.javax0.logiqua.scripts;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A minimal class file writer used by the {@link ScriptCompiler}.
+ * <p>
+ * The writer creates a final class with a public no-argument constructor and public methods. It supports only the
+ * instructions the compiler uses. The class file version is 49 (Java 5), which does not need the stack map frames, so
+ * the writer does not have to compute them. The version still allows the class to be defined as a hidden class.
+ * <p>
+ * The code of a method is written by a {@link Code} object. It keeps track of the depth of the operand stack to
+ * calculate the maximum, and of the local variables.
+ */
+final class ClassFileWriter {
+    private static final int VERSION = 49;
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+
+    /**
+     * The maximum length of the code of a method. The real limit is 64k, but the branches use 16-bit signed offsets.
+     */
+    static final int MAX_CODE_LENGTH = Short.MAX_VALUE;
+
+    /**
+     * Thrown when the class would exceed a limit of the class file format. The script is too large to compile, while
+     * any other exception is an error of the writer or of the compiler.
+     */
+    static final class TooLargeException extends IllegalArgumentException {
+        TooLargeException(String message) {
+            super(message);
+        }
+    }
+
+    private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+    private final DataOutputStream poolOut = new DataOutputStream(pool);
+    private final Map<String, Integer> poolIndex = new HashMap<>();
+    private int poolSize = 1;
+
+    private final int thisClass;
+    private final int superClass;
+    private final List<Integer> interfaces = new ArrayList<>();
+    private final List<byte[]> methods = new ArrayList<>();
+
+    /**
+     * @param name       the internal name of the class, like {@code com/javax0/logiqua/scripts/Compiled}
+     * @param interfaces the internal names of the implemented interfaces
+     */
+    ClassFileWriter(String name, String... interfaces) {
+        thisClass = classRef(name);
+        superClass = classRef("java/lang/Object");
+        for (final var i : interfaces) {
+            this.interfaces.add(classRef(i));
+        }
+        final var init = method("<init>", "()V", 1);
+        init.aload(0);
+        init.invokespecial("java/lang/Object", "<init>", "()V", 0, 0);
+        init.op(Op.RETURN);
+        init.end();
+    }
+
+    /**
+     * Start a new public method.
+     *
+     * @param name       the name of the method
+     * @param descriptor the descriptor of the method
+     * @param parameters the number of the local variable slots used by {@code this} and the parameters
+     * @return the code writer of the method, call {@link Code#end()} when the method is finished
+     */
+    Code method(String name, String descriptor, int parameters) {
+        return new Code(utf8(name), utf8(descriptor), parameters);
+    }
+
+    /**
+     * @return the bytes of the class file
+     */
+    byte[] toByteArray() {
+        try {
+            final var bytes = new ByteArrayOutputStream();
+            final var out = new DataOutputStream(bytes);
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(VERSION);
+            out.writeShort(poolSize);
+            poolOut.flush();
+            pool.writeTo(out);
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(interfaces.size());
+            for (final var i : interfaces) {
+                out.writeShort(i);
+            }
+            out.writeShort(0);
+            out.writeShort(methods.size());
+            for (final var m : methods) {
+                out.write(m);
+            }
+            out.writeShort(0);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot write the class file into memory", e);
+        }
+    }
+
+    // the constant pool
+
+    private int constant(String key, int slots, PoolWriter writer) {
+        final var index = poolIndex.get(key);
+        if (index != null) {
+            return index;
+        }
+        try {
+            writer.write();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot write the constant pool into memory", e);
+        }
+        final var newIndex = poolSize;
+        poolSize += slots;
+        if (poolSize > 0xFFFF) {
+            throw new TooLargeException("The constant pool is too large");
+        }
+        poolIndex.put(key, newIndex);
+        return newIndex;
+    }
+
+    @FunctionalInterface
+    private interface PoolWriter {
+        void write() throws IOException;
+    }
+
+    int utf8(String value) {
+        return constant("U" + value, 1, () -> {
+            poolOut.writeByte(1);
+            poolOut.writeUTF(value);
+        });
+    }
+
+    int classRef(String name) {
+        final var nameIndex = utf8(name);
+        return constant("C" + name, 1, () -> {
+            poolOut.writeByte(7);
+            poolOut.writeShort(nameIndex);
+        });
+    }
+
+    int string(String value) {
+        final var valueIndex = utf8(value);
+        return constant("S" + value, 1, () -> {
+            poolOut.writeByte(8);
+            poolOut.writeShort(valueIndex);
+        });
+    }
+
+    int integer(int value) {
+        return constant("I" + value, 1, () -> {
+            poolOut.writeByte(3);
+            poolOut.writeInt(value);
+        });
+    }
+
+    private int nameAndType(String name, String descriptor) {
+        final var nameIndex = utf8(name);
+        final var descriptorIndex = utf8(descriptor);
+        return constant("N" + name + ":" + descriptor, 1, () -> {
+            poolOut.writeByte(12);
+            poolOut.writeShort(nameIndex);
+            poolOut.writeShort(descriptorIndex);
+        });
+    }
+
+    private int memberRef(int tag, String owner, String name, String descriptor) {
+        final var classIndex = classRef(owner);
+        final var nameAndTypeIndex = nameAndType(name, descriptor);
+        return constant("M" + tag + owner + "." + name + ":" + descriptor, 1, () -> {
+            poolOut.writeByte(tag);
+            poolOut.writeShort(classIndex);
+            poolOut.writeShort(nameAndTypeIndex);
+        });
+    }
+
+    /**
+     * The opcodes without operands used by the compiler, with the change of the operand stack depth they cause,
+     * counting the {@code long} and {@code double} values as two.
+     */
+    enum Op {
+        ACONST_NULL(0x01, 1), LCONST_0(0x09, 2),
+        AALOAD(0x32, -1), AASTORE(0x53, -3),
+        POP(0x57, -1), DUP(0x59, 1), SWAP(0x5F, 0),
+        LADD(0x61, -2), DADD(0x63, -2), LSUB(0x65, -2), DSUB(0x67, -2), LMUL(0x69, -2), DMUL(0x6B, -2),
+        LDIV(0x6D, -2), DDIV(0x6F, -2), LREM(0x71, -2), DREM(0x73, -2),
+        LCMP(0x94, -3),
+        IFEQ(0x99, -1), IFNE(0x9A, -1), IFLT(0x9B, -1), IFGE(0x9C, -1), IFGT(0x9D, -1), IFLE(0x9E, -1),
+        GOTO(0xA7, 0), IFNULL(0xC6, -1), IFNONNULL(0xC7, -1),
+        ARETURN(0xB0, -1), RETURN(0xB1, 0);
+
+        final int code;
+        final int stack;
+
+        Op(int code, int stack) {
+            this.code = code;
+            this.stack = stack;
+        }
+    }
+
+    /**
+     * A position in the code. A label can be the target of branches before and after it is placed.
+     */
+    static final class Label {
+        private int position = -1;
+        private int stack = -1;
+        private final List<int[]> references = new ArrayList<>();
+
+        private Label() {
+        }
+    }
+
+    /**
+     * The writer of the code of a method.
+     */
+    final class Code {
+        private final ByteArrayOutputStream code = new ByteArrayOutputStream();
+        private final List<Label> labels = new ArrayList<>();
+        private final int name;
+        private final int descriptor;
+        private int stack = 0;
+        private int maxStack = 0;
+        private int locals;
+
+        private Code(int name, int descriptor, int parameters) {
+            this.name = name;
+            this.descriptor = descriptor;
+            this.locals = parameters;
+        }
+
+        /**
+         * @return the index of a new local variable holding a reference
+         */
+        int newLocal() {
+            if (locals == 0xFF) {
+                throw new TooLargeException("Too many local variables");
+            }
+            return locals++;
+        }
+
+        /**
+         * @return the current length of the code
+         */
+        int length() {
+            return code.size();
+        }
+
+        private void stack(int change) {
+            stack += change;
+            if (stack < 0) {
+                throw new IllegalStateException("Operand stack underflow in the generated code");
+            }
+            maxStack = Math.max(maxStack, stack);
+        }
+
+        private void u1(int value) {
+            code.write(value);
+        }
+
+        private void u2(int value) {
+            code.write(value >> 8);
+            code.write(value);
+        }
+
+        void op(Op op) {
+            op(op, op.stack);
+        }
+
+        private void op(Op op, int stackChange) {
+            u1(op.code);
+            stack(stackChange);
+        }
+
+        void aload(int local) {
+            if (local <= 3) {
+                u1(0x2A + local);
+            } else {
+                u1(0x19);
+                u1(local);
+            }
+            stack(1);
+        }
+
+        void astore(int local) {
+            if (local <= 3) {
+                u1(0x4B + local);
+            } else {
+                u1(0x3A);
+                u1(local);
+            }
+            stack(-1);
+        }
+
+        void iconst(int value) {
+            if (value >= -1 && value <= 5) {
+                u1(0x03 + value);
+            } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+                u1(0x10);
+                u1(value);
+            } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+                u1(0x11);
+                u2(value);
+            } else {
+                ldc(integer(value));
+                return;
+            }
+            stack(1);
+        }
+
+        void ldcString(String value) {
+            ldc(string(value));
+        }
+
+        private void ldc(int index) {
+            if (index <= 0xFF) {
+                u1(0x12);
+                u1(index);
+            } else {
+                u1(0x13);
+                u2(index);
+            }
+            stack(1);
+        }
+
+        void anewarray(String type) {
+            u1(0xBD);
+            u2(classRef(type));
+        }
+
+        void checkcast(String type) {
+            u1(0xC0);
+            u2(classRef(type));
+        }
+
+        void instanceOf(String type) {
+            u1(0xC1);
+            u2(classRef(type));
+        }
+
+        void getstatic(String owner, String name, String descriptor) {
+            u1(0xB2);
+            u2(memberRef(9, owner, name, descriptor));
+            stack(1);
+        }
+
+        /**
+         * @param arguments the number of the stack slots the arguments use, without the receiver
+         * @param result    the number of the stack slots the result uses
+         */
+        void invokevirtual(String owner, String name, String descriptor, int arguments, int result) {
+            u1(0xB6);
+            u2(memberRef(10, owner, name, descriptor));
+            stack(-arguments - 1 + result);
+        }
+
+        void invokespecial(String owner, String name, String descriptor, int arguments, int result) {
+            u1(0xB7);
+            u2(memberRef(10, owner, name, descriptor));
+            stack(-arguments - 1 + result);
+        }
+
+        void invokestatic(String owner, String name, String descriptor, int arguments, int result) {
+            u1(0xB8);
+            u2(memberRef(10, owner, name, descriptor));
+            stack(-arguments + result);
+        }
+
+        void invokeinterface(String owner, String name, String descriptor, int arguments, int result) {
+            u1(0xB9);
+            u2(memberRef(11, owner, name, descriptor));
+            u1(arguments + 1);
+            u1(0);
+            stack(-arguments - 1 + result);
+        }
+
+        /**
+         * Write a branch instruction to the label.
+         *
+         * @param op the branch instruction
+         * @param to the target label
+         */
+        void jump(Op op, Label to) {
+            final var at = code.size();
+            op(op);
+            if (to.stack == -1) {
+                to.stack = stack;
+            } else if (to.stack != stack) {
+                throw new IllegalStateException("Inconsistent operand stack at a branch in the generated code");
+            }
+            if (to.position == -1) {
+                to.references.add(new int[]{at, code.size()});
+                u2(0);
+            } else {
+                u2(to.position - at);
+            }
+        }
+
+        /**
+         * Place the label at the current position. When the label is placed after an unconditional jump, the depth of
+         * the stack is the one recorded at the jumps to the label.
+         *
+         * @param label the label to place
+         */
+        void place(Label label) {
+            label.position = code.size();
+            if (label.stack != -1) {
+                stack = label.stack;
+            } else {
+                label.stack = stack;
+            }
+        }
+
+        /**
+         * Finish the method, resolve the forward jumps and add it to the class.
+         *
+         * @throws TooLargeException if the code is too long
+         */
+        void end() {
+            if (code.size() > MAX_CODE_LENGTH) {
+                throw new TooLargeException("The generated code is too long");
+            }
+            final var bytes = code.toByteArray();
+            // the labels are all placed now, patch the forward jumps
+            for (final var entry : labels) {
+                for (final var ref : entry.references) {
+                    final var offset = entry.position - ref[0];
+                    bytes[ref[1]] = (byte) (offset >> 8);
+                    bytes[ref[1] + 1] = (byte) offset;
+                }
+            }
+            try {
+                final var method = new ByteArrayOutputStream();
+                final var out = new DataOutputStream(method);
+                out.writeShort(ACC_PUBLIC);
+                out.writeShort(name);
+                out.writeShort(descriptor);
+                out.writeShort(1);
+                out.writeShort(utf8("Code"));
+                out.writeInt(2 + 2 + 4 + bytes.length + 2 + 2);
+                out.writeShort(maxStack);
+                out.writeShort(locals);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+                // no exception table and no attributes
+                out.writeShort(0);
+                out.writeShort(0);
+                out.flush();
+                methods.add(method.toByteArray());
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot write the method into memory", e);
+            }
+        }
+
+        /**
+         * @return a new label of this method
+         */
+        Label label() {
+            final var label = new Label();
+            labels.add(label);
+            return label;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.javax0.logiqua.scripts;
+
+import com.javax0.logiqua.Context;
+import com.javax0.logiqua.Executor;
+import com.javax0.logiqua.Script;
+import com.javax0.logiqua.engine.Engine;
+
+import java.util.Map;
+
+/**
+ * A script compiled into a generated class by the {@link ScriptCompiler}.
+ * <p>
+ * The compiled script gives the same results as the original one. It holds the original script to create the JSON
+ * representation of it.
+ */
+public final class CompiledScript implements Script {
+
+    /**
+     * The interface implemented by the generated class.
+     * <p>
+     * The objects the generated code needs, the constants, the operations, and the scripts that are not compiled, are
+     * passed in an array, and the code reads them from it by their index.
+     */
+    interface Body {
+        Object evaluate(Executor executor, Object[] constants);
+    }
+
+    private final Engine engine;
+    private final Script original;
+    private final Body body;
+    private final Object[] constants;
+
+    CompiledScript(Engine engine, Script original, Body body, Object[] constants) {
+        this.engine = engine;
+        this.original = original;
+        this.body = body;
+        this.constants = constants;
+    }
+
+    /**
+     * @return the script this script was compiled from
+     */
+    public Script original() {
+        return original;
+    }
+
+    @Override
+    public Object evaluate() {
+        return body.evaluate(engine.evaluator(), constants);
+    }
+
+    @Override
+    public Object evaluateUsing(Executor executor) {
+        return body.evaluate(executor, constants);
+    }
+
+    @Override
+    public Object evaluate(Context context) {
+        return evaluateUsing(engine.executor(context));
+    }
+
+    @Override
+    public Object evaluate(Map<String, Object> data) {
+        return evaluate(engine.contextFor(data));
+    }
+
+    @Override
+    public String jsonify() {
+        return original.jsonify();
+    }
+}
@@ -1,5 +1,6 @@
 package com.javax0.logiqua.scripts;
 
+import com.javax0.logiqua.Context;
 import com.javax0.logiqua.Executor;
 import com.javax0.logiqua.Script;
 
@@ -25,6 +26,16 @@ public class ConstantValueNode<T> implements Script {
         return value;
     }
 
+    @Override
+    public Object evaluate(Context context) {
+        return value;
+    }
+
+    @Override
+    public Object evaluate(Map<String, Object> data) {
+        return value;
+    }
+
     @Override
     public String jsonify() {
         return switch (value ){
@@ -0,0 +1,437 @@
+package com.javax0.logiqua.scripts;
+
+import com.javax0.logiqua.Context;
+import com.javax0.logiqua.Executor;
+import com.javax0.logiqua.Operation;
+import com.javax0.logiqua.Path;
+import com.javax0.logiqua.Script;
+import com.javax0.logiqua.engine.Engine;
+import com.javax0.logiqua.engine.LoopFrame;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A script encoded as a postfix program for a small stack machine, instead of a tree of nodes.
+ * <p>
+ * The program is an {@code int} array of instructions and a constant pool holding the constant values, the operations
+ * and everything else the instructions refer to. Each instruction is an opcode followed by its operands:
+ * <ul>
+ *     <li>{@code CONSTANT index} pushes the constant from the pool. A constant folded from a function call, see
+ *     {@link FoldedValueNode}, is also a {@code CONSTANT}, and the JSON of the call is kept in a side table.</li>
+ *     <li>{@code VARIABLE path function key default} looks up the parsed path from the pool and pushes the value. When
+ *     the value is not found, or the lookup fails, it calls the variable function from the pool with the key and the
+ *     default value from the pool, or only with the key if {@code default} is {@code -1}, the same way as
+ *     {@link VariablePathNode} does.</li>
+ *     <li>{@code SLOT slot variable rest} pushes the value of the slot of the loop frame, or of the parsed path
+ *     {@code rest} from the pool in the value of the slot, unless {@code rest} is {@code -1}. It is followed by the
+ *     {@code VARIABLE} instruction of the original variable reference, which is skipped when the slot is read, and
+ *     executed otherwise, the same way as {@link FrameSlotNode} does.</li>
+ *     <li>{@code FUNCTION operation count site} pops the arguments, calls the function from the pool and pushes the
+ *     result. A call of two arguments has a site, the index of its specialization, see {@link FunctionNode}, other
+ *     calls have {@code -1}. The specialized calls take the arguments from the stack without copying them.</li>
+ *     <li>{@code MACRO operation arguments} calls the macro from the pool with the argument scripts from the pool, and
+ *     pushes the result.</li>
+ *     <li>{@code SCRIPT index} evaluates the script from the pool and pushes the result. The nodes that have no
+ *     encoding, like the hoisted invariants and the fused and parallel loops, are kept this way.</li>
+ * </ul>
+ * The arguments of a macro are not evaluated by the program, the macro decides when and how many times it evaluates
+ * them. They are encoded in the same array, after the code of the script, and each argument is a {@link FlatScript}
+ * sharing the program and running a range of it. Each range starts with the depth of the stack it needs and the
+ * index where it ends. The arguments are kept as objects, because {@link Operation.Macro} gets its arguments as
+ * scripts, and creating them for each call would cost more than keeping them. Each evaluation of a range allocates the
+ * stack of the range. The program does not refer to the nodes of the tree it was encoded from, except the ones kept
+ * as {@code SCRIPT}, the parsed paths, the strings and the constants are the ones of the tree.
+ * <p>
+ * The result of the evaluation and the JSON representation are the same as those of the tree the script was encoded
+ * from.
+ */
+public final class FlatScript implements Script {
+    private static final int CONSTANT = 0;
+    private static final int VARIABLE = 1;
+    private static final int FUNCTION = 2;
+    private static final int MACRO = 3;
+    private static final int SCRIPT = 4;
+    private static final int SLOT = 5;
+    private static final int VARIABLE_LENGTH = 5;
+    private static final int SLOT_LENGTH = 4;
+
+    /**
+     * Returned by {@link #slot(Executor, int, String, Path)} when the slot cannot be read.
+     */
+    private static final Object MISSING = new Object();
+
+    /**
+     * The arrays shared by the script and the arguments of the macros in it, and the JSON of the folded constants by
+     * the index of their instruction.
+     */
+    private record Program(Engine engine, int[] code, Object[] constants, Specialization[] sites, Map<Integer, String> folded) {
+    }
+
+    private final Program program;
+    private final int start;
+
+    private FlatScript(Program program, int start) {
+        this.program = program;
+        this.start = start;
+    }
+
+    /**
+     * Encode a script.
+     *
+     * @param engine the engine the script was built by
+     * @param script the script to encode
+     * @return the encoded script, or the script itself if it is already encoded
+     */
+    public static Script of(Engine engine, Script script) {
+        if (script instanceof FlatScript) {
+            return script;
+        }
+        return new Encoder().encode(engine, script);
+    }
+
+    @Override
+    public Object evaluate() {
+        return evaluateUsing(program.engine.evaluator());
+    }
+
+    @Override
+    public Object evaluate(Context context) {
+        return evaluateUsing(program.engine.executor(context));
+    }
+
+    @Override
+    public Object evaluate(Map<String, Object> data) {
+        return evaluate(program.engine.contextFor(data));
+    }
+
+    @Override
+    public Object evaluateUsing(Executor executor) {
+        final var code = program.code;
+        final var constants = program.constants;
+        final var stack = new Object[code[start]];
+        final var end = code[start + 1];
+        int sp = 0;
+        int pc = start + 2;
+        while (pc < end) {
+            switch (code[pc]) {
+                case CONSTANT -> {
+                    stack[sp++] = constants[code[pc + 1]];
+                    pc += 2;
+                }
+                case VARIABLE -> {
+                    stack[sp++] = variable(executor, code, constants, pc);
+                    pc += VARIABLE_LENGTH;
+                }
+                case SLOT -> {
+                    final var value = slot(executor, code[pc + 1], (String) constants[code[pc + 2]],
+                            code[pc + 3] < 0 ? null : (Path) constants[code[pc + 3]]);
+                    if (value == MISSING) {
+                        // execute the original variable reference following the instruction
+                        pc += SLOT_LENGTH;
+                    } else {
+                        stack[sp++] = value;
+                        pc += SLOT_LENGTH + VARIABLE_LENGTH;
+                    }
+                }
+                case FUNCTION -> {
+                    final var function = (Operation.Function) constants[code[pc + 1]];
+                    final var count = code[pc + 2];
+                    final var site = code[pc + 3];
+                    executor.step();
+                    if (site >= 0 && program.engine.isSpecializing()) {
+                        sp -= 2;
+                        stack[sp] = evaluateSpecialized(executor, function, site, stack[sp], stack[sp + 1]);
+                        sp++;
+                    } else {
+                        final var args = Arrays.copyOfRange(stack, sp - count, sp);
+                        sp -= count;
+                        stack[sp++] = function.evaluate(executor, args);
+                    }
+                    pc += 4;
+                }
+                case MACRO -> {
+                    executor.step();
+                    stack[sp++] = ((Operation.Macro) constants[code[pc + 1]]).evaluate(executor, (Script[]) constants[code[pc + 2]]);
+                    pc += 3;
+                }
+                case SCRIPT -> {
+                    stack[sp++] = ((Script) constants[code[pc + 1]]).evaluateUsing(executor);
+                    pc += 2;
+                }
+                default -> throw new IllegalStateException("Invalid opcode " + code[pc] + " at " + pc);
+            }
+        }
+        return stack[0];
+    }
+
+    /**
+     * Call the function at the site the same way as {@link FunctionNode} calls a function of two arguments.
+     */
+    private Object evaluateSpecialized(Executor executor, Operation.Function function, int site, Object left, Object right) {
+        final var sites = program.sites;
+        var current = sites[site];
+        if (current != Specialization.GENERIC && left != null && right != null) {
+            if (current == null) {
+                current = Specialization.of(function, left.getClass(), right.getClass());
+                sites[site] = current;
+            }
+            if (current.matches(left, right)) {
+                return current.binary().evaluate(executor, left, right);
+            }
+            sites[site] = Specialization.GENERIC;
+        }
+        return function.evaluate(executor, left, right);
+    }
+
+    /**
+     * Execute the {@code VARIABLE} instruction at {@code pc}.
+     *
+     * @return the value found, or the result of the variable function if the value is not found or the lookup fails
+     */
+    private static Object variable(Executor executor, int[] code, Object[] constants, int pc) {
+        try {
+            final var value = executor.getContext().get((Path) constants[code[pc + 1]]);
+            if (value != null) {
+                return value.get();
+            }
+        } catch (RuntimeException e) {
+            // the variable function decides what to do, see VariablePathNode
+        }
+        executor.step();
+        final var function = (Operation.Function) constants[code[pc + 2]];
+        final var key = constants[code[pc + 3]];
+        return code[pc + 4] < 0 ? function.evaluate(executor, key) : function.evaluate(executor, key, constants[code[pc + 4]]);
+    }
+
+    /**
+     * Read the slot of the loop frame the same way as {@link FrameSlotNode} does.
+     *
+     * @return the value, or {@link #MISSING} if the context is not the frame of the slot, or the rest of the key is
+     * not found in the value of the slot
+     */
+    private static Object slot(Executor executor, int slot, String variable, Path rest) {
+        if (!(executor.getContext() instanceof LoopFrame frame) || !frame.holds(slot, variable)) {
+            return MISSING;
+        }
+        final var value = frame.slot(slot);
+        if (rest == null) {
+            return value;
+        }
+        try {
+            final var found = frame.get(rest, value);
+            return found == null ? MISSING : found.get();
+        } catch (RuntimeException e) {
+            return MISSING;
+        }
+    }
+
+    @Override
+    public String jsonify() {
+        final var code = program.code;
+        final var constants = program.constants;
+        final var stack = new String[code[start]];
+        final var end = code[start + 1];
+        int sp = 0;
+        int pc = start + 2;
+        while (pc < end) {
+            switch (code[pc]) {
+                case CONSTANT -> {
+                    final var folded = program.folded.get(pc);
+                    stack[sp++] = folded != null ? folded : new ConstantValueNode<>(constants[code[pc + 1]]).jsonify();
+                    pc += 2;
+                }
+                case VARIABLE -> {
+                    final var key = new ConstantValueNode<>(constants[code[pc + 3]]).jsonify();
+                    stack[sp++] = jsonify((Operation) constants[code[pc + 2]],
+                            code[pc + 4] < 0 ? key : key + "," + new ConstantValueNode<>(constants[code[pc + 4]]).jsonify());
+                    pc += VARIABLE_LENGTH;
+                }
+                // the JSON of the slot is the JSON of the original reference following the instruction
+                case SLOT -> pc += SLOT_LENGTH;
+                case FUNCTION -> {
+                    final var count = code[pc + 2];
+                    final var args = String.join(",", Arrays.asList(stack).subList(sp - count, sp));
+                    sp -= count;
+                    stack[sp++] = jsonify((Operation) constants[code[pc + 1]], args);
+                    pc += 4;
+                }
+                case MACRO -> {
+                    final var args = new ArrayList<String>();
+                    for (final var arg : (Script[]) constants[code[pc + 2]]) {
+                        args.add(arg.jsonify());
+                    }
+                    stack[sp++] = jsonify((Operation) constants[code[pc + 1]], String.join(",", args));
+                    pc += 3;
+                }
+                case SCRIPT -> {
+                    stack[sp++] = ((Script) constants[code[pc + 1]]).jsonify();
+                    pc += 2;
+                }
+                default -> throw new IllegalStateException("Invalid opcode " + code[pc] + " at " + pc);
+            }
+        }
+        return stack[0];
+    }
+
+    private static String jsonify(Operation operation, String args) {
+        return "{\"" + operation.symbol() + "\":[" + args + "]}";
+    }
+
+    /**
+     * Encode a script tree into a program. The encoder is used only once.
+     */
+    private static final class Encoder {
+        private int[] code = new int[16];
+        private int length = 0;
+        private int sites = 0;
+        private final List<Object> constants = new ArrayList<>();
+        private final Map<Object, Integer> valueIndex = new HashMap<>();
+        private final Map<Object, Integer> objectIndex = new IdentityHashMap<>();
+        private final Map<Integer, String> folded = new HashMap<>();
+
+        /**
+         * The arguments of a macro waiting to be encoded, and the array the encoded scripts go to.
+         */
+        private record Pending(Script[] args, Script[] target) {
+        }
+
+        /**
+         * The start of an encoded argument of a macro, becoming a {@link FlatScript} when the program is complete.
+         */
+        private record Segment(int start, Script[] target, int index) {
+        }
+
+        private final ArrayDeque<Pending> pending = new ArrayDeque<>();
+
+        FlatScript encode(Engine engine, Script script) {
+            final var segments = new ArrayList<Segment>();
+            final var top = segment(script);
+            while (!pending.isEmpty()) {
+                final var macro = pending.removeFirst();
+                for (int i = 0; i < macro.args.length; i++) {
+                    segments.add(new Segment(segment(macro.args[i]), macro.target, i));
+                }
+            }
+            final var program = new Program(engine, Arrays.copyOf(code, length), constants.toArray(), new Specialization[sites], Map.copyOf(folded));
+            for (final var segment : segments) {
+                segment.target[segment.index] = new FlatScript(program, segment.start);
+            }
+            return new FlatScript(program, top);
+        }
+
+        /**
+         * Emit the code of the script as a range starting with the depth of the stack and the end of the range.
+         *
+         * @return the start of the range
+         */
+        private int segment(Script script) {
+            final var start = length;
+            write(0, 0);
+            // the code array may be reallocated during the emit, it has to be read after it
+            final var depth = emit(script);
+            code[start] = depth;
+            code[start + 1] = length;
+            return start;
+        }
+
+        /**
+         * Emit the code of the script.
+         *
+         * @return the depth of the stack the code needs
+         */
+        private int emit(Script script) {
+            if (script.getClass() == FunctionNode.class) {
+                final var function = (FunctionNode) script;
+                var depth = 1;
+                for (int i = 0; i < function.args.length; i++) {
+                    depth = Math.max(depth, i + emit(function.args[i]));
+                }
+                write(FUNCTION, object(function.operation), function.args.length, function.args.length == 2 ? sites++ : -1);
+                return depth;
+            }
+            if (script.getClass() == MacroNode.class) {
+                final var macro = (MacroNode) script;
+                final var args = new Script[macro.args.length];
+                pending.add(new Pending(macro.args, args));
+                write(MACRO, object(macro.operation), object(args));
+                return 1;
+            }
+            if (script instanceof FrameSlotNode slot && isEncodable(slot.original)) {
+                write(SLOT, slot.slot, value(slot.variable), slot.rest == null ? -1 : object(slot.rest));
+                variable(slot.original);
+                return 1;
+            }
+            if (script instanceof VariablePathNode variable && isEncodable(variable)) {
+                variable(variable);
+                return 1;
+            }
+            if (script.getClass() == ConstantValueNode.class) {
+                write(CONSTANT, value(script.evaluate()));
+            } else if (script.getClass() == FoldedValueNode.class) {
+                // the JSON of a folded constant is the JSON of the original call
+                folded.put(length, script.jsonify());
+                write(CONSTANT, value(script.evaluate()));
+            } else {
+                write(SCRIPT, object(script));
+            }
+            return 1;
+        }
+
+        /**
+         * @return {@code true} if the JSON of the arguments of the variable reference is the JSON of their values
+         */
+        private static boolean isEncodable(VariablePathNode variable) {
+            for (final var arg : variable.original.args) {
+                if (arg.getClass() != ConstantValueNode.class) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void variable(VariablePathNode variable) {
+            final var args = variable.original.args;
+            write(VARIABLE, object(variable.path), object(variable.original.operation), value(args[0].evaluate()),
+                    args.length == 2 ? value(args[1].evaluate()) : -1);
+        }
+
+        private void write(int... ints) {
+            if (length + ints.length > code.length) {
+                code = Arrays.copyOf(code, Math.max(code.length * 2, length + ints.length));
+            }
+            System.arraycopy(ints, 0, code, length, ints.length);
+            length += ints.length;
+        }
+
+        /**
+         * Add a constant value to the pool. Equal strings, numbers and booleans are stored only once.
+         */
+        private int value(Object value) {
+            return switch (value) {
+                case String ignored -> valueIndex.computeIfAbsent(value, this::add);
+                case Number ignored when value.getClass().getName().startsWith("java.lang.") ->
+                        valueIndex.computeIfAbsent(value, this::add);
+                case Boolean ignored -> valueIndex.computeIfAbsent(value, this::add);
+                case null, default -> object(value);
+            };
+        }
+
+        /**
+         * Add an object to the pool, the same object stored only once.
+         */
+        private int object(Object object) {
+            return objectIndex.computeIfAbsent(object, this::add);
+        }
+
+        private int add(Object object) {
+            constants.add(object);
+            return constants.size() - 1;
+        }
+    }
+}
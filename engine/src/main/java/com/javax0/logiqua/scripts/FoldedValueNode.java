@@ -0,0 +1,80 @@
+package com.javax0.logiqua.scripts;
+
+import com.javax0.logiqua.Operation;
+import com.javax0.logiqua.Script;
+
+/**
+ * A constant calculated when the script is built, from the call of a {@link Operation.Pure} function with constant
+ * arguments.
+ * <p>
+ * The node evaluates to the calculated value, and its JSON representation is the one of the original call, so the
+ * folding does not change how the script is saved.
+ */
+public class FoldedValueNode<T> extends ConstantValueNode<T> {
+    private final FunctionNode original;
+
+    private FoldedValueNode(T value, FunctionNode original) {
+        super(value);
+        this.original = original;
+    }
+
+    /**
+     * Fold the function call into a constant if the function is pure and all the arguments are constants.
+     * <p>
+     * A call of an {@link Operation.ListOf} function with constant arguments, like a JSON array, is also a constant
+     * argument. The list itself is not folded, because the caller may modify the list it returns, the pure function
+     * gets a list built only for the folding.
+     * <p>
+     * The function is called with the engine of the node as executor. If the call throws an exception, the node is
+     * not folded, and the exception is thrown when the script is evaluated, if it ever is, the same way as without
+     * folding.
+     *
+     * @param node the function call node
+     * @return the folded constant, or the original node if it cannot be folded
+     */
+    public static Script of(FunctionNode node) {
+        if (!node.operation.getClass().isAnnotationPresent(Operation.Pure.class)) {
+            return node;
+        }
+        for (final var arg : node.args) {
+            if (!isConstant(arg)) {
+                return node;
+            }
+        }
+        final Object value;
+        try {
+            value = node.evaluate();
+        } catch (RuntimeException e) {
+            // keep the error lazy, the script may never evaluate this call
+            return node;
+        }
+        return new FoldedValueNode<>(value, node);
+    }
+
+    private static boolean isConstant(Script arg) {
+        if (arg instanceof ConstantValueNode<?>) {
+            return true;
+        }
+        if (!(arg instanceof FunctionNode call) || !call.operation.getClass().isAnnotationPresent(Operation.ListOf.class)) {
+            return false;
+        }
+        for (final var element : call.args) {
+            if (!isConstant(element)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the function call this constant was calculated from
+     */
+    public Script original() {
+        return original;
+    }
+
+    @Override
+    public String jsonify() {
+        return original.jsonify();
+    }
+}
@@ -0,0 +1,105 @@
+package com.javax0.logiqua.scripts;
+
+import com.javax0.logiqua.Operation;
+import com.javax0.logiqua.Script;
+
+/**
+ * Bind the variable references in the arguments of a {@link Operation.Scope} macro to the slots of its frame.
+ * <p>
+ * Only the references that name a variable of the macro itself are bound. The arguments that a nested scope macro
+ * evaluates in its own frame are not visited, since the variables there belong to the nested frame. The arguments
+ * the nested macro evaluates in the enclosing frame, like the list it iterates over, are visited.
+ */
+final class FrameBinder {
+
+    private FrameBinder() {
+    }
+
+    /**
+     * @param operation the macro
+     * @param args      the arguments of the macro
+     * @return the arguments with the variable references bound, or the same array if nothing had to be bound
+     */
+    static Script[] bind(Operation.Macro operation, Script[] args) {
+        final var scope = operation.getClass().getAnnotation(Operation.Scope.class);
+        if (scope == null) {
+            return args;
+        }
+        final var variables = scope.variables();
+        var bound = args;
+        for (final int index : scope.arguments()) {
+            if (index < args.length) {
+                final var script = bind(variables, args[index]);
+                if (script != args[index]) {
+                    if (bound == args) {
+                        bound = args.clone();
+                    }
+                    bound[index] = script;
+                }
+            }
+        }
+        return bound;
+    }
+
+    private static Script bind(String[] variables, Script script) {
+        return switch (script) {
+            case VariablePathNode variable -> bindVariable(variables, variable);
+            case FunctionNode function -> bindFunction(variables, function);
+            case MacroNode macro -> bindMacro(variables, macro);
+            default -> script;
+        };
+    }
+
+    private static Script bindFunction(String[] variables, FunctionNode function) {
+        final var args = bindAll(variables, function.args, new int[0]);
+        return args == function.args ? function : new FunctionNode(function.engine, (Operation.Function) function.operation, args);
+    }
+
+    private static Script bindMacro(String[] variables, MacroNode macro) {
+        final var scope = macro.operation.getClass().getAnnotation(Operation.Scope.class);
+        final var args = bindAll(variables, macro.args, scope == null ? new int[0] : scope.arguments());
+        return args == macro.args ? macro : new MacroNode(macro.engine, (Operation.Macro) macro.operation, false, args);
+    }
+
+    private static Script[] bindAll(String[] variables, Script[] args, int[] skipped) {
+        var bound = args;
+        for (int i = 0; i < args.length; i++) {
+            if (contains(skipped, i)) {
+                continue;
+            }
+            final var script = bind(variables, args[i]);
+            if (script != args[i]) {
+                if (bound == args) {
+                    bound = args.clone();
+                }
+                bound[i] = script;
+            }
+        }
+        return bound;
+    }
+
+    private static boolean contains(int[] array, int value) {
+        for (final var element : array) {
+            if (element == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Create a slot node for the variable reference if the first part of its key is one of the loop variables.
+     *
+     * @return the new slot node or the original variable reference
+     */
+    private static Script bindVariable(String[] variables, VariablePathNode variable) {
+        final var path = variable.path;
+        final var name = path.part(0);
+        for (int slot = 0; slot < variables.length; slot++) {
+            if (variables[slot].equals(name)) {
+                return new FrameSlotNode(variable, name, slot, path.size() > 1 ? path.tail() : null);
+            }
+        }
+        return variable;
+    }
+}
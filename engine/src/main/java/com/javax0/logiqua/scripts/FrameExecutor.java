@@ -0,0 +1,77 @@
+package com.javax0.logiqua.scripts;
+
+import com.javax0.logiqua.Budget;
+import com.javax0.logiqua.Context;
+import com.javax0.logiqua.Executor;
+import com.javax0.logiqua.Operation;
+
+import java.util.Optional;
+
+/**
+ * An executor evaluating in another context, a loop frame or the context enclosing it. Everything else, the
+ * operations, the limit and the budget, comes from the executor it was created from, which may wrap the executor of
+ * the engine.
+ *
+ * @param executor the executor the operations and the limit come from
+ * @param context  the context of the evaluation
+ * @param budget   the budget of the evaluation, the budget of the executor or a part of it for a parallel loop
+ */
+record FrameExecutor(Executor executor, Context context, Budget budget) implements Executor {
+
+    FrameExecutor(Executor executor, Context context) {
+        this(executor, context, executor.budget());
+    }
+
+    @Override
+    public void limit(int size) {
+        executor.limit(size);
+    }
+
+    @Override
+    public int limit() {
+        return executor.limit();
+    }
+
+    @Override
+    public Context getContext() {
+        return context;
+    }
+
+    @Override
+    public void step() {
+        if (budget == executor.budget()) {
+            executor.step();
+        } else {
+            Executor.super.step();
+        }
+    }
+
+    @Override
+    public void allocate(long elements) {
+        if (budget == executor.budget()) {
+            executor.allocate(elements);
+        } else {
+            Executor.super.allocate(elements);
+        }
+    }
+
+    @Override
+    public Optional<Operation> getOperation(String symbol) {
+        return executor.getOperation(symbol);
+    }
+
+    @Override
+    public void updateOperation(Operation operation) {
+        executor.updateOperation(operation);
+    }
+
+    @Override
+    public void registerOperation(Operation operation) {
+        executor.registerOperation(operation);
+    }
+
+    @Override
+    public void registerOrUpdateOperation(Operation operation) {
+        executor.registerOrUpdateOperation(operation);
+    }
+}
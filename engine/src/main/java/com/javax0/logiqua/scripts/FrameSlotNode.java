@@ -0,0 +1,79 @@
+package com.javax0.logiqua.scripts;
+
+import com.javax0.logiqua.Context;
+import com.javax0.logiqua.Executor;
+import com.javax0.logiqua.Path;
+import com.javax0.logiqua.Script;
+import com.javax0.logiqua.engine.LoopFrame;
+
+import java.util.Map;
+
+/**
+ * A variable reference bound to the slot of a loop variable at compile time.
+ * <p>
+ * The node replaces a {@link VariablePathNode} in the arguments of a {@link com.javax0.logiqua.Operation.Scope}
+ * macro. When the node is evaluated in the frame it was bound to, it reads the slot from the frame, and walks the
+ * rest of the key, if the key is structured, like {@code current.price}.
+ * In any other case, for example when the script is evaluated outside the loop, or the rest of the key is not found
+ * in the value of the slot, the original variable reference is evaluated.
+ */
+public class FrameSlotNode implements Script {
+    final VariablePathNode original;
+    final String variable;
+    final int slot;
+    final Path rest;
+
+    FrameSlotNode(VariablePathNode original, String variable, int slot, Path rest) {
+        this.original = original;
+        this.variable = variable;
+        this.slot = slot;
+        this.rest = rest;
+    }
+
+    /**
+     * @param slot the index of the slot
+     * @return {@code true} if the node reads the whole value of the given slot, not a field of it
+     */
+    boolean reads(int slot) {
+        return this.slot == slot && rest == null;
+    }
+
+    @Override
+    public Object evaluate() {
+        return original.evaluate();
+    }
+
+    @Override
+    public Object evaluateUsing(Executor executor) {
+        if (!(executor.getContext() instanceof LoopFrame frame) || !frame.holds(slot, variable)) {
+            return original.evaluateUsing(executor);
+        }
+        final var value = frame.slot(slot);
+        if (rest == null) {
+            return value;
+        }
+        final Context.Value found;
+        try {
+            found = frame.get(rest, value);
+        } catch (RuntimeException e) {
+            // let the original call decide what to do, it may have a default value or throw a better exception
+            return original.evaluateUsing(executor);
+        }
+        return found == null ? original.evaluateUsing(executor) : found.get();
+    }
+
+    @Override
+    public Object evaluate(Context context) {
+        return original.evaluate(context);
+    }
+
+    @Override
+    public Object evaluate(Map<String, Object> data) {
+        return original.evaluate(data);
+    }
+
+    @Override
+    public String jsonify() {
+        return original.jsonify();
+    }
+}
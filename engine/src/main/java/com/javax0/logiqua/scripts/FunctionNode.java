@@ -5,11 +5,26 @@ import com.javax0.logiqua.Operation;
 import com.javax0.logiqua.Script;
 import com.javax0.logiqua.engine.Engine;
 
-import java.util.Arrays;
-import java.util.stream.Collectors;
-
+/**
+ * A call of a function.
+ * <p>
+ * When the engine is specializing (see {@link Engine#specializing(boolean)}) and the function is called with two
+ * arguments, the node records the classes of the arguments the first time it is evaluated, and asks the function for
+ * a specialized implementation for those classes (see {@link Operation.Function#specialize(Class, Class)}).
+ * The node uses the specialized implementation as long as the arguments have the same classes. When other classes
+ * show up, the node falls back to the generic call for good.
+ */
 non-sealed public class FunctionNode extends AbstractOperation {
 
+    /**
+     * {@code null} until the node is first evaluated with two non-null arguments, then the specialization or
+     * {@link Specialization#GENERIC}.
+     * <p>
+     * The field is not volatile. Threads evaluating the node concurrently may specialize it more than once, but any
+     * specialization they see is complete, because the fields of the record are final, and it is correct for the
+     * classes it guards.
+     */
+    private Specialization specialization;
 
     public FunctionNode(Engine engine, com.javax0.logiqua.Operation.Function operation, Script... args) {
         super(engine, operation, args);
@@ -17,11 +32,44 @@ non-sealed public class FunctionNode extends AbstractOperation {
 
     @Override
     public Object evaluate() {
-        return evaluateUsing(engine);
+        return evaluateUsing(engine.evaluator());
     }
 
     @Override
     public Object evaluateUsing(Executor executor) {
-        return ((Operation.Function) operation).evaluate(executor, Arrays.stream(args).map(s -> s.evaluateUsing(executor)).toArray());
+        executor.step();
+        if (args.length == 2 && engine.isSpecializing()) {
+            return evaluateSpecialized(executor);
+        }
+        final var values = new Object[args.length];
+        for (int i = 0; i < args.length; i++) {
+            values[i] = args[i].evaluateUsing(executor);
+        }
+        return ((Operation.Function) operation).evaluate(executor, values);
+    }
+
+    private Object evaluateSpecialized(Executor executor) {
+        final var left = args[0].evaluateUsing(executor);
+        final var right = args[1].evaluateUsing(executor);
+        var current = specialization;
+        if (current != Specialization.GENERIC && left != null && right != null) {
+            if (current == null) {
+                current = Specialization.of((Operation.Function) operation, left.getClass(), right.getClass());
+                specialization = current;
+            }
+            if (current.matches(left, right)) {
+                return current.binary().evaluate(executor, left, right);
+            }
+            specialization = Specialization.GENERIC;
+        }
+        return ((Operation.Function) operation).evaluate(executor, left, right);
+    }
+
+    /**
+     * @return {@code true} if the node uses a specialized implementation of the function
+     */
+    public boolean isSpecialized() {
+        final var current = specialization;
+        return current != null && current != Specialization.GENERIC;
     }
 }
@@ -0,0 +1,228 @@
+package com.javax0.logiqua.scripts;
+
+import com.javax0.logiqua.Context;
+import com.javax0.logiqua.Executor;
+import com.javax0.logiqua.Operation;
+import com.javax0.logiqua.Path;
+import com.javax0.logiqua.Script;
+import com.javax0.logiqua.engine.Engine;
+import com.javax0.logiqua.engine.LoopFrame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A subexpression in the loop of a {@link Operation.Scope} macro that does not depend on the loop variables.
+ * <p>
+ * The subexpression is a variable reference with a constant key, or a call of a {@link Operation.Pure} function on
+ * such references and constants. The variables are not loop variables, but the frame of the loop still looks them up
+ * in the loop value first, for example {@code amount} in the current order, and only then in the enclosing context.
+ * Before each iteration the node checks that the loop value does not have any of the variables, which is a single
+ * lookup in the loop value. If it does not, the subexpression has the same value in every iteration, and the node
+ * calculates it in the enclosing context the first time, and stores the value in the frame for the rest of the loop.
+ * If it does, or the check fails, or the node is not evaluated in a {@link LoopFrame}, the subexpression is evaluated
+ * as usual. A node that found its variables in the first loop value it was evaluated with does not check the other
+ * loop values of the same loop execution, it is expected to read fields of the loop values, like {@code amount}. The
+ * frame records it, so the next execution of the loop, in the same or in another evaluation, checks again. Its
+ * invariant arguments, like {@code threshold * 1.1} in {@code amount > threshold * 1.1}, are separate nodes, and they
+ * are still calculated only once.
+ * <p>
+ * The value is calculated when the subexpression is first needed, so a loop that does not evaluate it, for example
+ * because the list is empty, does not evaluate it either, and the errors are thrown at the same place.
+ */
+public class InvariantNode implements Script {
+    private final Script script;
+    private final Path[] paths;
+    private final int index;
+
+    /**
+     * Stored in the frame instead of a value when the first loop value had some of the variables.
+     */
+    private static final Context.Value SHADOWED = new Context.Value(null);
+
+    private InvariantNode(Script script, Path[] paths, int index) {
+        this.script = script;
+        this.paths = paths;
+        this.index = index;
+    }
+
+    /**
+     * Replace the loop invariant subexpressions in the arguments of a {@link Operation.Scope} macro evaluated in the
+     * loop frame.
+     *
+     * @param engine    the engine building the script
+     * @param operation the macro
+     * @param args      the arguments of the macro, with the loop variables already bound to the frame
+     * @return the arguments with the invariants replaced, or the same array if nothing was replaced
+     */
+    static Script[] hoist(Engine engine, Operation.Macro operation, Script[] args) {
+        final var scope = operation.getClass().getAnnotation(Operation.Scope.class);
+        if (scope == null || !engine.isHoisting()) {
+            return args;
+        }
+        final var counter = new int[1];
+        var hoisted = args;
+        for (final int index : scope.arguments()) {
+            if (index < args.length) {
+                final var script = hoist(engine, args[index], counter);
+                if (script != args[index]) {
+                    if (hoisted == args) {
+                        hoisted = args.clone();
+                    }
+                    hoisted[index] = script;
+                }
+            }
+        }
+        return hoisted;
+    }
+
+    /**
+     * Replace the invariant subexpressions bottom up. An invariant function call is replaced even if it has invariant
+     * arguments already replaced, because a call may depend on the loop value, when the loop value has some of its
+     * variables, while its arguments do not.
+     *
+     * @param counter the number of the invariants found so far in the loop, the index of the next one
+     */
+    private static Script hoist(Engine engine, Script script, int[] counter) {
+        if (script instanceof VariablePathNode variable) {
+            return variable.path.size() > 1 ? invariant(script, counter) : script;
+        }
+        if (!(script instanceof AbstractOperation node)) {
+            return script;
+        }
+        // the arguments a nested scope macro evaluates in its own frame are not evaluated in this loop frame
+        final var scope = node.operation.getClass().getAnnotation(Operation.Scope.class);
+        final var args = node.args.clone();
+        var changed = false;
+        for (int i = 0; i < args.length; i++) {
+            if (scope == null || !contains(scope.arguments(), i)) {
+                args[i] = hoist(engine, node.args[i], counter);
+                changed |= args[i] != node.args[i];
+            }
+        }
+        final var hoisted = !changed ? script : switch (node) {
+            case MacroNode macro -> new MacroNode(engine, (Operation.Macro) macro.operation, false, args);
+            case FunctionNode function -> new FunctionNode(engine, (Operation.Function) function.operation, args);
+        };
+        return isInvariant(hoisted) ? invariant(hoisted, counter) : hoisted;
+    }
+
+    private static InvariantNode invariant(Script script, int[] counter) {
+        final var paths = new ArrayList<Path>();
+        collectPaths(script, paths);
+        return new InvariantNode(script, paths.toArray(Path[]::new), counter[0]++);
+    }
+
+    private static boolean isInvariant(Script script) {
+        return switch (script) {
+            case VariablePathNode ignored -> true;
+            case ConstantValueNode<?> ignored -> true;
+            case InvariantNode ignored -> true;
+            case FunctionNode function -> {
+                if (!function.operation.getClass().isAnnotationPresent(Operation.Pure.class)) {
+                    yield false;
+                }
+                for (final var arg : function.args) {
+                    if (!isInvariant(arg)) {
+                        yield false;
+                    }
+                }
+                yield true;
+            }
+            default -> false;
+        };
+    }
+
+    private static void collectPaths(Script script, List<Path> paths) {
+        switch (script) {
+            case VariablePathNode variable -> paths.add(variable.path);
+            case InvariantNode invariant -> paths.addAll(Arrays.asList(invariant.paths));
+            case FunctionNode function -> {
+                for (final var arg : function.args) {
+                    collectPaths(arg, paths);
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    private static boolean contains(int[] array, int value) {
+        for (final var element : array) {
+            if (element == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the subexpression
+     */
+    public Script script() {
+        return script;
+    }
+
+    @Override
+    public Object evaluate() {
+        return script.evaluate();
+    }
+
+    @Override
+    public Object evaluateUsing(Executor executor) {
+        if (!(executor.getContext() instanceof LoopFrame frame)) {
+            return script.evaluateUsing(executor);
+        }
+        final var stored = frame.invariant(index, this);
+        if (stored == SHADOWED) {
+            return script.evaluateUsing(executor);
+        }
+        if (isShadowed(frame)) {
+            if (stored == null) {
+                // the first loop value has these variables, the others presumably have them too
+                frame.invariant(index, this, SHADOWED);
+            }
+            return script.evaluateUsing(executor);
+        }
+        if (stored != null) {
+            return stored.get();
+        }
+        final var value = script.evaluateUsing(new FrameExecutor(executor, frame.enclosing()));
+        frame.invariant(index, this, Context.Value.of(value));
+        return value;
+    }
+
+    /**
+     * @return {@code true} if any of the variables may be found in the frame or in the loop value
+     */
+    private boolean isShadowed(LoopFrame frame) {
+        try {
+            for (final var path : paths) {
+                if (frame.getLocal(path) != null) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (RuntimeException e) {
+            // the usual evaluation decides what to do
+            return true;
+        }
+    }
+
+    @Override
+    public Object evaluate(Context context) {
+        return script.evaluate(context);
+    }
+
+    @Override
+    public Object evaluate(Map<String, Object> data) {
+        return script.evaluate(data);
+    }
+
+    @Override
+    public String jsonify() {
+        return script.jsonify();
+    }
+}
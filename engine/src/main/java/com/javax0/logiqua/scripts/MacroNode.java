@@ -7,17 +7,31 @@ import com.javax0.logiqua.engine.Engine;
 
 non-sealed public class MacroNode extends AbstractOperation {
 
+    /**
+     * Create a new macro node. If the macro is annotated as {@link Operation.Scope}, the references to its loop
+     * variables in the arguments are bound to the slots of the frame, and the subexpressions not depending on the
+     * loop are replaced by {@link InvariantNode}s, when the engine is hoisting.
+     *
+     * @param engine    the engine the script belongs to
+     * @param operation the macro
+     * @param args      the arguments of the macro
+     */
     public MacroNode(Engine engine, Operation.Macro operation, Script... args) {
-        super(engine, operation, args);
+        this(engine, operation, true, args);
+    }
+
+    MacroNode(Engine engine, Operation.Macro operation, boolean bind, Script... args) {
+        super(engine, operation, bind ? InvariantNode.hoist(engine, operation, FrameBinder.bind(operation, args)) : args);
     }
 
     @Override
     public Object evaluate() {
-        return evaluateUsing(engine);
+        return evaluateUsing(engine.evaluator());
     }
 
     @Override
     public Object evaluateUsing(Executor executor) {
+        executor.step();
         return ((Operation.Macro) super.operation).evaluate(executor, args);
     }
 }
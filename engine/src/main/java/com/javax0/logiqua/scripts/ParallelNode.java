@@ -0,0 +1,347 @@
+package com.javax0.logiqua.scripts;
+
+import com.javax0.logiqua.Context;
+import com.javax0.logiqua.Executor;
+import com.javax0.logiqua.Operation;
+import com.javax0.logiqua.Script;
+import com.javax0.logiqua.engine.Engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A loop macro call evaluating the large lists in parallel.
+ * <p>
+ * The list is split into parts of about the same size, a few parts for each thread, and the parts are evaluated in the
+ * fork-join pool of the engine, each in its own loop frame. The results of the parts are put together in the order of
+ * the list, so {@code map} and {@code filter} keep the order of the elements. A part of {@code some}, {@code all} or
+ * {@code none} that finds the result stops the parts after it, and so does a part throwing an exception. The parts
+ * before it run to the end, and the first part in the order of the list that found a result or threw an exception
+ * decides, therefore the result and the exception are the same as for the sequential loop.
+ * <p>
+ * The loop body has to be free of side effects: it may only call {@link Operation.Pure} functions, the logical
+ * operations and other loops. A {@code reduce} is evaluated in parallel only when its body is the call of an
+ * {@link Operation.Associative} function on the current value and the accumulator. Each part is reduced starting with
+ * its first element, and the partial results are then reduced the same way, in the order of the list, starting with
+ * the initial value. The functions are associative only for some types, for example {@code +} concatenates when the
+ * accumulator is a string, and the floating point arithmetic rounds. A {@code reduce} starting with {@code null} or a
+ * floating point initial value is evaluated by the macro itself. A part finding an accumulator of another type than
+ * the initial value stops all the parts, and when that happens or a part throws an exception, the list is reduced
+ * again sequentially, so the result is the same as for the sequential loop.
+ * <p>
+ * The lists shorter than the threshold are evaluated by the macro itself.
+ */
+public class ParallelNode implements Script {
+    private static final String[] VARIABLES = {"current", ""};
+    private static final String[] REDUCE_VARIABLES = {"current", "", "accumulator"};
+    private static final int PARTS_PER_THREAD = 4;
+
+    private final Engine engine;
+    private final MacroNode original;
+    private final Operation.Intrinsic.Kind kind;
+    private final ForkJoinPool pool;
+    private final int parallelism;
+    private final int threshold;
+
+    private ParallelNode(Engine engine, MacroNode original, Operation.Intrinsic.Kind kind, ForkJoinPool pool, int parallelism, int threshold) {
+        this.engine = engine;
+        this.original = original;
+        this.kind = kind;
+        this.pool = pool;
+        this.parallelism = parallelism;
+        this.threshold = threshold;
+    }
+
+    /**
+     * Make the loop macro call parallel, if the loop body allows it.
+     *
+     * @param engine      the engine building the script
+     * @param node        the macro call node
+     * @param pool        the pool evaluating the parts of the lists
+     * @param parallelism the number of the threads of the pool
+     * @param threshold   the minimum size of the lists evaluated in parallel
+     * @return the parallel node, or the node itself if it cannot be evaluated in parallel
+     */
+    public static Script of(Engine engine, MacroNode node, ForkJoinPool pool, int parallelism, int threshold) {
+        if (node.getClass() != MacroNode.class) {
+            return node;
+        }
+        final var intrinsic = node.operation.getClass().getAnnotation(Operation.Intrinsic.class);
+        if (intrinsic == null) {
+            return node;
+        }
+        final var parallel = switch (intrinsic.value()) {
+            case MAP, FILTER, SOME, ALL, NONE -> node.args.length == 2 && isPure(node.args[1]);
+            case REDUCE -> node.args.length == 3 && isAssociative(node.args[1]);
+            default -> false;
+        };
+        return parallel ? new ParallelNode(engine, node, intrinsic.value(), pool, parallelism, threshold) : node;
+    }
+
+    /**
+     * @return {@code true} if the script has no side effect and can be evaluated concurrently
+     */
+    private static boolean isPure(Script script) {
+        return switch (script) {
+            case ConstantValueNode<?> ignored -> true;
+            case VariablePathNode ignored -> true;
+            case FrameSlotNode ignored -> true;
+            case InvariantNode invariant -> isPure(invariant.script());
+            case ParallelNode parallel -> isPure(parallel.original);
+            case AbstractOperation node -> {
+                if (!isPure(node.operation)) {
+                    yield false;
+                }
+                for (final var arg : node.args) {
+                    if (!isPure(arg)) {
+                        yield false;
+                    }
+                }
+                yield true;
+            }
+            default -> false;
+        };
+    }
+
+    private static boolean isPure(Operation operation) {
+        final var type = operation.getClass();
+        if (type.isAnnotationPresent(Operation.Pure.class) || type.isAnnotationPresent(Operation.Logical.class)) {
+            return true;
+        }
+        final var intrinsic = type.getAnnotation(Operation.Intrinsic.class);
+        return intrinsic != null && switch (intrinsic.value()) {
+            case MAP, FILTER, REDUCE, SOME, ALL, NONE -> true;
+            default -> false;
+        };
+    }
+
+    /**
+     * @return {@code true} if the body of the {@code reduce} is an associative function of the current value and the
+     * accumulator, in any order
+     */
+    private static boolean isAssociative(Script body) {
+        if (!(body instanceof FunctionNode call) || call.args.length != 2
+                || !call.operation.getClass().isAnnotationPresent(Operation.Associative.class)) {
+            return false;
+        }
+        return isCurrent(call.args[0]) && isAccumulator(call.args[1]) || isAccumulator(call.args[0]) && isCurrent(call.args[1]);
+    }
+
+    private static boolean isCurrent(Script script) {
+        return script instanceof FrameSlotNode slot && (slot.reads(0) || slot.reads(1));
+    }
+
+    private static boolean isAccumulator(Script script) {
+        return script instanceof FrameSlotNode slot && slot.reads(2);
+    }
+
+    /**
+     * @return the macro call that is evaluated in parallel
+     */
+    public MacroNode original() {
+        return original;
+    }
+
+    @Override
+    public Object evaluate() {
+        return evaluateUsing(engine.evaluator());
+    }
+
+    @Override
+    public Object evaluate(Context context) {
+        return evaluateUsing(engine.executor(context));
+    }
+
+    @Override
+    public Object evaluate(Map<String, Object> data) {
+        return evaluate(engine.contextFor(data));
+    }
+
+    @Override
+    public Object evaluateUsing(Executor executor) {
+        executor.step();
+        final var list = original.args[0].evaluateUsing(executor);
+        final var nonNull = kind == Operation.Intrinsic.Kind.MAP || kind == Operation.Intrinsic.Kind.REDUCE ? Objects.requireNonNullElse(list, List.of()) : list;
+        if (!(executor.getContext().accessor(nonNull) instanceof Context.IndexedProxy inList) || inList.size() < threshold) {
+            // the macro evaluates the short lists, and throws the exception if it is not a list
+            return sequential(executor, list);
+        }
+        final var initial = kind == Operation.Intrinsic.Kind.REDUCE ? original.args[2].evaluateUsing(executor) : null;
+        if (kind == Operation.Intrinsic.Kind.REDUCE && !isExact(initial)) {
+            return sequential(executor, list);
+        }
+        final var size = inList.size();
+        if (kind == Operation.Intrinsic.Kind.MAP) {
+            executor.allocate(size);
+        }
+        final var count = Math.min(size, parallelism * PARTS_PER_THREAD);
+        final var decided = new AtomicInteger(count);
+        final var parts = new Part[count];
+        for (int p = 0; p < count; p++) {
+            parts[p] = new Part(p, (int) ((long) size * p / count), (int) ((long) size * (p + 1) / count), inList, executor, decided,
+                    initial == null ? null : initial.getClass());
+        }
+        pool.invoke(ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(parts)));
+        if (kind == Operation.Intrinsic.Kind.REDUCE && !isExact(initial, parts)) {
+            return sequential(executor, list);
+        }
+        final var outList = new ArrayList<>(kind == Operation.Intrinsic.Kind.MAP ? size : 0);
+        for (final var part : parts) {
+            if (part.error != null) {
+                throw part.error;
+            }
+            if (part.decided) {
+                return kind == Operation.Intrinsic.Kind.SOME;
+            }
+            if (part.results != null) {
+                outList.addAll(part.results);
+            }
+        }
+        return switch (kind) {
+            case MAP, FILTER -> outList;
+            case REDUCE -> combine(executor, initial, parts);
+            case SOME -> false;
+            default -> true;
+        };
+    }
+
+    private Object sequential(Executor executor, Object list) {
+        final var args = original.args.clone();
+        args[0] = new ConstantValueNode<>(list);
+        return ((Operation.Macro) original.operation).evaluate(executor, args);
+    }
+
+    /**
+     * @return {@code true} if the initial value is of a type, for which the associative functions may be exact
+     */
+    private static boolean isExact(Object initial) {
+        return initial != null && !(initial instanceof Double) && !(initial instanceof Float);
+    }
+
+    /**
+     * @return {@code true} if no part threw an exception or stopped the others, and the partial results are of the
+     * same type as the initial value
+     */
+    private static boolean isExact(Object initial, Part[] parts) {
+        for (final var part : parts) {
+            if (part.error != null || part.from < part.to && (part.accumulator == null || part.accumulator.getClass() != initial.getClass())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Reduce the results of the parts in the order of the list, starting with the initial value.
+     */
+    private Object combine(Executor executor, Object initial, Part[] parts) {
+        final var frame = executor.getContext().frame(REDUCE_VARIABLES);
+        final var loopExecutor = new FrameExecutor(executor, frame);
+        var accumulator = initial;
+        for (final var part : parts) {
+            if (part.from < part.to) {
+                frame.set(0, part.accumulator);
+                frame.set(1, part.accumulator);
+                frame.set(2, accumulator);
+                accumulator = original.args[1].evaluateUsing(loopExecutor);
+            }
+        }
+        return accumulator;
+    }
+
+    /**
+     * A part of the list evaluated in one task.
+     */
+    private final class Part extends RecursiveAction {
+        private final int index;
+        private final int from;
+        private final int to;
+        private final Context.IndexedProxy inList;
+        private final Executor executor;
+        private final AtomicInteger first;
+        private final Class<?> type;
+        private List<Object> results;
+        private Object accumulator;
+        private boolean decided;
+        private RuntimeException error;
+
+        private Part(int index, int from, int to, Context.IndexedProxy inList, Executor executor, AtomicInteger first, Class<?> type) {
+            this.index = index;
+            this.from = from;
+            this.to = to;
+            this.inList = inList;
+            this.executor = executor;
+            this.first = first;
+            this.type = type;
+        }
+
+        @Override
+        protected void compute() {
+            final var body = original.args[1];
+            final var frame = executor.getContext().frame(kind == Operation.Intrinsic.Kind.REDUCE ? REDUCE_VARIABLES : VARIABLES);
+            // the budget is not thread safe, each part has its own, taking the steps from the budget of the loop
+            final var budget = executor.budget() == null ? null : executor.budget().part();
+            final var loopExecutor = new FrameExecutor(executor, frame, budget);
+            if (kind == Operation.Intrinsic.Kind.MAP || kind == Operation.Intrinsic.Kind.FILTER) {
+                results = new ArrayList<>(kind == Operation.Intrinsic.Kind.MAP ? to - from : 0);
+            }
+            try {
+                // stop when a part before this one has already decided the result
+                for (int i = from; i < to && first.get() > index; i++) {
+                    loopExecutor.step();
+                    final var value = inList.get(i).get();
+                    frame.set(0, value);
+                    frame.set(1, value);
+                    switch (kind) {
+                        case MAP -> results.add(body.evaluateUsing(loopExecutor));
+                        case FILTER -> {
+                            if (PipelineNode.toBoolean(loopExecutor, body.evaluateUsing(loopExecutor), kind)) {
+                                loopExecutor.allocate(1);
+                                results.add(value);
+                            }
+                        }
+                        case REDUCE -> {
+                            if (i == from) {
+                                accumulator = value;
+                            } else {
+                                frame.set(2, accumulator);
+                                accumulator = body.evaluateUsing(loopExecutor);
+                            }
+                            if (accumulator == null || accumulator.getClass() != type) {
+                                // the list is reduced again sequentially, the other parts need not finish
+                                first.set(-1);
+                                return;
+                            }
+                        }
+                        default -> {
+                            // some decides on true, all on false, none on true
+                            if (PipelineNode.toBoolean(loopExecutor, body.evaluateUsing(loopExecutor), kind) != (kind == Operation.Intrinsic.Kind.ALL)) {
+                                decided = true;
+                                first.accumulateAndGet(index, Math::min);
+                                return;
+                            }
+                        }
+                    }
+                }
+            } catch (RuntimeException e) {
+                error = e;
+                first.accumulateAndGet(index, Math::min);
+            } finally {
+                if (budget != null) {
+                    budget.release();
+                }
+            }
+        }
+    }
+
+    @Override
+    public String jsonify() {
+        return original.jsonify();
+    }
+}
@@ -0,0 +1,228 @@
+package com.javax0.logiqua.scripts;
+
+import com.javax0.logiqua.Context;
+import com.javax0.logiqua.Executor;
+import com.javax0.logiqua.Operation;
+import com.javax0.logiqua.Script;
+import com.javax0.logiqua.engine.Engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A chain of loop macros evaluated in a single pass over the source list.
+ * <p>
+ * When a {@code map} or {@code filter} call is the list argument of another {@code map}, {@code filter},
+ * {@code reduce}, {@code some}, {@code all} or {@code none} call, the calls are evaluated together: each element of
+ * the source list goes through the stages one after the other, and the intermediate lists are not created. The
+ * {@code some}, {@code all} and {@code none} stages stop the whole chain as soon as the result is known.
+ * <p>
+ * The stages are identified by their {@link Operation.Intrinsic} kind, and the node gives the same results and throws
+ * the same exceptions as the macros of the {@code commands} module. The order the loop bodies are evaluated in is,
+ * however, different: the stages are interleaved, and the bodies of the upstream stages are not evaluated for the
+ * elements after the one that decided the result of {@code some}, {@code all} or {@code none}. The bodies of the loops
+ * rarely have side effects, but when they do, or when more than one of them may throw an exception, the fusion has to
+ * be switched off, see {@link Engine#fusing(boolean)}.
+ */
+public class PipelineNode implements Script {
+    private static final String[] VARIABLES = {"current", ""};
+    private static final String[] REDUCE_VARIABLES = {"current", "", "accumulator"};
+
+    /**
+     * A stage of the pipeline.
+     *
+     * @param kind    the kind of the macro
+     * @param body    the loop body of the macro
+     * @param initial the initial value of the accumulator for {@code reduce}, otherwise {@code null}
+     */
+    private record Stage(Operation.Intrinsic.Kind kind, Script body, Script initial) {
+    }
+
+    private final Engine engine;
+    private final MacroNode original;
+    private final Script source;
+    private final Stage[] stages;
+
+    private PipelineNode(Engine engine, MacroNode original, Script source, Stage[] stages) {
+        this.engine = engine;
+        this.original = original;
+        this.source = source;
+        this.stages = stages;
+    }
+
+    /**
+     * Fuse the loop macro with the {@code map} or {@code filter} call it iterates over, if there is one.
+     *
+     * @param engine the engine building the script
+     * @param node   the macro call node
+     * @return the pipeline, or the node itself if it cannot be fused
+     */
+    public static Script of(Engine engine, MacroNode node) {
+        final var stage = stage(node);
+        if (stage == null) {
+            return node;
+        }
+        // the upstream loop may have been made parallel, but it is evaluated as a stage of the pipeline
+        final var upstream = node.args[0] instanceof ParallelNode parallel ? parallel.original() : node.args[0];
+        final List<Stage> stages = new ArrayList<>();
+        final Script source;
+        if (upstream instanceof PipelineNode pipeline && producesList(pipeline.stages[pipeline.stages.length - 1])) {
+            source = pipeline.source;
+            stages.addAll(List.of(pipeline.stages));
+        } else if (upstream instanceof MacroNode macro && stage(macro) instanceof Stage first && producesList(first)) {
+            source = macro.args[0];
+            stages.add(first);
+        } else {
+            return node;
+        }
+        stages.add(stage);
+        return new PipelineNode(engine, node, source, stages.toArray(Stage[]::new));
+    }
+
+    /**
+     * @return the stage of the macro call, or {@code null} if the call is not a stage
+     */
+    private static Stage stage(MacroNode node) {
+        if (node.getClass() != MacroNode.class) {
+            return null;
+        }
+        final var intrinsic = node.operation.getClass().getAnnotation(Operation.Intrinsic.class);
+        if (intrinsic == null) {
+            return null;
+        }
+        return switch (intrinsic.value()) {
+            case MAP, FILTER, SOME, ALL, NONE -> node.args.length == 2 ? new Stage(intrinsic.value(), node.args[1], null) : null;
+            case REDUCE -> node.args.length == 3 ? new Stage(intrinsic.value(), node.args[1], node.args[2]) : null;
+            default -> null;
+        };
+    }
+
+    private static boolean producesList(Stage stage) {
+        return stage.kind == Operation.Intrinsic.Kind.MAP || stage.kind == Operation.Intrinsic.Kind.FILTER;
+    }
+
+    /**
+     * @return the call of the last macro of the chain, the script that was fused
+     */
+    public Script original() {
+        return original;
+    }
+
+    @Override
+    public Object evaluate() {
+        return evaluateUsing(engine.evaluator());
+    }
+
+    @Override
+    public Object evaluate(Context context) {
+        return evaluateUsing(engine.executor(context));
+    }
+
+    @Override
+    public Object evaluate(Map<String, Object> data) {
+        return evaluate(engine.contextFor(data));
+    }
+
+    @Override
+    public Object evaluateUsing(Executor executor) {
+        final var first = stages[0].kind;
+        var list = source.evaluateUsing(executor);
+        if (first == Operation.Intrinsic.Kind.MAP || first == Operation.Intrinsic.Kind.REDUCE) {
+            list = Objects.requireNonNullElse(list, List.of());
+        }
+        if (!(executor.getContext().accessor(list) instanceof Context.IndexedProxy inList)) {
+            throw new IllegalArgumentException("The first argument of the " + name(first) + " command must be a list.");
+        }
+        final var last = stages.length - 1;
+        final var terminal = stages[last];
+        var accumulator = terminal.initial == null ? null : terminal.initial.evaluateUsing(executor);
+        final var frames = new Context.Frame[stages.length];
+        final var executors = new Executor[stages.length];
+        for (int s = 0; s < stages.length; s++) {
+            frames[s] = executor.getContext().frame(stages[s].kind == Operation.Intrinsic.Kind.REDUCE ? REDUCE_VARIABLES : VARIABLES);
+            executors[s] = new FrameExecutor(executor, frames[s]);
+        }
+        final var outList = new ArrayList<>();
+        elements:
+        for (int i = 0; i < inList.size(); i++) {
+            executor.step();
+            var value = inList.get(i).get();
+            for (int s = 0; s < last; s++) {
+                frames[s].set(0, value);
+                frames[s].set(1, value);
+                final var result = stages[s].body.evaluateUsing(executors[s]);
+                if (stages[s].kind == Operation.Intrinsic.Kind.MAP) {
+                    value = result;
+                } else if (!toBoolean(executors[s], result, stages[s].kind)) {
+                    continue elements;
+                }
+            }
+            frames[last].set(0, value);
+            frames[last].set(1, value);
+            if (terminal.kind == Operation.Intrinsic.Kind.REDUCE) {
+                frames[last].set(2, accumulator);
+            }
+            final var result = terminal.body.evaluateUsing(executors[last]);
+            switch (terminal.kind) {
+                case MAP -> {
+                    executor.allocate(1);
+                    outList.add(result);
+                }
+                case FILTER -> {
+                    if (toBoolean(executors[last], result, terminal.kind)) {
+                        executor.allocate(1);
+                        outList.add(value);
+                    }
+                }
+                case REDUCE -> accumulator = result;
+                case SOME -> {
+                    if (toBoolean(executors[last], result, terminal.kind)) {
+                        return true;
+                    }
+                }
+                case ALL, NONE -> {
+                    if (toBoolean(executors[last], result, terminal.kind) == (terminal.kind == Operation.Intrinsic.Kind.NONE)) {
+                        return false;
+                    }
+                }
+                default -> throw new IllegalStateException("Invalid stage " + terminal.kind);
+            }
+        }
+        return switch (terminal.kind) {
+            case MAP, FILTER -> outList;
+            case REDUCE -> accumulator;
+            case SOME -> false;
+            default -> true;
+        };
+    }
+
+    /**
+     * Convert the result of a loop body to boolean the way the macro does.
+     */
+    static boolean toBoolean(Executor executor, Object value, Operation.Intrinsic.Kind kind) {
+        final var script = switch (kind) {
+            case FILTER -> "filter";
+            case NONE -> "none";
+            default -> "all";
+        };
+        return ScriptCompiler.toBoolean(executor, value, "The " + script + " script must return a boolean value.");
+    }
+
+    private static String name(Operation.Intrinsic.Kind kind) {
+        return switch (kind) {
+            case MAP -> "map";
+            case FILTER -> "filter";
+            case REDUCE -> "reduce";
+            case SOME -> "'some'";
+            case ALL -> "all";
+            default -> "none";
+        };
+    }
+
+    @Override
+    public String jsonify() {
+        return original.jsonify();
+    }
+}
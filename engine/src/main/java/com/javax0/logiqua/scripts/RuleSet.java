@@ -0,0 +1,276 @@
+package com.javax0.logiqua.scripts;
+
+import com.javax0.logiqua.Context;
+import com.javax0.logiqua.Executor;
+import com.javax0.logiqua.Operation;
+import com.javax0.logiqua.Script;
+import com.javax0.logiqua.engine.Engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A set of rules evaluated together against the same data.
+ * <p>
+ * The subexpressions the rules can share, the variable references with a constant key and the calls of the
+ * {@link com.javax0.logiqua.Operation.Pure} functions on them, are merged over all the rules, the same way
+ * {@link SharedScript} does it in a single script. A subexpression appearing in several rules, or several times in one
+ * rule, is evaluated at most once when the rule set is evaluated, and the other occurrences use the value. The rules
+ * have to be built by the same engine, the subexpressions calling different operation instances are not the same.
+ * <p>
+ * The rules starting with a guard comparing a variable to string constants, like
+ * {@code {"==":[{"var":"event.type"},"PAYMENT"]}} or {@code {"in":[{"var":"country"},["DE","AT","CH"]]}}, either alone
+ * or as the first argument of an {@code and}, are indexed. The guard has to call an {@link Operation.Guard} function,
+ * and the {@code and} has to be an {@link Operation.Logical} one. The rules guarded by the same variable are put into a
+ * hash table by the constants. When the rule set is evaluated, the variable is looked up once, and if its value is a
+ * string, only the rules having the value among their constants are evaluated. The guard of the other rules is false,
+ * and so is their result, without evaluating them. If the variable is not found, or it is not a string, all the rules
+ * it guards are evaluated.
+ * <p>
+ * The rules are evaluated in the order they were given. If a rule throws an exception, the evaluation stops, and the
+ * exception is thrown. The rule set can be evaluated concurrently, the values are stored for each evaluation.
+ */
+public final class RuleSet {
+    private final Engine engine;
+    private final Script[] rules;
+    private final int slots;
+    private final Index[] indexes;
+
+    /**
+     * The rules guarded by the same variable.
+     *
+     * @param variable   the variable
+     * @param rules      the indexes of the rules guarded by the variable
+     * @param candidates the indexes of the rules that may be true for each value of the variable
+     */
+    private record Index(Script variable, int[] rules, Map<String, int[]> candidates) {
+    }
+
+    /**
+     * The guard of a rule.
+     */
+    private record Guard(Script variable, List<String> values) {
+    }
+
+    private RuleSet(Engine engine, Script[] rules, int slots, Index[] indexes) {
+        this.engine = engine;
+        this.rules = rules;
+        this.slots = slots;
+        this.indexes = indexes;
+    }
+
+    /**
+     * Merge the shared subexpressions of the rules.
+     *
+     * @param engine the engine the rules were built by
+     * @param rules  the rules
+     * @return the rule set
+     */
+    public static RuleSet of(Engine engine, List<Script> rules) {
+        final var sharing = new SharedScript.Sharing(engine);
+        for (final var rule : rules) {
+            sharing.count(rule);
+        }
+        final var shared = new Script[rules.size()];
+        for (int i = 0; i < shared.length; i++) {
+            shared[i] = sharing.share(rules.get(i));
+        }
+        return new RuleSet(engine, shared, sharing.slots, index(rules));
+    }
+
+    /**
+     * Group the guarded rules by the variable of the guard.
+     */
+    private static Index[] index(List<Script> rules) {
+        final var variables = new LinkedHashMap<String, Script>();
+        final var guarded = new LinkedHashMap<String, List<Integer>>();
+        final var candidates = new HashMap<String, Map<String, List<Integer>>>();
+        for (int i = 0; i < rules.size(); i++) {
+            final var guard = guard(rules.get(i));
+            if (guard != null) {
+                final var key = guard.variable.jsonify();
+                variables.putIfAbsent(key, guard.variable);
+                guarded.computeIfAbsent(key, k -> new ArrayList<>()).add(i);
+                final var byValue = candidates.computeIfAbsent(key, k -> new HashMap<>());
+                for (final var value : guard.values) {
+                    final var list = byValue.computeIfAbsent(value, k -> new ArrayList<>());
+                    if (list.isEmpty() || list.getLast() != i) {
+                        list.add(i);
+                    }
+                }
+            }
+        }
+        final var indexes = new ArrayList<Index>();
+        for (final var entry : variables.entrySet()) {
+            final var byValue = new HashMap<String, int[]>();
+            candidates.get(entry.getKey()).forEach((value, list) -> byValue.put(value, toArray(list)));
+            indexes.add(new Index(entry.getValue(), toArray(guarded.get(entry.getKey())), byValue));
+        }
+        return indexes.toArray(Index[]::new);
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        return list.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * @return the guard of the rule, or {@code null} if the rule does not start with a guard that can be indexed
+     */
+    private static Guard guard(Script rule) {
+        var script = rule;
+        if (script instanceof MacroNode and && and.args.length > 0
+                && and.operation.getClass().getAnnotation(Operation.Logical.class) instanceof Operation.Logical logical
+                && logical.value() == Operation.Logical.Kind.AND) {
+            script = and.args[0];
+        }
+        if (!(script instanceof FunctionNode call) || call.args.length != 2
+                || !(call.operation.getClass().getAnnotation(Operation.Guard.class) instanceof Operation.Guard guard)) {
+            return null;
+        }
+        return switch (guard.value()) {
+            case EQUAL -> {
+                if (call.args[0] instanceof VariablePathNode && constant(call.args[1]) instanceof String value) {
+                    yield new Guard(call.args[0], List.of(value));
+                }
+                if (call.args[1] instanceof VariablePathNode && constant(call.args[0]) instanceof String value) {
+                    yield new Guard(call.args[1], List.of(value));
+                }
+                yield null;
+            }
+            case MEMBER -> call.args[0] instanceof VariablePathNode && strings(call.args[1]) instanceof List<String> values
+                    ? new Guard(call.args[0], values) : null;
+        };
+    }
+
+    /**
+     * @return the value of the constant, or {@code null} if the script is not a constant
+     */
+    private static Object constant(Script script) {
+        return script instanceof ConstantValueNode<?> constant ? constant.evaluate() : null;
+    }
+
+    /**
+     * @return the elements of the constant list of strings, or {@code null} if the script is not one
+     */
+    private static List<String> strings(Script script) {
+        final List<?> elements;
+        if (script instanceof ConstantValueNode<?> constant && constant.evaluate() instanceof List<?> list) {
+            elements = list;
+        } else if (script instanceof FunctionNode call && call.operation.getClass().isAnnotationPresent(Operation.ListOf.class)) {
+            final var list = new ArrayList<>();
+            for (final var arg : call.args) {
+                if (!(arg instanceof ConstantValueNode<?>)) {
+                    return null;
+                }
+                list.add(constant(arg));
+            }
+            elements = list;
+        } else {
+            return null;
+        }
+        final var strings = new ArrayList<String>(elements.size());
+        for (final var element : elements) {
+            if (!(element instanceof String string)) {
+                return null;
+            }
+            strings.add(string);
+        }
+        return strings;
+    }
+
+    /**
+     * @return the number of the rules
+     */
+    public int size() {
+        return rules.length;
+    }
+
+    /**
+     * @return the number of the rules having a guard in the index
+     */
+    public int indexed() {
+        var indexed = 0;
+        for (final var index : indexes) {
+            indexed += index.rules.length;
+        }
+        return indexed;
+    }
+
+    /**
+     * @return the number of the subexpressions evaluated only once
+     */
+    public int shared() {
+        return slots;
+    }
+
+    /**
+     * Evaluate the rules on the data.
+     *
+     * @param data the data
+     * @return the results of the rules in the order of the rules
+     */
+    public List<Object> evaluate(Map<String, Object> data) {
+        return evaluate(engine.contextFor(data));
+    }
+
+    /**
+     * Evaluate the rules in the context.
+     *
+     * @param context the context
+     * @return the results of the rules in the order of the rules
+     */
+    public List<Object> evaluate(Context context) {
+        return evaluateUsing(engine.executor(context));
+    }
+
+    /**
+     * Evaluate the rules using the executor.
+     *
+     * @param executor the executor
+     * @return the results of the rules in the order of the rules
+     */
+    public List<Object> evaluateUsing(Executor executor) {
+        final var memo = SharedScript.memo(executor, slots);
+        final var skipped = skipped(memo);
+        final var results = new Object[rules.length];
+        for (int i = 0; i < rules.length; i++) {
+            results[i] = skipped != null && skipped[i] ? Boolean.FALSE : rules[i].evaluateUsing(memo);
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * @return flags telling which rules have a false guard for the data, or {@code null} if there is none
+     */
+    private boolean[] skipped(Executor executor) {
+        boolean[] skipped = null;
+        for (final var index : indexes) {
+            final Object value;
+            try {
+                value = index.variable.evaluateUsing(executor);
+            } catch (RuntimeException e) {
+                // the rules evaluate the guard, and throw the exception if they have to
+                continue;
+            }
+            if (value instanceof String string) {
+                if (skipped == null) {
+                    skipped = new boolean[rules.length];
+                }
+                for (final var rule : index.rules) {
+                    skipped[rule] = true;
+                }
+                final var candidates = index.candidates.get(string);
+                if (candidates != null) {
+                    for (final var rule : candidates) {
+                        skipped[rule] = false;
+                    }
+                }
+            }
+        }
+        return skipped;
+    }
+}
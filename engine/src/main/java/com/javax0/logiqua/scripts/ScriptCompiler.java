@@ -0,0 +1,463 @@
+package com.javax0.logiqua.scripts;
+
+import com.javax0.logiqua.Context;
+import com.javax0.logiqua.Executor;
+import com.javax0.logiqua.Operation;
+import com.javax0.logiqua.Script;
+import com.javax0.logiqua.engine.Engine;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.javax0.logiqua.scripts.ClassFileWriter.Op.*;
+
+/**
+ * Compile a script tree into a generated class, defined as a hidden class.
+ * <p>
+ * The calls of the operations annotated as {@link Operation.Intrinsic} are compiled to inline code:
+ * <ul>
+ *     <li>The arithmetic operations calculate in primitives when all the arguments are {@link Long}, or all are
+ *     {@link Double}, and they call the operation otherwise, or when a {@code long} division is by zero.</li>
+ *     <li>The comparisons and the equality checks of two arguments compare the values directly when both are
+ *     {@link Long} or both are {@link Double}, and the equality checks also when both are {@link String}.</li>
+ *     <li>The {@code if}, {@code and} and {@code or} macros are compiled to branches, evaluating the arguments the
+ *     same way, and in the same order as the macros do.</li>
+ *     <li>The variables having a constant key look up the pre-parsed path directly.</li>
+ * </ul>
+ * The other functions are called through their interface, with the arguments calculated by the compiled code.
+ * The other macros and the other script nodes are evaluated through the {@link Script} interface, the same way the
+ * interpreter does.
+ * <p>
+ * A script too large for the method of a single class is not compiled.
+ */
+public final class ScriptCompiler {
+    private static final String BODY = "com/javax0/logiqua/scripts/CompiledScript$Body";
+    private static final String SCRIPT = "com/javax0/logiqua/Script";
+    private static final String EXECUTOR = "com/javax0/logiqua/Executor";
+    private static final String FUNCTION = "com/javax0/logiqua/Operation$Function";
+    private static final String PATH = "com/javax0/logiqua/Path";
+    private static final String OBJECT = "java/lang/Object";
+    private static final String LONG = "java/lang/Long";
+    private static final String DOUBLE = "java/lang/Double";
+    private static final String BOOLEAN = "java/lang/Boolean";
+    private static final String STRING = "java/lang/String";
+    private static final String THIS = "com/javax0/logiqua/scripts/ScriptCompiler";
+
+    private static final int EXECUTOR_LOCAL = 1;
+    private static final int CONSTANTS_LOCAL = 2;
+
+    private final ClassFileWriter.Code code;
+    private final List<Object> constants = new ArrayList<>();
+    private final Map<Object, Integer> constantIndex = new IdentityHashMap<>();
+
+    private ScriptCompiler(ClassFileWriter.Code code) {
+        this.code = code;
+    }
+
+    /**
+     * Compile the script.
+     *
+     * @param engine the engine the script was built by
+     * @param script the script to compile
+     * @return the compiled script, or the script itself if it is a constant, already compiled, or too large to compile
+     */
+    public static Script compile(Engine engine, Script script) {
+        if (script instanceof CompiledScript || script instanceof ConstantValueNode<?>) {
+            return script;
+        }
+        final var writer = new ClassFileWriter(THIS + "$Compiled", BODY);
+        final var compiler = new ScriptCompiler(
+                writer.method("evaluate", "(L" + EXECUTOR + ";[L" + OBJECT + ";)L" + OBJECT + ";", 3));
+        try {
+            compiler.compile(script);
+            compiler.code.op(ARETURN);
+            compiler.code.end();
+        } catch (ClassFileWriter.TooLargeException tooLarge) {
+            return script;
+        }
+        return new CompiledScript(engine, script, define(writer.toByteArray()), compiler.constants.toArray());
+    }
+
+    private static CompiledScript.Body define(byte[] bytes) {
+        try {
+            final var lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            return (CompiledScript.Body) lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class)).invoke();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cannot define the compiled script class", e);
+        }
+    }
+
+    /**
+     * Generate the code evaluating the script, leaving the result on the operand stack.
+     */
+    private void compile(Script script) {
+        if (code.length() > ClassFileWriter.MAX_CODE_LENGTH) {
+            throw new ClassFileWriter.TooLargeException("The script is too large to compile");
+        }
+        switch (script) {
+            case ConstantValueNode<?> constant -> constant(constant.evaluate());
+            case VariablePathNode variable -> variable(variable);
+            case FunctionNode function -> function(function);
+            case MacroNode macro -> macro(macro);
+            default -> call(script);
+        }
+    }
+
+    /**
+     * Load an object from the constants array.
+     */
+    private void constant(Object value) {
+        if (value == null) {
+            code.op(ACONST_NULL);
+            return;
+        }
+        var index = constantIndex.get(value);
+        if (index == null) {
+            index = constants.size();
+            constants.add(value);
+            constantIndex.put(value, index);
+        }
+        code.aload(CONSTANTS_LOCAL);
+        code.iconst(index);
+        code.op(AALOAD);
+    }
+
+    private void call(Script script) {
+        constant(script);
+        code.checkcast(SCRIPT);
+        code.aload(EXECUTOR_LOCAL);
+        code.invokeinterface(SCRIPT, "evaluateUsing", "(L" + EXECUTOR + ";)L" + OBJECT + ";", 1, 1);
+    }
+
+    private void variable(VariablePathNode variable) {
+        code.aload(EXECUTOR_LOCAL);
+        constant(variable.path);
+        code.checkcast(PATH);
+        constant(variable.original);
+        code.checkcast(SCRIPT);
+        code.invokestatic("com/javax0/logiqua/scripts/VariablePathNode", "lookup",
+                "(L" + EXECUTOR + ";L" + PATH + ";L" + SCRIPT + ";)L" + OBJECT + ";", 3, 1);
+    }
+
+    private static Operation.Intrinsic.Kind intrinsic(Operation operation) {
+        final var intrinsic = operation.getClass().getAnnotation(Operation.Intrinsic.class);
+        return intrinsic == null ? null : intrinsic.value();
+    }
+
+    /**
+     * Count a step of the evaluation, the same way the nodes do, see {@link Executor#step()}.
+     */
+    private void step() {
+        code.aload(EXECUTOR_LOCAL);
+        code.invokeinterface(EXECUTOR, "step", "()V", 0, 0);
+    }
+
+    private void function(FunctionNode function) {
+        step();
+        final var kind = intrinsic(function.operation);
+        final var n = function.args.length;
+        if (kind != null) {
+            switch (kind) {
+                case ADD, SUBTRACT, MULTIPLY, DIVIDE, REMAINDER -> {
+                    if (n >= 2) {
+                        arithmetic(function, kind);
+                        return;
+                    }
+                }
+                case LESS, LESS_OR_EQUAL, GREATER, GREATER_OR_EQUAL, EQUAL, NOT_EQUAL -> {
+                    if (n == 2) {
+                        comparison(function, kind);
+                        return;
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+        constant(function.operation);
+        code.checkcast(FUNCTION);
+        code.aload(EXECUTOR_LOCAL);
+        code.iconst(n);
+        code.anewarray(OBJECT);
+        for (int i = 0; i < n; i++) {
+            code.op(DUP);
+            code.iconst(i);
+            compile(function.args[i]);
+            code.op(AASTORE);
+        }
+        invokeFunction();
+    }
+
+    private void invokeFunction() {
+        code.invokeinterface(FUNCTION, "evaluate", "(L" + EXECUTOR + ";[L" + OBJECT + ";)L" + OBJECT + ";", 2, 1);
+    }
+
+    /**
+     * Evaluate the arguments of the function into local variables.
+     */
+    private int[] arguments(FunctionNode function) {
+        final var locals = new int[function.args.length];
+        for (int i = 0; i < locals.length; i++) {
+            compile(function.args[i]);
+            locals[i] = code.newLocal();
+            code.astore(locals[i]);
+        }
+        return locals;
+    }
+
+    /**
+     * Call the function with the values already calculated into the local variables.
+     */
+    private void callFunction(FunctionNode function, int[] locals) {
+        constant(function.operation);
+        code.checkcast(FUNCTION);
+        code.aload(EXECUTOR_LOCAL);
+        code.iconst(locals.length);
+        code.anewarray(OBJECT);
+        for (int i = 0; i < locals.length; i++) {
+            code.op(DUP);
+            code.iconst(i);
+            code.aload(locals[i]);
+            code.op(AASTORE);
+        }
+        invokeFunction();
+    }
+
+    /**
+     * Jump to the label if any of the values is not an instance of the type.
+     */
+    private void checkAll(int[] locals, String type, ClassFileWriter.Label otherwise) {
+        for (final var local : locals) {
+            code.aload(local);
+            code.instanceOf(type);
+            code.jump(IFEQ, otherwise);
+        }
+    }
+
+    private void unboxLong(int local) {
+        code.aload(local);
+        code.checkcast(LONG);
+        code.invokevirtual(LONG, "longValue", "()J", 0, 2);
+    }
+
+    private void unboxDouble(int local) {
+        code.aload(local);
+        code.checkcast(DOUBLE);
+        code.invokevirtual(DOUBLE, "doubleValue", "()D", 0, 2);
+    }
+
+    private void arithmetic(FunctionNode function, Operation.Intrinsic.Kind kind) {
+        final var locals = arguments(function);
+        final var notLong = code.label();
+        final var generic = code.label();
+        final var end = code.label();
+        final var longOp = switch (kind) {
+            case ADD -> LADD;
+            case SUBTRACT -> LSUB;
+            case MULTIPLY -> LMUL;
+            case DIVIDE -> LDIV;
+            default -> LREM;
+        };
+        final var doubleOp = switch (kind) {
+            case ADD -> DADD;
+            case SUBTRACT -> DSUB;
+            case MULTIPLY -> DMUL;
+            case DIVIDE -> DDIV;
+            default -> DREM;
+        };
+
+        checkAll(locals, LONG, notLong);
+        if (kind == Operation.Intrinsic.Kind.DIVIDE || kind == Operation.Intrinsic.Kind.REMAINDER) {
+            // the operators return infinity or throw an exception for a long division by zero
+            for (int i = 1; i < locals.length; i++) {
+                unboxLong(locals[i]);
+                code.op(LCONST_0);
+                code.op(LCMP);
+                code.jump(IFEQ, generic);
+            }
+        }
+        unboxLong(locals[0]);
+        for (int i = 1; i < locals.length; i++) {
+            unboxLong(locals[i]);
+            code.op(longOp);
+        }
+        code.invokestatic(LONG, "valueOf", "(J)L" + LONG + ";", 2, 1);
+        code.jump(GOTO, end);
+
+        code.place(notLong);
+        checkAll(locals, DOUBLE, generic);
+        unboxDouble(locals[0]);
+        for (int i = 1; i < locals.length; i++) {
+            unboxDouble(locals[i]);
+            code.op(doubleOp);
+        }
+        code.invokestatic(DOUBLE, "valueOf", "(D)L" + DOUBLE + ";", 2, 1);
+        code.jump(GOTO, end);
+
+        code.place(generic);
+        callFunction(function, locals);
+        code.place(end);
+    }
+
+    private void comparison(FunctionNode function, Operation.Intrinsic.Kind kind) {
+        final var locals = arguments(function);
+        final var notLong = code.label();
+        final var notDouble = code.label();
+        final var generic = code.label();
+        final var isFalse = code.label();
+        final var end = code.label();
+        // the jump to 'isFalse' when the result of the comparison is not the expected
+        final var whenFalse = switch (kind) {
+            case LESS -> IFGE;
+            case LESS_OR_EQUAL -> IFGT;
+            case GREATER -> IFLE;
+            case GREATER_OR_EQUAL -> IFLT;
+            case EQUAL -> IFNE;
+            default -> IFEQ;
+        };
+
+        checkAll(locals, LONG, notLong);
+        unboxLong(locals[0]);
+        unboxLong(locals[1]);
+        code.op(LCMP);
+        code.jump(whenFalse, isFalse);
+        code.getstatic(BOOLEAN, "TRUE", "L" + BOOLEAN + ";");
+        code.jump(GOTO, end);
+
+        code.place(notLong);
+        final var isEquality = kind == Operation.Intrinsic.Kind.EQUAL || kind == Operation.Intrinsic.Kind.NOT_EQUAL;
+        checkAll(locals, DOUBLE, isEquality ? notDouble : generic);
+        unboxDouble(locals[0]);
+        unboxDouble(locals[1]);
+        // the same as Double.compareTo() and Double.equals()
+        code.invokestatic(DOUBLE, "compare", "(DD)I", 4, 1);
+        code.jump(whenFalse, isFalse);
+        code.getstatic(BOOLEAN, "TRUE", "L" + BOOLEAN + ";");
+        code.jump(GOTO, end);
+
+        if (isEquality) {
+            code.place(notDouble);
+            checkAll(locals, STRING, generic);
+            code.aload(locals[0]);
+            code.checkcast(STRING);
+            code.aload(locals[1]);
+            code.invokevirtual(STRING, "equals", "(L" + OBJECT + ";)Z", 1, 1);
+            code.jump(kind == Operation.Intrinsic.Kind.EQUAL ? IFEQ : IFNE, isFalse);
+            code.getstatic(BOOLEAN, "TRUE", "L" + BOOLEAN + ";");
+            code.jump(GOTO, end);
+        }
+
+        code.place(isFalse);
+        code.getstatic(BOOLEAN, "FALSE", "L" + BOOLEAN + ";");
+        code.jump(GOTO, end);
+
+        code.place(generic);
+        callFunction(function, locals);
+        code.place(end);
+    }
+
+    private void macro(MacroNode macro) {
+        final var kind = intrinsic(macro.operation);
+        final var n = macro.args.length;
+        if (kind == Operation.Intrinsic.Kind.IF && (n == 2 || n == 3)) {
+            step();
+            ifMacro(macro);
+        } else if ((kind == Operation.Intrinsic.Kind.AND || kind == Operation.Intrinsic.Kind.OR) && n > 0) {
+            step();
+            andOr(macro, kind == Operation.Intrinsic.Kind.AND);
+        } else {
+            call(macro);
+        }
+    }
+
+    /*
+     * The messages of the exceptions thrown by the macros when an argument cannot be converted to a boolean.
+     */
+    private static final String IF_MESSAGE = "The first argument of the 'if' command must be a boolean expression.";
+    private static final String AND_MESSAGE = "The arguments of the 'and' command must be a boolean expression.";
+    private static final String OR_MESSAGE = "The first argument of the 'or' command must be a boolean expression.";
+
+    /**
+     * Convert the value on the top of the stack to a boolean. {@link Boolean} values are converted inline, other
+     * values calling {@link #toBoolean(Executor, Object, String)} or {@link #castToBoolean(Executor, Object, String)}.
+     */
+    private void test(String converter, String message) {
+        final var other = code.label();
+        final var done = code.label();
+        code.op(DUP);
+        code.instanceOf(BOOLEAN);
+        code.jump(IFEQ, other);
+        code.checkcast(BOOLEAN);
+        code.invokevirtual(BOOLEAN, "booleanValue", "()Z", 0, 1);
+        code.jump(GOTO, done);
+        code.place(other);
+        code.aload(EXECUTOR_LOCAL);
+        code.op(SWAP);
+        code.ldcString(message);
+        code.invokestatic(THIS, converter, "(L" + EXECUTOR + ";L" + OBJECT + ";L" + STRING + ";)Z", 3, 1);
+        code.place(done);
+    }
+
+    private void ifMacro(MacroNode macro) {
+        final var otherwise = code.label();
+        final var end = code.label();
+        compile(macro.args[0]);
+        test("toBoolean", IF_MESSAGE);
+        code.jump(IFEQ, otherwise);
+        compile(macro.args[1]);
+        code.jump(GOTO, end);
+        code.place(otherwise);
+        if (macro.args.length > 2) {
+            compile(macro.args[2]);
+        } else {
+            code.op(ACONST_NULL);
+        }
+        code.place(end);
+    }
+
+    private void andOr(MacroNode macro, boolean isAnd) {
+        final var decided = code.label();
+        final var end = code.label();
+        for (final var arg : macro.args) {
+            compile(arg);
+            if (isAnd) {
+                test("toBoolean", AND_MESSAGE);
+                code.jump(IFEQ, decided);
+            } else {
+                test("castToBoolean", OR_MESSAGE);
+                code.jump(IFNE, decided);
+            }
+        }
+        code.getstatic(BOOLEAN, isAnd ? "TRUE" : "FALSE", "L" + BOOLEAN + ";");
+        code.jump(GOTO, end);
+        code.place(decided);
+        code.getstatic(BOOLEAN, isAnd ? "FALSE" : "TRUE", "L" + BOOLEAN + ";");
+        code.place(end);
+    }
+
+    /**
+     * Convert a value to boolean the way the {@code if} and {@code and} macros do, called from the generated code.
+     *
+     * @throws IllegalArgumentException if there is no caster, or the caster returns {@code null}
+     */
+    static boolean toBoolean(Executor executor, Object value, String message) {
+        return executor.getContext().caster(Context.classOf(value), Boolean.class)
+                .map(c -> c.cast(value))
+                .orElseThrow(() -> new IllegalArgumentException(message));
+    }
+
+    /**
+     * Convert a value to boolean the way the {@code or} macro does, called from the generated code.
+     *
+     * @throws IllegalArgumentException if there is no caster
+     */
+    static boolean castToBoolean(Executor executor, Object value, String message) {
+        return executor.getContext().caster(Context.classOf(value), Boolean.class)
+                .orElseThrow(() -> new IllegalArgumentException(message))
+                .cast(value);
+    }
+}
@@ -0,0 +1,260 @@
+package com.javax0.logiqua.scripts;
+
+import com.javax0.logiqua.Operation;
+import com.javax0.logiqua.Script;
+import com.javax0.logiqua.engine.Engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Simplify the calls of the {@link Operation.Logical} operations in a script.
+ * <p>
+ * The optimizer rebuilds the tree bottom up, and it
+ * <ul>
+ *     <li>flattens the {@code and} and {@code or} calls nested into a call of the same operation,</li>
+ *     <li>drops the constant {@code true} arguments of {@code and} and the constant {@code false} arguments of
+ *     {@code or}, and the arguments following a constant that decides the result,</li>
+ *     <li>drops the branches of {@code if} following a constant {@code true} condition, and the branches having a
+ *     constant {@code false} condition,</li>
+ *     <li>replaces the double negation of a boolean value with the value, and the negation of a constant with the
+ *     constant.</li>
+ * </ul>
+ * Only {@link Boolean} constants are treated as known conditions. Every argument that is evaluated in the original
+ * script is evaluated in the optimized script in the same order, and the result is the same, therefore the errors
+ * and the side effects of the arguments are also the same. An argument returning the value that decided the result
+ * of {@code and} or {@code or} is kept at the end, unless the operation returns a {@link Boolean}, see
+ * {@link Operation.Logical#returnsArgument()}.
+ * <p>
+ * Calls of functions whose arguments became constants are folded again, when the engine is folding. The JSON
+ * representation of the optimized script is the one of the simplified tree.
+ */
+public final class ScriptOptimizer {
+
+    /**
+     * The result of the optimization.
+     *
+     * @param script the optimized script
+     * @param before the number of the nodes in the original script
+     * @param after  the number of the nodes in the optimized script
+     */
+    public record Report(Script script, int before, int after) {
+        /**
+         * @return the number of the nodes removed by the optimization
+         */
+        public int removed() {
+            return before - after;
+        }
+    }
+
+    private final Engine engine;
+
+    private ScriptOptimizer(Engine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Optimize a script built by the engine.
+     *
+     * @param engine the engine the script was built by
+     * @param script the script to optimize
+     * @return the optimized script and the number of the nodes removed
+     */
+    public static Report optimize(Engine engine, Script script) {
+        final var optimized = new ScriptOptimizer(engine).optimize(script);
+        return new Report(optimized, count(script), count(optimized));
+    }
+
+    /**
+     * Count the nodes of a script. A variable reference, a folded constant and a script that is not a tree of nodes
+     * count as one node.
+     */
+    static int count(Script script) {
+        if (script instanceof AbstractOperation operation) {
+            var count = 1;
+            for (final var arg : operation.args) {
+                count += count(arg);
+            }
+            return count;
+        }
+        return 1;
+    }
+
+    private Script optimize(Script script) {
+        if (!(script instanceof AbstractOperation node)) {
+            return script;
+        }
+        final var args = new Script[node.args.length];
+        var changed = false;
+        for (int i = 0; i < args.length; i++) {
+            args[i] = optimize(node.args[i]);
+            changed |= args[i] != node.args[i];
+        }
+        final var logical = logical(node);
+        if (logical != null) {
+            final var simplified = switch (logical.value()) {
+                case AND -> junction(node, logical, args, false);
+                case OR -> junction(node, logical, args, true);
+                case IF -> condition(node, args);
+                case NOT, NOT_NOT -> negation(node, logical, args);
+            };
+            if (simplified != null) {
+                return simplified;
+            }
+        }
+        return changed ? rebuild(node, args) : node;
+    }
+
+    /**
+     * Simplify an {@code and} or an {@code or} call.
+     *
+     * @param decisive {@code false} for {@code and} and {@code true} for {@code or}, the constant value that decides
+     *                 the result
+     * @return the simplified script, or {@code null} if the call cannot be simplified
+     */
+    private Script junction(AbstractOperation node, Operation.Logical logical, Script[] args, boolean decisive) {
+        final var flat = new ArrayList<Script>();
+        for (final var arg : args) {
+            if (arg instanceof MacroNode nested && nested.operation == node.operation) {
+                flat.addAll(Arrays.asList(nested.args));
+            } else {
+                flat.add(arg);
+            }
+        }
+        final var kept = new ArrayList<Script>();
+        for (int i = 0; i < flat.size(); i++) {
+            final var arg = flat.get(i);
+            final var constant = constant(arg);
+            if (constant != null && constant == decisive) {
+                kept.add(arg);
+                break;
+            }
+            // the last argument is the result when the operation returns the value of the argument
+            if (constant == null || (logical.returnsArgument() && i == flat.size() - 1)) {
+                kept.add(arg);
+            }
+        }
+        if (kept.isEmpty()) {
+            return engine.constant(!decisive);
+        }
+        if (kept.size() == 1) {
+            final var single = kept.getFirst();
+            if (logical.returnsArgument() || isBoolean(single)) {
+                return single;
+            }
+            // keep the conversion of the argument to boolean, and at least two arguments
+            kept.add(engine.constant(!decisive));
+        }
+        if (kept.size() == args.length && flat.size() == args.length && kept.equals(Arrays.asList(args))) {
+            return null;
+        }
+        return rebuild(node, kept.toArray(Script[]::new));
+    }
+
+    /**
+     * Simplify an {@code if} call.
+     *
+     * @return the simplified script, or {@code null} if the call cannot be simplified
+     */
+    private Script condition(AbstractOperation node, Script[] args) {
+        final var kept = new ArrayList<Script>();
+        Script otherwise = args.length % 2 == 1 ? args[args.length - 1] : null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            final var constant = constant(args[i]);
+            if (constant == null) {
+                kept.add(args[i]);
+                kept.add(args[i + 1]);
+            } else if (constant) {
+                otherwise = args[i + 1];
+                break;
+            }
+        }
+        if (kept.isEmpty()) {
+            return otherwise == null ? engine.constant(null) : otherwise;
+        }
+        if (otherwise != null) {
+            kept.add(otherwise);
+        }
+        if (kept.size() == args.length) {
+            return null;
+        }
+        return rebuild(node, kept.toArray(Script[]::new));
+    }
+
+    /**
+     * Simplify a {@code !} or a {@code !!} call.
+     *
+     * @return the simplified script, or {@code null} if the call cannot be simplified
+     */
+    private Script negation(AbstractOperation node, Operation.Logical logical, Script[] args) {
+        if (args.length != 1) {
+            return null;
+        }
+        final var negate = logical.value() == Operation.Logical.Kind.NOT;
+        final var constant = constant(args[0]);
+        if (constant != null) {
+            return engine.constant(negate != constant);
+        }
+        if (!negate) {
+            return isBoolean(args[0]) ? args[0] : null;
+        }
+        if (args[0] instanceof AbstractOperation inner && inner.args.length == 1) {
+            final var innerLogical = logical(inner);
+            if (innerLogical != null && innerLogical.value() == Operation.Logical.Kind.NOT && isBoolean(inner.args[0])) {
+                return inner.args[0];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the value of the script if it is a {@link Boolean} constant, otherwise {@code null}
+     */
+    private static Boolean constant(Script script) {
+        return script instanceof ConstantValueNode<?> constant && constant.evaluate() instanceof Boolean value ? value : null;
+    }
+
+    /**
+     * @return {@code true} if the script is known to return a non-null {@link Boolean}
+     */
+    private static boolean isBoolean(Script script) {
+        if (constant(script) != null) {
+            return true;
+        }
+        if (!(script instanceof AbstractOperation node)) {
+            return false;
+        }
+        final var logical = logical(node);
+        if (logical != null) {
+            return switch (logical.value()) {
+                case NOT, NOT_NOT -> true;
+                case AND, OR -> !logical.returnsArgument();
+                case IF -> false;
+            };
+        }
+        final var intrinsic = node.operation.getClass().getAnnotation(Operation.Intrinsic.class);
+        return intrinsic != null && switch (intrinsic.value()) {
+            case LESS, LESS_OR_EQUAL, GREATER, GREATER_OR_EQUAL, EQUAL, NOT_EQUAL -> true;
+            default -> false;
+        };
+    }
+
+    private static Operation.Logical logical(AbstractOperation node) {
+        return node.operation.getClass().getAnnotation(Operation.Logical.class);
+    }
+
+    /**
+     * Create a node calling the operation of the node with new arguments. The references to the loop variables in the
+     * arguments are already bound, they are not bound again.
+     */
+    private Script rebuild(AbstractOperation node, Script[] args) {
+        return switch (node) {
+            case MacroNode macro -> new MacroNode(engine, (Operation.Macro) macro.operation, false, args);
+            case FunctionNode function -> {
+                final var rebuilt = new FunctionNode(engine, (Operation.Function) function.operation, args);
+                final var folded = engine.isFolding() ? FoldedValueNode.of(rebuilt) : rebuilt;
+                yield folded == rebuilt ? VariablePathNode.of(rebuilt) : folded;
+            }
+        };
+    }
+}
@@ -0,0 +1,323 @@
+package com.javax0.logiqua.scripts;
+
+import com.javax0.logiqua.Budget;
+import com.javax0.logiqua.Context;
+import com.javax0.logiqua.Executor;
+import com.javax0.logiqua.Operation;
+import com.javax0.logiqua.Script;
+import com.javax0.logiqua.engine.Engine;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A script evaluating each of its repeated subexpressions at most once per evaluation.
+ * <p>
+ * The subexpressions that can be shared are the variable references with a constant key (see
+ * {@link VariablePathNode}) and the calls of the {@link Operation.Pure} functions having only such subexpressions and
+ * constants as arguments. Two subexpressions are the same if they have the same structure, the same operations and
+ * equal constants of the same class. The subexpressions appearing more than once are replaced by a node that stores
+ * the value in a slot the first time it is evaluated, and returns the stored value afterwards. The slots are created
+ * for each evaluation, so the script can be evaluated concurrently.
+ * <p>
+ * The arguments of the {@link Operation.Scope} macros evaluated in the loop frame depend on the loop variables, they
+ * are not changed. A shared subexpression evaluated with an executor other than the one the script created for the
+ * evaluation, for example by a macro that creates its own executor, is evaluated without storing the value.
+ * <p>
+ * The subexpressions are evaluated in the same order as in the original script, the first occurrence that is
+ * evaluated calculates the value, therefore the errors are also the same. The JSON representation is the same as the
+ * one of the original script.
+ */
+public final class SharedScript implements Script {
+    static final Object UNSET = new Object();
+
+    private final Engine engine;
+    private final Script script;
+    private final int slots;
+
+    private SharedScript(Engine engine, Script script, int slots) {
+        this.engine = engine;
+        this.script = script;
+        this.slots = slots;
+    }
+
+    /**
+     * Share the repeated subexpressions of a script.
+     *
+     * @param engine the engine the script was built by
+     * @param script the script
+     * @return the script sharing the subexpressions, or the script itself if there is nothing to share
+     */
+    public static Script of(Engine engine, Script script) {
+        if (script instanceof SharedScript) {
+            return script;
+        }
+        final var sharing = new Sharing(engine);
+        sharing.count(script);
+        final var shared = sharing.share(script);
+        return sharing.slots == 0 ? script : new SharedScript(engine, shared, sharing.slots);
+    }
+
+    /**
+     * @return the number of the shared subexpressions
+     */
+    public int shared() {
+        return slots;
+    }
+
+    @Override
+    public Object evaluate() {
+        return evaluateUsing(engine.evaluator());
+    }
+
+    @Override
+    public Object evaluate(Context context) {
+        return evaluateUsing(engine.executor(context));
+    }
+
+    @Override
+    public Object evaluate(Map<String, Object> data) {
+        return evaluate(engine.contextFor(data));
+    }
+
+    @Override
+    public Object evaluateUsing(Executor executor) {
+        return script.evaluateUsing(memo(executor, slots));
+    }
+
+    /**
+     * Create the executor of one evaluation with empty slots.
+     *
+     * @param executor the executor the evaluation delegates to
+     * @param slots    the number of the shared subexpressions
+     * @return the executor storing the values of the shared subexpressions
+     */
+    static Executor memo(Executor executor, int slots) {
+        final var values = new Object[slots];
+        Arrays.fill(values, UNSET);
+        return new Memo(executor, values);
+    }
+
+    @Override
+    public String jsonify() {
+        return script.jsonify();
+    }
+
+    /**
+     * A shared subexpression.
+     */
+    private record SharedNode(int slot, Script script) implements Script {
+        @Override
+        public Object evaluate() {
+            return script.evaluate();
+        }
+
+        @Override
+        public Object evaluate(Context context) {
+            return script.evaluate(context);
+        }
+
+        @Override
+        public Object evaluate(Map<String, Object> data) {
+            return script.evaluate(data);
+        }
+
+        @Override
+        public Object evaluateUsing(Executor executor) {
+            if (!(executor instanceof Memo memo)) {
+                return script.evaluateUsing(executor);
+            }
+            var value = memo.values[slot];
+            if (value == UNSET) {
+                value = script.evaluateUsing(executor);
+                memo.values[slot] = value;
+            }
+            return value;
+        }
+
+        @Override
+        public String jsonify() {
+            return script.jsonify();
+        }
+    }
+
+    /**
+     * The executor of one evaluation, holding the values of the shared subexpressions.
+     */
+    private record Memo(Executor executor, Object[] values) implements Executor {
+        @Override
+        public void limit(int size) {
+            executor.limit(size);
+        }
+
+        @Override
+        public int limit() {
+            return executor.limit();
+        }
+
+        @Override
+        public Context getContext() {
+            return executor.getContext();
+        }
+
+        @Override
+        public Budget budget() {
+            return executor.budget();
+        }
+
+        @Override
+        public Optional<Operation> getOperation(String symbol) {
+            return executor.getOperation(symbol);
+        }
+
+        @Override
+        public void updateOperation(Operation operation) {
+            executor.updateOperation(operation);
+        }
+
+        @Override
+        public void registerOperation(Operation operation) {
+            executor.registerOperation(operation);
+        }
+
+        @Override
+        public void registerOrUpdateOperation(Operation operation) {
+            executor.registerOrUpdateOperation(operation);
+        }
+    }
+
+    /**
+     * The structure of a subexpression, equal for the subexpressions that are the same.
+     */
+    private record Call(Operation operation, List<Object> args) {
+    }
+
+    private record Value(Class<?> type, Object value) {
+    }
+
+    /**
+     * Find the repeated subexpressions and replace them. The instance is used only once, but it may count and share
+     * several scripts, which then share the subexpressions appearing in more than one of them.
+     */
+    static final class Sharing {
+        private final Engine engine;
+        private final Map<Script, Object> keys = new IdentityHashMap<>();
+        private final Map<Object, Integer> counts = new HashMap<>();
+        private final Map<Object, SharedNode> nodes = new HashMap<>();
+        int slots = 0;
+
+        Sharing(Engine engine) {
+            this.engine = engine;
+        }
+
+        /**
+         * Count the occurrences of the subexpressions that can be shared.
+         *
+         * @return the structure of the script, or {@code null} if it cannot be shared
+         */
+        Object count(Script script) {
+            final Object key = switch (script) {
+                case ConstantValueNode<?> constant -> {
+                    final var value = constant.evaluate();
+                    yield new Value(value == null ? null : value.getClass(), value);
+                }
+                case VariablePathNode variable -> {
+                    final var args = keys(variable.original.args);
+                    yield args == null ? null : new Call(variable.original.operation, args);
+                }
+                case FunctionNode function -> {
+                    final var args = keys(function.args);
+                    yield args == null || !function.operation.getClass().isAnnotationPresent(Operation.Pure.class)
+                            ? null : new Call(function.operation, args);
+                }
+                case MacroNode macro -> {
+                    final var loop = loopArguments(macro);
+                    for (int i = 0; i < macro.args.length; i++) {
+                        if (!loop[i]) {
+                            count(macro.args[i]);
+                        }
+                    }
+                    yield null;
+                }
+                default -> null;
+            };
+            if (key instanceof Call) {
+                keys.put(script, key);
+                counts.merge(key, 1, Integer::sum);
+            }
+            return key;
+        }
+
+        /**
+         * Count the arguments of a function.
+         *
+         * @return the structures of the arguments, or {@code null} if any of them cannot be shared
+         */
+        private List<Object> keys(Script[] args) {
+            final var keys = new Object[args.length];
+            var shareable = true;
+            for (int i = 0; i < args.length; i++) {
+                keys[i] = count(args[i]);
+                shareable &= keys[i] != null;
+            }
+            return shareable ? Arrays.asList(keys) : null;
+        }
+
+        /**
+         * Replace the repeated subexpressions with shared nodes.
+         */
+        Script share(Script script) {
+            final var key = keys.get(script);
+            if (key != null && counts.get(key) > 1) {
+                final var node = nodes.get(key);
+                if (node != null) {
+                    return node;
+                }
+                final var created = new SharedNode(slots++, rebuild(script));
+                nodes.put(key, created);
+                return created;
+            }
+            return rebuild(script);
+        }
+
+        private Script rebuild(Script script) {
+            if (!(script instanceof AbstractOperation node)) {
+                return script;
+            }
+            final var loop = node instanceof MacroNode macro ? loopArguments(macro) : new boolean[node.args.length];
+            final var args = new Script[node.args.length];
+            var changed = false;
+            for (int i = 0; i < args.length; i++) {
+                args[i] = loop[i] ? node.args[i] : share(node.args[i]);
+                changed |= args[i] != node.args[i];
+            }
+            if (!changed) {
+                return script;
+            }
+            return switch (node) {
+                case MacroNode macro -> new MacroNode(engine, (Operation.Macro) macro.operation, false, args);
+                case FunctionNode function -> new FunctionNode(engine, (Operation.Function) function.operation, args);
+            };
+        }
+
+        /**
+         * @return flags telling which arguments of the macro are evaluated in a loop frame
+         */
+        private static boolean[] loopArguments(MacroNode macro) {
+            final var loop = new boolean[macro.args.length];
+            final var scope = macro.operation.getClass().getAnnotation(Operation.Scope.class);
+            if (scope != null) {
+                for (final var index : scope.arguments()) {
+                    if (index >= 0 && index < loop.length) {
+                        loop[index] = true;
+                    }
+                }
+            }
+            return loop;
+        }
+    }
+}
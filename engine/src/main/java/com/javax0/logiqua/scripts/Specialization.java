@@ -0,0 +1,32 @@
+package com.javax0.logiqua.scripts;
+
+import com.javax0.logiqua.Operation;
+
+/**
+ * The specialized implementation of a two-argument function for the classes of the arguments seen first at a call.
+ * <p>
+ * The fields are final, so a thread reading a specialization written by another thread without synchronization sees
+ * it complete, see {@link FunctionNode}.
+ */
+record Specialization(Class<?> left, Class<?> right, Operation.Binary binary) {
+
+    /**
+     * The call was evaluated with arguments of other classes, or there was no specialization, use the generic call.
+     */
+    static final Specialization GENERIC = new Specialization(null, null, null);
+
+    /**
+     * @return the specialization of the function for the classes, or {@link #GENERIC} if the function has none
+     */
+    static Specialization of(Operation.Function function, Class<?> left, Class<?> right) {
+        final var binary = function.specialize(left, right);
+        return binary == null ? GENERIC : new Specialization(left, right, binary);
+    }
+
+    /**
+     * @return {@code true} if the specialization is for the classes of the arguments, which are not {@code null}
+     */
+    boolean matches(Object left, Object right) {
+        return this.left == left.getClass() && this.right == right.getClass();
+    }
+}
@@ -0,0 +1,94 @@
+package com.javax0.logiqua.scripts;
+
+import com.javax0.logiqua.Context;
+import com.javax0.logiqua.Executor;
+import com.javax0.logiqua.Operation;
+import com.javax0.logiqua.Path;
+import com.javax0.logiqua.Script;
+
+import java.util.Map;
+
+/**
+ * A variable reference with a constant key, parsed when the script is built.
+ * <p>
+ * The node replaces a call to a {@link Operation.Variable} function, like {@code var}, when the key is a constant
+ * string, and the default value, if any, is also a constant. Evaluating the node looks up the parsed key in the
+ * context directly, without calling the function, converting the key and parsing it again. When the variable is not
+ * found or the lookup fails, the original function call is evaluated, which returns the default value or throws the
+ * exception as it would without the parsed key.
+ */
+public class VariablePathNode implements Script {
+    final FunctionNode original;
+    final Path path;
+
+    private VariablePathNode(FunctionNode original, Path path) {
+        this.original = original;
+        this.path = path;
+    }
+
+    /**
+     * Create a variable node for the function call, if it is a variable reference with a constant key.
+     * <p>
+     * A default value calculated by a script is evaluated by the function call every time, and skipping it could
+     * skip its side effects, therefore only constant default values are accepted.
+     *
+     * @param node the function call node
+     * @return the new variable node, or the original node if it cannot be replaced
+     */
+    public static Script of(FunctionNode node) {
+        if (!node.operation.getClass().isAnnotationPresent(Operation.Variable.class)) {
+            return node;
+        }
+        final var args = node.args;
+        if (args.length < 1 || args.length > 2 || (args.length == 2 && !(args[1] instanceof ConstantValueNode<?>))) {
+            return node;
+        }
+        if (!(args[0] instanceof ConstantValueNode<?> constant) || !(constant.evaluate() instanceof String key)) {
+            return node;
+        }
+        return new VariablePathNode(node, Path.parse(key));
+    }
+
+    @Override
+    public Object evaluate() {
+        return evaluateUsing(original.engine.evaluator());
+    }
+
+    @Override
+    public Object evaluateUsing(Executor executor) {
+        return lookup(executor, path, original);
+    }
+
+    /**
+     * Look up the path in the context of the executor, or evaluate the original call if the lookup does not find the
+     * value. This method is also called from the code generated by the {@link ScriptCompiler}.
+     */
+    static Object lookup(Executor executor, Path path, Script original) {
+        final Context.Value value;
+        try {
+            value = executor.getContext().get(path);
+        } catch (RuntimeException e) {
+            // let the original call decide what to do, it may have a default value or throw a better exception
+            return original.evaluateUsing(executor);
+        }
+        if (value == null) {
+            return original.evaluateUsing(executor);
+        }
+        return value.get();
+    }
+
+    @Override
+    public Object evaluate(Context context) {
+        return evaluateUsing(original.engine.executor(context));
+    }
+
+    @Override
+    public Object evaluate(Map<String, Object> data) {
+        return evaluate(original.engine.contextFor(data));
+    }
+
+    @Override
+    public String jsonify() {
+        return original.jsonify();
+    }
+}
@@ -0,0 +1,670 @@
+package com.javax0.logiqua.scripts;
+
+import com.javax0.logiqua.Executor;
+import com.javax0.logiqua.Operation;
+import com.javax0.logiqua.Script;
+import com.javax0.logiqua.engine.ColumnarContext;
+import com.javax0.logiqua.engine.Engine;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Evaluate a predicate over the rows of a {@link ColumnarContext} column by column.
+ * <p>
+ * The evaluator selects the rows the script is true for. The rows are evaluated in blocks of {@value #BLOCK} rows,
+ * and the parts of the script it can vectorize are evaluated for a whole block in loops over the primitive arrays of
+ * the columns, without boxing the cells. The result of a condition for a block is a bitmap, a bit for each row. The
+ * parts that can be vectorized are
+ * <ul>
+ *     <li>the variable references with a simple key naming a column, and the numeric and string constants,
+ *     <li>the {@link Operation.Intrinsic.Kind#ADD ADD}, {@link Operation.Intrinsic.Kind#SUBTRACT SUBTRACT} and
+ *     {@link Operation.Intrinsic.Kind#MULTIPLY MULTIPLY} functions of two or more {@code long} or of two or more
+ *     {@code double} arguments,
+ *     <li>the comparisons of two {@code long} or two {@code double} arguments, and the equality and the inequality of
+ *     two strings,
+ *     <li>the {@link Operation.Intrinsic.Kind#AND AND} and {@link Operation.Intrinsic.Kind#OR OR} macros, and the
+ *     boolean constants.
+ * </ul>
+ * These are the same cases the {@link ScriptCompiler} compiles to primitive operations, and the results are the same.
+ * Any other condition is evaluated row by row in the context, only for the rows the result depends on: an argument of
+ * an {@code and} only for the rows the arguments before it are true for, an argument of an {@code or} only for the
+ * rows the arguments before it are false for. A string comparison evaluates the rows having a {@code null} cell row by
+ * row as well.
+ * <p>
+ * The rows are evaluated in a different order than evaluating the script row by row, so when more rows would throw an
+ * exception, the exception may come from another row. The steps of the budget of the engine are counted only for the
+ * conditions evaluated row by row.
+ */
+public final class VectorEvaluator {
+    /**
+     * The number of the rows evaluated together, a multiple of 64.
+     */
+    public static final int BLOCK = 1024;
+    private static final int WORDS = BLOCK / 64;
+
+    private static final Test ROOT = new Test("The script evaluated over the columns must return a boolean value.", false);
+    private static final Test AND = new Test("The arguments of the 'and' command must be a boolean expression.", false);
+    private static final Test OR = new Test("The first argument of the 'or' command must be a boolean expression.", true);
+
+    private final Engine engine;
+    private final Script script;
+
+    private VectorEvaluator(Engine engine, Script script) {
+        this.engine = engine;
+        this.script = script;
+    }
+
+    /**
+     * Create an evaluator for the script built by the engine.
+     *
+     * @param engine the engine that built the script
+     * @param script the script, a condition
+     * @return the new evaluator
+     */
+    public static VectorEvaluator of(Engine engine, Script script) {
+        return new VectorEvaluator(engine, script);
+    }
+
+    /**
+     * Select the rows the script is true for.
+     *
+     * @param data the columns
+     * @return the bitmap of the selected rows
+     */
+    public BitSet select(ColumnarContext data) {
+        final var selection = new long[(data.rows() + 63) >>> 6];
+        select(data, selection);
+        return BitSet.valueOf(selection);
+    }
+
+    /**
+     * Select the rows the script is true for into a bitmap supplied by the caller. The bit {@code i % 64} of the
+     * element {@code i / 64} is set if the script is true for the row {@code i}, the same layout as
+     * {@link BitSet#valueOf(long[])}.
+     *
+     * @param data      the columns
+     * @param selection the bitmap, at least one element for each 64 rows
+     * @throws IllegalArgumentException if the bitmap is too short
+     */
+    public void select(ColumnarContext data, long[] selection) {
+        final var rows = data.rows();
+        if (selection.length < (rows + 63) >>> 6) {
+            throw new IllegalArgumentException("The selection has " + selection.length + " elements for " + rows + " rows");
+        }
+        final var root = new Planner(data).predicate(script, ROOT);
+        final var mask = new long[WORDS];
+        final var out = new long[WORDS];
+        for (int from = 0; from < rows; from += BLOCK) {
+            final var n = Math.min(BLOCK, rows - from);
+            Arrays.fill(mask, 0L);
+            Arrays.fill(mask, 0, n >>> 6, -1L);
+            if ((n & 63) != 0) {
+                mask[n >>> 6] = (1L << n) - 1;
+            }
+            root.test(from, n, mask, out);
+            final var words = (n + 63) >>> 6;
+            for (int w = 0; w < words; w++) {
+                selection[(from >>> 6) + w] = out[w] & mask[w];
+            }
+        }
+    }
+
+    /**
+     * Count the conditions that are evaluated row by row, because they cannot be vectorized.
+     *
+     * @param data the columns, the vectorization depends on the types of the columns
+     * @return the number of the conditions evaluated row by row
+     */
+    public int fallbacks(ColumnarContext data) {
+        final var planner = new Planner(data);
+        planner.predicate(script, ROOT);
+        return planner.fallbacks;
+    }
+
+    /**
+     * The conversion of a result to boolean the way the macro using the result does.
+     */
+    private record Test(String message, boolean cast) {
+        boolean test(Executor executor, Object value) {
+            if (value instanceof Boolean bool) {
+                return bool;
+            }
+            return cast ? ScriptCompiler.castToBoolean(executor, value, message) : ScriptCompiler.toBoolean(executor, value, message);
+        }
+    }
+
+    private static Operation.Intrinsic.Kind intrinsic(Operation operation) {
+        final var intrinsic = operation.getClass().getAnnotation(Operation.Intrinsic.class);
+        return intrinsic == null ? null : intrinsic.value();
+    }
+
+    /**
+     * Build the vectorized evaluation of a script for the columns.
+     */
+    private final class Planner {
+        private final ColumnarContext data;
+        private final Executor executor;
+        private int fallbacks;
+
+        private Planner(ColumnarContext data) {
+            this.data = data;
+            this.executor = engine.executor(data);
+        }
+
+        private Predicate predicate(Script script, Test test) {
+            final var node = script instanceof CompiledScript compiled ? compiled.original() : script;
+            if (node instanceof ConstantValueNode<?> constant && constant.evaluate() instanceof Boolean bool) {
+                return new Constant(bool);
+            }
+            if (node instanceof MacroNode macro && macro.args.length > 0) {
+                final var kind = intrinsic(macro.operation);
+                if (kind == Operation.Intrinsic.Kind.AND || kind == Operation.Intrinsic.Kind.OR) {
+                    final var args = new Predicate[macro.args.length];
+                    for (int i = 0; i < args.length; i++) {
+                        args[i] = predicate(macro.args[i], kind == Operation.Intrinsic.Kind.AND ? AND : OR);
+                    }
+                    return kind == Operation.Intrinsic.Kind.AND ? new And(args) : new Or(args);
+                }
+            }
+            if (node instanceof FunctionNode function && function.args.length == 2) {
+                final var kind = intrinsic(function.operation);
+                if (kind != null) {
+                    switch (kind) {
+                        case LESS, LESS_OR_EQUAL, GREATER, GREATER_OR_EQUAL, EQUAL, NOT_EQUAL -> {
+                            final var left = vector(function.args[0]);
+                            final var right = vector(function.args[1]);
+                            if (left instanceof LongVector x && right instanceof LongVector y) {
+                                return new LongComparison(kind, x, y);
+                            }
+                            if (left instanceof DoubleVector x && right instanceof DoubleVector y) {
+                                return new DoubleComparison(kind, x, y);
+                            }
+                            if (left instanceof StringVector x && right instanceof StringVector y && (kind == Operation.Intrinsic.Kind.EQUAL || kind == Operation.Intrinsic.Kind.NOT_EQUAL)) {
+                                return new StringEquality(kind == Operation.Intrinsic.Kind.EQUAL, x, y, new Fallback(data, executor, script, test));
+                            }
+                        }
+                        default -> {
+                        }
+                    }
+                }
+            }
+            fallbacks++;
+            return new Fallback(data, executor, script, test);
+        }
+
+        /**
+         * @return the vector of the values of the script, or {@code null} if it cannot be vectorized
+         */
+        private Vector vector(Script script) {
+            final var node = script instanceof CompiledScript compiled ? compiled.original() : script;
+            return switch (node) {
+                case ConstantValueNode<?> constant -> switch (constant.evaluate()) {
+                    case Long value -> new LongConstant(value);
+                    case Double value -> new DoubleConstant(value);
+                    case String value -> new StringConstant(value);
+                    case null, default -> null;
+                };
+                case VariablePathNode variable when !variable.path.isStructured() -> switch (data.column(variable.path.key())) {
+                    case long[] column -> new LongColumn(column);
+                    case double[] column -> new DoubleColumn(column);
+                    case String[] column -> new StringColumn(column);
+                    case null, default -> null;
+                };
+                case FunctionNode function when function.args.length >= 2 -> arithmetic(function);
+                default -> null;
+            };
+        }
+
+        private Vector arithmetic(FunctionNode function) {
+            final var kind = intrinsic(function.operation);
+            if (kind != Operation.Intrinsic.Kind.ADD && kind != Operation.Intrinsic.Kind.SUBTRACT && kind != Operation.Intrinsic.Kind.MULTIPLY) {
+                return null;
+            }
+            final var args = new Vector[function.args.length];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = vector(function.args[i]);
+            }
+            if (Arrays.stream(args).allMatch(arg -> arg instanceof LongVector)) {
+                return new LongArithmetic(kind, Arrays.copyOf(args, args.length, LongVector[].class));
+            }
+            if (Arrays.stream(args).allMatch(arg -> arg instanceof DoubleVector)) {
+                return new DoubleArithmetic(kind, Arrays.copyOf(args, args.length, DoubleVector[].class));
+            }
+            return null;
+        }
+    }
+
+    /**
+     * A condition evaluated for a block of rows.
+     */
+    private interface Predicate {
+        /**
+         * Evaluate the condition for the rows {@code from} ... {@code from + n - 1}.
+         *
+         * @param mask the bitmap of the rows the result is needed for, not modified
+         * @param out  the bitmap the result is written to, the bits of the rows not in the mask are undefined
+         */
+        void test(int from, int n, long[] mask, long[] out);
+    }
+
+    /**
+     * The values of an expression for a block of rows. The value of the row {@code from + i} is the element
+     * {@code offset(from) + i} of the array.
+     */
+    private sealed interface Vector permits LongVector, DoubleVector, StringVector {
+        int offset(int from);
+    }
+
+    private abstract static sealed class LongVector implements Vector permits LongColumn, LongConstant, LongArithmetic {
+        abstract long[] values(int from, int n);
+    }
+
+    private abstract static sealed class DoubleVector implements Vector permits DoubleColumn, DoubleConstant, DoubleArithmetic {
+        abstract double[] values(int from, int n);
+    }
+
+    private abstract static sealed class StringVector implements Vector permits StringColumn, StringConstant {
+        abstract String[] values(int from, int n);
+    }
+
+    private static final class LongColumn extends LongVector {
+        private final long[] column;
+
+        private LongColumn(long[] column) {
+            this.column = column;
+        }
+
+        @Override
+        long[] values(int from, int n) {
+            return column;
+        }
+
+        @Override
+        public int offset(int from) {
+            return from;
+        }
+    }
+
+    private static final class LongConstant extends LongVector {
+        private final long[] values = new long[BLOCK];
+
+        private LongConstant(long value) {
+            Arrays.fill(values, value);
+        }
+
+        @Override
+        long[] values(int from, int n) {
+            return values;
+        }
+
+        @Override
+        public int offset(int from) {
+            return 0;
+        }
+    }
+
+    private static final class LongArithmetic extends LongVector {
+        private final Operation.Intrinsic.Kind kind;
+        private final LongVector[] args;
+        private final long[] values = new long[BLOCK];
+
+        private LongArithmetic(Operation.Intrinsic.Kind kind, LongVector[] args) {
+            this.kind = kind;
+            this.args = args;
+        }
+
+        @Override
+        long[] values(int from, int n) {
+            final var first = args[0].values(from, n);
+            System.arraycopy(first, args[0].offset(from), values, 0, n);
+            for (int a = 1; a < args.length; a++) {
+                final var x = args[a].values(from, n);
+                final var o = args[a].offset(from);
+                switch (kind) {
+                    case ADD -> {
+                        for (int i = 0; i < n; i++) {
+                            values[i] += x[o + i];
+                        }
+                    }
+                    case SUBTRACT -> {
+                        for (int i = 0; i < n; i++) {
+                            values[i] -= x[o + i];
+                        }
+                    }
+                    default -> {
+                        for (int i = 0; i < n; i++) {
+                            values[i] *= x[o + i];
+                        }
+                    }
+                }
+            }
+            return values;
+        }
+
+        @Override
+        public int offset(int from) {
+            return 0;
+        }
+    }
+
+    private static final class DoubleColumn extends DoubleVector {
+        private final double[] column;
+
+        private DoubleColumn(double[] column) {
+            this.column = column;
+        }
+
+        @Override
+        double[] values(int from, int n) {
+            return column;
+        }
+
+        @Override
+        public int offset(int from) {
+            return from;
+        }
+    }
+
+    private static final class DoubleConstant extends DoubleVector {
+        private final double[] values = new double[BLOCK];
+
+        private DoubleConstant(double value) {
+            Arrays.fill(values, value);
+        }
+
+        @Override
+        double[] values(int from, int n) {
+            return values;
+        }
+
+        @Override
+        public int offset(int from) {
+            return 0;
+        }
+    }
+
+    private static final class DoubleArithmetic extends DoubleVector {
+        private final Operation.Intrinsic.Kind kind;
+        private final DoubleVector[] args;
+        private final double[] values = new double[BLOCK];
+
+        private DoubleArithmetic(Operation.Intrinsic.Kind kind, DoubleVector[] args) {
+            this.kind = kind;
+            this.args = args;
+        }
+
+        @Override
+        double[] values(int from, int n) {
+            final var first = args[0].values(from, n);
+            System.arraycopy(first, args[0].offset(from), values, 0, n);
+            for (int a = 1; a < args.length; a++) {
+                final var x = args[a].values(from, n);
+                final var o = args[a].offset(from);
+                switch (kind) {
+                    case ADD -> {
+                        for (int i = 0; i < n; i++) {
+                            values[i] += x[o + i];
+                        }
+                    }
+                    case SUBTRACT -> {
+                        for (int i = 0; i < n; i++) {
+                            values[i] -= x[o + i];
+                        }
+                    }
+                    default -> {
+                        for (int i = 0; i < n; i++) {
+                            values[i] *= x[o + i];
+                        }
+                    }
+                }
+            }
+            return values;
+        }
+
+        @Override
+        public int offset(int from) {
+            return 0;
+        }
+    }
+
+    private static final class StringColumn extends StringVector {
+        private final String[] column;
+
+        private StringColumn(String[] column) {
+            this.column = column;
+        }
+
+        @Override
+        String[] values(int from, int n) {
+            return column;
+        }
+
+        @Override
+        public int offset(int from) {
+            return from;
+        }
+    }
+
+    private static final class StringConstant extends StringVector {
+        private final String[] values = new String[BLOCK];
+
+        private StringConstant(String value) {
+            Arrays.fill(values, value);
+        }
+
+        @Override
+        String[] values(int from, int n) {
+            return values;
+        }
+
+        @Override
+        public int offset(int from) {
+            return 0;
+        }
+    }
+
+    private record Constant(boolean value) implements Predicate {
+        @Override
+        public void test(int from, int n, long[] mask, long[] out) {
+            Arrays.fill(out, value ? -1L : 0L);
+        }
+    }
+
+    private record LongComparison(Operation.Intrinsic.Kind kind, LongVector left, LongVector right) implements Predicate {
+        @Override
+        public void test(int from, int n, long[] mask, long[] out) {
+            final var x = left.values(from, n);
+            final var ox = left.offset(from);
+            final var y = right.values(from, n);
+            final var oy = right.offset(from);
+            Arrays.fill(out, 0L);
+            switch (kind) {
+                case LESS -> {
+                    for (int i = 0; i < n; i++) {
+                        out[i >>> 6] |= (x[ox + i] < y[oy + i] ? 1L : 0L) << i;
+                    }
+                }
+                case LESS_OR_EQUAL -> {
+                    for (int i = 0; i < n; i++) {
+                        out[i >>> 6] |= (x[ox + i] <= y[oy + i] ? 1L : 0L) << i;
+                    }
+                }
+                case GREATER -> {
+                    for (int i = 0; i < n; i++) {
+                        out[i >>> 6] |= (x[ox + i] > y[oy + i] ? 1L : 0L) << i;
+                    }
+                }
+                case GREATER_OR_EQUAL -> {
+                    for (int i = 0; i < n; i++) {
+                        out[i >>> 6] |= (x[ox + i] >= y[oy + i] ? 1L : 0L) << i;
+                    }
+                }
+                case EQUAL -> {
+                    for (int i = 0; i < n; i++) {
+                        out[i >>> 6] |= (x[ox + i] == y[oy + i] ? 1L : 0L) << i;
+                    }
+                }
+                default -> {
+                    for (int i = 0; i < n; i++) {
+                        out[i >>> 6] |= (x[ox + i] != y[oy + i] ? 1L : 0L) << i;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The comparison of {@code double} values the same as {@link Double#compare(double, double)}, the way the
+     * commands compare {@link Double} values.
+     */
+    private record DoubleComparison(Operation.Intrinsic.Kind kind, DoubleVector left, DoubleVector right) implements Predicate {
+        @Override
+        public void test(int from, int n, long[] mask, long[] out) {
+            final var x = left.values(from, n);
+            final var ox = left.offset(from);
+            final var y = right.values(from, n);
+            final var oy = right.offset(from);
+            Arrays.fill(out, 0L);
+            switch (kind) {
+                case LESS -> {
+                    for (int i = 0; i < n; i++) {
+                        out[i >>> 6] |= (Double.compare(x[ox + i], y[oy + i]) < 0 ? 1L : 0L) << i;
+                    }
+                }
+                case LESS_OR_EQUAL -> {
+                    for (int i = 0; i < n; i++) {
+                        out[i >>> 6] |= (Double.compare(x[ox + i], y[oy + i]) <= 0 ? 1L : 0L) << i;
+                    }
+                }
+                case GREATER -> {
+                    for (int i = 0; i < n; i++) {
+                        out[i >>> 6] |= (Double.compare(x[ox + i], y[oy + i]) > 0 ? 1L : 0L) << i;
+                    }
+                }
+                case GREATER_OR_EQUAL -> {
+                    for (int i = 0; i < n; i++) {
+                        out[i >>> 6] |= (Double.compare(x[ox + i], y[oy + i]) >= 0 ? 1L : 0L) << i;
+                    }
+                }
+                case EQUAL -> {
+                    for (int i = 0; i < n; i++) {
+                        out[i >>> 6] |= (Double.compare(x[ox + i], y[oy + i]) == 0 ? 1L : 0L) << i;
+                    }
+                }
+                default -> {
+                    for (int i = 0; i < n; i++) {
+                        out[i >>> 6] |= (Double.compare(x[ox + i], y[oy + i]) != 0 ? 1L : 0L) << i;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The equality of strings. The rows with a {@code null} cell are evaluated row by row, the commands decide what
+     * {@code null} equals to.
+     */
+    private record StringEquality(boolean equal, StringVector left, StringVector right, Fallback nulls) implements Predicate {
+        @Override
+        public void test(int from, int n, long[] mask, long[] out) {
+            final var x = left.values(from, n);
+            final var ox = left.offset(from);
+            final var y = right.values(from, n);
+            final var oy = right.offset(from);
+            Arrays.fill(out, 0L);
+            for (int i = 0; i < n; i++) {
+                final var s = x[ox + i];
+                final var t = y[oy + i];
+                final boolean result;
+                if (s == null || t == null) {
+                    result = (mask[i >>> 6] & 1L << i) != 0 && nulls.row(from + i);
+                } else {
+                    result = s.equals(t) == equal;
+                }
+                out[i >>> 6] |= (result ? 1L : 0L) << i;
+            }
+        }
+    }
+
+    /**
+     * The conditions all true, evaluating each condition only for the rows all the conditions before it are true for.
+     */
+    private record And(Predicate[] args, long[] selected, long[] result) implements Predicate {
+        private And(Predicate[] args) {
+            this(args, new long[WORDS], new long[WORDS]);
+        }
+
+        @Override
+        public void test(int from, int n, long[] mask, long[] out) {
+            System.arraycopy(mask, 0, selected, 0, WORDS);
+            for (final var arg : args) {
+                arg.test(from, n, selected, result);
+                var any = 0L;
+                for (int w = 0; w < WORDS; w++) {
+                    selected[w] &= result[w];
+                    any |= selected[w];
+                }
+                if (any == 0) {
+                    break;
+                }
+            }
+            System.arraycopy(selected, 0, out, 0, WORDS);
+        }
+    }
+
+    /**
+     * Any of the conditions true, evaluating each condition only for the rows all the conditions before it are false
+     * for.
+     */
+    private record Or(Predicate[] args, long[] remaining, long[] result) implements Predicate {
+        private Or(Predicate[] args) {
+            this(args, new long[WORDS], new long[WORDS]);
+        }
+
+        @Override
+        public void test(int from, int n, long[] mask, long[] out) {
+            System.arraycopy(mask, 0, remaining, 0, WORDS);
+            Arrays.fill(out, 0L);
+            for (final var arg : args) {
+                arg.test(from, n, remaining, result);
+                var any = 0L;
+                for (int w = 0; w < WORDS; w++) {
+                    final var decided = remaining[w] & result[w];
+                    out[w] |= decided;
+                    remaining[w] &= ~decided;
+                    any |= remaining[w];
+                }
+                if (any == 0) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * A condition evaluated row by row in the context.
+     */
+    private record Fallback(ColumnarContext data, Executor executor, Script script, Test test) implements Predicate {
+        @Override
+        public void test(int from, int n, long[] mask, long[] out) {
+            for (int w = 0; w < WORDS; w++) {
+                var bits = mask[w];
+                var result = 0L;
+                while (bits != 0) {
+                    final var bit = Long.numberOfTrailingZeros(bits);
+                    bits &= bits - 1;
+                    if (row(from + (w << 6) + bit)) {
+                        result |= 1L << bit;
+                    }
+                }
+                out[w] = result;
+            }
+        }
+
+        private boolean row(int row) {
+            data.row(row);
+            return test.test(executor, script.evaluateUsing(executor));
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.javax0.logiqua.engine;
+
+import com.javax0.logiqua.Context;
+import com.javax0.logiqua.Executor;
+import com.javax0.logiqua.Named;
+import com.javax0.logiqua.Operation;
+import com.javax0.logiqua.Script;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The operations and the helpers used by several tests of the engine.
+ */
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    /**
+     * A function counting its calls, returning its first argument.
+     */
+    public static abstract class Counting implements Operation.Function {
+        final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public Object evaluate(Executor executor, Object... args) {
+            calls.incrementAndGet();
+            return value(args[0]);
+        }
+
+        Object value(Object arg) {
+            return arg;
+        }
+    }
+
+    @Named.Symbol("seen")
+    public static class Seen extends Counting {
+    }
+
+    @Named.Symbol("counted")
+    @Operation.Pure
+    public static class Counted extends Counting {
+    }
+
+    @Named.Symbol("limit")
+    @Operation.Pure
+    public static class Limit extends Counting {
+        @Override
+        Object value(Object arg) {
+            return ((Number) arg).doubleValue() * 1.1;
+        }
+    }
+
+    /**
+     * A function returning the symbol of the operation the executor knows by the name of its argument.
+     */
+    @Named.Symbol("known")
+    @Operation.Pure
+    public static class Known implements Operation.Function {
+        @Override
+        public Object evaluate(Executor executor, Object... args) {
+            return executor.getOperation((String) args[0]).orElseThrow().symbol();
+        }
+    }
+
+    /**
+     * An executor knowing an operation the engine does not know.
+     */
+    record Extended(Executor executor) implements Executor {
+        @Override
+        public void limit(int size) {
+            executor.limit(size);
+        }
+
+        @Override
+        public int limit() {
+            return executor.limit();
+        }
+
+        @Override
+        public Context getContext() {
+            return executor.getContext();
+        }
+
+        @Override
+        public Optional<Operation> getOperation(String symbol) {
+            return symbol.equals("extension") ? Optional.of(new Limit()) : executor.getOperation(symbol);
+        }
+
+        @Override
+        public void updateOperation(Operation operation) {
+            executor.updateOperation(operation);
+        }
+
+        @Override
+        public void registerOperation(Operation operation) {
+            executor.registerOperation(operation);
+        }
+
+        @Override
+        public void registerOrUpdateOperation(Operation operation) {
+            executor.registerOrUpdateOperation(operation);
+        }
+    }
+
+    static Script var(Engine engine, String name) {
+        return engine.getOp("var").args(name);
+    }
+}
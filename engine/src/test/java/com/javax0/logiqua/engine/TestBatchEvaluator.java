@@ -0,0 +1,81 @@
+package com.javax0.logiqua.engine;
+
+import com.javax0.logiqua.BudgetExceededException;
+import com.javax0.logiqua.Context;
+import com.javax0.logiqua.Script;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class TestBatchEvaluator {
+
+    private static Script script(Engine engine) {
+        return engine.getOp("if").args(
+                engine.getOp(">").args(engine.getOp("var").args("amount"), 100L),
+                engine.getOp("cat").args(engine.getOp("var").args("country"), "-big"),
+                engine.getOp("var").args("country"));
+    }
+
+    private static List<Map<String, Object>> records() {
+        final var records = new ArrayList<Map<String, Object>>();
+        for (long i = 0; i < 50; i++) {
+            records.add(Map.of("amount", i * 5, "country", i % 2 == 0 ? "HU" : "DE"));
+        }
+        return records;
+    }
+
+    @Test
+    @DisplayName("The results are the same as evaluating each record")
+    void testSameResults() {
+        final var engine = Engine.withData(Map.of());
+        final var script = script(engine);
+        final var records = records();
+        final var results = new Object[records.size()];
+        BatchEvaluator.of(engine, script).evaluate(records, results);
+        for (int i = 0; i < records.size(); i++) {
+            Assertions.assertEquals(script.evaluate(records.get(i)), results[i], "record " + i);
+        }
+        Assertions.assertEquals("DE-big", results[21]);
+    }
+
+    @Test
+    @DisplayName("The records can be any indexed proxy, and the records need not be maps")
+    void testIndexedProxy() {
+        final var engine = Engine.withData(Map.of());
+        final var script = engine.getOp("*").args(engine.getOp("var").args(""), 2L);
+        final var proxy = (Context.IndexedProxy) engine.getContext().accessor(new Object[]{1L, 2L, 3L});
+        final var results = new Object[4];
+        BatchEvaluator.of(engine, script).evaluate(proxy, results);
+        Assertions.assertArrayEquals(new Object[]{2L, 4L, 6L, null}, results);
+        final var loop = engine.getOp("map").args(engine.getOp("var").args("numbers"), engine.getOp("+").args(engine.getOp("var").args(""), 1L));
+        final var batch = new Object[2];
+        BatchEvaluator.of(engine, loop).evaluate(List.of(Map.of("numbers", List.of(1L, 2L)), Map.of("numbers", List.of())), batch);
+        Assertions.assertArrayEquals(new Object[]{List.of(2L, 3L), List.of()}, batch);
+    }
+
+    @Test
+    @DisplayName("An error aborts the batch, and each record has its own budget")
+    void testErrorsAndBudget() {
+        final var engine = Engine.withData(Map.of()).budget(6, Duration.ofMinutes(1));
+        final var script = engine.getOp("map").args(engine.getOp("var").args("numbers"), engine.getOp("var").args(""));
+        final var records = List.<Map<String, Object>>of(Map.of("numbers", List.of(1L, 2L)), Map.of("numbers", List.of(3L, 4L, 5L)));
+        final var results = new Object[2];
+        BatchEvaluator.of(engine, script).evaluate(records, results);
+        Assertions.assertArrayEquals(new Object[]{List.of(1L, 2L), List.of(3L, 4L, 5L)}, results);
+        final var tooLong = new ArrayList<>(records);
+        tooLong.add(Map.of("numbers", List.of(1L, 2L, 3L, 4L, 5L, 6L)));
+        final var three = new Object[3];
+        Assertions.assertThrows(BudgetExceededException.class, () -> BatchEvaluator.of(engine, script).evaluate(tooLong, three));
+        Assertions.assertEquals(List.of(3L, 4L, 5L), three[1]);
+        final var missing = new HashMap<String, Object>();
+        missing.put("numbers", "not a list");
+        Assertions.assertThrows(IllegalArgumentException.class, () -> BatchEvaluator.of(engine, script).evaluate(List.of(missing), new Object[1]));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> BatchEvaluator.of(engine, script).evaluate(records, new Object[1]));
+    }
+}
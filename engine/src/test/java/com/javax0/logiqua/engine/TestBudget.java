@@ -0,0 +1,215 @@
+package com.javax0.logiqua.engine;
+
+import com.javax0.logiqua.Budget;
+import com.javax0.logiqua.BudgetExceededException;
+import com.javax0.logiqua.Executor;
+import com.javax0.logiqua.Named;
+import com.javax0.logiqua.Operation;
+import com.javax0.logiqua.Script;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+public class TestBudget {
+
+    @Named.Symbol("sleep")
+    public static class Sleep implements Operation.Function {
+        @Override
+        public Object evaluate(Executor executor, Object... args) {
+            try {
+                Thread.sleep(((Number) args[0]).longValue());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return args[0];
+        }
+    }
+
+    private static final Map<String, Object> DATA = Map.of("numbers", LongStream.range(0, 1000).boxed().toList());
+
+    private static Script sum(Engine engine) {
+        return engine.getOp("reduce").args(engine.getOp("var").args("numbers"),
+                engine.getOp("+").args(engine.getOp("var").args("current"), engine.getOp("var").args("accumulator")), 0L);
+    }
+
+    @Test
+    @DisplayName("An evaluation exceeding the steps of the budget is aborted")
+    void testSteps() {
+        final var engine = Engine.withData(Map.of()).budget(500, Duration.ofMinutes(1));
+        final var script = sum(engine);
+        final var error = Assertions.assertThrows(BudgetExceededException.class, () -> script.evaluate(DATA));
+        Assertions.assertEquals("The evaluation exceeded the budget of 500 steps", error.getMessage());
+        Assertions.assertEquals(499500L, ((Number) script.evaluate(Map.of("numbers", List.of(1000L, 498500L)))).longValue());
+    }
+
+    @Test
+    @DisplayName("The budget of the engine limits the evaluations with the data of the engine")
+    void testEvaluate() {
+        final var steps = Engine.withData(DATA).budget(500, Duration.ofMinutes(1));
+        final var memory = Engine.withData(DATA).memory(10, 1000);
+        final var doubled = memory.getOp("map").args(memory.getOp("var").args("numbers"), memory.getOp("*").args(memory.getOp("var").args(""), 2L));
+        Assertions.assertThrows(BudgetExceededException.class, doubled::evaluate);
+        Assertions.assertThrows(BudgetExceededException.class, sum(steps)::evaluate);
+        Assertions.assertThrows(BudgetExceededException.class, steps.flatten(sum(steps))::evaluate);
+        Assertions.assertEquals(499500L, ((Number) sum(Engine.withData(DATA)).evaluate()).longValue());
+    }
+
+    @Test
+    @DisplayName("The steps are the operation nodes and the loop iterations")
+    void testCount() {
+        final var engine = Engine.withData(Map.of());
+        final var script = sum(engine);
+        final var budget = Budget.of(10_000, Duration.ofMinutes(1));
+        Assertions.assertEquals(499500L, ((Number) script.evaluateUsing(engine.executor(engine.contextFor(DATA), budget))).longValue());
+        // the reduce, and for each number the iteration and the addition, the variable references are not counted
+        final var steps = 1 + 2 * 1000;
+        Assertions.assertEquals(10_000 - steps, budget.remaining());
+    }
+
+    @Test
+    @DisplayName("The budget flows into the loops and the fused and parallel loops")
+    void testLoops() {
+        final var fusing = Engine.withData(Map.of()).fusing(true).budget(1000, Duration.ofMinutes(1));
+        final var parallel = Engine.withData(Map.of()).parallel(10, 2).budget(1000, Duration.ofMinutes(1));
+        for (final var engine : List.of(fusing, parallel)) {
+            final var doubled = engine.getOp("map").args(engine.getOp("var").args("numbers"), engine.getOp("*").args(engine.getOp("var").args(""), 2L));
+            final var script = engine.getOp("filter").args(doubled, engine.getOp(">").args(engine.getOp("var").args(""), 0L));
+            Assertions.assertThrows(BudgetExceededException.class, () -> script.evaluate(DATA));
+            Assertions.assertEquals(List.of(2L, 4L), script.evaluate(Map.of("numbers", List.of(0L, 1L, 2L))));
+        }
+    }
+
+    @Test
+    @DisplayName("An evaluation running after the deadline is aborted")
+    void testDeadline() {
+        final var engine = Engine.withData(Map.of()).budget(Long.MAX_VALUE, Duration.ofMillis(50));
+        engine.registerOperation(new Sleep());
+        final var script = engine.getOp("map").args(engine.getOp("var").args("numbers"), engine.getOp("sleep").args(1L));
+        final var data = Map.<String, Object>of("numbers", LongStream.range(0, 5000).boxed().toList());
+        final var error = Assertions.assertThrows(BudgetExceededException.class, () -> script.evaluate(data));
+        Assertions.assertEquals("The evaluation exceeded the time budget of PT0.05S", error.getMessage());
+    }
+
+    @Test
+    @DisplayName("Without a budget the evaluations are not limited")
+    void testUnlimited() {
+        final var engine = Engine.withData(Map.of());
+        Assertions.assertNull(engine.executor(engine.contextFor(DATA)).budget());
+        Assertions.assertEquals(499500L, ((Number) sum(engine).evaluate(DATA)).longValue());
+    }
+
+    @Test
+    @DisplayName("The budget can be set before the engine is frozen, and it has to be positive")
+    void testSwitch() {
+        final var engine = Engine.withData(Map.of());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> engine.budget(0, Duration.ofSeconds(1)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> engine.budget(1, Duration.ZERO));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Budget.of(1, Duration.ofSeconds(-1)));
+        engine.budget(100, Duration.ofSeconds(1));
+        final var first = engine.executor(engine.contextFor(Map.of())).budget();
+        Assertions.assertEquals(100, first.remaining());
+        Assertions.assertNotSame(first, engine.executor(engine.contextFor(Map.of())).budget());
+        engine.freeze();
+        Assertions.assertThrows(IllegalStateException.class, () -> engine.budget(10, Duration.ofSeconds(1)));
+    }
+
+    @Test
+    @DisplayName("An evaluation creating lists larger than the memory budget is aborted")
+    void testMemory() {
+        final var elements = Engine.withData(Map.of()).memory(1500, Long.MAX_VALUE);
+        final var bytes = Engine.withData(Map.of()).memory(Long.MAX_VALUE, 1500 * Budget.ELEMENT_BYTES);
+        for (final var engine : List.of(elements, bytes)) {
+            final var merged = engine.getOp("map").args(engine.getOp("var").args("numbers"),
+                    engine.getOp("merge").args(engine.getOp("var").args(""), engine.getOp("var").args("")));
+            final var error = Assertions.assertThrows(BudgetExceededException.class, () -> merged.evaluate(DATA));
+            Assertions.assertTrue(error.getMessage().startsWith("The evaluation exceeded the memory budget of "), error.getMessage());
+            final var filtered = engine.getOp("filter").args(engine.getOp("var").args("numbers"), engine.getOp(">").args(engine.getOp("var").args(""), 100L));
+            Assertions.assertEquals(899, ((List<?>) filtered.evaluate(DATA)).size());
+            Assertions.assertThrows(BudgetExceededException.class, () -> engine.getOp("merge").args(merged, filtered).evaluate(DATA));
+        }
+    }
+
+    @Test
+    @DisplayName("The budget reports the steps and the memory an evaluation used")
+    void testUsage() {
+        final var engine = Engine.withData(Map.of());
+        final var script = engine.getOp("map").args(engine.getOp("var").args("numbers"),
+                engine.getOp("it").args(engine.getOp("var").args(""), 1L));
+        final var budget = Budget.unlimited();
+        script.evaluateUsing(engine.executor(engine.contextFor(DATA), budget));
+        // the map and its list, and for each number the iteration and the call of it creating a list of two
+        Assertions.assertEquals(1 + 2 * 1000, budget.steps());
+        Assertions.assertEquals(1000 + 2 * 1000, budget.elements());
+        Assertions.assertEquals(3000L * Budget.ELEMENT_BYTES, budget.bytes());
+    }
+
+    @Test
+    @DisplayName("The parts of a parallel loop count the steps and the elements exactly")
+    void testParallelUsage() {
+        final var counts = new ArrayList<List<Long>>();
+        for (final var engine : List.of(Engine.withData(Map.of()), Engine.withData(Map.of()).parallel(10, 4))) {
+            final var script = engine.getOp("filter").args(engine.getOp("var").args("numbers"), engine.getOp(">").args(engine.getOp("var").args(""), 10L));
+            final var budget = Budget.unlimited();
+            script.evaluateUsing(engine.executor(engine.contextFor(DATA), budget));
+            counts.add(List.of(budget.steps(), budget.elements()));
+        }
+        Assertions.assertEquals(List.of(1L + 2 * 1000, 989L), counts.get(0));
+        Assertions.assertEquals(counts.get(0), counts.get(1));
+    }
+
+    @Test
+    @DisplayName("The parts stepping concurrently use exactly the steps of the budget")
+    void testParts() throws InterruptedException {
+        final var budget = Budget.of(100_000, Duration.ofMinutes(1));
+        final var used = new AtomicLong();
+        final var threads = new ArrayList<Thread>();
+        for (int i = 0; i < 4; i++) {
+            final var part = budget.part();
+            threads.add(Thread.ofPlatform().start(() -> {
+                try {
+                    while (true) {
+                        part.step();
+                        used.incrementAndGet();
+                    }
+                } catch (BudgetExceededException e) {
+                    part.release();
+                }
+            }));
+        }
+        for (final var thread : threads) {
+            thread.join();
+        }
+        Assertions.assertEquals(100_000, used.get());
+        Assertions.assertEquals(0, budget.remaining());
+        final var part = budget.part();
+        Assertions.assertThrows(BudgetExceededException.class, part::step);
+        final var larger = Budget.of(5000, Duration.ofMinutes(1));
+        final var stepping = larger.part();
+        for (int i = 0; i < 10; i++) {
+            stepping.step();
+        }
+        stepping.release();
+        Assertions.assertEquals(10, larger.steps());
+    }
+
+    @Test
+    @DisplayName("The memory budget can be set before the engine is frozen, and it has to be positive")
+    void testMemorySwitch() {
+        final var engine = Engine.withData(Map.of());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> engine.memory(0, 1));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Budget.unlimited().memory(1, -1));
+        engine.memory(10, 1000);
+        final var budget = engine.executor(engine.contextFor(Map.of())).budget();
+        budget.allocate(10);
+        Assertions.assertThrows(BudgetExceededException.class, () -> budget.allocate(1));
+        engine.freeze();
+        Assertions.assertThrows(IllegalStateException.class, () -> engine.memory(10, 1000));
+    }
+}
@@ -0,0 +1,75 @@
+package com.javax0.logiqua.engine;
+
+import com.javax0.logiqua.scripts.FoldedValueNode;
+import com.javax0.logiqua.scripts.FunctionNode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+public class TestConstantFolding {
+
+    @Test
+    @DisplayName("Pure functions with constant arguments are folded into constants")
+    void testFolded() {
+        final var engine = Engine.withData(Map.of());
+        final var product = engine.getOp("*").args(60L, 60L, 24L);
+        Assertions.assertInstanceOf(FoldedValueNode.class, product);
+        Assertions.assertEquals(86400L, product.evaluate());
+        final var cat = engine.getOp("cat").args("a", "b");
+        Assertions.assertInstanceOf(FoldedValueNode.class, cat);
+        Assertions.assertEquals("ab", cat.evaluate(Map.of()));
+        final var in = engine.getOp("in").args("x", List.of("a", "b", "x"));
+        Assertions.assertInstanceOf(FoldedValueNode.class, in);
+        Assertions.assertEquals(true, in.evaluate());
+    }
+
+    @Test
+    @DisplayName("Nested calls are folded bottom up")
+    void testNested() {
+        final var engine = Engine.withData(Map.of());
+        final var script = engine.getOp("<").args(engine.getOp("+").args(engine.getOp("*").args(2L, 3L), 1L), 10L);
+        Assertions.assertInstanceOf(FoldedValueNode.class, script);
+        Assertions.assertEquals(true, script.evaluate());
+    }
+
+    @Test
+    @DisplayName("The folded script has the same JSON as the original")
+    void testJsonify() {
+        final var folding = Engine.withData(Map.of());
+        final var notFolding = Engine.withData(Map.of()).folding(false);
+        Assertions.assertEquals(
+                notFolding.getOp("+").args(notFolding.getOp("*").args(2L, 3L), 1L).jsonify(),
+                folding.getOp("+").args(folding.getOp("*").args(2L, 3L), 1L).jsonify());
+        final var flat = folding.flatten(folding.getOp("+").args(folding.getOp("var").args("a"), folding.getOp("*").args(2L, 3L)));
+        Assertions.assertEquals("{\"+\":[{\"var\":[\"a\"]},{\"*\":[2,3]}]}", flat.jsonify());
+        Assertions.assertEquals(7L, flat.evaluate(Map.of("a", 1L)));
+    }
+
+    @Test
+    @DisplayName("A call throwing an exception is not folded, and throws when evaluated")
+    void testLazyError() {
+        final var engine = Engine.withData(Map.of());
+        final var failing = engine.getOp("substr").args("abc", 5L);
+        Assertions.assertInstanceOf(FunctionNode.class, failing);
+        Assertions.assertThrows(IllegalArgumentException.class, failing::evaluate);
+        final var guarded = engine.getOp("if").args(false, failing, "ok");
+        Assertions.assertEquals("ok", guarded.evaluate());
+    }
+
+    @Test
+    @DisplayName("Impure functions, variables and switched off folding are not folded")
+    void testNotFolded() {
+        final var engine = Engine.withData(Map.of("a", 1L));
+        Assertions.assertInstanceOf(FunctionNode.class, engine.getOp("log").args("x"));
+        Assertions.assertInstanceOf(FunctionNode.class, engine.getOp("+").args(engine.getOp("var").args("a"), 1L));
+        Assertions.assertInstanceOf(FunctionNode.class, engine.getOp("missing").args("a"));
+        final var notFolding = Engine.withData(Map.of()).folding(false);
+        Assertions.assertFalse(notFolding.isFolding());
+        Assertions.assertInstanceOf(FunctionNode.class, notFolding.getOp("+").args(1L, 2L));
+        notFolding.freeze();
+        Assertions.assertThrows(IllegalStateException.class, () -> notFolding.folding(true));
+    }
+}
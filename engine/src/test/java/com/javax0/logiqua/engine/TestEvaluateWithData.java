@@ -0,0 +1,94 @@
+package com.javax0.logiqua.engine;
+
+import com.javax0.logiqua.Executor;
+import com.javax0.logiqua.Script;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+public class TestEvaluateWithData {
+
+    @Test
+    @DisplayName("A script compiled without data can be evaluated against different data")
+    void testEvaluateMap() {
+        final var engine = Engine.withData(Map.of());
+        final var script = engine.getOp("+").args(engine.getOp("var").args("a"), engine.getOp("var").args("b"));
+        Assertions.assertEquals(3L, script.evaluate(Map.of("a", 1L, "b", 2L)));
+        Assertions.assertEquals(30L, script.evaluate(Map.of("a", 10L, "b", 20L)));
+    }
+
+    @Test
+    @DisplayName("The data of the engine is not visible when evaluating against other data")
+    void testEngineDataIsNotVisible() {
+        final var engine = Engine.withData(Map.of("a", "engine"));
+        final var script = engine.getOp("var").args("a", "default");
+        Assertions.assertEquals("engine", script.evaluate());
+        Assertions.assertEquals("default", script.evaluate(Map.of()));
+        Assertions.assertEquals("data", script.evaluate(Map.of("a", "data")));
+    }
+
+    @Test
+    @DisplayName("A script can be evaluated against a context")
+    void testEvaluateContext() {
+        final var engine = Engine.withData(Map.of());
+        final var script = engine.getOp("var").args("b.german");
+        final var context = new MapContext(Map.of("b", Map.of("german", "Willkommen, Welt")));
+        Assertions.assertEquals("Willkommen, Welt", script.evaluate(context));
+    }
+
+    @Test
+    @DisplayName("Macros evaluate their arguments in the loop context against the data")
+    void testMacroInLoop() {
+        final var engine = Engine.withData(Map.of());
+        final var script = engine.getOp("map").args(
+                engine.getOp("var").args("list"),
+                engine.getOp("if").args(
+                        engine.getOp(">").args(engine.getOp("var").args("current"), 1L),
+                        "big",
+                        "small"));
+        Assertions.assertEquals(List.of("small", "big"), script.evaluate(Map.of("list", List.of(1L, 2L))));
+        Assertions.assertEquals(List.of("big"), script.evaluate(Map.of("list", List.of(3L))));
+    }
+
+    /**
+     * A script implemented outside the engine, implementing only the abstract methods.
+     */
+    private static final class External implements Script {
+        @Override
+        public Object evaluate() {
+            return null;
+        }
+
+        @Override
+        public Object evaluateUsing(Executor executor) {
+            return executor.getContext().get("a").get();
+        }
+
+        @Override
+        public Object evaluate(Map<String, Object> data) {
+            return evaluate(new MapContext(data));
+        }
+
+        @Override
+        public String jsonify() {
+            return "{\"external\":[]}";
+        }
+    }
+
+    @Test
+    @DisplayName("A script not built by an engine can be evaluated against a context with the default implementation")
+    void testDefaultEvaluation() {
+        final var script = new External();
+        Assertions.assertEquals("x", script.evaluate(new MapContext(Map.of("a", "x"))));
+        Assertions.assertEquals("y", script.evaluate(Map.of("a", "y")));
+    }
+
+    @Test
+    void testConstant() {
+        final var engine = Engine.withData(Map.of());
+        Assertions.assertEquals("c", engine.constant("c").evaluate(Map.of("a", 1)));
+    }
+}
@@ -0,0 +1,149 @@
+package com.javax0.logiqua.engine;
+
+import com.javax0.logiqua.Executor;
+import com.javax0.logiqua.Named;
+import com.javax0.logiqua.Operation;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TestEvaluationService {
+
+    @Named.Symbol("sleep")
+    public static class Sleep implements Operation.Function {
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+
+        @Override
+        public Object evaluate(Executor executor, Object... args) {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(((Number) args[0]).longValue());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                running.decrementAndGet();
+            }
+            return args[1];
+        }
+    }
+
+    @Test
+    @DisplayName("The outcomes are returned in the order of the jobs, and a failing job does not affect the others")
+    void testOutcomes() {
+        final var engine = Engine.withData(Map.of());
+        final var script = engine.getOp("substr").args(engine.getOp("var").args("s"), 1L);
+        engine.freeze();
+        try (final var service = EvaluationService.of(engine, 4, Duration.ofSeconds(10))) {
+            final var jobs = new ArrayList<EvaluationService.Job>();
+            for (int i = 0; i < 100; i++) {
+                jobs.add(service.job(script, Map.of("s", i == 42 ? "x" : "a" + i)));
+            }
+            final var outcomes = service.evaluate(jobs);
+            Assertions.assertEquals(100, outcomes.size());
+            for (int i = 0; i < 100; i++) {
+                if (i == 42) {
+                    Assertions.assertFalse(outcomes.get(i).isSuccess());
+                    Assertions.assertInstanceOf(IllegalArgumentException.class, outcomes.get(i).error());
+                } else {
+                    Assertions.assertTrue(outcomes.get(i).isSuccess());
+                    Assertions.assertEquals("" + i, outcomes.get(i).value());
+                }
+            }
+            Assertions.assertEquals(List.of(), service.evaluate(List.of()));
+        }
+    }
+
+    @Test
+    @DisplayName("At most the given number of jobs run at the same time, and the slow ones time out")
+    void testConcurrencyAndTimeout() {
+        final var engine = Engine.withData(Map.of());
+        final var sleep = new Sleep();
+        engine.registerOperation(sleep);
+        final var script = engine.getOp("sleep").args(engine.getOp("var").args("ms"), engine.getOp("var").args("id"));
+        engine.freeze();
+        try (final var service = EvaluationService.of(engine, 3, Duration.ofMillis(500))) {
+            final var jobs = new ArrayList<EvaluationService.Job>();
+            for (long i = 0; i < 12; i++) {
+                jobs.add(service.job(script, Map.of("ms", i == 5 ? 2000L : 20L, "id", i)));
+            }
+            final var outcomes = service.evaluate(jobs);
+            Assertions.assertEquals(3, sleep.maxRunning.get());
+            for (int i = 0; i < 12; i++) {
+                if (i == 5) {
+                    Assertions.assertInstanceOf(TimeoutException.class, outcomes.get(i).error());
+                } else {
+                    Assertions.assertEquals((long) i, outcomes.get(i).value());
+                }
+            }
+        }
+    }
+
+    @Named.Symbol("started")
+    public static class Started implements Operation.Function {
+        final List<Object> ids = new CopyOnWriteArrayList<>();
+
+        @Override
+        public Object evaluate(Executor executor, Object... args) {
+            ids.add(args[0]);
+            return args[0];
+        }
+    }
+
+    @Test
+    @DisplayName("The jobs start in the order of the batch, each when a running job has finished")
+    void testStartOrder() {
+        final var engine = Engine.withData(Map.of());
+        final var started = new Started();
+        engine.registerOperation(started);
+        final var script = engine.getOp("started").args(engine.getOp("var").args("id"));
+        engine.freeze();
+        try (final var service = EvaluationService.of(engine, 1, Duration.ofSeconds(10))) {
+            final var jobs = new ArrayList<EvaluationService.Job>();
+            final var ids = new ArrayList<Object>();
+            for (long i = 0; i < 200; i++) {
+                jobs.add(service.job(script, Map.of("id", i)));
+                ids.add(i);
+            }
+            final var outcomes = service.evaluate(jobs);
+            Assertions.assertEquals(ids, started.ids);
+            Assertions.assertEquals(ids, outcomes.stream().map(EvaluationService.Outcome::value).toList());
+        }
+    }
+
+    @Test
+    @DisplayName("The jobs of an interrupted caller not started yet get an interrupted outcome")
+    void testInterrupted() {
+        final var engine = Engine.withData(Map.of());
+        engine.registerOperation(new Sleep());
+        final var script = engine.getOp("sleep").args(engine.getOp("var").args("ms"), engine.getOp("var").args("id"));
+        engine.freeze();
+        try (final var service = EvaluationService.of(engine, 1, Duration.ofSeconds(10))) {
+            final var jobs = List.of(service.job(script, Map.of("ms", 200L, "id", 1L)),
+                    service.job(script, Map.of("ms", 0L, "id", 2L)));
+            Thread.currentThread().interrupt();
+            final var outcomes = service.evaluate(jobs);
+            Assertions.assertTrue(Thread.interrupted());
+            Assertions.assertInstanceOf(InterruptedException.class, outcomes.get(0).error());
+            Assertions.assertInstanceOf(InterruptedException.class, outcomes.get(1).error());
+        }
+    }
+
+    @Test
+    @DisplayName("The service needs a frozen engine and positive limits")
+    void testArguments() {
+        final var engine = Engine.withData(Map.of());
+        Assertions.assertThrows(IllegalStateException.class, () -> EvaluationService.of(engine, 1, Duration.ofSeconds(1)));
+        engine.freeze();
+        Assertions.assertThrows(IllegalArgumentException.class, () -> EvaluationService.of(engine, 0, Duration.ofSeconds(1)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> EvaluationService.of(engine, 1, Duration.ZERO));
+    }
+}
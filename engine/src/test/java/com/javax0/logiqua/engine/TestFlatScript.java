@@ -0,0 +1,109 @@
+package com.javax0.logiqua.engine;
+
+import com.javax0.logiqua.Script;
+import com.javax0.logiqua.scripts.FlatScript;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+public class TestFlatScript {
+
+    private static List<Script> scripts(Engine engine) {
+        final var a = engine.getOp("var").args("a");
+        final var b = engine.getOp("var").args("b");
+        return List.of(
+                engine.getOp("+").args(a, b, 1L),
+                engine.getOp("<").args(engine.getOp("*").args(a, 2L), engine.getOp("-").args(b, a)),
+                engine.getOp("if").args(engine.getOp("==").args(a, b), "same", engine.getOp("cat").args("a=", a)),
+                engine.getOp("and").args(engine.getOp(">").args(a, 0L), engine.getOp("or").args(false, engine.getOp("!=").args(b, 0L))),
+                engine.getOp("map").args(engine.getOp("var").args("items"), engine.getOp("*").args(engine.getOp("var").args("current"), 2L)),
+                engine.getOp("reduce").args(
+                        engine.getOp("filter").args(engine.getOp("var").args("items"), engine.getOp(">").args(engine.getOp("var").args(""), 1L)),
+                        engine.getOp("+").args(engine.getOp("var").args("accumulator"), engine.getOp("var").args("current")),
+                        0L),
+                engine.getOp("var").args("missing", 42L),
+                engine.getOp("map").args(engine.getOp("var").args("orders"),
+                        engine.getOp("+").args(engine.getOp("var").args("current.amount"), engine.getOp("*").args(2L, 3L))),
+                engine.getOp("var").args("missing", engine.getOp("+").args(1L, 2L)),
+                engine.getOp("/").args(a, 0L));
+    }
+
+    @Test
+    @DisplayName("The encoded script gives the same results and the same JSON as the tree")
+    void testSameAsTree() {
+        final var engine = Engine.withData(Map.of());
+        final var data = List.<Map<String, Object>>of(
+                Map.of("a", 1L, "b", 2L, "items", List.of(1L, 2L, 3L), "orders", List.of(Map.of("amount", 5L), Map.of("amount", 1.5))),
+                Map.of("a", 3L, "b", 3L, "items", List.of(), "orders", List.of()),
+                Map.of("a", 2.5, "b", -1L, "items", List.of(5L), "orders", List.of(Map.of())));
+        for (final var script : scripts(engine)) {
+            final var flat = engine.flatten(script);
+            Assertions.assertInstanceOf(FlatScript.class, flat);
+            Assertions.assertEquals(script.jsonify(), flat.jsonify());
+            for (final var map : data) {
+                Assertions.assertEquals(outcome(script, map), outcome(flat, map), script.jsonify() + " " + map);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("The encoded script evaluates against the data of the engine")
+    void testEngineData() {
+        final var engine = Engine.withData(Map.of("a", 4L, "b", 5L, "items", List.of(1L), "orders", List.of(Map.of("amount", 1L))));
+        for (final var script : scripts(engine)) {
+            Assertions.assertEquals(script.evaluate(), engine.flatten(script).evaluate(), script.jsonify());
+        }
+    }
+
+    @Test
+    @DisplayName("The encoded script throws the same exception as the tree")
+    void testErrors() {
+        final var engine = Engine.withData(Map.of());
+        final var script = engine.getOp("if").args(engine.getOp("var").args("a"), 1L, 2L);
+        final var flat = engine.flatten(script);
+        final var expected = Assertions.assertThrows(IllegalArgumentException.class, () -> script.evaluate(Map.of("a", new Object())));
+        final var actual = Assertions.assertThrows(IllegalArgumentException.class, () -> flat.evaluate(Map.of("a", new Object())));
+        Assertions.assertEquals(expected.getMessage(), actual.getMessage());
+    }
+
+    @Test
+    @DisplayName("The calls of two arguments are specialized, and fall back to the generic call for other classes")
+    void testSpecialized() {
+        final var engine = Engine.withData(Map.of());
+        final var generic = Engine.withData(Map.of()).specializing(false);
+        final var values = List.<Object>of(1L, 2L, 2.5, "3", 4L);
+        for (final var symbol : List.of("+", "<", "==", "cat")) {
+            final var flat = engine.flatten(engine.getOp(symbol).args(engine.getOp("var").args("a"), engine.getOp("var").args("b")));
+            final var tree = generic.getOp(symbol).args(generic.getOp("var").args("a"), generic.getOp("var").args("b"));
+            for (final var a : values) {
+                for (final var b : values) {
+                    final var data = Map.of("a", a, "b", b);
+                    Assertions.assertEquals(outcome(tree, data), outcome(flat, data), symbol + " " + data);
+                }
+            }
+        }
+    }
+
+    /**
+     * The result of the script, or the message of the exception it throws.
+     */
+    private static Object outcome(Script script, Map<String, Object> data) {
+        try {
+            return script.evaluate(data);
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+    }
+
+    @Test
+    @DisplayName("An encoded script is not encoded again")
+    void testIdempotent() {
+        final var engine = Engine.withData(Map.of());
+        final var flat = engine.flatten(engine.getOp("+").args(1L, 2L));
+        Assertions.assertSame(flat, engine.flatten(flat));
+        Assertions.assertEquals(3L, flat.evaluate());
+    }
+}
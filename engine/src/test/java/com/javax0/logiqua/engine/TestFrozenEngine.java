@@ -0,0 +1,114 @@
+package com.javax0.logiqua.engine;
+
+import com.javax0.logiqua.Executor;
+import com.javax0.logiqua.Operation;
+import com.javax0.logiqua.Script;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class TestFrozenEngine {
+
+    private static final int THREADS = 64;
+    private static final int ROUNDS = 2_000;
+
+    @Test
+    @DisplayName("A frozen engine does not allow modification")
+    void testFrozenEngineIsImmutable() {
+        final var context = new MapContext(Map.of());
+        final var engine = Engine.withData(context).freeze();
+        Assertions.assertTrue(engine.isFrozen());
+        Assertions.assertTrue(context.isFrozen());
+        final var log = engine.getOperation("log").orElseThrow();
+        Assertions.assertThrows(IllegalStateException.class, () -> engine.updateOperation(log));
+        Assertions.assertThrows(IllegalStateException.class, () -> engine.registerOperation(new Operation.Function() {
+            @Override
+            public String symbol() {
+                return "frozen.test";
+            }
+
+            @Override
+            public Object evaluate(Executor executor, Object... args) {
+                return null;
+            }
+        }));
+        Assertions.assertThrows(IllegalStateException.class, () -> engine.limit(10));
+        final var executor = engine.executor(engine.contextFor(Map.of()));
+        executor.limit(10);
+        Assertions.assertEquals(10, executor.limit());
+        Assertions.assertNotEquals(10, engine.limit());
+        Assertions.assertThrows(IllegalStateException.class, () -> context.registerCaster(String.class, Long.class, Long::parseLong));
+        Assertions.assertThrows(IllegalStateException.class, () -> context.convenience.doJavaIntrospection());
+    }
+
+    @Test
+    @DisplayName("The scripts of a frozen engine can be evaluated concurrently on platform threads")
+    void testConcurrentPlatformThreads() throws Exception {
+        try (final var pool = Executors.newFixedThreadPool(THREADS)) {
+            stress(pool);
+        }
+    }
+
+    @Test
+    @DisplayName("The scripts of a frozen engine can be evaluated concurrently on virtual threads")
+    void testConcurrentVirtualThreads() throws Exception {
+        try (final var pool = Executors.newVirtualThreadPerTaskExecutor()) {
+            stress(pool);
+        }
+    }
+
+    /**
+     * Evaluate the same scripts from many threads, each with its own data, and check that every thread gets the
+     * results for its own data.
+     */
+    private static void stress(ExecutorService pool) throws Exception {
+        final var engine = Engine.withData(Map.of());
+        final var sum = engine.getOp("reduce").args(
+                engine.getOp("var").args("list"),
+                engine.getOp("+").args(engine.getOp("var").args("accumulator"), engine.getOp("var").args("current")),
+                0L);
+        final var big = engine.getOp("filter").args(
+                engine.getOp("var").args("items"),
+                engine.getOp(">").args(engine.getOp("var").args("current.v"), engine.getOp("var").args("limit")));
+        final var label = engine.getOp("if").args(
+                engine.getOp("<").args(engine.getOp("var").args("id"), (long) THREADS / 2),
+                engine.getOp("cat").args("low-", engine.getOp("var").args("id")),
+                engine.getOp("cat").args("high-", engine.getOp("var").args("id")));
+        engine.freeze();
+
+        final var start = new CountDownLatch(1);
+        final var futures = new ArrayList<Future<?>>();
+        for (int t = 0; t < THREADS; t++) {
+            final long id = t;
+            futures.add(pool.submit((Callable<Void>) () -> {
+                start.await();
+                final var list = List.of(id, id + 1, id + 2, id + 3);
+                final var items = list.stream().map(v -> Map.of("v", v)).toList();
+                final Map<String, Object> data = Map.of("id", id, "list", list, "items", items, "limit", id + 1);
+                for (int i = 0; i < ROUNDS; i++) {
+                    Assertions.assertEquals(4 * id + 6, evaluate(sum, data));
+                    Assertions.assertEquals(items.subList(2, 4), evaluate(big, data));
+                    Assertions.assertEquals((id < THREADS / 2 ? "low-" : "high-") + id, evaluate(label, data));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (final var future : futures) {
+            future.get();
+        }
+    }
+
+    private static Object evaluate(Script script, Map<String, Object> data) {
+        return script.evaluate(data);
+    }
+}
@@ -0,0 +1,92 @@
+package com.javax0.logiqua.engine;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+public class TestLoopFrame {
+
+    @Test
+    @DisplayName("Nested loops see their own loop variables")
+    void testNestedLoops() {
+        final var engine = Engine.withData(Map.of("matrix", List.of(List.of(1L, 2L), List.of(3L, 4L))));
+        final var script = engine.getOp("map").args(
+                engine.getOp("var").args("matrix"),
+                engine.getOp("map").args(
+                        engine.getOp("var").args("current"),
+                        engine.getOp("*").args(engine.getOp("var").args("current"), 2L)));
+        Assertions.assertEquals(List.of(List.of(2L, 4L), List.of(6L, 8L)), script.evaluate());
+    }
+
+    @Test
+    @DisplayName("The list of an inner loop is evaluated in the frame of the outer loop")
+    void testInnerListFromOuterFrame() {
+        final var engine = Engine.withData(Map.of("items", List.of(Map.of("tags", List.of(1L, 2L)), Map.of("tags", List.of(3L)))));
+        final var script = engine.getOp("map").args(
+                engine.getOp("var").args("items"),
+                engine.getOp("reduce").args(
+                        engine.getOp("var").args("current.tags"),
+                        engine.getOp("+").args(engine.getOp("var").args("accumulator"), engine.getOp("var").args("current")),
+                        0L));
+        Assertions.assertEquals(List.of(3L, 3L), script.evaluate());
+    }
+
+    @Test
+    @DisplayName("Structured keys, default values and the loop value work in the loop")
+    void testStructuredKeys() {
+        final var engine = Engine.withData(Map.of("limit", 10L, "items", List.of(Map.of("price", 5L), Map.of("price", 15L, "discount", 2L))));
+        final var prices = engine.getOp("map").args(
+                engine.getOp("var").args("items"),
+                engine.getOp("-").args(
+                        engine.getOp("var").args("current.price"),
+                        engine.getOp("var").args("current.discount", 0L)));
+        Assertions.assertEquals(List.of(5L, 13L), prices.evaluate());
+        final var expensive = engine.getOp("filter").args(
+                engine.getOp("var").args("items"),
+                engine.getOp(">").args(engine.getOp("var").args("price"), engine.getOp("var").args("limit")));
+        Assertions.assertEquals(List.of(Map.of("price", 15L, "discount", 2L)), expensive.evaluate());
+        final var missing = engine.getOp("map").args(
+                engine.getOp("var").args("items"),
+                engine.getOp("var").args("current.discount"));
+        Assertions.assertThrows(IllegalArgumentException.class, missing::evaluate);
+    }
+
+    @Test
+    @DisplayName("A loop value having a field with the name of an outer loop variable shadows the outer variable")
+    void testLoopValueShadowsOuterVariable() {
+        final var engine = Engine.withData(Map.of("lists", List.of(List.of(Map.of("accumulator", 7L)))));
+        final var script = engine.getOp("reduce").args(
+                engine.getOp("var").args("lists"),
+                engine.getOp("map").args(
+                        engine.getOp("var").args("current"),
+                        engine.getOp("var").args("accumulator")),
+                0L);
+        Assertions.assertEquals(List.of(7L), script.evaluate());
+    }
+
+    @Test
+    @DisplayName("A script bound to a loop frame can also be evaluated outside of the loop")
+    void testBoundScriptOutsideOfTheLoop() {
+        final var engine = Engine.withData(Map.of("current", 42L, "list", List.of(1L)));
+        final var current = engine.getOp("var").args("current");
+        final var loop = engine.getOp("map").args(engine.getOp("var").args("list"), current);
+        Assertions.assertEquals(List.of(1L), loop.evaluate());
+        Assertions.assertEquals(42L, current.evaluate());
+        Assertions.assertEquals("{\"map\":[{\"var\":[\"list\"]},{\"var\":[\"current\"]}]}", loop.jsonify());
+    }
+
+    @Test
+    @DisplayName("A frame resolves the names the same way as a sprouted context")
+    void testFrameView() {
+        final var context = new MapContext(Map.of("a", 1L));
+        final var frame = context.frame("current", "");
+        frame.set(0, Map.of("b", 2L));
+        frame.set(1, Map.of("b", 2L));
+        Assertions.assertEquals(2L, frame.get("current.b").get());
+        Assertions.assertEquals(2L, frame.get("b").get());
+        Assertions.assertEquals(1L, frame.get("a").get());
+    }
+}
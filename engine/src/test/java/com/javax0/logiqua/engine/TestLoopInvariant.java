@@ -0,0 +1,113 @@
+package com.javax0.logiqua.engine;
+
+import com.javax0.logiqua.Script;
+import com.javax0.logiqua.engine.Fixtures.Extended;
+import com.javax0.logiqua.engine.Fixtures.Known;
+import com.javax0.logiqua.engine.Fixtures.Limit;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+public class TestLoopInvariant {
+
+    private static Script filter(Engine engine) {
+        return engine.getOp("filter").args(engine.getOp("var").args("orders"),
+                engine.getOp(">").args(engine.getOp("var").args("amount"), engine.getOp("limit").args(engine.getOp("var").args("threshold"))));
+    }
+
+    private static Map<String, Object> order(long amount) {
+        return Map.of("amount", amount);
+    }
+
+    @Test
+    @DisplayName("A subexpression not depending on the loop is calculated once per loop")
+    void testHoisted() {
+        final var engine = Engine.withData(Map.of());
+        final var limit = new Limit();
+        engine.registerOperation(limit);
+        final var script = filter(engine);
+        final var data = Map.<String, Object>of("threshold", 100L, "orders", List.of(order(50L), order(120L), order(105L), order(200L)));
+        Assertions.assertEquals(List.of(order(120L), order(200L)), script.evaluate(data));
+        Assertions.assertEquals(1, limit.calls.get());
+        Assertions.assertEquals(List.of(order(120L), order(200L)), script.evaluate(data));
+        Assertions.assertEquals(2, limit.calls.get());
+        Assertions.assertEquals(List.of(), script.evaluate(Map.of("threshold", 100L, "orders", List.of())));
+        Assertions.assertEquals(2, limit.calls.get());
+    }
+
+    @Test
+    @DisplayName("A loop value having the variable is evaluated as usual")
+    void testShadowed() {
+        final var engine = Engine.withData(Map.of());
+        final var limit = new Limit();
+        engine.registerOperation(limit);
+        final var script = filter(engine);
+        final var shadowing = Map.<String, Object>of("amount", 120L, "threshold", 200L);
+        final var data = Map.<String, Object>of("threshold", 100L, "orders", List.of(order(120L), shadowing, order(130L)));
+        Assertions.assertEquals(List.of(order(120L), order(130L)), script.evaluate(data));
+        Assertions.assertEquals(2, limit.calls.get());
+    }
+
+    @Test
+    @DisplayName("A loop whose first value has the variable does not stop the hoisting in the next evaluations")
+    void testShadowedOnce() {
+        final var engine = Engine.withData(Map.of());
+        final var limit = new Limit();
+        engine.registerOperation(limit);
+        final var script = filter(engine);
+        final var shadowing = Map.<String, Object>of("amount", 120L, "threshold", 200L);
+        final var first = Map.<String, Object>of("threshold", 100L, "orders", List.of(shadowing, order(130L), order(140L)));
+        Assertions.assertEquals(List.of(order(130L), order(140L)), script.evaluate(first));
+        Assertions.assertEquals(3, limit.calls.get());
+        limit.calls.set(0);
+        final var data = Map.<String, Object>of("threshold", 100L, "orders", List.of(order(50L), order(120L), order(105L), order(200L)));
+        Assertions.assertEquals(List.of(order(120L), order(200L)), script.evaluate(data));
+        Assertions.assertEquals(1, limit.calls.get());
+    }
+
+    @Test
+    @DisplayName("The invariant is calculated with the executor of the loop")
+    void testExecutor() {
+        final var engine = Engine.withData(Map.of());
+        engine.registerOperation(new Known());
+        final var script = engine.getOp("map").args(engine.getOp("var").args("orders"), engine.getOp("known").args(engine.getOp("var").args("name")));
+        final var data = Map.<String, Object>of("name", "extension", "orders", List.of(order(1L), order(2L)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> script.evaluate(data));
+        Assertions.assertEquals(List.of("limit", "limit"), script.evaluateUsing(new Extended(engine.executor(engine.contextFor(data)))));
+    }
+
+    @Test
+    @DisplayName("The results and the errors are the same as without hoisting")
+    void testSameResults() {
+        final var hoisting = Engine.withData(Map.of());
+        final var notHoisting = Engine.withData(Map.of()).hoisting(false);
+        for (final var engine : List.of(hoisting, notHoisting)) {
+            engine.registerOperation(new Limit());
+        }
+        final var nested = Map.<String, Object>of("threshold", 10L, "groups", List.of(
+                Map.of("threshold", 100L, "orders", List.of(order(50L), order(120L))),
+                Map.of("orders", List.of(order(5L), order(50L)))));
+        final var numbers = Map.<String, Object>of("threshold", 100L, "orders", List.of(1L, 2L));
+        for (final var engine : List.of(hoisting, notHoisting)) {
+            final var script = engine.getOp("map").args(engine.getOp("var").args("groups"),
+                    engine.getOp("filter").args(engine.getOp("var").args("orders"),
+                            engine.getOp(">").args(engine.getOp("var").args("amount"), engine.getOp("limit").args(engine.getOp("var").args("threshold")))));
+            Assertions.assertEquals(List.of(List.of(order(120L)), List.of(order(50L))), script.evaluate(nested));
+            final var error = Assertions.assertThrows(IllegalArgumentException.class, () -> filter(engine).evaluate(numbers));
+            Assertions.assertTrue(error.getMessage().contains("java.lang.Long"), error.getMessage());
+        }
+        Assertions.assertEquals(filter(notHoisting).jsonify(), filter(hoisting).jsonify());
+    }
+
+    @Test
+    @DisplayName("The hoisting can be switched off before the engine is frozen")
+    void testSwitch() {
+        final var engine = Engine.withData(Map.of()).hoisting(false);
+        Assertions.assertFalse(engine.isHoisting());
+        engine.freeze();
+        Assertions.assertThrows(IllegalStateException.class, () -> engine.hoisting(true));
+    }
+}
@@ -0,0 +1,50 @@
+package com.javax0.logiqua.engine;
+
+import com.javax0.logiqua.Executor;
+import com.javax0.logiqua.Operation;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+public class TestOperationCatalog {
+
+    @Test
+    @DisplayName("The engines share the operations loaded once")
+    void testEnginesShareTheCatalog() {
+        final var engine1 = Engine.withData(Map.of());
+        final var engine2 = Engine.withData(Map.of());
+        Assertions.assertSame(engine1.getOperation("+").orElseThrow(), engine2.getOperation("+").orElseThrow());
+        Assertions.assertSame(OperationCatalog.operations(), OperationCatalog.operations());
+    }
+
+    @Test
+    @DisplayName("Updating an operation in one engine does not affect the others")
+    void testCopyOnWrite() {
+        final var engine1 = Engine.withData(Map.of());
+        final var engine2 = Engine.withData(Map.of());
+        final var original = engine2.getOperation("log").orElseThrow();
+        final var replacement = new Operation.Function() {
+            @Override
+            public String symbol() {
+                return "log";
+            }
+
+            @Override
+            public Object evaluate(Executor executor, Object... args) {
+                return "replaced";
+            }
+        };
+        engine1.updateOperation(replacement);
+        Assertions.assertSame(replacement, engine1.getOperation("log").orElseThrow());
+        Assertions.assertSame(original, engine2.getOperation("log").orElseThrow());
+        Assertions.assertSame(original, Engine.withData(Map.of()).getOperation("log").orElseThrow());
+        Assertions.assertEquals("replaced", engine1.getOp("log").args("x").evaluate());
+    }
+
+    @Test
+    void testCatalogIsImmutable() {
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> OperationCatalog.operations().clear());
+    }
+}
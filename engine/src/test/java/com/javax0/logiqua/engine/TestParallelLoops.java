@@ -0,0 +1,212 @@
+package com.javax0.logiqua.engine;
+
+import com.javax0.logiqua.Budget;
+import com.javax0.logiqua.Script;
+import com.javax0.logiqua.engine.Fixtures.Extended;
+import com.javax0.logiqua.engine.Fixtures.Known;
+import com.javax0.logiqua.engine.Fixtures.Seen;
+import com.javax0.logiqua.scripts.ParallelNode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.javax0.logiqua.engine.Fixtures.var;
+
+public class TestParallelLoops {
+
+    private static Engine parallel() {
+        return Engine.withData(Map.of()).parallel(10, 4);
+    }
+
+    private static Map<String, Object> numbers(int size) {
+        final var numbers = new ArrayList<Long>();
+        for (long i = 0; i < size; i++) {
+            numbers.add(i);
+        }
+        return Map.of("numbers", numbers);
+    }
+
+    @Test
+    @DisplayName("The parallel loops give the same results as the sequential ones")
+    void testSameResults() {
+        final var parallel = parallel();
+        final var sequential = Engine.withData(Map.of());
+        for (final var size : List.of(0, 5, 10, 1000, 1003)) {
+            final var data = numbers(size);
+            for (final var engine : List.of(parallel, sequential)) {
+                final var doubled = engine.getOp("map").args(var(engine, "numbers"), engine.getOp("*").args(var(engine, ""), 2L));
+                final var even = engine.getOp("filter").args(var(engine, "numbers"),
+                        engine.getOp("==").args(engine.getOp("%").args(var(engine, ""), 3L), 0L));
+                final var sum = engine.getOp("reduce").args(var(engine, "numbers"),
+                        engine.getOp("+").args(var(engine, "accumulator"), var(engine, "current")), 100L);
+                final var text = engine.getOp("reduce").args(var(engine, "numbers"),
+                        engine.getOp("cat").args(var(engine, "current"), var(engine, "accumulator")), "-");
+                Assertions.assertEquals(engine == parallel, doubled instanceof ParallelNode);
+                Assertions.assertEquals(engine == parallel, text instanceof ParallelNode);
+                Assertions.assertEquals(sequential.getOp("map").args(var(sequential, "numbers"), sequential.getOp("*").args(var(sequential, ""), 2L)).evaluate(data),
+                        doubled.evaluate(data));
+                final var expectedEven = new ArrayList<Long>();
+                final var expectedText = new StringBuilder("-");
+                for (long i = 0; i < size; i++) {
+                    if (i % 3 == 0) {
+                        expectedEven.add(i);
+                    }
+                    expectedText.insert(0, i);
+                }
+                Assertions.assertEquals(expectedEven, even.evaluate(data));
+                Assertions.assertEquals(100L + (long) size * (size - 1) / 2, ((Number) sum.evaluate(data)).longValue());
+                Assertions.assertEquals(expectedText.toString(), text.evaluate(data));
+                for (final var symbol : List.of("some", "all", "none")) {
+                    for (final var limit : List.of(-1L, 7L, 5000L)) {
+                        final var script = engine.getOp(symbol).args(var(engine, "numbers"), engine.getOp(">").args(var(engine, ""), limit));
+                        final var expected = switch (symbol) {
+                            case "some" -> size > 0 && size - 1 > limit;
+                            case "all" -> size == 0 || limit < 0;
+                            default -> size == 0 || size - 1 <= limit;
+                        };
+                        Assertions.assertEquals(expected, script.evaluate(data), symbol + " " + limit + " " + size);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The result of the script, or the message of the exception it throws.
+     */
+    private static Object outcome(Script script, Map<String, Object> data) {
+        try {
+            return script.evaluate(data);
+        } catch (IllegalArgumentException e) {
+            return e.getMessage();
+        }
+    }
+
+    @Test
+    @DisplayName("A reduction associative only for some types gives the same result as the sequential one")
+    void testTypedReduce() {
+        final var parallel = parallel();
+        final var sequential = Engine.withData(Map.of());
+        final var data = numbers(2000);
+        final var mixed = new ArrayList<Object>((List<?>) data.get("numbers"));
+        mixed.set(1500, "x");
+        mixed.set(700, 0.5);
+        for (final var initial : List.<Object>of("x", 0L, 0.25, "")) {
+            for (final var numbers : List.of(data, Map.<String, Object>of("numbers", mixed))) {
+                final var expected = outcome(sequential.getOp("reduce").args(var(sequential, "numbers"),
+                        sequential.getOp("+").args(var(sequential, "accumulator"), var(sequential, "current")), initial), numbers);
+                final var script = parallel.getOp("reduce").args(var(parallel, "numbers"),
+                        parallel.getOp("+").args(var(parallel, "accumulator"), var(parallel, "current")), initial);
+                Assertions.assertInstanceOf(ParallelNode.class, script);
+                Assertions.assertEquals(expected, outcome(script, numbers), "initial " + initial);
+            }
+        }
+        Assertions.assertTrue(((String) parallel.getOp("reduce").args(var(parallel, "numbers"),
+                parallel.getOp("+").args(var(parallel, "accumulator"), var(parallel, "current")), "x").evaluate(data)).startsWith("x0123"));
+    }
+
+    @Test
+    @DisplayName("A reduction that cannot be exact does not reduce the list twice")
+    void testInexactReduce() {
+        final var parallel = parallel();
+        final var sequential = Engine.withData(Map.of());
+        final var amounts = new ArrayList<Double>();
+        for (int i = 0; i < 2000; i++) {
+            amounts.add(i + 0.5);
+        }
+        final var data = Map.<String, Object>of("numbers", amounts);
+        for (final var initial : List.<Object>of(0L, 0.25)) {
+            final var used = new ArrayList<Long>();
+            final var results = new ArrayList<Object>();
+            for (final var engine : List.of(parallel, sequential)) {
+                final var budget = Budget.of(100_000, Duration.ofMinutes(1));
+                final var script = engine.getOp("reduce").args(var(engine, "numbers"),
+                        engine.getOp("+").args(var(engine, "accumulator"), var(engine, "current")), initial);
+                results.add(script.evaluateUsing(engine.executor(engine.contextFor(data), budget)));
+                used.add(100_000 - budget.remaining());
+            }
+            Assertions.assertEquals(results.get(1), results.get(0));
+            // a floating point initial value is not tried in parallel, the parts stop at the first double amount
+            final var tried = initial instanceof Double ? 0 : 10 * 4;
+            Assertions.assertTrue(used.get(0) <= used.get(1) + tried, "initial " + initial + " used " + used);
+        }
+    }
+
+    @Test
+    @DisplayName("Loops with side effects and non-associative reductions stay sequential")
+    void testSequential() {
+        final var engine = parallel();
+        engine.registerOperation(new Seen());
+        Assertions.assertFalse(engine.getOp("map").args(var(engine, "numbers"), engine.getOp("seen").args(var(engine, ""))) instanceof ParallelNode);
+        Assertions.assertFalse(engine.getOp("reduce").args(var(engine, "numbers"),
+                engine.getOp("-").args(var(engine, "accumulator"), var(engine, "current")), 0L) instanceof ParallelNode);
+        Assertions.assertFalse(engine.getOp("reduce").args(var(engine, "numbers"),
+                engine.getOp("+").args(var(engine, "accumulator"), 1L), 0L) instanceof ParallelNode);
+        Assertions.assertInstanceOf(ParallelNode.class, engine.getOp("map").args(var(engine, "groups"),
+                engine.getOp("some").args(var(engine, "items"), engine.getOp(">").args(var(engine, ""), 1L))));
+    }
+
+    @Test
+    @DisplayName("The loop body is evaluated with the executor of the loop")
+    void testExecutor() {
+        final var engine = parallel();
+        engine.registerOperation(new Known());
+        final var script = engine.getOp("map").args(var(engine, "names"), engine.getOp("known").args(var(engine, "")));
+        Assertions.assertInstanceOf(ParallelNode.class, script);
+        final var data = Map.<String, Object>of("names", Collections.nCopies(100, "extension"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> script.evaluate(data));
+        Assertions.assertEquals(Collections.nCopies(100, "limit"),
+                script.evaluateUsing(new Extended(engine.executor(engine.contextFor(data)))));
+    }
+
+    @Test
+    @DisplayName("The first error in the order of the list is thrown")
+    void testErrors() {
+        final var engine = parallel();
+        final var filter = engine.getOp("filter").args(var(engine, "items"), var(engine, ""));
+        final var items = new ArrayList<Object>();
+        for (int i = 0; i < 100; i++) {
+            items.add(i % 2 == 0);
+        }
+        Assertions.assertEquals(50, ((List<?>) filter.evaluate(Map.of("items", items))).size());
+        items.set(70, "seventy");
+        items.set(30, 30L);
+        final var error = Assertions.assertThrows(IllegalArgumentException.class, () -> filter.evaluate(Map.of("items", items)));
+        Assertions.assertEquals("The filter script must return a boolean value.", error.getMessage());
+        final var notList = Assertions.assertThrows(IllegalArgumentException.class, () -> filter.evaluate(Map.of("items", 3L)));
+        Assertions.assertEquals("The first argument of the filter command must be a list.", notList.getMessage());
+        final var noItems = new HashMap<String, Object>();
+        noItems.put("items", null);
+        Assertions.assertEquals(List.of(), engine.getOp("map").args(var(engine, "items"), var(engine, "")).evaluate(noItems));
+        final var some = engine.getOp("some").args(var(engine, "items"), var(engine, ""));
+        Assertions.assertEquals(true, some.evaluate(Map.of("items", items)));
+        items.set(0, 0L);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> some.evaluate(Map.of("items", items)));
+    }
+
+    @Test
+    @DisplayName("The parallel evaluation can be configured before the engine is frozen")
+    void testSwitch() {
+        final var engine = Engine.withData(Map.of());
+        Assertions.assertEquals(1, engine.parallelism());
+        engine.parallel(1000, 8);
+        Assertions.assertEquals(8, engine.parallelism());
+        Assertions.assertEquals(1000, engine.parallelThreshold());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> engine.parallel(0, 8));
+        final var pool = engine.pool();
+        engine.parallel(1000, 1);
+        Assertions.assertNull(engine.pool());
+        engine.parallel(1000, 8);
+        Assertions.assertSame(pool, engine.pool());
+        Assertions.assertSame(pool, Engine.withData(Map.of()).parallel(10, 8).pool());
+        engine.freeze();
+        Assertions.assertThrows(IllegalStateException.class, () -> engine.parallel(1000, 1));
+    }
+}
@@ -0,0 +1,146 @@
+package com.javax0.logiqua.engine;
+
+import com.javax0.logiqua.Script;
+import com.javax0.logiqua.engine.Fixtures.Extended;
+import com.javax0.logiqua.engine.Fixtures.Known;
+import com.javax0.logiqua.engine.Fixtures.Seen;
+import com.javax0.logiqua.scripts.PipelineNode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.javax0.logiqua.engine.Fixtures.var;
+
+public class TestPipelineFusion {
+
+    private static Engine engine(boolean fusing) {
+        final var engine = Engine.withData(Map.of()).fusing(fusing);
+        engine.registerOperation(new Seen());
+        return engine;
+    }
+
+    /**
+     * The sum of the doubled even numbers.
+     */
+    private static Script sum(Engine engine) {
+        final var doubled = engine.getOp("map").args(var(engine, "numbers"), engine.getOp("*").args(var(engine, ""), 2L));
+        final var even = engine.getOp("filter").args(doubled,
+                engine.getOp("==").args(engine.getOp("%").args(var(engine, ""), 4L), 0L));
+        return engine.getOp("reduce").args(even, engine.getOp("+").args(var(engine, "current"), var(engine, "accumulator")), 0L);
+    }
+
+    private static Script consumer(Engine engine, String symbol, long limit) {
+        final var seen = engine.getOp("map").args(var(engine, "numbers"), engine.getOp("seen").args(var(engine, "")));
+        return engine.getOp(symbol).args(seen, engine.getOp(">").args(var(engine, ""), limit));
+    }
+
+    @Test
+    @DisplayName("The fused loop bodies are evaluated with the executor of the chain, as the macros are")
+    void testExecutor() {
+        for (final var fusing : List.of(true, false)) {
+            final var engine = engine(fusing);
+            engine.registerOperation(new Known());
+            final var names = engine.getOp("filter").args(var(engine, "names"), engine.getOp("==").args(var(engine, ""), "extension"));
+            final var script = engine.getOp("map").args(names, engine.getOp("known").args(var(engine, "")));
+            Assertions.assertEquals(fusing, script instanceof PipelineNode);
+            final var data = Map.<String, Object>of("names", List.of("extension", "other", "extension"));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> script.evaluate(data));
+            Assertions.assertEquals(List.of("limit", "limit"),
+                    script.evaluateUsing(new Extended(engine.executor(engine.contextFor(data)))));
+        }
+    }
+
+    @Test
+    @DisplayName("A chain of loop macros gives the same result as without fusion")
+    void testSameResults() {
+        final var fused = engine(true);
+        final var notFused = engine(false);
+        final var data = Map.<String, Object>of("numbers", List.of(1L, 2L, 3L, 4L, 5L, 6L));
+        Assertions.assertInstanceOf(PipelineNode.class, sum(fused));
+        Assertions.assertFalse(sum(notFused) instanceof PipelineNode);
+        Assertions.assertEquals(sum(notFused).evaluate(data), sum(fused).evaluate(data));
+        Assertions.assertEquals(24L, ((Number) sum(fused).evaluate(data)).longValue());
+        for (final var symbol : List.of("some", "all", "none")) {
+            for (final var limit : List.of(0L, 3L, 10L)) {
+                Assertions.assertEquals(consumer(notFused, symbol, limit).evaluate(data), consumer(fused, symbol, limit).evaluate(data), symbol + " " + limit);
+            }
+        }
+        final var mapped = fused.getOp("filter").args(
+                fused.getOp("map").args(var(fused, "numbers"), fused.getOp("*").args(var(fused, ""), 2L)),
+                fused.getOp(">").args(var(fused, ""), 6L));
+        Assertions.assertEquals(List.of(8L, 10L, 12L), mapped.evaluate(data));
+        Assertions.assertEquals(sum(notFused).jsonify(), sum(fused).jsonify());
+    }
+
+    @Test
+    @DisplayName("The short circuit consumers stop the upstream stages")
+    void testShortCircuit() {
+        final var engine = engine(true);
+        final var seen = (Seen) engine.getOperation("seen").orElseThrow();
+        final var data = Map.<String, Object>of("numbers", List.of(1L, 5L, 2L, 7L, 3L));
+        Assertions.assertEquals(true, consumer(engine, "some", 4L).evaluate(data));
+        Assertions.assertEquals(2, seen.calls.get());
+        Assertions.assertEquals(false, consumer(engine, "all", 1L).evaluate(data));
+        Assertions.assertEquals(3, seen.calls.get());
+        Assertions.assertEquals(false, consumer(engine, "none", 6L).evaluate(data));
+        Assertions.assertEquals(7, seen.calls.get());
+    }
+
+    @Test
+    @DisplayName("A missing list and the errors are handled the way the macros do")
+    void testErrors() {
+        for (final var engine : List.of(engine(true), engine(false))) {
+            final var noNumbers = new HashMap<String, Object>();
+            noNumbers.put("numbers", null);
+            Assertions.assertEquals(0L, ((Number) sum(engine).evaluate(noNumbers)).longValue());
+            final var notList = Assertions.assertThrows(IllegalArgumentException.class, () -> sum(engine).evaluate(Map.of("numbers", 3L)));
+            Assertions.assertEquals("The first argument of the map command must be a list.", notList.getMessage());
+            final var filter = engine.getOp("some").args(
+                    engine.getOp("filter").args(var(engine, "numbers"), var(engine, "")),
+                    engine.getOp(">").args(var(engine, ""), 1L));
+            final var notBoolean = Assertions.assertThrows(IllegalArgumentException.class, () -> filter.evaluate(Map.of("numbers", List.of(1L))));
+            Assertions.assertEquals("The filter script must return a boolean value.", notBoolean.getMessage());
+            final var missing = Assertions.assertThrows(IllegalArgumentException.class, () -> filter.evaluate(noNumbers));
+            Assertions.assertEquals("The first argument of the filter command must be a list.", missing.getMessage());
+        }
+    }
+
+    @Test
+    @DisplayName("Nested loops inside the stages see their own frames")
+    void testNested() {
+        final var data = Map.<String, Object>of("limit", 2L, "groups", List.of(
+                Map.of("items", List.of(Map.of("v", 1L), Map.of("v", 2L), Map.of("v", 3L))),
+                Map.of("items", List.of(Map.of("v", 1L))),
+                Map.of("items", List.of(Map.of("v", 4L), Map.of("v", 5L)))));
+        Object expected = null;
+        for (final var engine : List.of(engine(false), engine(true))) {
+            final var counts = engine.getOp("map").args(var(engine, "groups"),
+                    engine.getOp("reduce").args(
+                            engine.getOp("filter").args(var(engine, "items"), engine.getOp(">").args(var(engine, "v"), var(engine, "limit"))),
+                            engine.getOp("+").args(var(engine, "accumulator"), 1L), 0L));
+            final var script = engine.getOp("filter").args(counts, engine.getOp(">").args(var(engine, ""), 0L));
+            final var result = script.evaluate(data);
+            if (expected == null) {
+                expected = result;
+            } else {
+                Assertions.assertEquals(expected, result);
+            }
+        }
+        Assertions.assertEquals(2, ((List<?>) expected).size());
+    }
+
+    @Test
+    @DisplayName("The fusion can be switched on before the engine is frozen")
+    void testSwitch() {
+        final var engine = Engine.withData(Map.of());
+        Assertions.assertFalse(engine.isFusing());
+        engine.fusing(true);
+        Assertions.assertTrue(engine.isFusing());
+        engine.freeze();
+        Assertions.assertThrows(IllegalStateException.class, () -> engine.fusing(false));
+    }
+}
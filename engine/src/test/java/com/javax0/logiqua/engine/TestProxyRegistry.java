@@ -0,0 +1,73 @@
+package com.javax0.logiqua.engine;
+
+import com.javax0.logiqua.Context;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+public class TestProxyRegistry {
+
+    @Test
+    @DisplayName("The proxy found for a class is cached")
+    void testResolutionIsCached() {
+        final var registry = new ProxyRegistry<String>();
+        registry.register(List.class, "list");
+        Assertions.assertEquals("list", registry.getProxy(ArrayList.class));
+        Assertions.assertSame(registry.findProxy(ArrayList.class), registry.findProxy(ArrayList.class));
+        Assertions.assertNull(registry.getProxy(String.class));
+        Assertions.assertTrue(registry.findProxy(String.class).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Registering a proxy invalidates the cached resolutions")
+    void testRegistrationInvalidatesTheCache() {
+        final var registry = new ProxyRegistry<String>();
+        registry.register(List.class, "list");
+        Assertions.assertNull(registry.getProxy(Map.class));
+        Assertions.assertEquals("list", registry.getProxy(ArrayList.class));
+        registry.register(Map.class, "map");
+        Assertions.assertEquals("map", registry.getProxy(Map.class));
+        Assertions.assertEquals("list", registry.getProxy(ArrayList.class));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> registry.register(ArrayList.class, "array list"));
+    }
+
+    @Test
+    @DisplayName("A registration checks the registered proxies without looking up the class")
+    void testRegistrationWithoutLookup() {
+        final var registry = new ProxyRegistry<String>();
+        registry.register(List.class, "list");
+        registry.register(Map.class, "map");
+        final var error = Assertions.assertThrows(IllegalArgumentException.class, () -> registry.register(ArrayList.class, "array list"));
+        Assertions.assertEquals("The class '" + ArrayList.class + "' is already registered as 'list'", error.getMessage());
+        final var copy = registry.copy();
+        copy.register(CharSequence.class, "text");
+        Assertions.assertEquals("text", copy.getProxy(String.class));
+        Assertions.assertEquals("map", copy.getProxy(Map.class));
+        Assertions.assertNull(registry.getProxy(String.class));
+    }
+
+    @Test
+    @DisplayName("Registering a caster invalidates the cached casters")
+    void testCasterRegistrationInvalidatesTheCache() {
+        final var context = new MapContext(Map.of());
+        Assertions.assertTrue(context.caster(StringBuilder.class, Long.class).isEmpty());
+        context.registerCaster(CharSequence.class, Long.class, s -> Long.parseLong(s.toString()));
+        final var caster = context.caster(StringBuilder.class, Long.class).orElseThrow();
+        Assertions.assertEquals(42L, caster.cast(new StringBuilder("42")));
+        Assertions.assertSame(context.caster(StringBuilder.class, Long.class), context.caster(StringBuilder.class, Long.class));
+        Assertions.assertEquals("42", context.caster(StringBuilder.class, String.class).orElseThrow().cast(new StringBuilder("42")));
+    }
+
+    @Test
+    @DisplayName("The casters of a frozen context are still resolved")
+    void testFrozenCasters() {
+        final var context = new MapContext(Map.of());
+        context.freeze();
+        final Context.Caster<Integer, Long> caster = context.caster(Integer.class, Long.class).orElseThrow();
+        Assertions.assertEquals(3L, caster.cast(3));
+    }
+}
@@ -0,0 +1,110 @@
+package com.javax0.logiqua.engine;
+
+import com.javax0.logiqua.Script;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+public class TestRuleSet {
+
+    private static Script score(Engine engine) {
+        return engine.getOp("counted").args(engine.getOp("var").args("customer.score"));
+    }
+
+    @Test
+    @DisplayName("A subexpression appearing in several rules is evaluated once")
+    void testShared() {
+        final var engine = Engine.withData(Map.of());
+        final var counted = new Fixtures.Counted();
+        engine.registerOperation(counted);
+        final var rules = List.of(
+                engine.getOp(">").args(score(engine), 700L),
+                engine.getOp("if").args(engine.getOp(">").args(score(engine), 500L), "silver", "bronze"),
+                engine.getOp("+").args(score(engine), engine.getOp("var").args("bonus")),
+                engine.getOp("var").args("bonus"));
+        final var ruleSet = engine.ruleSet(rules);
+        Assertions.assertEquals(4, ruleSet.size());
+        Assertions.assertEquals(3, ruleSet.shared());
+        final var data = Map.<String, Object>of("customer", Map.of("score", 600L), "bonus", 5L);
+        Assertions.assertEquals(List.of(false, "silver", 605L, 5L), ruleSet.evaluate(data));
+        Assertions.assertEquals(1, counted.calls.get());
+        for (int i = 0; i < rules.size(); i++) {
+            Assertions.assertEquals(rules.get(i).evaluate(data), ruleSet.evaluate(data).get(i));
+        }
+    }
+
+    @Test
+    @DisplayName("A rule set without common subexpressions evaluates the rules one by one")
+    void testNotShared() {
+        final var engine = Engine.withData(Map.of());
+        final var ruleSet = engine.ruleSet(List.of(
+                engine.getOp("var").args("a"),
+                engine.getOp("map").args(engine.getOp("var").args("items"), engine.getOp("var").args("a")),
+                engine.getOp("log").args(engine.getOp("var").args("b"))));
+        Assertions.assertEquals(0, ruleSet.shared());
+        final var data = Map.<String, Object>of("a", 1L, "b", 2L, "items", List.of(Map.of("a", 7L)));
+        Assertions.assertEquals(List.of(1L, List.of(7L), "2"), ruleSet.evaluate(data));
+        Assertions.assertEquals(List.of(), engine.ruleSet(List.of()).evaluate(data));
+    }
+
+    @Test
+    @DisplayName("A rule throwing an exception stops the evaluation of the rule set")
+    void testError() {
+        final var engine = Engine.withData(Map.of());
+        final var ruleSet = engine.ruleSet(List.of(
+                engine.getOp("substr").args(engine.getOp("var").args("s"), 1L),
+                engine.getOp("cat").args(engine.getOp("substr").args(engine.getOp("var").args("s"), 1L), "!")));
+        Assertions.assertEquals(List.of("bc", "bc!"), ruleSet.evaluate(Map.of("s", "abc")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ruleSet.evaluate(Map.of("s", "a")));
+    }
+
+    @Test
+    @DisplayName("Only the rules whose guard may match the data are evaluated")
+    void testIndexed() {
+        final var engine = Engine.withData(Map.of());
+        final var seen = new Fixtures.Seen();
+        engine.registerOperation(seen);
+        final var type = engine.getOp("var").args("event.type");
+        final var amount = engine.getOp("seen").args(engine.getOp("var").args("event.amount"));
+        final var rules = List.of(
+                engine.getOp("and").args(engine.getOp("==").args(type, "PAYMENT"), engine.getOp(">").args(amount, 100L)),
+                engine.getOp("and").args(engine.getOp("==").args("REFUND", type), engine.getOp(">").args(amount, 10L)),
+                engine.getOp("in").args(type, engine.getOp("it").args("PAYMENT", "REFUND")),
+                engine.getOp("and").args(engine.getOp("in").args(type, engine.getOp("it").args("LOGIN", "PAYMENT")), engine.getOp("<").args(amount, 5L)),
+                engine.getOp(">").args(amount, 1L),
+                engine.getOp("and").args(engine.getOp(">").args(amount, 1L), engine.getOp("==").args(type, "LOGIN")));
+        final var ruleSet = engine.ruleSet(rules);
+        Assertions.assertEquals(4, ruleSet.indexed());
+        final var payment = Map.<String, Object>of("event", Map.of("type", "PAYMENT", "amount", 200L));
+        Assertions.assertEquals(List.of(true, false, true, false, true, false), ruleSet.evaluate(payment));
+        Assertions.assertEquals(4, seen.calls.get());
+        final var login = Map.<String, Object>of("event", Map.of("type", "LOGIN", "amount", 3L));
+        Assertions.assertEquals(List.of(false, false, false, true, true, true), ruleSet.evaluate(login));
+        Assertions.assertEquals(7, seen.calls.get());
+        final var other = Map.<String, Object>of("event", Map.of("type", "OTHER", "amount", 3L));
+        Assertions.assertEquals(List.of(false, false, false, false, true, false), ruleSet.evaluate(other));
+        Assertions.assertEquals(9, seen.calls.get());
+        for (final var data : List.of(payment, login, other)) {
+            for (int i = 0; i < rules.size(); i++) {
+                Assertions.assertEquals(rules.get(i).evaluate(data), ruleSet.evaluate(data).get(i));
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("The rules are evaluated when the guard variable is not found")
+    void testNotIndexed() {
+        final var engine = Engine.withData(Map.of());
+        final var type = engine.getOp("var").args("type");
+        final var ruleSet = engine.ruleSet(List.of(
+                engine.getOp("==").args(type, "A"),
+                engine.getOp("==").args(type, 1L),
+                engine.getOp("or").args(engine.getOp("==").args(type, "B"), true)));
+        Assertions.assertEquals(1, ruleSet.indexed());
+        Assertions.assertEquals(List.of(true, false, true), ruleSet.evaluate(Map.of("type", "A")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ruleSet.evaluate(Map.of()));
+    }
+}
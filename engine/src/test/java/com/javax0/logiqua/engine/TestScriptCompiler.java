@@ -0,0 +1,153 @@
+package com.javax0.logiqua.engine;
+
+import com.javax0.logiqua.Executor;
+import com.javax0.logiqua.Named;
+import com.javax0.logiqua.Operation;
+import com.javax0.logiqua.Script;
+import com.javax0.logiqua.scripts.CompiledScript;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+
+public class TestScriptCompiler {
+
+    @Test
+    @DisplayName("The compiled operators give the same results as the interpreter")
+    void testSameResults() {
+        final var engine = Engine.withData(Map.of());
+        final var data = new Object[][]{{1L, 2L}, {2.5, 2.5}, {"a", "b"}, {"a", "a"}, {Long.MAX_VALUE, 1L}, {7L, 0L}, {0.0, 0L},
+                {1L, 2.0}, {-0.0, 0.0}, {Double.NaN, Double.NaN}, {3, 2L}, {BigInteger.TEN, 3L}, {true, false}};
+        for (final var symbol : new String[]{"<", "<=", ">", ">=", "==", "!=", "+", "-", "*", "/", "%"}) {
+            for (final var values : data) {
+                final var map = Map.of("a", values[0], "b", values[1]);
+                final var script = engine.getOp(symbol).args(engine.getOp("var").args("a"), engine.getOp("var").args("b"));
+                final var compiled = engine.compile(script);
+                Assertions.assertInstanceOf(CompiledScript.class, compiled);
+                Assertions.assertEquals(evaluate(script, map), evaluate(compiled, map), symbol + " " + map);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("The compiled arithmetic with many arguments gives the same results as the interpreter")
+    void testManyArguments() {
+        final var engine = Engine.withData(Map.of());
+        for (final var symbol : new String[]{"+", "-", "*", "/", "%"}) {
+            for (final var args : List.of(List.of(7L, 2L, 3L), List.of(7.0, 2.0, 0.5), List.of(7L, 0L, 2L), List.of(7L, 2.0, 3L))) {
+                final var script = engine.getOp(symbol).args(args.toArray());
+                Assertions.assertEquals(evaluate(script, Map.of()), evaluate(engine.compile(script), Map.of()), symbol + " " + args);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("The compiled macros evaluate the arguments the same way as the interpreter")
+    void testMacros() {
+        final var engine = Engine.withData(Map.of());
+        final var a = engine.getOp("var").args("a");
+        final var b = engine.getOp("var").args("b");
+        final var scripts = List.of(
+                engine.getOp("if").args(a, "yes", "no"),
+                engine.getOp("if").args(a, "yes"),
+                engine.getOp("and").args(a, b),
+                engine.getOp("or").args(a, b),
+                engine.getOp("if").args(engine.getOp("<").args(a, 3L), engine.getOp("+").args(a, 1L), engine.getOp("-").args(a, 1L)));
+        final var data = List.<Map<String, Object>>of(
+                Map.of("a", true, "b", false), Map.of("a", false, "b", true), Map.of("a", 1L, "b", 0L),
+                Map.of("a", "", "b", "x"), Map.of("a", 5L, "b", true), Map.of("a", List.of(), "b", List.of(1L)));
+        for (final var script : scripts) {
+            final var compiled = engine.compile(script);
+            for (final var map : data) {
+                Assertions.assertEquals(evaluate(script, map), evaluate(compiled, map), script.jsonify() + " " + map);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("The compiled script throws the same exception as the interpreter")
+    void testErrors() {
+        final var engine = Engine.withData(Map.of());
+        final var script = engine.getOp("if").args(engine.getOp("var").args("a"), 1L, 2L);
+        final var compiled = engine.compile(script);
+        final var expected = Assertions.assertThrows(IllegalArgumentException.class, () -> script.evaluate(Map.of("a", new Object())));
+        final var actual = Assertions.assertThrows(IllegalArgumentException.class, () -> compiled.evaluate(Map.of("a", new Object())));
+        Assertions.assertEquals(expected.getMessage(), actual.getMessage());
+    }
+
+    @Named.Symbol("twice")
+    public static class Twice implements Operation.Function {
+        @Override
+        public Object evaluate(Executor executor, Object... args) {
+            return List.of(args[0], args[0]);
+        }
+    }
+
+    @Test
+    @DisplayName("The compiled script calls the operations that are not compiled inline")
+    void testOtherOperations() {
+        final var engine = Engine.withData(Map.of("items", List.of(1L, 2L, 3L)));
+        engine.registerOperation(new Twice());
+        final var script = engine.getOp("twice").args(engine.getOp("map").args(
+                engine.getOp("var").args("items"),
+                engine.getOp("*").args(engine.getOp("var").args("current"), 4L)));
+        final var compiled = engine.compile(script);
+        Assertions.assertInstanceOf(CompiledScript.class, compiled);
+        Assertions.assertEquals(List.of(List.of(4L, 8L, 12L), List.of(4L, 8L, 12L)), compiled.evaluate());
+        Assertions.assertEquals(script.jsonify(), compiled.jsonify());
+        Assertions.assertSame(script, ((CompiledScript) compiled).original());
+    }
+
+    @Test
+    @DisplayName("Variables are looked up with default values and in the data of the evaluation")
+    void testVariables() {
+        final var engine = Engine.withData(Map.of());
+        final var script = engine.getOp("+").args(engine.getOp("var").args("a.b"), engine.getOp("var").args("c", 10L));
+        final var compiled = engine.compile(script);
+        Assertions.assertEquals(11L, compiled.evaluate(Map.of("a", Map.of("b", 1L))));
+        Assertions.assertEquals(3L, compiled.evaluate(Map.of("a", Map.of("b", 1L), "c", 2L)));
+    }
+
+    @Test
+    @DisplayName("A script too large for a single method is not compiled")
+    void testTooLarge() {
+        final var engine = Engine.withData(Map.of());
+        final var args = new Script[5000];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = engine.getOp("var").args("a");
+        }
+        final var script = engine.getOp("+").args((Object[]) args);
+        final var compiled = engine.compile(script);
+        Assertions.assertSame(script, compiled);
+        Assertions.assertEquals(5000L, compiled.evaluate(Map.of("a", 1L)));
+    }
+
+    @Test
+    @DisplayName("Constants are not compiled")
+    void testConstant() {
+        final var engine = Engine.withData(Map.of());
+        final var script = engine.constant(13L);
+        Assertions.assertSame(script, engine.compile(script));
+    }
+
+    @Test
+    @DisplayName("The compilation can be switched on")
+    void testSwitch() {
+        final var engine = Engine.withData(Map.of());
+        Assertions.assertFalse(engine.isCompiling());
+        engine.compiling(true).freeze();
+        Assertions.assertTrue(engine.isCompiling());
+        Assertions.assertThrows(IllegalStateException.class, () -> engine.compiling(false));
+    }
+
+    private static Object evaluate(Script script, Map<String, Object> data) {
+        try {
+            return script.evaluate(data);
+        } catch (RuntimeException e) {
+            return e.getClass();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.javax0.logiqua.engine;
+
+import com.javax0.logiqua.scripts.ConstantValueNode;
+import com.javax0.logiqua.scripts.FoldedValueNode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+public class TestScriptOptimizer {
+
+    @Test
+    @DisplayName("Constant terms of and are dropped, and the terms after a false constant are dropped")
+    void testAnd() {
+        final var engine = Engine.withData(Map.of());
+        final var report = engine.optimize(engine.getOp("and").args(true, engine.getOp("var").args("a"), true, engine.getOp("var").args("b")));
+        Assertions.assertEquals("{\"and\":[{\"var\":[\"a\"]},{\"var\":[\"b\"]}]}", report.script().jsonify());
+        Assertions.assertEquals(2, report.removed());
+        Assertions.assertEquals(false, report.script().evaluate(Map.of("a", true, "b", false)));
+
+        final var truncated = engine.optimize(engine.getOp("and").args(engine.getOp("var").args("a"), false, engine.getOp("var").args("b"))).script();
+        Assertions.assertEquals("{\"and\":[{\"var\":[\"a\"]},false]}", truncated.jsonify());
+        Assertions.assertEquals(false, truncated.evaluate(Map.of("a", true)));
+        // the first term is still evaluated, and still has to be a boolean
+        Assertions.assertThrows(IllegalArgumentException.class, () -> truncated.evaluate(Map.of("a", List.of())));
+
+        final var constant = engine.optimize(engine.getOp("and").args(true, false, engine.getOp("var").args("a"))).script();
+        Assertions.assertInstanceOf(ConstantValueNode.class, constant);
+        Assertions.assertEquals(false, constant.evaluate());
+    }
+
+    @Test
+    @DisplayName("A single term left keeps the conversion to boolean, unless the term is a boolean")
+    void testSingleTerm() {
+        final var engine = Engine.withData(Map.of());
+        final var single = engine.optimize(engine.getOp("or").args(false, engine.getOp("var").args("a"))).script();
+        Assertions.assertEquals("{\"or\":[{\"var\":[\"a\"]},false]}", single.jsonify());
+        Assertions.assertEquals(true, single.evaluate(Map.of("a", true)));
+        final var comparison = engine.getOp("<").args(engine.getOp("var").args("a"), 1L);
+        Assertions.assertSame(comparison, engine.optimize(engine.getOp("or").args(false, comparison)).script());
+        Assertions.assertEquals(true, engine.optimize(engine.getOp("or").args(false, true)).script().evaluate());
+    }
+
+    @Test
+    @DisplayName("Nested and and or calls are flattened")
+    void testFlatten() {
+        final var engine = Engine.withData(Map.of());
+        final var report = engine.optimize(engine.getOp("and").args(
+                engine.getOp("var").args("a"),
+                engine.getOp("and").args(engine.getOp("var").args("b"), engine.getOp("and").args(true, engine.getOp("var").args("c"))),
+                engine.getOp("or").args(engine.getOp("var").args("d"), engine.getOp("var").args("e"))));
+        Assertions.assertEquals("{\"and\":[{\"var\":[\"a\"]},{\"var\":[\"b\"]},{\"var\":[\"c\"]},{\"or\":[{\"var\":[\"d\"]},{\"var\":[\"e\"]}]}]}",
+                report.script().jsonify());
+        Assertions.assertEquals(3, report.removed());
+        Assertions.assertEquals(true, report.script().evaluate(Map.of("a", true, "b", true, "c", true, "d", false, "e", true)));
+    }
+
+    @Test
+    @DisplayName("Unreachable branches of if are removed")
+    void testIf() {
+        final var engine = Engine.withData(Map.of());
+        final var a = engine.getOp("var").args("a");
+        Assertions.assertSame(a, engine.optimize(engine.getOp("if").args(true, a, engine.getOp("var").args("b"))).script());
+        Assertions.assertSame(a, engine.optimize(engine.getOp("?:").args(false, engine.getOp("var").args("b"), a)).script());
+        final var missing = engine.optimize(engine.getOp("if").args(false, a)).script();
+        Assertions.assertInstanceOf(ConstantValueNode.class, missing);
+        Assertions.assertNull(missing.evaluate());
+        final var kept = engine.getOp("if").args(engine.getOp("var").args("c"), 1L, 2L);
+        final var report = engine.optimize(kept);
+        Assertions.assertSame(kept, report.script());
+        Assertions.assertEquals(0, report.removed());
+    }
+
+    @Test
+    @DisplayName("Double negation of a boolean is removed, and negation of a constant is calculated")
+    void testNot() {
+        final var engine = Engine.withData(Map.of());
+        final var comparison = engine.getOp("<").args(engine.getOp("var").args("a"), 1L);
+        Assertions.assertSame(comparison, engine.optimize(engine.getOp("!").args(engine.getOp("!").args(comparison))).script());
+        final var triple = engine.optimize(engine.getOp("!").args(engine.getOp("!").args(engine.getOp("!").args(engine.getOp("var").args("a"))))).script();
+        Assertions.assertEquals("{\"!\":[{\"var\":[\"a\"]}]}", triple.jsonify());
+        // the double negation of a value that is not a boolean converts it, it is kept
+        final var converting = engine.getOp("!").args(engine.getOp("!").args(engine.getOp("var").args("a")));
+        Assertions.assertSame(converting, engine.optimize(converting).script());
+    }
+
+    @Test
+    @DisplayName("Calls whose arguments become constants are folded")
+    void testRefold() {
+        final var engine = Engine.withData(Map.of());
+        final var script = engine.optimize(engine.getOp("+").args(engine.getOp("if").args(true, 1L, engine.getOp("var").args("a")), 3L)).script();
+        Assertions.assertInstanceOf(FoldedValueNode.class, script);
+        Assertions.assertEquals(4L, script.evaluate());
+    }
+
+    @Test
+    @DisplayName("Loop variables in the optimized arguments stay bound to the frame")
+    void testLoop() {
+        final var engine = Engine.withData(Map.of("items", List.of(1L, 2L, 3L)));
+        final var script = engine.optimize(engine.getOp("map").args(engine.getOp("var").args("items"),
+                engine.getOp("if").args(true, engine.getOp("*").args(engine.getOp("var").args(""), 2L), 0L))).script();
+        Assertions.assertEquals(List.of(2L, 4L, 6L), script.evaluate());
+    }
+}
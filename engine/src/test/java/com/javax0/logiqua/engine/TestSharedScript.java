@@ -0,0 +1,79 @@
+package com.javax0.logiqua.engine;
+
+import com.javax0.logiqua.engine.Fixtures.Counted;
+import com.javax0.logiqua.scripts.SharedScript;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+public class TestSharedScript {
+
+    @Test
+    @DisplayName("A repeated subexpression is evaluated once per evaluation")
+    void testShared() {
+        final var engine = Engine.withData(Map.of());
+        final var counted = new Counted();
+        engine.registerOperation(counted);
+        final var score = engine.getOp("counted").args(engine.getOp("var").args("customer.score"));
+        final var script = engine.getOp("if").args(
+                engine.getOp(">").args(score, 700L), "gold",
+                engine.getOp("if").args(engine.getOp(">").args(engine.getOp("counted").args(engine.getOp("var").args("customer.score")), 500L),
+                        "silver", "bronze"));
+        final var shared = engine.share(script);
+        Assertions.assertInstanceOf(SharedScript.class, shared);
+        Assertions.assertEquals(2, ((SharedScript) shared).shared());
+        Assertions.assertEquals("silver", shared.evaluate(Map.of("customer", Map.of("score", 600L))));
+        Assertions.assertEquals(1, counted.calls.get());
+        Assertions.assertEquals("bronze", shared.evaluate(Map.of("customer", Map.of("score", 100L))));
+        Assertions.assertEquals(2, counted.calls.get());
+        Assertions.assertEquals("silver", script.evaluate(Map.of("customer", Map.of("score", 600L))));
+        Assertions.assertEquals(4, counted.calls.get());
+        Assertions.assertEquals(script.jsonify(), shared.jsonify());
+    }
+
+    @Test
+    @DisplayName("Subexpressions with different constants or impure functions are not shared")
+    void testNotShared() {
+        final var engine = Engine.withData(Map.of());
+        final var script = engine.getOp("cat").args(
+                engine.getOp("+").args(engine.getOp("var").args("a"), 1L),
+                engine.getOp("+").args(engine.getOp("var").args("a"), 1.0),
+                engine.getOp("log").args(engine.getOp("var").args("b")),
+                engine.getOp("log").args(engine.getOp("var").args("c")));
+        final var shared = engine.share(script);
+        Assertions.assertEquals(1, ((SharedScript) shared).shared());
+        final var data = Map.<String, Object>of("a", 1L, "b", 0L, "c", 0L);
+        Assertions.assertEquals(script.evaluate(data), shared.evaluate(data));
+        final var single = engine.getOp("+").args(engine.getOp("var").args("a"), 1L);
+        Assertions.assertSame(single, engine.share(single));
+    }
+
+    @Test
+    @DisplayName("The bodies of the loops are not shared with the subexpressions outside of the loop")
+    void testLoop() {
+        final var engine = Engine.withData(Map.of());
+        final var script = engine.getOp("cat").args(
+                engine.getOp("var").args("x"),
+                engine.getOp("map").args(engine.getOp("var").args("items"), engine.getOp("var").args("x")),
+                engine.getOp("var").args("x"));
+        final var shared = engine.share(script);
+        Assertions.assertEquals(1, ((SharedScript) shared).shared());
+        final var data = Map.<String, Object>of("x", "-", "items", List.of(Map.of("x", "a"), Map.of("x", "b")));
+        Assertions.assertEquals(script.evaluate(data), shared.evaluate(data));
+    }
+
+    @Test
+    @DisplayName("A shared subexpression throws at the first occurrence evaluated")
+    void testError() {
+        final var engine = Engine.withData(Map.of());
+        final var length = engine.getOp("substr").args(engine.getOp("var").args("s"), 1L);
+        final var script = engine.getOp("if").args(engine.getOp("var").args("guard"), length, engine.getOp("cat").args(length, "!"));
+        final var shared = engine.share(script);
+        Assertions.assertEquals("bc!", shared.evaluate(Map.of("guard", false, "s", "abc")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> shared.evaluate(Map.of("guard", false, "s", "a")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> shared.evaluate(Map.of("guard", true, "s", "a")));
+    }
+}
@@ -0,0 +1,79 @@
+package com.javax0.logiqua.engine;
+
+import com.javax0.logiqua.Script;
+import com.javax0.logiqua.scripts.FunctionNode;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+public class TestSpecialization {
+
+    @Test
+    @DisplayName("A function call is specialized for the classes of the arguments seen first")
+    void testSpecialized() {
+        final var engine = Engine.withData(Map.of());
+        final var less = (FunctionNode) engine.getOp("<").args(engine.getOp("var").args("a"), engine.getOp("var").args("b"));
+        Assertions.assertFalse(less.isSpecialized());
+        Assertions.assertEquals(true, less.evaluate(Map.of("a", 1L, "b", 2L)));
+        Assertions.assertTrue(less.isSpecialized());
+        Assertions.assertEquals(false, less.evaluate(Map.of("a", 3L, "b", 2L)));
+        Assertions.assertTrue(less.isSpecialized());
+    }
+
+    @Test
+    @DisplayName("A specialized function call falls back to the generic call when other classes show up")
+    void testFallBack() {
+        final var engine = Engine.withData(Map.of());
+        final var plus = (FunctionNode) engine.getOp("+").args(engine.getOp("var").args("a"), engine.getOp("var").args("b"));
+        Assertions.assertEquals(3.0, plus.evaluate(Map.of("a", 1.0, "b", 2.0)));
+        Assertions.assertTrue(plus.isSpecialized());
+        Assertions.assertEquals(3L, plus.evaluate(Map.of("a", 1L, "b", 2)));
+        Assertions.assertFalse(plus.isSpecialized());
+        Assertions.assertEquals(3.0, plus.evaluate(Map.of("a", 1.0, "b", 2.0)));
+        Assertions.assertEquals("ab", plus.evaluate(Map.of("a", "a", "b", "b")));
+    }
+
+    @Test
+    @DisplayName("The specialized call gives the same results as the generic one")
+    void testSameResults() {
+        final var engine = Engine.withData(Map.of());
+        final var generic = Engine.withData(Map.of()).specializing(false);
+        final var data = new Object[][]{{1L, 2L}, {2.5, 2.5}, {"a", "b"}, {Long.MAX_VALUE, 1L}, {7L, 0L}, {1L, 2.0}, {-0.0, 0.0}};
+        for (final var symbol : new String[]{"<", "<=", ">", ">=", "==", "!=", "+", "-", "*", "/", "%"}) {
+            for (final var values : data) {
+                final var map = Map.of("a", values[0], "b", values[1]);
+                final var expected = evaluate(generic, symbol, map);
+                // the first evaluation specializes the node, the second uses the specialization
+                final var script = engine.getOp(symbol).args(engine.getOp("var").args("a"), engine.getOp("var").args("b"));
+                Assertions.assertEquals(expected, evaluate(script, map), symbol + " " + map);
+                Assertions.assertEquals(expected, evaluate(script, map), symbol + " " + map);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("The specialization can be switched off")
+    void testSwitchedOff() {
+        final var engine = Engine.withData(Map.of()).specializing(false);
+        Assertions.assertFalse(engine.isSpecializing());
+        final var less = (FunctionNode) engine.getOp("<").args(engine.getOp("var").args("a"), engine.getOp("var").args("b"));
+        Assertions.assertEquals(true, less.evaluate(Map.of("a", 1L, "b", 2L)));
+        Assertions.assertFalse(less.isSpecialized());
+        engine.freeze();
+        Assertions.assertThrows(IllegalStateException.class, () -> engine.specializing(true));
+    }
+
+    private static Object evaluate(Engine engine, String symbol, Map<String, Object> data) {
+        return evaluate(engine.getOp(symbol).args(engine.getOp("var").args("a"), engine.getOp("var").args("b")), data);
+    }
+
+    private static Object evaluate(Script script, Map<String, Object> data) {
+        try {
+            return script.evaluate(data);
+        } catch (RuntimeException e) {
+            return e.getClass();
+        }
+    }
+}
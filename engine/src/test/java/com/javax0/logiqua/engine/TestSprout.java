@@ -0,0 +1,75 @@
+package com.javax0.logiqua.engine;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+public class TestSprout {
+
+    public static class Item {
+        public final long price;
+
+        Item(long price) {
+            this.price = price;
+        }
+    }
+
+    @Test
+    @DisplayName("A sprouted context sees the casters registered in the parent")
+    void testSproutSharesCasters() {
+        final var parent = new MapContext(Map.of());
+        final var child = (MapContext) parent.sprout(Map.of());
+        Assertions.assertFalse(child.hasCaster(String.class, Long.class));
+        parent.registerCaster(String.class, Long.class, Long::parseLong);
+        Assertions.assertTrue(child.hasCaster(String.class, Long.class));
+        Assertions.assertTrue(child.hasCaster(Integer.class, Long.class));
+    }
+
+    @Test
+    @DisplayName("Registering in a sprouted context does not change the parent")
+    void testSproutCopiesOnWrite() {
+        final var parent = new MapContext(Map.of());
+        final var child = (MapContext) parent.sprout(Map.of("item", new Item(13L)));
+        child.registerCaster(String.class, Long.class, Long::parseLong);
+        child.convenience.doJavaIntrospection();
+        Assertions.assertTrue(child.hasCaster(String.class, Long.class));
+        Assertions.assertTrue(child.hasCaster(Integer.class, Long.class));
+        Assertions.assertFalse(parent.hasCaster(String.class, Long.class));
+        parent.registerCaster(String.class, Integer.class, Integer::parseInt);
+        Assertions.assertFalse(child.hasCaster(String.class, Integer.class));
+        final var frozen = new MapContext(Map.of());
+        frozen.freeze();
+        final var sprouted = (MapContext) frozen.sprout(Map.of());
+        Assertions.assertFalse(sprouted.isFrozen());
+        sprouted.registerCaster(String.class, Long.class, Long::parseLong);
+        Assertions.assertFalse(frozen.hasCaster(String.class, Long.class));
+        final var open = new MapContext(Map.of());
+        ((MapContext) open.sprout(Map.of())).freeze();
+        Assertions.assertFalse(open.isFrozen());
+        open.registerCaster(String.class, Long.class, Long::parseLong);
+    }
+
+    @Test
+    @DisplayName("A sprouted context uses the proxies registered in the parent")
+    void testSproutSharesProxies() {
+        final var parent = new MapContext(Map.of());
+        parent.convenience.doJavaIntrospection();
+        final var child = parent.sprout(Map.of("item", new Item(13L)));
+        Assertions.assertEquals(13L, child.get("item.price").get());
+    }
+
+    @Test
+    @DisplayName("Loops can access the fields of Java objects through the parent proxies")
+    void testLoopOverJavaObjects() {
+        final var context = new MapContext(Map.of("items", List.of(new Item(5L), new Item(15L), new Item(25L))));
+        context.convenience.doJavaIntrospection();
+        final var engine = Engine.withData(context);
+        final var script = engine.getOp("map").args(
+                engine.getOp("var").args("items"),
+                engine.getOp("var").args("current.price"));
+        Assertions.assertEquals(List.of(5L, 15L, 25L), script.evaluate());
+    }
+}
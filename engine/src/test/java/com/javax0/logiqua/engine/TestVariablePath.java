@@ -0,0 +1,104 @@
+package com.javax0.logiqua.engine;
+
+import com.javax0.logiqua.Path;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+public class TestVariablePath {
+
+    private static final Map<String, Object> ORDER = Map.of("order", Map.of(
+            "items", List.of(Map.of("price", 10L), Map.of("price", 20L)),
+            "codes", new String[]{"A", "B"}));
+
+    @Test
+    @DisplayName("The cache of the paths keeps the recently used keys and drops the others")
+    void testPathCache() throws InterruptedException {
+        final var hot = Path.of("hot.key");
+        final var cold = Path.of("cold.key");
+        for (int i = 0; i < 10_000; i++) {
+            Path.of("key" + i);
+            Assertions.assertSame(hot, Path.of("hot.key"));
+        }
+        Assertions.assertNotSame(cold, Path.of("cold.key"));
+        final var threads = new Thread[8];
+        final var paths = new Path[threads.length];
+        for (int t = 0; t < threads.length; t++) {
+            final var n = t;
+            threads[t] = Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    Path.of("thread" + n + "." + i);
+                    paths[n] = Path.of("hot.key");
+                }
+            });
+        }
+        for (final var thread : threads) {
+            thread.join();
+        }
+        for (final var path : paths) {
+            Assertions.assertSame(hot, path);
+        }
+    }
+
+    @Test
+    @DisplayName("The structured key is split and the indexes are parsed")
+    void testParse() {
+        final var path = Path.parse(" order.items [1] .price ");
+        Assertions.assertTrue(path.isStructured());
+        Assertions.assertEquals(4, path.size());
+        Assertions.assertEquals("order", path.part(0));
+        Assertions.assertEquals("1", path.part(2));
+        Assertions.assertEquals(1, path.index(2));
+        Assertions.assertEquals(Path.NOT_INDEX, path.index(3));
+        Assertions.assertEquals("1.price", path.tail().tail().key());
+        final var simple = Path.parse("order");
+        Assertions.assertFalse(simple.isStructured());
+        Assertions.assertEquals(1, simple.size());
+        Assertions.assertSame(Path.of("a.b"), Path.of("a.b"));
+    }
+
+    @Test
+    @DisplayName("The parsed key finds the same value as the key")
+    void testPathLookup() {
+        final var context = new MapContext(ORDER);
+        for (final var key : List.of("order.items[0].price", "order.items.1.price", "order.codes[1]", "order", "")) {
+            Assertions.assertEquals(context.get(key), context.get(Path.parse(key)), key);
+        }
+        Assertions.assertNull(context.get(Path.parse("order.missing")));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> context.get(Path.parse("order.items[2]")));
+    }
+
+    @Test
+    @DisplayName("A var with a constant key is evaluated using the parsed key")
+    void testConstantKey() {
+        final var engine = Engine.withData(ORDER);
+        Assertions.assertEquals(20L, engine.getOp("var").args("order.items[1].price").evaluate());
+        Assertions.assertEquals("B", engine.getOp("var").args("order.codes[1]").evaluate());
+        Assertions.assertEquals(0L, engine.getOp("var").args("order.discount", 0L).evaluate());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> engine.getOp("var").args("order.discount").evaluate());
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> engine.getOp("var").args("order.items[2]").evaluate());
+        Assertions.assertEquals("{\"var\":[\"order.codes[1]\"]}", engine.getOp("var").args("order.codes[1]").jsonify());
+    }
+
+    @Test
+    @DisplayName("A var with a calculated key or default value is evaluated by the function")
+    void testDynamicKey() {
+        final var engine = Engine.withData(ORDER);
+        final var key = engine.getOp("cat").args("order.items[", 0L, "].price");
+        Assertions.assertEquals(10L, engine.getOp("var").args(key).evaluate());
+        final var defaultValue = engine.getOp("+").args(1L, 2L);
+        Assertions.assertEquals(3L, engine.getOp("var").args("order.discount", defaultValue).evaluate());
+    }
+
+    @Test
+    @DisplayName("A compiled var can be evaluated against different data")
+    void testConstantKeyWithData() {
+        final var engine = Engine.withData(Map.of());
+        final var script = engine.getOp("var").args("order.items[0].price");
+        Assertions.assertEquals(10L, script.evaluate(ORDER));
+        Assertions.assertEquals(5L, script.evaluate(Map.of("order", Map.of("items", List.of(Map.of("price", 5L))))));
+    }
+}
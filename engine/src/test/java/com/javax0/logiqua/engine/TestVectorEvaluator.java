@@ -0,0 +1,144 @@
+package com.javax0.logiqua.engine;
+
+import com.javax0.logiqua.Script;
+import com.javax0.logiqua.engine.Fixtures.Seen;
+import com.javax0.logiqua.scripts.VectorEvaluator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.LongStream;
+
+import static com.javax0.logiqua.engine.Fixtures.var;
+
+public class TestVectorEvaluator {
+    private static final int ROWS = 2500;
+
+    private final long[] amounts = new long[ROWS];
+    private final double[] prices = new double[ROWS];
+    private final String[] statuses = new String[ROWS];
+
+    {
+        final var random = new Random(42);
+        final var special = new double[]{Double.NaN, -0.0, 0.0, 1.5};
+        for (int i = 0; i < ROWS; i++) {
+            amounts[i] = random.nextInt(300) - 50;
+            prices[i] = random.nextInt(10) == 0 ? special[random.nextInt(special.length)] : random.nextInt(100) / 4.0;
+            statuses[i] = switch (random.nextInt(5)) {
+                case 0 -> "";
+                case 1, 2 -> "OK";
+                default -> "FAILED";
+            };
+        }
+    }
+
+    private ColumnarContext columns(Engine engine) {
+        return ColumnarContext.of(engine, ROWS).column("amount", amounts).column("price", prices).column("status", statuses);
+    }
+
+    /**
+     * The rows the script is true for, evaluating the script for each row.
+     */
+    private BitSet rowByRow(Script script) {
+        final var expected = new BitSet();
+        for (int i = 0; i < ROWS; i++) {
+            final var record = new HashMap<String, Object>();
+            record.put("amount", amounts[i]);
+            record.put("price", prices[i]);
+            record.put("status", statuses[i]);
+            if (Boolean.TRUE.equals(script.evaluate(record))) {
+                expected.set(i);
+            }
+        }
+        return expected;
+    }
+
+    @Test
+    @DisplayName("The vectorized conditions select the same rows as the evaluation row by row")
+    void testSameResults() {
+        final var engine = Engine.withData(Map.of());
+        engine.registerOperation(new Seen());
+        final var data = columns(engine);
+        final var scripts = new ArrayList<Script>();
+        scripts.add(engine.getOp("and").args(engine.getOp(">").args(var(engine, "amount"), 100L), engine.getOp("==").args(var(engine, "status"), "OK")));
+        for (final var symbol : List.of("<", "<=", ">", ">=", "==", "!=")) {
+            scripts.add(engine.getOp(symbol).args(engine.getOp("*").args(var(engine, "amount"), 2L), engine.getOp("+").args(var(engine, "amount"), 50L, var(engine, "amount"))));
+            scripts.add(engine.getOp(symbol).args(var(engine, "price"), engine.getOp("-").args(var(engine, "price"), 0.0)));
+            scripts.add(engine.getOp(symbol).args(var(engine, "price"), 1.5));
+            scripts.add(engine.getOp(symbol).args(var(engine, "price"), 0.0));
+        }
+        scripts.add(engine.getOp("or").args(engine.getOp("!=").args(var(engine, "status"), "OK"), engine.getOp("<").args(var(engine, "amount"), 0L), false));
+        scripts.add(engine.getOp("and").args(
+                engine.getOp("or").args(engine.getOp("==").args("OK", var(engine, "status")), engine.getOp(">").args(var(engine, "price"), 20.0)),
+                engine.getOp("<=").args(var(engine, "amount"), 200L)));
+        for (final var script : scripts) {
+            Assertions.assertEquals(0, VectorEvaluator.of(engine, script).fallbacks(data), script.jsonify());
+            Assertions.assertEquals(rowByRow(script), VectorEvaluator.of(engine, script).select(data), script.jsonify());
+        }
+        final var mixed = engine.getOp(">").args(var(engine, "price"), 10L);
+        Assertions.assertEquals(1, VectorEvaluator.of(engine, mixed).fallbacks(data));
+        Assertions.assertEquals(rowByRow(mixed), VectorEvaluator.of(engine, mixed).select(data));
+    }
+
+    @Test
+    @DisplayName("The conditions that cannot be vectorized are evaluated only for the rows the result depends on")
+    void testFallback() {
+        final var engine = Engine.withData(Map.of());
+        final var seen = new Seen();
+        engine.registerOperation(seen);
+        final var data = columns(engine);
+        final var script = engine.getOp("and").args(
+                engine.getOp(">").args(var(engine, "amount"), 100L),
+                engine.getOp("==").args(engine.getOp("seen").args(var(engine, "status")), "OK"));
+        final var evaluator = VectorEvaluator.of(engine, script);
+        Assertions.assertEquals(1, evaluator.fallbacks(data));
+        final var selected = evaluator.select(data);
+        final var bigOnes = (int) LongStream.of(amounts).filter(amount -> amount > 100).count();
+        Assertions.assertEquals(bigOnes, seen.calls.get());
+        Assertions.assertEquals(rowByRow(script), selected);
+        final var seenOr = engine.getOp("or").args(
+                engine.getOp(">").args(var(engine, "amount"), 100L),
+                engine.getOp("seen").args(engine.getOp("==").args(var(engine, "status"), "OK")));
+        seen.calls.set(0);
+        Assertions.assertEquals(rowByRow(seenOr), VectorEvaluator.of(engine, seenOr).select(data));
+        // the row by row evaluation calls it for the same rows
+        Assertions.assertEquals(2 * (ROWS - bigOnes), seen.calls.get());
+    }
+
+    @Test
+    @DisplayName("A condition not returning a boolean throws the exception of the macro")
+    void testErrors() {
+        final var engine = Engine.withData(Map.of());
+        final var data = columns(engine);
+        final var script = engine.getOp("and").args(engine.getOp(">").args(var(engine, "amount"), 100L), engine.getOp("+").args(var(engine, "amount"), 1L));
+        final var error = Assertions.assertThrows(IllegalArgumentException.class, () -> VectorEvaluator.of(engine, script).select(data));
+        Assertions.assertEquals("The arguments of the 'and' command must be a boolean expression.", error.getMessage());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> VectorEvaluator.of(engine, script).select(data, new long[(ROWS + 63) / 64 - 1]));
+        // the rows with a null cell are compared by the command, which does not accept null
+        final var nulls = ColumnarContext.of(engine, 3).column("status", new String[]{"OK", null, "FAILED"});
+        final var equals = engine.getOp("==").args(var(engine, "status"), "OK");
+        final var notEqual = Assertions.assertThrows(IllegalArgumentException.class, () -> VectorEvaluator.of(engine, equals).select(nulls));
+        Assertions.assertEquals("The arguments of the equals command must be of the same type after coercion.", notEqual.getMessage());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> columns(engine).column("amount", new long[ROWS]));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> ColumnarContext.of(engine, ROWS).column("amount", new long[ROWS - 1]));
+    }
+
+    @Test
+    @DisplayName("A row of the columnar context looks like a record")
+    void testRow() {
+        final var engine = Engine.withData(Map.of());
+        final var data = columns(engine);
+        data.row(7);
+        Assertions.assertEquals(amounts[7], var(engine, "amount").evaluate(data));
+        Assertions.assertEquals(prices[7], var(engine, "price").evaluate(data));
+        data.row(8);
+        Assertions.assertEquals(amounts[8], var(engine, "amount").evaluate(data));
+        Assertions.assertEquals(amounts[8], var(engine, "").evaluate(data) instanceof Map<?, ?> row ? row.get("amount") : null);
+    }
+}
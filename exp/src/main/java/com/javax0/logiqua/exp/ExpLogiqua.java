@@ -25,7 +25,7 @@ public class ExpLogiqua implements Logiqua {
     }
 
     public ExpLogiqua with(Engine engine) {
-        this.engine = engine;
+        this.engine = registerIdentifierCaster(engine);
         return this;
     }
 
@@ -33,7 +33,7 @@ public class ExpLogiqua implements Logiqua {
         if (engine != null) {
             throw new IllegalStateException("The engine is already set");
         }
-        this.engine = Engine.withData(data);
+        this.engine = registerIdentifierCaster(Engine.withData(data));
 
         return this;
     }
@@ -41,7 +41,7 @@ public class ExpLogiqua implements Logiqua {
     @Override
     public Script compile(String source) {
         if (engine == null) {
-            engine = Engine.withData(Map.of());
+            engine = registerIdentifierCaster(Engine.withData(Map.of()));
         }
         if( engine.limit() < source.length()) {
             throw new IllegalArgumentException("The source is too long");
@@ -60,7 +60,24 @@ public class ExpLogiqua implements Logiqua {
         if (!tokens.eof()) {
             throw new IllegalArgumentException("There is extra text following the script");
         }
-        ((MapContext) engine.getContext()).registerCaster(Identifier.class, String.class, token -> token.value());
-        return ExpBuilder.from(json, engine).build();
+        final var script = ExpBuilder.from(json, engine).build();
+        return engine.isCompiling() ? engine.compile(script) : script;
+    }
+
+    /**
+     * Register the caster that converts the identifier tokens to strings, unless it is already registered.
+     * <p>
+     * The registration happens when the engine is attached and not during the compilation, so compiling does not
+     * modify the engine. Attach the engine before freezing it.
+     *
+     * @param engine the engine to register the caster in
+     * @return the engine
+     * @throws IllegalStateException if the engine is already frozen and the caster is not registered
+     */
+    private static Engine registerIdentifierCaster(Engine engine) {
+        if (engine.getContext() instanceof MapContext mapContext && !mapContext.hasCaster(Identifier.class, String.class)) {
+            mapContext.registerCaster(Identifier.class, String.class, token -> token.value());
+        }
+        return engine;
     }
 }
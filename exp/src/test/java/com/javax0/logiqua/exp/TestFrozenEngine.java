@@ -0,0 +1,27 @@
+package com.javax0.logiqua.exp;
+
+import com.javax0.logiqua.engine.Engine;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+public class TestFrozenEngine {
+
+    @Test
+    void testCompileManyTimes() {
+        final var exp = new ExpLogiqua();
+        Assertions.assertEquals(3L, exp.compile("a + b\n").evaluate(Map.of("a", 1L, "b", 2L)));
+        Assertions.assertEquals(false, exp.compile("a > b\n").evaluate(Map.of("a", 1L, "b", 2L)));
+    }
+
+    @Test
+    void testCompileWithFrozenEngine() {
+        final var engine = Engine.withData(Map.of());
+        final var exp = new ExpLogiqua().with(engine);
+        engine.freeze();
+        final var script = exp.compile("x > 10 and y == \"OK\"");
+        Assertions.assertEquals(true, script.evaluate(Map.of("x", 11L, "y", "OK")));
+        Assertions.assertEquals(false, script.evaluate(Map.of("x", 9L, "y", "OK")));
+    }
+}
@@ -14,6 +14,7 @@ import java.util.Map;
 public class JsonLogiqua implements Logiqua {
 
     private Engine engine = null;
+    private boolean compiling = false;
 
     public Engine engine() {
         return engine;
@@ -32,6 +33,18 @@ public class JsonLogiqua implements Logiqua {
         return this;
     }
 
+    /**
+     * Compile the scripts into generated classes, see {@link Engine#compile(Script)}, even if the engine is not
+     * switched to compile them.
+     *
+     * @param compiling {@code true} to compile the scripts
+     * @return this instance to allow chaining
+     */
+    public JsonLogiqua compiling(boolean compiling) {
+        this.compiling = compiling;
+        return this;
+    }
+
     @Override
     public Script compile(String source) {
         if( engine == null) {
@@ -48,6 +61,7 @@ public class JsonLogiqua implements Logiqua {
         final var json = JsonReader.of(tokens).read();
 
 
-        return JsonBuilder.from(json, engine).build();
+        final var script = JsonBuilder.from(json, engine).build();
+        return compiling || engine.isCompiling() ? engine.compile(script) : script;
     }
 }
@@ -0,0 +1,17 @@
+package com.javax0.logiqua.json;
+
+/**
+ * The tests of the JSON front-end that are also run with the compiled scripts, see {@link TestCompiledBackend}.
+ */
+public abstract class JsonSuite {
+
+    /**
+     * The nested suites of {@link TestCompiledBackend} implement it to get a front-end compiling the scripts.
+     */
+    interface Compiled {
+    }
+
+    protected JsonLogiqua logiqua() {
+        return new JsonLogiqua().compiling(this instanceof Compiled);
+    }
+}
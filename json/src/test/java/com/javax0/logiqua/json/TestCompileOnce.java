@@ -0,0 +1,27 @@
+package com.javax0.logiqua.json;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+public class TestCompileOnce extends JsonSuite {
+
+    @Test
+    void testCompileOnceEvaluateMany() {
+        final var scriptObject = logiqua().compile("""
+                { "filter" : [ {"var" : "items"},
+                               {">" : [{"var" : "current.price"} , {"var" : "limit"}] }
+                             ]
+                }
+                """);
+        final var items = List.of(Map.of("price", 5L), Map.of("price", 15L), Map.of("price", 25L));
+        Assertions.assertEquals(List.of(Map.of("price", 15L), Map.of("price", 25L)),
+                scriptObject.evaluate(Map.of("items", items, "limit", 10L)));
+        Assertions.assertEquals(List.of(Map.of("price", 25L)),
+                scriptObject.evaluate(Map.of("items", items, "limit", 20L)));
+        Assertions.assertEquals(List.of(),
+                scriptObject.evaluate(Map.of("items", List.of(), "limit", 20L)));
+    }
+}
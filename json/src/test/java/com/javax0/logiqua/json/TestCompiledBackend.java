@@ -0,0 +1,81 @@
+package com.javax0.logiqua.json;
+
+import com.javax0.logiqua.json.JsonSuite.Compiled;
+import com.javax0.logiqua.scripts.CompiledScript;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Run the tests of the JSON front-end with the scripts compiled into generated classes.
+ */
+@DisplayName("The compiled scripts")
+public class TestCompiledBackend {
+
+    @Test
+    void testCompiled() {
+        Assertions.assertInstanceOf(CompiledScript.class, new JsonLogiqua().compiling(true).compile("{\"+\" : [1, {\"var\" : \"a\"}]}"));
+        Assertions.assertFalse(new JsonLogiqua().compile("{\"+\" : [1, {\"var\" : \"a\"}]}") instanceof CompiledScript);
+    }
+
+    @Nested
+    class All extends TestAll implements Compiled {
+    }
+
+    @Nested
+    class Cat extends TestCat implements Compiled {
+    }
+
+    @Nested
+    class CompileOnce extends TestCompileOnce implements Compiled {
+    }
+
+    @Nested
+    class Filter extends TestFilter implements Compiled {
+    }
+
+    @Nested
+    class In extends TestIn implements Compiled {
+    }
+
+    @Nested
+    class JsonLogiquaBoolAndComparator extends TestJsonLogiquaBoolAndComparator implements Compiled {
+    }
+
+    @Nested
+    class ListAsExpression extends TestListAsExpression implements Compiled {
+    }
+
+    @Nested
+    class Map extends TestMap implements Compiled {
+    }
+
+    @Nested
+    class Merge extends TestMerge implements Compiled {
+    }
+
+    @Nested
+    class MinMax extends TestMinMax implements Compiled {
+    }
+
+    @Nested
+    class None extends TestNone implements Compiled {
+    }
+
+    @Nested
+    class NumericOperators extends TestNumericOperators implements Compiled {
+    }
+
+    @Nested
+    class Reduce extends TestReduce implements Compiled {
+    }
+
+    @Nested
+    class Some extends TestSome implements Compiled {
+    }
+
+    @Nested
+    class Substr extends TestSubstr implements Compiled {
+    }
+}
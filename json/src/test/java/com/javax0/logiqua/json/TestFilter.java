@@ -5,7 +5,7 @@ import org.junit.jupiter.api.Test;
 
 import java.util.List;
 
-public class TestFilter {
+public class TestFilter extends JsonSuite {
 
     @Test
     void testFilter() {
@@ -15,7 +15,7 @@ public class TestFilter {
                           ]
                 }
                 """;
-        final var scriptObject = new JsonLogiqua().compile(script);
+        final var scriptObject = logiqua().compile(script);
         final var result = scriptObject.evaluate();
         Assertions.assertEquals(List.of(2L,4L,6L,8L), result);
     }
@@ -1,11 +1,14 @@
 package com.javax0.logiqua.json;
 
+import com.javax0.logiqua.scripts.FoldedValueNode;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
-public class TestIn {
+import java.util.Map;
+
+public class TestIn extends JsonSuite {
     private void test(final Object result, final String script) {
-        final var scriptObject = new JsonLogiqua().compile(script);
+        final var scriptObject = logiqua().compile(script);
         Assertions.assertEquals(result, scriptObject.evaluate());
     }
 
@@ -37,4 +40,21 @@ public class TestIn {
                 """);
     }
 
+    @Test
+    void testInConstantArrayIsFolded() {
+        final var script = logiqua().compile("""
+                {"in":["x",["a","b","x"]]}
+                """);
+        Assertions.assertInstanceOf(FoldedValueNode.class, script);
+        Assertions.assertEquals(true, script.evaluate());
+        final var nested = logiqua().compile("""
+                {"in":["x",{"merge":[["a"],[["b"]]]}]}
+                """);
+        Assertions.assertEquals(false, nested.evaluate());
+        final var variable = logiqua().with(Map.of("v", "x")).compile("""
+                {"in":["x",["a",{"var":"v"}]]}
+                """);
+        Assertions.assertFalse(variable instanceof FoldedValueNode);
+        Assertions.assertEquals(true, variable.evaluate());
+    }
 }
@@ -3,17 +3,17 @@ package com.javax0.logiqua.json;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
-public class TestJsonLogiquaBoolAndComparator {
+public class TestJsonLogiquaBoolAndComparator extends JsonSuite {
 
 
     private void test(final Object result, final String script) {
-        final var scriptObject = new JsonLogiqua().compile(script);
+        final var scriptObject = logiqua().compile(script);
         Assertions.assertEquals(result, scriptObject.evaluate());
     }
 
     private void testFail(final String script) {
         Assertions.assertThrows(Exception.class, () -> {
-            final var scriptObject = new JsonLogiqua().compile(script);
+            final var scriptObject = logiqua().compile(script);
             scriptObject.evaluate();
         });
     }
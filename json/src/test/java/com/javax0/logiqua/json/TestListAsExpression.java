@@ -7,14 +7,14 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 
-public class TestListAsExpression {
+public class TestListAsExpression extends JsonSuite {
 
     @Test
     void testConstantListAsCode() {
         final var script = """
                 [ 1,2,3 ]
                 """;
-        final var scriptObject = new JsonLogiqua().compile(script);
+        final var scriptObject = logiqua().compile(script);
         final var result = scriptObject.evaluate();
         Assertions.assertEquals(new ArrayList<>(List.of(1L, 2L, 3L)), result);
     }
@@ -24,7 +24,7 @@ public class TestListAsExpression {
         final var script = """
                 {"var":"x"}
                 """;
-        final var scriptObject = new JsonLogiqua().with(Map.of("x", 2L)).compile(script);
+        final var scriptObject = logiqua().with(Map.of("x", 2L)).compile(script);
         final var result = scriptObject.evaluate();
         Assertions.assertEquals(2L, result);
     }
@@ -34,7 +34,7 @@ public class TestListAsExpression {
         final var script = """
                 {"var": "z"}
                 """;
-        final var scriptObject = new JsonLogiqua().with(Map.of("x", 2L)).compile(script);
+        final var scriptObject = logiqua().with(Map.of("x", 2L)).compile(script);
         Assertions.assertThrows( Exception.class, () -> scriptObject.evaluate());
     }
 
@@ -43,7 +43,7 @@ public class TestListAsExpression {
         final var script = """
                 {"var": ["z", null]}
                 """;
-        final var scriptObject = new JsonLogiqua().with(Map.of("x", 2L)).compile(script);
+        final var scriptObject = logiqua().with(Map.of("x", 2L)).compile(script);
         final var result = scriptObject.evaluate();
         Assertions.assertNull( result);
     }
@@ -53,7 +53,7 @@ public class TestListAsExpression {
         final var script = """
                 [1, {"var":"x"} ,3]
                 """;
-        final var scriptObject = new JsonLogiqua().with(Map.of("x", 2L)).compile(script);
+        final var scriptObject = logiqua().with(Map.of("x", 2L)).compile(script);
         final var result = scriptObject.evaluate();
         Assertions.assertEquals(new ArrayList<>(List.of(1L, 2L, 3L)), result);
     }
@@ -63,7 +63,7 @@ public class TestListAsExpression {
         final var script = """
                 {"map" : [{"var" : "desserts"},{"var" : "qty"}]}
                 """;
-        final var scriptObject = new JsonLogiqua().with(Map.of("desserts", List.of(Map.of("name", "apple", "qty", 1),
+        final var scriptObject = logiqua().with(Map.of("desserts", List.of(Map.of("name", "apple", "qty", 1),
                 Map.of("name", "brownie", "qty", 2), Map.of("name", "cupcake", "qty", 3)))).compile(script);
         final var result = scriptObject.evaluate();
         Assertions.assertEquals(new ArrayList<>(List.of(1, 2, 3)), result);
@@ -74,7 +74,7 @@ public class TestListAsExpression {
         final var script = """
                 {"map" : [{"var" : "desserts"},{"var" : "current.qty"}]}
                 """;
-        final var scriptObject = new JsonLogiqua().with(Map.of("desserts", List.of(Map.of("name", "apple", "qty", 1),
+        final var scriptObject = logiqua().with(Map.of("desserts", List.of(Map.of("name", "apple", "qty", 1),
                 Map.of("name", "brownie", "qty", 2), Map.of("name", "cupcake", "qty", 3)))).compile(script);
         final var result = scriptObject.evaluate();
         Assertions.assertEquals(new ArrayList<>(List.of(1, 2, 3)), result);
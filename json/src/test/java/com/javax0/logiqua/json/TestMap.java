@@ -5,7 +5,7 @@ import org.junit.jupiter.api.Test;
 
 import java.util.List;
 
-public class TestMap {
+public class TestMap extends JsonSuite {
 
     @Test
     void testMap() {
@@ -15,7 +15,7 @@ public class TestMap {
                           ]
                 }
                 """;
-        final var scriptObject = new JsonLogiqua().compile(script);
+        final var scriptObject = logiqua().compile(script);
         final var result = scriptObject.evaluate();
         Assertions.assertEquals(List.of(46L,48L), result);
     }
@@ -5,9 +5,9 @@ import org.junit.jupiter.api.Test;
 
 import java.util.List;
 
-public class TestMerge {
+public class TestMerge extends JsonSuite {
     private void test(final Object result, final String script) {
-        final var scriptObject = new JsonLogiqua().compile(script);
+        final var scriptObject = logiqua().compile(script);
         Assertions.assertEquals(result, scriptObject.evaluate());
     }
 
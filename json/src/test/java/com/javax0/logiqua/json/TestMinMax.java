@@ -3,9 +3,9 @@ package com.javax0.logiqua.json;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
-public class TestMinMax {
+public class TestMinMax extends JsonSuite {
     private void test(final Object result, final String script) {
-        final var scriptObject = new JsonLogiqua().compile(script);
+        final var scriptObject = logiqua().compile(script);
         Assertions.assertEquals(result, scriptObject.evaluate());
     }
 
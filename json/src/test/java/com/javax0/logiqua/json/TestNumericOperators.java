@@ -9,7 +9,7 @@ import java.util.Map;
 
 import static com.javax0.logiqua.commands.Operator.*;
 
-public class TestNumericOperators {
+public class TestNumericOperators extends JsonSuite {
 
     private static final Map<String, Object> context = Map.of("aByte", (byte) 1,
             "aShort", (short) 1,
@@ -22,7 +22,7 @@ public class TestNumericOperators {
     );
 
     private void test(final Object expected, final String script) {
-        final var scriptObject = new JsonLogiqua().with(context).compile(script);
+        final var scriptObject = logiqua().with(context).compile(script);
         final var result = scriptObject.evaluate();
         switch( result ){
             case Byte b -> Assertions.assertEquals(toByte(expected), b);
@@ -0,0 +1,79 @@
+package com.javax0.logiqua.json;
+
+import com.javax0.logiqua.commands.Divide;
+import com.javax0.logiqua.commands.Minus;
+import com.javax0.logiqua.commands.Multiply;
+import com.javax0.logiqua.commands.Plus;
+import com.javax0.logiqua.commands.PrimitiveOperator;
+import com.javax0.logiqua.commands.Remainder;
+import com.javax0.logiqua.engine.Engine;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Check that the operators calculating in primitives give the same results as the calculation with the boxed
+ * values.
+ */
+public class TestPrimitiveArithmetic {
+
+    private static final List<Object[]> ARGUMENTS = List.of(
+            new Object[]{1L, 2L},
+            new Object[]{1L, 2L, 3L, 4L, 5L},
+            new Object[]{1.5, 2L, 3L},
+            new Object[]{7L, 2L, 0.5, 3L},
+            new Object[]{Long.MAX_VALUE, 1L},
+            new Object[]{Long.MIN_VALUE, -1L},
+            new Object[]{Long.MAX_VALUE, Long.MAX_VALUE, 2L},
+            new Object[]{10L, 0L},
+            new Object[]{-10L, 0L, 3L},
+            new Object[]{0L, 0L, 2.0},
+            new Object[]{10.0, 0L},
+            new Object[]{10.0, 0.0, 1L},
+            new Object[]{7L, 3, 2L},
+            new Object[]{7.0, (byte) 3, 2L},
+            new Object[]{7L, 2L, 3.0f},
+            new Object[]{7L, BigInteger.TWO, 3L},
+            new Object[]{7.5, BigDecimal.ONE, 3L},
+            new Object[]{(long) (1 << 30), 1L << 33, 1L << 40}
+    );
+
+    @Test
+    @DisplayName("The primitive and the boxed calculations give the same results")
+    void testSameResults() {
+        final var engine = Engine.withData(Map.of());
+        for (final var operator : List.of(new Plus(), new Minus(), new Multiply(), new Divide(), new Remainder())) {
+            Assertions.assertInstanceOf(PrimitiveOperator.class, operator);
+            for (final var args : ARGUMENTS) {
+                final var expected = outcome(() -> operator.evaluateBoxed(engine, args.clone()));
+                final var actual = outcome(() -> operator.evaluate(engine, args.clone()));
+                Assertions.assertEquals(expected, actual, () -> operator.symbol() + " " + List.of(args));
+            }
+        }
+    }
+
+    @Test
+    void testOverflowIsKept() {
+        final var engine = Engine.withData(Map.of());
+        Assertions.assertEquals(Long.MIN_VALUE, new Plus().evaluate(engine, Long.MAX_VALUE, 1L));
+        Assertions.assertEquals(-2L, new Multiply().evaluate(engine, Long.MAX_VALUE, 2L));
+        Assertions.assertEquals(Double.POSITIVE_INFINITY, new Divide().evaluate(engine, 1L, 0L));
+    }
+
+    /**
+     * The result of the calculation, or the class of the exception it throws.
+     */
+    private static Object outcome(Supplier<Object> calculation) {
+        try {
+            return calculation.get();
+        } catch (RuntimeException e) {
+            return e.getClass();
+        }
+    }
+}
@@ -3,7 +3,7 @@ package com.javax0.logiqua.json;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
-public class TestReduce {
+public class TestReduce extends JsonSuite {
 
     @Test
     void testReduce() {
@@ -14,7 +14,7 @@ public class TestReduce {
                     0
                 ]}
                 """;
-        final var scriptObject = new JsonLogiqua().compile(script);
+        final var scriptObject = logiqua().compile(script);
         final var result = scriptObject.evaluate();
         Assertions.assertEquals(15L, result);
     }
@@ -3,7 +3,7 @@ package com.javax0.logiqua.json;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 
-public class TestSome {
+public class TestSome extends JsonSuite {
 
     @Test
     void testSomeTrue() {
@@ -13,7 +13,7 @@ public class TestSome {
                           ]
                 }
                 """;
-        final var scriptObject = new JsonLogiqua().compile(script);
+        final var scriptObject = logiqua().compile(script);
         final var result = scriptObject.evaluate();
         Assertions.assertEquals(true, result);
     }
@@ -26,7 +26,7 @@ public class TestSome {
                           ]
                 }
                 """;
-        final var scriptObject = new JsonLogiqua().compile(script);
+        final var scriptObject = logiqua().compile(script);
         final var result = scriptObject.evaluate();
         Assertions.assertEquals(false, result);
     }
@@ -1,6 +1,7 @@
 package com.javax0.logiqua.jsonlogic;
 
 import com.javax0.logiqua.Context;
+import com.javax0.logiqua.Path;
 import com.javax0.logiqua.engine.MapContext;
 
 import java.util.HashMap;
@@ -11,9 +12,27 @@ public class CompatibilityContext implements Context {
     final MapContext mapContext;
 
     public CompatibilityContext(Object data) {
+        this.mapContext = new MapContext(dataMap(data));
+    }
+
+    private CompatibilityContext(MapContext mapContext) {
+        this.mapContext = mapContext;
+    }
+
+    /**
+     * Create a new context for the data that shares the casters and the proxies with this context.
+     *
+     * @param data the data the new context gives access to
+     * @return the new context
+     */
+    CompatibilityContext with(Object data) {
+        return new CompatibilityContext(mapContext.withMap(dataMap(data)));
+    }
+
+    private static Map<String, Object> dataMap(Object data) {
         final var map = new HashMap<String, Object>();
         map.put("data", data);
-        this.mapContext = new MapContext(map);
+        return map;
     }
 
     @Override
@@ -25,6 +44,23 @@ public class CompatibilityContext implements Context {
         }
     }
 
+    /**
+     * Get the value of the parsed key from the data. The result is the same as {@link #get(String)} would return
+     * looking up {@code data.key}, but the key is not parsed again.
+     *
+     * @param path the parsed key
+     * @return the value or {@code null} if there is no value for the key
+     */
+    @Override
+    public Value get(Path path) {
+        final var key = path.key();
+        if (key.isEmpty() || (!path.isStructured() && !key.equals(key.trim()))) {
+            // the whitespace around a simple key is trimmed when it is appended to "data."
+            return get(key);
+        }
+        return mapContext.get(path, mapContext.get("data").get());
+    }
+
     @Override
     public Proxy accessor(Object target) {
         return mapContext.accessor(target);
@@ -39,4 +75,9 @@ public class CompatibilityContext implements Context {
     public Context sprout(Map<String, Object> data) {
         return mapContext.sprout(data);
     }
+
+    @Override
+    public Frame frame(String... variables) {
+        return mapContext.frame(variables);
+    }
 }
@@ -0,0 +1,33 @@
+package com.javax0.logiqua.jsonlogic;
+
+import com.javax0.logiqua.Script;
+
+/**
+ * A JsonLogic rule compiled by {@link JsonLogic#compile(String)}.
+ * <p>
+ * The rule is parsed, and the compatibility operations and casters are registered only once, when the rule is
+ * compiled. After that the engine of the rule is frozen, therefore the same compiled rule can be applied to any
+ * number of data objects, also concurrently from several threads.
+ */
+public final class CompiledRule {
+    private final Script script;
+    private final CompatibilityContext context;
+
+    CompiledRule(Script script, CompatibilityContext context) {
+        this.script = script;
+        this.context = context;
+    }
+
+    /**
+     * Apply the rule to the data.
+     *
+     * @param data the data the rule is evaluated on. If it is a string, it is parsed as JSON.
+     * @return the result of the evaluation
+     */
+    public Object apply(Object data) {
+        if (data instanceof String string) {
+            data = JsonLogic.parseData(string);
+        }
+        return script.evaluate(context.with(data));
+    }
+}
@@ -0,0 +1,42 @@
+package com.javax0.logiqua.jsonlogic;
+
+import com.javax0.logiqua.scripts.RuleSet;
+
+import java.util.List;
+
+/**
+ * A set of JsonLogic rules compiled together by {@link JsonLogic#compile(List)}.
+ * <p>
+ * The rules are built by the same engine, and the variable references and the pure operations appearing in several
+ * rules are evaluated only once when the rule set is applied. The engine is frozen, therefore the rule set can be
+ * applied to any number of data objects, also concurrently from several threads.
+ */
+public final class CompiledRuleSet {
+    private final RuleSet ruleSet;
+    private final CompatibilityContext context;
+
+    CompiledRuleSet(RuleSet ruleSet, CompatibilityContext context) {
+        this.ruleSet = ruleSet;
+        this.context = context;
+    }
+
+    /**
+     * @return the number of the rules
+     */
+    public int size() {
+        return ruleSet.size();
+    }
+
+    /**
+     * Apply all the rules to the data.
+     *
+     * @param data the data the rules are evaluated on. If it is a string, it is parsed as JSON.
+     * @return the results of the rules in the order the rules were compiled
+     */
+    public List<Object> apply(Object data) {
+        if (data instanceof String string) {
+            data = JsonLogic.parseData(string);
+        }
+        return ruleSet.evaluate(context.with(data));
+    }
+}
@@ -5,16 +5,150 @@ import com.javax0.lex.StringInput;
 import com.javax0.lex.TokenIterator;
 import com.javax0.lex.tokens.NewLine;
 import com.javax0.lex.tokens.Space;
+import com.javax0.logiqua.Script;
 import com.javax0.logiqua.engine.Engine;
 import com.javax0.logiqua.json.JsonLogiqua;
 import com.javax0.logiqua.json.JsonReader;
 import com.javax0.logiqua.jsonlogic.compatibilitycommands.*;
 
 import java.lang.reflect.Array;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
+/**
+ * Compile and apply JsonLogic rules.
+ * <p>
+ * An instance is immutable. The methods switching the compilation options on and off return a new instance with its
+ * own, empty cache, so the rules cached by an instance are always compiled with the options of the instance.
+ */
 public class JsonLogic {
 
+    private final int cacheSize;
+    private final Map<String, CompiledRule> cache;
+    private final boolean specializing;
+    private final boolean flattening;
+    private final boolean optimizing;
+    private final boolean sharing;
+    private final boolean fusing;
+
+    /**
+     * Create a JsonLogic instance that compiles the rule for every {@link #apply(String, Object)} call.
+     */
+    public JsonLogic() {
+        this(0);
+    }
+
+    /**
+     * Create a JsonLogic instance that caches the compiled rules used in {@link #apply(String, Object)}.
+     * <p>
+     * The cache is keyed by the text of the rule, and it keeps at most {@code cacheSize} rules, evicting the least
+     * recently used one when it is full.
+     *
+     * @param cacheSize the maximum number of the cached rules, zero switches the cache off
+     * @throws IllegalArgumentException if the cache size is negative
+     */
+    public JsonLogic(int cacheSize) {
+        this(cacheSize, true, false, false, false, false);
+    }
+
+    private JsonLogic(int cacheSize, boolean specializing, boolean flattening, boolean optimizing, boolean sharing, boolean fusing) {
+        if (cacheSize < 0) {
+            throw new IllegalArgumentException("The cache size must not be negative, it is " + cacheSize);
+        }
+        this.cacheSize = cacheSize;
+        this.specializing = specializing;
+        this.flattening = flattening;
+        this.optimizing = optimizing;
+        this.sharing = sharing;
+        this.fusing = fusing;
+        if (cacheSize == 0) {
+            this.cache = null;
+        } else {
+            this.cache = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, CompiledRule> eldest) {
+                    return size() > cacheSize;
+                }
+            });
+        }
+    }
+
+    /**
+     * Create an instance switching the specialization of the function calls on or off.
+     *
+     * @param specializing {@code true} to switch the specialization on, which is the default
+     * @return the new instance, with the same cache size and an empty cache
+     * @see Engine#specializing(boolean)
+     */
+    public JsonLogic specializing(boolean specializing) {
+        return new JsonLogic(cacheSize, specializing, flattening, optimizing, sharing, fusing);
+    }
+
+    /**
+     * Create an instance switching the encoding of the rules into compact programs on or off. The encoded rules use
+     * somewhat less memory than the trees, the parsed variable paths and the strings taking the same.
+     *
+     * @param flattening {@code true} to encode the rules, the default is {@code false}
+     * @return the new instance, with the same cache size and an empty cache
+     * @see Engine#flatten(com.javax0.logiqua.Script)
+     */
+    public JsonLogic flattening(boolean flattening) {
+        return new JsonLogic(cacheSize, specializing, flattening, optimizing, sharing, fusing);
+    }
+
+    /**
+     * Create an instance switching the simplification of the logical operations on or off. Rules generated by other
+     * tools often contain constant conditions and nested {@code and} and {@code or} operations.
+     *
+     * @param optimizing {@code true} to simplify the rules, the default is {@code false}
+     * @return the new instance, with the same cache size and an empty cache
+     * @see Engine#optimize(com.javax0.logiqua.Script)
+     */
+    public JsonLogic optimizing(boolean optimizing) {
+        return new JsonLogic(cacheSize, specializing, flattening, optimizing, sharing, fusing);
+    }
+
+    /**
+     * Create an instance switching the sharing of the repeated subexpressions on or off. A variable referenced
+     * several times in a rule is looked up only once when the rule is applied.
+     *
+     * @param sharing {@code true} to share the subexpressions, the default is {@code false}
+     * @return the new instance, with the same cache size and an empty cache
+     * @see Engine#share(com.javax0.logiqua.Script)
+     */
+    public JsonLogic sharing(boolean sharing) {
+        return new JsonLogic(cacheSize, specializing, flattening, optimizing, sharing, fusing);
+    }
+
+    /**
+     * Create an instance switching the fusion of the chained {@code map} and {@code reduce} operations on or off. A
+     * {@code reduce} over the result of a {@code map} is applied in a single pass over the list.
+     *
+     * @param fusing {@code true} to fuse the operations, the default is {@code false}
+     * @return the new instance, with the same cache size and an empty cache
+     * @see Engine#fusing(boolean)
+     */
+    public JsonLogic fusing(boolean fusing) {
+        return new JsonLogic(cacheSize, specializing, flattening, optimizing, sharing, fusing);
+    }
+
+    /**
+     * The lexical analyzer is created once, because creating it loads the analyzers using the service loader.
+     * After it is configured it is only read, and it can be used from several threads.
+     */
+    private static final class DataAnalyzer {
+        private static final LexicalAnalyzer ANALYZER = new LexicalAnalyzer();
+
+        static {
+            ANALYZER.skip(Space.class);
+            ANALYZER.skip(NewLine.class);
+        }
+    }
+
     private void registerCompatibilityOperations(JsonLogiqua jlEngine) {
         final var engine = jlEngine.engine();
         engine.updateOperation(new JLOr());
@@ -47,22 +181,82 @@ public class JsonLogic {
         mapContext.registerCaster(Number.class, Boolean.class, JsonLogic::truthy);
     }
 
-    public Object apply(String json, Object data) {
-        if (data instanceof String string) {
-            final var analyzer = new LexicalAnalyzer();
-            analyzer.skip(Space.class);
-            analyzer.skip(NewLine.class);
-            final var tokenArray = analyzer.analyse(StringInput.of(string));
-            final var tokens = TokenIterator.over(tokenArray);
-            final var dataMap = JsonReader.of(tokens).read();
-            return apply(json, dataMap);
-        }
-        final var map = new CompatibilityContext(data);
-        final var engine = Engine.withData(map);
+    /**
+     * Compile the rule so that it can be applied many times without parsing it again.
+     *
+     * @param json the JsonLogic rule
+     * @return the compiled rule, which can be shared between threads
+     */
+    public CompiledRule compile(String json) {
+        final var context = new CompatibilityContext(null);
+        final var engine = Engine.withData(context).specializing(specializing).fusing(fusing);
+        final var jsl = new JsonLogiqua().with(engine);
+        registerCompatibilityOperations(jsl);
+        final var optimized = build(jsl, engine, json);
+        final var script = sharing ? engine.share(optimized) : optimized;
+        final var scriptObject = flattening ? engine.flatten(script) : script;
+        context.mapContext.freeze();
+        engine.freeze();
+        return new CompiledRule(scriptObject, context);
+    }
+
+    /**
+     * Compile the rules into a rule set applied to the same data in a single pass. The variable references and the
+     * pure operations appearing in several rules are evaluated only once, when the rule set is applied. The rules are
+     * not flattened, even if the flattening is switched on, the flat scripts cannot share their subexpressions.
+     *
+     * @param jsons the JsonLogic rules
+     * @return the compiled rule set, which can be shared between threads
+     * @see Engine#ruleSet(List)
+     */
+    public CompiledRuleSet compile(List<String> jsons) {
+        final var context = new CompatibilityContext(null);
+        final var engine = Engine.withData(context).specializing(specializing).fusing(fusing);
         final var jsl = new JsonLogiqua().with(engine);
         registerCompatibilityOperations(jsl);
-        final var scriptObject = jsl.compile(json);
-        return scriptObject.evaluate();
+        final var scripts = new ArrayList<Script>(jsons.size());
+        for (final var json : jsons) {
+            scripts.add(build(jsl, engine, json));
+        }
+        final var ruleSet = engine.ruleSet(scripts);
+        context.mapContext.freeze();
+        engine.freeze();
+        return new CompiledRuleSet(ruleSet, context);
+    }
+
+    private Script build(JsonLogiqua jsl, Engine engine, String json) {
+        final var built = jsl.compile(json);
+        return optimizing ? engine.optimize(built).script() : built;
+    }
+
+    /**
+     * Apply the rule to the data. If this instance was created with a cache, the compiled rule is taken from the
+     * cache when the same rule was already applied.
+     *
+     * @param json the JsonLogic rule
+     * @param data the data the rule is evaluated on. If it is a string, it is parsed as JSON.
+     * @return the result of the evaluation
+     */
+    public Object apply(String json, Object data) {
+        final CompiledRule rule;
+        if (cache == null) {
+            rule = compile(json);
+        } else {
+            final var cached = cache.get(json);
+            if (cached == null) {
+                rule = compile(json);
+                cache.put(json, rule);
+            } else {
+                rule = cached;
+            }
+        }
+        return rule.apply(data);
+    }
+
+    static Object parseData(String data) {
+        final var tokenArray = DataAnalyzer.ANALYZER.analyse(StringInput.of(data));
+        final var tokens = TokenIterator.over(tokenArray);
+        return JsonReader.of(tokens).read();
     }
 
 
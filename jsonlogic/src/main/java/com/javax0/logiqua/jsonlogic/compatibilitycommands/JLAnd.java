@@ -8,6 +8,7 @@ import com.javax0.logiqua.jsonlogic.JsonLogic;
 
 @Named.Symbol("and")
 @Operation.Arity(min = 1)
+@Operation.Logical(value = Operation.Logical.Kind.AND, returnsArgument = true)
 public class JLAnd implements Operation.Macro {
     @Override
     public Object evaluate(Executor executor, Script... args) {
@@ -17,7 +18,7 @@ public class JLAnd implements Operation.Macro {
         Object result = null;
 
         for (final var arg : args) {
-            result = arg.evaluate();
+            result = arg.evaluateUsing(executor);
 
             if (!JsonLogic.truthy(result)) {
                 return result;
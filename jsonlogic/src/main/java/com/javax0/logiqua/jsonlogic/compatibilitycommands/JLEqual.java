@@ -7,7 +7,20 @@ import com.javax0.logiqua.jsonlogic.JsonLogic;
 
 @Named.Symbol("==")
 @Operation.Arity(min = 2, max = 2)
+@Operation.Guard(Operation.Guard.Kind.EQUAL)
 public class JLEqual implements Operation.Function {
+    @Override
+    public Operation.Binary specialize(Class<?> left, Class<?> right) {
+        if (Number.class.isAssignableFrom(left) && Number.class.isAssignableFrom(right)) {
+            // the same as Double.equals() in evaluate(), without boxing
+            return (executor, l, r) -> Double.compare(((Number) l).doubleValue(), ((Number) r).doubleValue()) == 0;
+        }
+        if ((left == String.class && right == String.class) || (left == Boolean.class && right == Boolean.class)) {
+            return (executor, l, r) -> l.equals(r);
+        }
+        return null;
+    }
+
     @Override
     public Object evaluate(Executor executor, Object... arguments) {
         Object left = arguments[0];
@@ -7,6 +7,7 @@ import com.javax0.logiqua.Script;
 import com.javax0.logiqua.jsonlogic.JsonLogic;
 
 @Named.Symbol("if")
+@Operation.Logical(Operation.Logical.Kind.IF)
 public class JLIf implements Operation.Macro {
     @Override
     public Object evaluate(Executor executor, Script... args) {
@@ -16,13 +17,13 @@ public class JLIf implements Operation.Macro {
 
         // If there is only a single argument, simply evaluate & return that argument.
         if (args.length == 1) {
-            return args[0].evaluate();
+            return args[0].evaluateUsing(executor);
         }
 
         // If there are 2 arguments, only evaluate the second argument if the first argument is truthy.
         if (args.length == 2) {
-            return JsonLogic.truthy(args[0].evaluate())
-                    ? args[1].evaluate()
+            return JsonLogic.truthy(args[0].evaluateUsing(executor))
+                    ? args[1].evaluateUsing(executor)
                     : null;
         }
 
@@ -30,8 +31,8 @@ public class JLIf implements Operation.Macro {
             final var condition = args[i];
             final var resultIfTrue = args[i + 1];
 
-            if (JsonLogic.truthy(condition.evaluate())) {
-                return resultIfTrue.evaluate();
+            if (JsonLogic.truthy(condition.evaluateUsing(executor))) {
+                return resultIfTrue.evaluateUsing(executor);
             }
         }
 
@@ -39,6 +40,6 @@ public class JLIf implements Operation.Macro {
             return null;
         }
 
-        return args[args.length - 1].evaluate();
+        return args[args.length - 1].evaluateUsing(executor);
     }
 }
@@ -5,6 +5,7 @@ import com.javax0.logiqua.Named;
 import com.javax0.logiqua.Operation;
 
 @Named.Symbol("in")
+@Operation.Guard(Operation.Guard.Kind.MEMBER)
 public class JLIn implements Operation.Function{
     private final com.javax0.logiqua.commands.In delegate = new com.javax0.logiqua.commands.In();
 
@@ -10,6 +10,11 @@ import com.javax0.logiqua.commands.Multiply;
 public class JLMultiply implements Operation.Function {
     private final Multiply delegate = new Multiply();
 
+    @Override
+    public Operation.Binary specialize(Class<?> left, Class<?> right) {
+        return delegate.specialize(left, right);
+    }
+
     @Override
     public Object evaluate(Executor executor, Object... arguments) {
         final Object[] args;
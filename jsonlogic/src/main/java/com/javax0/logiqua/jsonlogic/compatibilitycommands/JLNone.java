@@ -5,14 +5,13 @@ import com.javax0.logiqua.*;
 import com.javax0.logiqua.commands.utils.Castor;
 import com.javax0.logiqua.commands.utils.LocalExecutor;
 
-import java.util.HashMap;
-
 @Named.Symbol("none")
 @Operation.Arity(min = 2, max = 2)
+@Operation.Scope(variables = {""}, arguments = 1)
 public class JLNone implements Operation.Macro {
     @Override
     public Object evaluate(Executor executor, Script... args) {
-        final var listArgument = args[0].evaluate();
+        final var listArgument = args[0].evaluateUsing(executor);
         if( listArgument == null ){
             return true;
         }
@@ -21,12 +20,12 @@ public class JLNone implements Operation.Macro {
             throw new IllegalArgumentException("The first argument of the none command must be a list.");
         }
         final var script = args[1];
-        final var map = new HashMap<String, Object>();
-        final var loopExecutor = LocalExecutor.of(map, executor);
+        final var loopExecutor = LocalExecutor.frame(executor, "");
         final var cast = new Castor(loopExecutor);
         for (int i = 0; i < inList.size(); i++) {
+            loopExecutor.step();
             final var item = inList.get(i);
-            map.put("", item.get());
+            loopExecutor.set(0, item.get());
             final var filtered = script.evaluateUsing(loopExecutor);
             if (cast.toBoolean(filtered)
                     .orElseThrow(() -> new IllegalArgumentException("The none script must return a boolean value."))) {
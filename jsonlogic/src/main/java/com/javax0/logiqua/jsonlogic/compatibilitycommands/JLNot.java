@@ -6,6 +6,7 @@ import com.javax0.logiqua.Operation;
 import com.javax0.logiqua.jsonlogic.JsonLogic;
 
 @Named.Symbol("!")
+@Operation.Logical(Operation.Logical.Kind.NOT)
 public class JLNot implements Operation.Function {
     @Override
     public Object evaluate(Executor executor, Object... args) {
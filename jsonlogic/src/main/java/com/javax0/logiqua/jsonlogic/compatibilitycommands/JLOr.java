@@ -8,6 +8,7 @@ import com.javax0.logiqua.jsonlogic.JsonLogic;
 
 @Named.Symbol("or")
 @Operation.Arity(min = 1)
+@Operation.Logical(value = Operation.Logical.Kind.OR, returnsArgument = true)
 public class JLOr implements Operation.Macro {
     @Override
     public Object evaluate(Executor executor, Script... args) {
@@ -17,7 +18,7 @@ public class JLOr implements Operation.Macro {
         Object result = null;
 
         for (final var arg : args) {
-            result = arg.evaluate();
+            result = arg.evaluateUsing(executor);
 
             if (JsonLogic.truthy(result)) {
                 return result;
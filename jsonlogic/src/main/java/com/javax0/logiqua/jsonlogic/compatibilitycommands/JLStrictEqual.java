@@ -6,7 +6,16 @@ import com.javax0.logiqua.Operation;
 
 @Named.Symbol("===")
 @Operation.Arity(min = 2, max = 2)
+@Operation.Guard(Operation.Guard.Kind.EQUAL)
 public class JLStrictEqual implements Operation.Function{
+    @Override
+    public Operation.Binary specialize(Class<?> left, Class<?> right) {
+        if (Number.class.isAssignableFrom(left) && Number.class.isAssignableFrom(right)) {
+            return (executor, l, r) -> ((Number) l).doubleValue() == ((Number) r).doubleValue();
+        }
+        return (executor, l, r) -> l.equals(r);
+    }
+
     @Override
     public Boolean evaluate(Executor executor, Object... args) {
         final var left = args[0];
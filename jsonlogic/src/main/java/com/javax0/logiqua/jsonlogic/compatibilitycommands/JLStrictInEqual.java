@@ -9,6 +9,12 @@ import com.javax0.logiqua.Operation;
 public class JLStrictInEqual implements Operation.Function{
     private final JLStrictEqual delegate = new JLStrictEqual();
 
+    @Override
+    public Operation.Binary specialize(Class<?> left, Class<?> right) {
+        final var equal = delegate.specialize(left, right);
+        return (executor, l, r) -> !(Boolean) equal.evaluate(executor, l, r);
+    }
+
     @Override
     public Object evaluate(Executor executor, Object... args) {
         return !delegate.evaluate(executor, args);
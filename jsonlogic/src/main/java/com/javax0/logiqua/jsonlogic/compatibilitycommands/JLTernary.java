@@ -6,6 +6,7 @@ import com.javax0.logiqua.Operation;
 import com.javax0.logiqua.Script;
 
 @Named.Symbol("?:")
+@Operation.Logical(Operation.Logical.Kind.IF)
 public class JLTernary implements Operation.Macro {
     private final JLIf delegate = new JLIf();
 
@@ -18,6 +18,40 @@ public class CompatibilityTest {
 
     @Test
     void testCompatibility() throws Exception {
+        testCompatibility(new JsonLogic());
+    }
+
+    @Test
+    void testCompatibilityWithoutSpecialization() throws Exception {
+        testCompatibility(new JsonLogic().specializing(false));
+    }
+
+    @Test
+    void testCompatibilityWithCompiledRules() throws Exception {
+        testCompatibility(new JsonLogic(1000));
+    }
+
+    @Test
+    void testCompatibilityWithFlatRules() throws Exception {
+        testCompatibility(new JsonLogic().flattening(true));
+    }
+
+    @Test
+    void testCompatibilityWithOptimizedRules() throws Exception {
+        testCompatibility(new JsonLogic().optimizing(true));
+    }
+
+    @Test
+    void testCompatibilityWithSharedSubexpressions() throws Exception {
+        testCompatibility(new JsonLogic().sharing(true));
+    }
+
+    @Test
+    void testCompatibilityWithFusedLoops() throws Exception {
+        testCompatibility(new JsonLogic().fusing(true));
+    }
+
+    private void testCompatibility(JsonLogic jsonLogic) throws Exception {
         try (final var in = getClass().getClassLoader().getResourceAsStream("test.json")) {
             Assertions.assertNotNull(in);
             final var json = new String(in.readAllBytes(), StandardCharsets.UTF_8);
@@ -35,7 +69,7 @@ public class CompatibilityTest {
                     final var data = itemList.get(1);
                     final var expected = itemList.getLast();
                     final var cmdString = toString(command);
-                    final var result = new JsonLogic().apply(cmdString, data);
+                    final var result = jsonLogic.apply(cmdString, data);
                     Assertions.assertEquals(expected, result,"test for '"+cmdString+"' on "+toString(data)+" has failed");
                 }
 
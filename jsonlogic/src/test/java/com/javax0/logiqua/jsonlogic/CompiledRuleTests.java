@@ -0,0 +1,162 @@
+package com.javax0.logiqua.jsonlogic;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompiledRuleTests {
+    private static final String RULE = """
+            {"and" : [
+                {">" : [{"var" : "age"}, 18]},
+                {"in" : [{"var" : "country"}, ["HU", "DE", "CH"]]}
+            ]}
+            """;
+
+    @Test
+    public void testCompileOnceApplyMany() {
+        final var rule = new JsonLogic().compile(RULE);
+        assertEquals(true, rule.apply(Map.of("age", 42L, "country", "HU")));
+        assertEquals(false, rule.apply(Map.of("age", 12L, "country", "HU")));
+        assertEquals(false, rule.apply(Map.of("age", 42L, "country", "US")));
+        assertEquals(true, rule.apply("""
+                {"age": 19, "country": "CH"}
+                """));
+    }
+
+    @Test
+    public void testCompiledRuleUsesCompatibilityCasters() {
+        final var rule = new JsonLogic().compile("""
+                {"+": [{"var": "a"}, 1]}
+                """);
+        assertEquals(124L, rule.apply(Map.of("a", "123")));
+        assertEquals(3L, rule.apply(Map.of("a", 2L)));
+    }
+
+    @Test
+    public void testCompiledRuleConcurrently() throws Exception {
+        final var rule = new JsonLogic().compile("""
+                {"filter": [{"var": "numbers"}, {">": [{"var": ""}, 2]}]}
+                """);
+        try (final var pool = Executors.newFixedThreadPool(16)) {
+            final var futures = new ArrayList<Future<?>>();
+            for (long t = 0; t < 32; t++) {
+                final var limit = t;
+                futures.add(pool.submit((Callable<Void>) () -> {
+                    for (int i = 0; i < 500; i++) {
+                        assertEquals(List.of(limit + 3, limit + 4),
+                                rule.apply(Map.of("numbers", List.of(1L, 2L, limit + 3, limit + 4))));
+                    }
+                    return null;
+                }));
+            }
+            for (final var future : futures) {
+                future.get();
+            }
+        }
+    }
+
+    @Test
+    public void testCachedApply() {
+        final var jsonLogic = new JsonLogic(1);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(true, jsonLogic.apply(RULE, Map.of("age", 42L, "country", "DE")));
+            assertEquals(6L, jsonLogic.apply("""
+                    {"+": [4, 2]}
+                    """, null));
+            assertEquals(false, jsonLogic.apply(RULE, Map.of("age", 42L, "country", "US")));
+        }
+    }
+
+    @Test
+    public void testOptionsCreateNewInstances() {
+        final var jsonLogic = new JsonLogic(10);
+        assertEquals(true, jsonLogic.apply(RULE, Map.of("age", 42L, "country", "DE")));
+        for (final var other : List.of(jsonLogic.specializing(false), jsonLogic.flattening(true), jsonLogic.optimizing(true),
+                jsonLogic.sharing(true), jsonLogic.fusing(true), jsonLogic.optimizing(true).flattening(true))) {
+            assertNotSame(jsonLogic, other);
+            assertEquals(true, other.apply(RULE, Map.of("age", 42L, "country", "DE")));
+            assertEquals(false, other.apply(RULE, Map.of("age", 42L, "country", "US")));
+        }
+        assertEquals(false, jsonLogic.apply(RULE, Map.of("age", 42L, "country", "US")));
+    }
+
+    @Test
+    public void testNegativeCacheSize() {
+        assertThrows(IllegalArgumentException.class, () -> new JsonLogic(-1));
+    }
+
+    @Test
+    public void testOptimizedRuleReturnsTheDecidingValue() {
+        final var jsonLogic = new JsonLogic().optimizing(true);
+        assertEquals("b", jsonLogic.compile("""
+                {"and": [true, {"var": "a"}, true, "b"]}
+                """).apply(Map.of("a", 1L)));
+        assertEquals(0L, jsonLogic.compile("""
+                {"and": [true, {"var": "a"}, true, "b"]}
+                """).apply(Map.of("a", 0L)));
+        assertEquals(true, jsonLogic.compile("""
+                {"or": [false, {"or": [{"var": "a"}, false]}, true, {"var": "b"}]}
+                """).apply(Map.of("a", "")));
+        assertEquals("x", jsonLogic.compile("""
+                {"if": [false, 1, {"var": "a"}, "x", true, "y", "z"]}
+                """).apply(Map.of("a", true)));
+        assertEquals("y", jsonLogic.compile("""
+                {"if": [false, 1, {"var": "a"}, "x", true, "y", "z"]}
+                """).apply(Map.of("a", false)));
+        assertEquals(true, jsonLogic.compile("""
+                {"!": {"!": {"var": "a"}}}
+                """).apply(Map.of("a", 3L)));
+    }
+
+    @Test
+    public void testCompiledRuleSet() {
+        final var rules = List.of(RULE, """
+                {"if": [{">": [{"var": "age"}, 65]}, "senior", {">": [{"var": "age"}, 18]}, "adult", "minor"]}
+                """, """
+                {"+": [{"var": "age"}, 1]}
+                """);
+        final var ruleSet = new JsonLogic().compile(rules);
+        assertEquals(3, ruleSet.size());
+        assertEquals(List.of(true, "adult", 43L), ruleSet.apply(Map.of("age", 42L, "country", "HU")));
+        assertEquals(List.of(false, "minor", 13L), ruleSet.apply("""
+                {"age": 12, "country": "CH"}
+                """));
+        for (final var data : List.of(Map.of("age", 70L, "country", "US"), Map.of("age", "19", "country", "DE"))) {
+            final var results = ruleSet.apply(data);
+            for (int i = 0; i < rules.size(); i++) {
+                assertEquals(new JsonLogic().compile(rules.get(i)).apply(data), results.get(i));
+            }
+        }
+    }
+
+    @Test
+    public void testCompiledRuleSetWithGuards() {
+        final var rules = List.of("""
+                {"and": [{"==": [{"var": "type"}, "PAYMENT"]}, {">": [{"var": "amount"}, 100]}]}
+                """, """
+                {"in": [{"var": "country"}, ["DE", "AT", "CH"]]}
+                """, """
+                {"and": [{"===": [{"var": "type"}, "REFUND"]}, {"var": "amount"}]}
+                """, """
+                {"==": [{"var": "type"}, {"var": "other"}]}
+                """);
+        final var ruleSet = new JsonLogic().compile(rules);
+        for (final var data : List.of(
+                Map.of("type", "PAYMENT", "amount", 200L, "country", "HU"),
+                Map.of("type", "REFUND", "amount", 0L, "country", "AT"),
+                Map.of("type", 1L, "amount", 7L, "other", "1"),
+                Map.of("amount", 7L))) {
+            final var results = ruleSet.apply(data);
+            for (int i = 0; i < rules.size(); i++) {
+                assertEquals(new JsonLogic().compile(rules.get(i)).apply(data), results.get(i), rules.get(i) + " " + data);
+            }
+        }
+    }
+}
@@ -39,6 +39,7 @@ public class XmlLogiqua implements Logiqua {
 
         final var xml = XmlReader.of(source).read();
 
-        return XmlBuilder.from(xml, engine).build();
+        final var script = XmlBuilder.from(xml, engine).build();
+        return engine.isCompiling() ? engine.compile(script) : script;
     }
 }
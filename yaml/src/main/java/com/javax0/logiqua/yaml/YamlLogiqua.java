@@ -40,6 +40,7 @@ public class YamlLogiqua implements Logiqua {
         final var yaml = YamlReader.of(source).read();
 
 
-        return YamlBuilder.from(yaml, engine).build();
+        final var script = YamlBuilder.from(yaml, engine).build();
+        return engine.isCompiling() ? engine.compile(script) : script;
     }
 }